@@ -0,0 +1,49 @@
+package co.edu.unal.paralela;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del jar de benchmarks.
+ *
+ * Acepta las mismas opciones de línea de comandos que JMH (por ejemplo -p threads=1,2,4 o un filtro
+ * de benchmarks) y siempre agrega el perfilador de GC para reportar la tasa de asignación de memoria.
+ * Los resultados se escriben además en formato JSON para el seguimiento de regresiones.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Archivo por defecto donde se escriben los resultados.
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Constructor.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Ejecuta los benchmarks.
+     *
+     * @param args opciones de JMH
+     * @throws RunnerException si JMH falla al ejecutar
+     * @throws CommandLineOptionException si las opciones no son válidas
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd).addProfiler(GCProfiler.class);
+        if (!cmd.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE).resultFormat(ResultFormatType.JSON);
+        }
+        final Options options = builder.build();
+        new Runner(options).run();
+    }
+}
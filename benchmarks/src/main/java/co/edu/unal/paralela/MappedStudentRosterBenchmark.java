@@ -0,0 +1,164 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JMH del archivo binario de estudiantes: cuánto tarda abrirlo, comparado con leer el mismo grupo
+ * desde CSV, y las consultas de StudentAnalytics directamente sobre el mapeo.
+ *
+ * Las consultas se invocan desde dentro del pool de StudentAnalyticsBenchmark, de modo que el parámetro
+ * threads controla el paralelismo real.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class MappedStudentRosterBenchmark {
+
+    /**
+     * Nombres usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] FIRST_NAMES = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    /**
+     * Apellidos usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] LAST_NAMES = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+
+    /**
+     * Archivos temporales, binario y CSV, con estudiantes generados igual que en StudentAnalyticsTest.
+     */
+    @State(Scope.Benchmark)
+    public static class RosterFile {
+        /**
+         * Cantidad de estudiantes.
+         */
+        @Param({"2000000"})
+        public int nStudents;
+        /**
+         * Archivo binario.
+         */
+        public Path file;
+        /**
+         * Los mismos estudiantes en CSV.
+         */
+        public Path csv;
+        /**
+         * El archivo binario ya abierto, para las consultas.
+         */
+        public MappedStudentRoster roster;
+        /**
+         * Instancia sobre la que se invocan las consultas.
+         */
+        public StudentAnalytics analytics;
+
+        /**
+         * Genera los archivos con una semilla fija y abre el binario.
+         * @throws IOException si falla la escritura
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            final Random r = new Random(123);
+            final Student[] students = new Student[nStudents];
+            for (int s = 0; s < nStudents; s++) {
+                students[s] = new Student(FIRST_NAMES[r.nextInt(FIRST_NAMES.length)],
+                        LAST_NAMES[r.nextInt(LAST_NAMES.length)], r.nextDouble() * 100.0, 1 + r.nextInt(100),
+                        s < nStudents * 3 / 10);
+            }
+            file = Files.createTempFile("students", ".roster");
+            MappedStudentRoster.write(StudentTable.fromStudents(students), file);
+            csv = Files.createTempFile("students", ".csv");
+            StudentCsv.write(students, csv);
+            roster = MappedStudentRoster.open(file);
+            analytics = new StudentAnalytics();
+        }
+
+        /**
+         * Borra los archivos.
+         * @throws IOException si falla el borrado
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.delete(file);
+            Files.delete(csv);
+        }
+    }
+
+    /**
+     * Abre el archivo binario.
+     * @param f archivo de entrada
+     * @return la vista del archivo
+     * @throws IOException si falla la lectura
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedStudentRoster open(final RosterFile f) throws IOException {
+        return MappedStudentRoster.open(f.file);
+    }
+
+    /**
+     * Lee los mismos estudiantes desde CSV a una tabla, como referencia.
+     * @param f archivo de entrada
+     * @param pool pool en el que se ejecuta la lectura
+     * @return la tabla leída
+     */
+    @Benchmark
+    public StudentTable readCsvTable(final RosterFile f, final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt((Callable<StudentTable>) () -> StudentCsv.readTable(f.csv)));
+    }
+
+    /**
+     * Edad promedio de los activos sobre el mapeo.
+     * @param f archivo abierto
+     * @param pool pool en el que se ejecuta la consulta
+     * @return la edad promedio
+     */
+    @Benchmark
+    public double averageAgeOfEnrolledStudentsMapped(final RosterFile f, final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.submit(() -> f.analytics.averageAgeOfEnrolledStudentsMapped(f.roster)).join();
+    }
+
+    /**
+     * Nombre más común de los inactivos sobre el mapeo.
+     * @param f archivo abierto
+     * @param pool pool en el que se ejecuta la consulta
+     * @return el nombre más común
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsMapped(final RosterFile f,
+            final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.submit(() -> f.analytics.mostCommonFirstNameOfInactiveStudentsMapped(f.roster)).join();
+    }
+
+    /**
+     * Cantidad de inactivos mayores de 20 con nota perdida sobre el mapeo.
+     * @param f archivo abierto
+     * @param pool pool en el que se ejecuta la consulta
+     * @return la cantidad
+     */
+    @Benchmark
+    public int countNumberOfFailedStudentsOlderThan20Mapped(final RosterFile f,
+            final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.submit(() -> f.analytics.countNumberOfFailedStudentsOlderThan20Mapped(f.roster)).join();
+    }
+}
@@ -0,0 +1,343 @@
+package co.edu.unal.paralela;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JMH para las versiones secuencial y paralelas de la suma de los recíprocos de un arreglo.
+ *
+ * Cada benchmark sólo usa los estados (y por lo tanto los parámetros) que necesita, de forma que
+ * seqArraySum no se repite para cada combinación de hilos y tareas.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class ReciprocalArraySumBenchmark {
+
+    /**
+     * Arreglo de entrada, generado igual que en ReciprocalArraySumTest.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+        /**
+         * Cantidad de elementos del arreglo.
+         */
+        @Param({"2000", "2000000", "200000000"})
+        public int size;
+        /**
+         * Arreglo de entrada.
+         */
+        public double[] input;
+
+        /**
+         * Crea el arreglo con valores aleatorios distintos de cero.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = new double[size];
+            final Random rand = new Random(314);
+            for (int i = 0; i < size; i++) {
+                input[i] = rand.nextInt(100);
+                // No se permiten valores en cero para evitar la división por cero
+                if (input[i] == 0.0) {
+                    i--;
+                }
+            }
+        }
+    }
+
+    /**
+     * El mismo arreglo de entrada convertido a float[], para medir las versiones para floats.
+     */
+    @State(Scope.Benchmark)
+    public static class FloatInput {
+        /**
+         * Arreglo de entrada.
+         */
+        public float[] input;
+
+        /**
+         * Convierte el arreglo de doubles; los valores son enteros pequeños, así que no cambian.
+         * @param in arreglo de doubles
+         */
+        @Setup(Level.Trial)
+        public void setUp(final Input in) {
+            input = new float[in.input.length];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = (float) in.input[i];
+            }
+        }
+    }
+
+    /**
+     * Lote de muchos arreglos pequeños y medianos, para parBatchArraySum.
+     */
+    @State(Scope.Benchmark)
+    public static class Batch {
+        /**
+         * Cantidad de arreglos del lote.
+         */
+        @Param({"2000"})
+        public int arrays;
+        /**
+         * Longitud máxima de cada arreglo; las longitudes son aleatorias entre 1 y este valor.
+         */
+        @Param({"1000", "20000"})
+        public int maxLength;
+        /**
+         * Arreglos del lote.
+         */
+        public double[][] inputs;
+
+        /**
+         * Crea los arreglos con valores aleatorios distintos de cero.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            inputs = new double[arrays][];
+            final Random rand = new Random(314);
+            for (int a = 0; a < arrays; a++) {
+                inputs[a] = new double[1 + rand.nextInt(maxLength)];
+                for (int i = 0; i < inputs[a].length; i++) {
+                    inputs[a][i] = 1 + rand.nextInt(99);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pool en el que se ejecutan las versiones paralelas, para controlar la cantidad de hilos.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        /**
+         * Paralelismo del pool; 0 significa la cantidad de procesadores disponibles.
+         */
+        @Param({"0"})
+        public int threads;
+        /**
+         * Cutoff secuencial de las tareas; 0 significa calcularlo automáticamente.
+         */
+        @Param({"0"})
+        public int sequentialCutoff;
+        /**
+         * Modo de suma de las versiones paralelas.
+         */
+        @Param({"FAST", "REPRODUCIBLE"})
+        public SummationMode summationMode;
+        /**
+         * Pool de hilos usado por la medición.
+         */
+        public ForkJoinPool pool;
+        /**
+         * Pool de hilos de tamaño fijo para la estrategia FIXED_THREAD_POOL, con el mismo paralelismo.
+         */
+        public ExecutorService executor;
+        /**
+         * Opciones de ejecución con el pool y el cutoff de la medición.
+         */
+        public ReciprocalArraySumOptions options;
+
+        /**
+         * Crea el pool con el paralelismo pedido.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            executor = Executors.newFixedThreadPool(pool.getParallelism());
+            options = ReciprocalArraySumOptions.defaults().withPool(pool).withExecutor(executor).withSequentialCutoff(sequentialCutoff)
+                    .withSummationMode(summationMode);
+        }
+
+        /**
+         * Libera los hilos del pool.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Cantidad de tareas y estrategia de ejecución para parManyTaskArraySum.
+     */
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        /**
+         * Número de tareas; 0 significa la cantidad de procesadores disponibles.
+         */
+        @Param({"0", "16", "64"})
+        public int numTasks;
+        /**
+         * Estrategia con la que se ejecutan las secciones.
+         */
+        @Param({"INVOKE_ALL"})
+        public ExecutionStrategy strategy;
+        /**
+         * Opciones del pool de la medición con la estrategia pedida.
+         */
+        public ReciprocalArraySumOptions options;
+
+        /**
+         * Agrega la estrategia a las opciones del pool.
+         * @param pool pool de la medición
+         */
+        @Setup(Level.Trial)
+        public void setUp(final Pool pool) {
+            options = pool.options.withExecutionStrategy(strategy);
+        }
+
+        /**
+         * Número efectivo de tareas.
+         * @return la cantidad de tareas a crear
+         */
+        public int get() {
+            return numTasks > 0 ? numTasks : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Suma secuencial de referencia.
+     * @param in arreglo de entrada
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double seqArraySum(final Input in) {
+        return ReciprocalArraySum.seqArraySum(in.input);
+    }
+
+    /**
+     * Ciclo interno usado por la suma secuencial.
+     */
+    @State(Scope.Benchmark)
+    public static class Kernel {
+        /**
+         * Ciclo interno a medir.
+         */
+        @Param({"SCALAR", "UNROLLED", "VECTOR"})
+        public ReciprocalKernel kernel;
+        /**
+         * Opciones con el ciclo interno de la medición.
+         */
+        public ReciprocalArraySumOptions options;
+
+        /**
+         * Crea las opciones con el ciclo interno pedido.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            options = ReciprocalArraySumOptions.defaults().withKernel(kernel);
+        }
+    }
+
+    /**
+     * Suma secuencial con cada ciclo interno, para medir el rendimiento por núcleo.
+     * @param in arreglo de entrada
+     * @param kernel ciclo interno
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double seqArraySumKernel(final Input in, final Kernel kernel) {
+        return ReciprocalArraySum.seqArraySum(in.input, kernel.options);
+    }
+
+    /**
+     * Suma secuencial en modo reproducible, para compararla con seqArraySum.
+     * @param in arreglo de entrada
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double seqArraySumReproducible(final Input in) {
+        return ReciprocalArraySum.seqArraySum(in.input, SummationMode.REPRODUCIBLE);
+    }
+
+    /**
+     * Suma paralela con dos tareas.
+     * @param in arreglo de entrada
+     * @param pool pool en el que se ejecutan las tareas
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double parArraySum(final Input in, final Pool pool) {
+        return ReciprocalArraySum.parArraySum(in.input, pool.options);
+    }
+
+    /**
+     * Suma paralela con dos tareas sobre un arreglo de floats, que lee la mitad de memoria que parArraySum.
+     * @param in arreglo de entrada
+     * @param pool pool en el que se ejecutan las tareas
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double parArraySumFloat(final FloatInput in, final Pool pool) {
+        return ReciprocalArraySum.parArraySum(in.input, pool.options);
+    }
+
+    /**
+     * Suma paralela con dos tareas sobre el motor compartido, como la usan los llamados sin pool.
+     * @param in arreglo de entrada
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double parArraySumSharedEngine(final Input in) {
+        return ReciprocalArraySum.parArraySum(in.input);
+    }
+
+    /**
+     * Suma paralela con muchas tareas.
+     * @param in arreglo de entrada
+     * @param pool pool en el que se ejecutan las tareas
+     * @param tasks cantidad de tareas
+     * @return la suma, consumida por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double parManyTaskArraySum(final Input in, final Pool pool, final Tasks tasks) {
+        return ReciprocalArraySum.parManyTaskArraySum(in.input, tasks.get(), tasks.options);
+    }
+
+    /**
+     * Suma de cada arreglo de un lote con una llamada a parArraySum por arreglo, como referencia.
+     * @param batch lote de arreglos
+     * @param pool pool en el que se ejecutan las tareas
+     * @return las sumas, consumidas por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double[] parArraySumEach(final Batch batch, final Pool pool) {
+        final double[] sums = new double[batch.inputs.length];
+        for (int a = 0; a < sums.length; a++) {
+            sums[a] = ReciprocalArraySum.parArraySum(batch.inputs[a], pool.options);
+        }
+        return sums;
+    }
+
+    /**
+     * Suma de cada arreglo de un lote en una sola pasada paralela.
+     * @param batch lote de arreglos
+     * @param pool pool en el que se ejecutan las tareas
+     * @return las sumas, consumidas por JMH para evitar la eliminación de código muerto
+     */
+    @Benchmark
+    public double[] parBatchArraySum(final Batch batch, final Pool pool) {
+        return ReciprocalArraySum.parBatchArraySum(batch.inputs, pool.options);
+    }
+}
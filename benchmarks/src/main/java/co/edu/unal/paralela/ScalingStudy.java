@@ -0,0 +1,437 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Estudio de escalabilidad: ejecuta los benchmarks con JMH variando el paralelismo del pool (parámetro
+ * {@code threads}) y escribe un CSV para graficar y comparar entre versiones.
+ *
+ * Escalabilidad fuerte: el mismo tamaño con 1, 2, ..., N hilos. Para cada benchmark y combinación de los demás
+ * parámetros (tamaño, numTasks, estrategia, ...) se calcula, respecto de la medición con un hilo, el speedup
+ * S(p) = T(1) / T(p), la eficiencia E(p) = S(p) / p y la fracción serial de Karp-Flatt
+ * e(p) = (1 / S(p) - 1 / p) / (1 - 1 / p). Si e crece con p, lo que frena la escalabilidad es el costo de
+ * coordinar los hilos y no una parte serial fija.
+ *
+ * Escalabilidad débil: el tamaño crece con los hilos, base * p, y la eficiencia es T(1, base) / T(p, base * p).
+ * En este estudio no se calcula Karp-Flatt: la fórmula supone el mismo trabajo con cada cantidad de hilos, y
+ * aplicada al speedup escalado no mide una fracción serial.
+ *
+ * El tamaño es el parámetro {@code size} de ReciprocalArraySumBenchmark o {@code nStudents} de los benchmarks de
+ * estudiantes. Los benchmarks secuenciales no tienen el parámetro {@code threads}: JMH los ejecuta una sola vez
+ * por combinación de los demás parámetros y quedan como una fila de un hilo, con speedup y eficiencia 1, que
+ * sirve de referencia para el tiempo de las versiones paralelas.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar co.edu.unal.paralela.ScalingStudy --threads=1,2,4,8 --sizes=2000000 --tasks=8,64
+ * </pre>
+ */
+public final class ScalingStudy {
+    /**
+     * Benchmarks que se ejecutan si no se indica --include.
+     */
+    private static final String DEFAULT_INCLUDE = "(ReciprocalArraySum|StudentAnalytics)Benchmark\\.";
+    /**
+     * Parámetros de JMH que dan el tamaño de la entrada.
+     */
+    private static final String[] SIZE_PARAMS = {"size", "nStudents"};
+    /**
+     * Parámetro de JMH con el paralelismo del pool.
+     */
+    private static final String THREADS_PARAM = "threads";
+    /**
+     * Encabezado del CSV.
+     */
+    private static final String HEADER =
+            "study,benchmark,params,size,threads,score,error,unit,speedup,efficiency,karpFlatt";
+
+    /**
+     * Constructor.
+     */
+    private ScalingStudy() {
+    }
+
+    /**
+     * Ejecuta el estudio.
+     *
+     * Opciones, todas de la forma --nombre=valor y opcionales:
+     * --include (expresión regular de benchmarks), --threads (lista; siempre incluye 1), --sizes (tamaños del
+     * estudio fuerte; por defecto los de cada benchmark), --weak-base (tamaño por hilo del estudio débil; 0 no lo
+     * ejecuta), --tasks (valores de numTasks), --forks, --warmups, --iterations, --seconds (duración de cada
+     * iteración) y --out (archivo CSV; por defecto scaling.csv).
+     *
+     * @param args Opciones
+     * @throws RunnerException si JMH falla al ejecutar
+     * @throws IOException si falla la escritura del CSV
+     */
+    public static void main(final String[] args) throws RunnerException, IOException {
+        final Map<String, String> options = parseOptions(args);
+        final List<Integer> threads = threadCounts(options.get("threads"));
+        final List<Row> rows = new ArrayList<Row>();
+
+        final ChainedOptionsBuilder strong = baseOptions(options)
+                .param(THREADS_PARAM, toStrings(threads));
+        if (options.containsKey("sizes")) {
+            final String[] sizes = options.get("sizes").split(",");
+            for (String sizeParam : SIZE_PARAMS) {
+                strong.param(sizeParam, sizes);
+            }
+        }
+        rows.addAll(strongScaling(new Runner(strong.build()).run()));
+
+        final long weakBase = Long.parseLong(options.getOrDefault("weak-base", "0"));
+        if (weakBase > 0) {
+            final List<RunResult> weak = new ArrayList<RunResult>();
+            // Una ejecución de JMH por cantidad de hilos, para no medir todas las combinaciones de tamaño e hilos.
+            for (int p : threads) {
+                final ChainedOptionsBuilder builder = baseOptions(options).param(THREADS_PARAM, Integer.toString(p));
+                for (String sizeParam : SIZE_PARAMS) {
+                    builder.param(sizeParam, Long.toString(weakBase * p));
+                }
+                weak.addAll(new Runner(builder.build()).run());
+            }
+            rows.addAll(weakScaling(weak));
+        }
+
+        final String out = options.getOrDefault("out", "scaling.csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8))) {
+            writer.println(HEADER);
+            for (Row row : rows) {
+                writer.println(row.toCsv());
+            }
+        }
+        System.out.println("Escalabilidad escrita en " + out + " (" + rows.size() + " filas)");
+    }
+
+    /**
+     * Lee las opciones --nombre=valor.
+     * @param args Argumentos de la línea de comandos
+     * @return Las opciones por nombre
+     */
+    private static Map<String, String> parseOptions(final String[] args) {
+        final Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Se esperaba --nombre=valor pero se recibió " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Arma la lista de hilos: la indicada o las potencias de dos hasta los núcleos disponibles y los núcleos;
+     * siempre empieza en 1, que es la referencia del speedup.
+     * @param value Lista separada por comas, o null
+     * @return Las cantidades de hilos, ordenadas y sin repetir
+     */
+    private static List<Integer> threadCounts(final String value) {
+        final TreeMap<Integer, Boolean> counts = new TreeMap<Integer, Boolean>();
+        counts.put(1, true);
+        if (value != null) {
+            for (String p : value.split(",")) {
+                final int threads = Integer.parseInt(p.trim());
+                if (threads < 1) {
+                    throw new IllegalArgumentException("La cantidad de hilos debe ser positiva: " + threads);
+                }
+                counts.put(threads, true);
+            }
+        } else {
+            final int cores = Runtime.getRuntime().availableProcessors();
+            for (int p = 2; p < cores; p *= 2) {
+                counts.put(p, true);
+            }
+            counts.put(cores, true);
+        }
+        return new ArrayList<Integer>(counts.keySet());
+    }
+
+    /**
+     * Arma las opciones de JMH comunes a todas las ejecuciones: tiempo promedio en milisegundos.
+     * @param options Opciones del estudio
+     * @return Las opciones de JMH
+     */
+    private static ChainedOptionsBuilder baseOptions(final Map<String, String> options) {
+        final TimeValue time = TimeValue.seconds(Long.parseLong(options.getOrDefault("seconds", "1")));
+        final ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(options.getOrDefault("include", DEFAULT_INCLUDE))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .forks(Integer.parseInt(options.getOrDefault("forks", "1")))
+                .warmupIterations(Integer.parseInt(options.getOrDefault("warmups", "3")))
+                .warmupTime(time)
+                .measurementIterations(Integer.parseInt(options.getOrDefault("iterations", "5")))
+                .measurementTime(time);
+        if (options.containsKey("tasks")) {
+            builder.param("numTasks", options.get("tasks").split(","));
+        }
+        return builder;
+    }
+
+    /**
+     * Calcula la escalabilidad fuerte: cada medición contra la del mismo benchmark y parámetros con un hilo.
+     * @param results Resultados de JMH
+     * @return Las filas del CSV
+     */
+    static List<Row> strongScaling(final Collection<RunResult> results) {
+        final Map<String, Double> baselines = new HashMap<String, Double>();
+        for (RunResult result : results) {
+            if (threadsOf(result.getParams()) == 1) {
+                baselines.put(keyOf(result.getParams(), true), result.getPrimaryResult().getScore());
+            }
+        }
+        final List<Row> rows = new ArrayList<Row>();
+        for (RunResult result : results) {
+            rows.add(new Row("strong", result, baselines.get(keyOf(result.getParams(), true))));
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    /**
+     * Calcula la escalabilidad débil: cada medición contra la del mismo benchmark con un hilo y el tamaño base.
+     * @param results Resultados de JMH, con el tamaño proporcional a los hilos
+     * @return Las filas del CSV; el speedup es el escalado, T(1, base) * p / T(p, base * p)
+     */
+    static List<Row> weakScaling(final Collection<RunResult> results) {
+        final Map<String, Double> baselines = new HashMap<String, Double>();
+        for (RunResult result : results) {
+            if (threadsOf(result.getParams()) == 1) {
+                baselines.put(keyOf(result.getParams(), false), result.getPrimaryResult().getScore());
+            }
+        }
+        final List<Row> rows = new ArrayList<Row>();
+        for (RunResult result : results) {
+            final Double baseline = baselines.get(keyOf(result.getParams(), false));
+            // Con p veces el trabajo, el tiempo ideal es el mismo; el speedup escalado es p * T(1) / T(p).
+            rows.add(new Row("weak", result, baseline == null ? null : baseline * threadsOf(result.getParams())));
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    /**
+     * Recupera los hilos de una medición; 0 en el benchmark quiere decir los núcleos disponibles.
+     * @param params Parámetros de la medición
+     * @return La cantidad de hilos, o 1 si el benchmark no tiene el parámetro
+     */
+    private static int threadsOf(final BenchmarkParams params) {
+        final String value = params.getParam(THREADS_PARAM);
+        if (value == null) {
+            return 1;
+        }
+        final int threads = Integer.parseInt(value);
+        return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * Recupera el tamaño de una medición.
+     * @param params Parámetros de la medición
+     * @return El tamaño, o una cadena vacía si el benchmark no tiene parámetro de tamaño
+     */
+    private static String sizeOf(final BenchmarkParams params) {
+        for (String sizeParam : SIZE_PARAMS) {
+            final String value = params.getParam(sizeParam);
+            if (value != null) {
+                return value;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Arma la clave que agrupa las mediciones de una misma serie: el benchmark y los parámetros salvo los hilos
+     * y, en el estudio débil, el tamaño.
+     * @param params Parámetros de la medición
+     * @param withSize verdadero para incluir el tamaño en la clave
+     * @return La clave
+     */
+    private static String keyOf(final BenchmarkParams params, final boolean withSize) {
+        return params.getBenchmark() + "|" + otherParams(params) + (withSize ? "|" + sizeOf(params) : "");
+    }
+
+    /**
+     * Arma los parámetros de una medición salvo los hilos y el tamaño, como nombre=valor separados por ';'.
+     * @param params Parámetros de la medición
+     * @return Los parámetros
+     */
+    private static String otherParams(final BenchmarkParams params) {
+        final StringBuilder builder = new StringBuilder();
+        for (String key : new TreeMap<String, Boolean>(toMap(params.getParamsKeys())).keySet()) {
+            if (key.equals(THREADS_PARAM) || key.equals(SIZE_PARAMS[0]) || key.equals(SIZE_PARAMS[1])) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(key).append('=').append(params.getParam(key));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Convierte una colección de nombres en las claves de un mapa, para ordenarlos.
+     * @param keys Nombres
+     * @return Un mapa con los nombres como claves
+     */
+    private static Map<String, Boolean> toMap(final Collection<String> keys) {
+        final Map<String, Boolean> map = new HashMap<String, Boolean>();
+        for (String key : keys) {
+            map.put(key, true);
+        }
+        return map;
+    }
+
+    /**
+     * Convierte una lista de enteros en cadenas, como las pide JMH.
+     * @param values Enteros
+     * @return Las cadenas
+     */
+    private static String[] toStrings(final List<Integer> values) {
+        final String[] strings = new String[values.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = Integer.toString(values.get(i));
+        }
+        return strings;
+    }
+
+    /**
+     * Fila del CSV: una medición y sus métricas de escalabilidad.
+     */
+    static final class Row implements Comparable<Row> {
+        /**
+         * Estudio: strong o weak.
+         */
+        private final String study;
+        /**
+         * Clave de la serie, para ordenar.
+         */
+        private final String series;
+        /**
+         * Nombre del benchmark.
+         */
+        private final String benchmark;
+        /**
+         * Parámetros salvo los hilos y el tamaño.
+         */
+        private final String params;
+        /**
+         * Tamaño.
+         */
+        private final String size;
+        /**
+         * Cantidad de hilos.
+         */
+        private final int threads;
+        /**
+         * Tiempo promedio.
+         */
+        private final double score;
+        /**
+         * Error del tiempo promedio.
+         */
+        private final double error;
+        /**
+         * Unidad del tiempo.
+         */
+        private final String unit;
+        /**
+         * Speedup respecto de un hilo, o NaN si no hay medición con un hilo.
+         */
+        private final double speedup;
+
+        /**
+         * Constructor.
+         * @param setStudy Estudio: strong o weak
+         * @param result Medición de JMH
+         * @param baseline Tiempo de referencia con un hilo, o null si no se midió
+         */
+        Row(final String setStudy, final RunResult result, final Double baseline) {
+            final BenchmarkParams p = result.getParams();
+            this.study = setStudy;
+            this.benchmark = p.getBenchmark();
+            this.params = otherParams(p);
+            this.size = sizeOf(p);
+            this.threads = threadsOf(p);
+            this.series = keyOf(p, "strong".equals(setStudy));
+            this.score = result.getPrimaryResult().getScore();
+            this.error = result.getPrimaryResult().getScoreError();
+            this.unit = result.getPrimaryResult().getScoreUnit();
+            this.speedup = baseline == null ? Double.NaN : baseline / score;
+        }
+
+        /**
+         * Calcula la eficiencia: speedup / hilos.
+         * @return La eficiencia
+         */
+        double getEfficiency() {
+            return speedup / threads;
+        }
+
+        /**
+         * Calcula la fracción serial de Karp-Flatt.
+         * @return (1 / S - 1 / p) / (1 - 1 / p), o NaN con un hilo o en el estudio débil
+         */
+        double getKarpFlatt() {
+            if (threads == 1 || "weak".equals(study)) {
+                return Double.NaN;
+            }
+            return (1 / speedup - 1.0 / threads) / (1 - 1.0 / threads);
+        }
+
+        /**
+         * Arma la línea del CSV; los valores indefinidos quedan vacíos.
+         * @return La línea
+         */
+        String toCsv() {
+            return study + "," + benchmark + "," + params + "," + size + "," + threads + "," + format(score) + ","
+                    + format(error) + "," + unit + "," + format(speedup) + "," + format(getEfficiency()) + ","
+                    + format(getKarpFlatt());
+        }
+
+        /**
+         * Ordena por estudio, serie y cantidad de hilos.
+         * @param other Otra fila
+         * @return El orden
+         */
+        @Override
+        public int compareTo(final Row other) {
+            final int byStudy = study.compareTo(other.study);
+            if (byStudy != 0) {
+                return byStudy;
+            }
+            final int bySeries = series.compareTo(other.series);
+            return bySeries != 0 ? bySeries : Integer.compare(threads, other.threads);
+        }
+
+        /**
+         * Escribe un número con punto decimal; NaN queda vacío.
+         * @param value Número
+         * @return El texto
+         */
+        private static String format(final double value) {
+            return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.6g", value);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.IntSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JMH para cada par Imperative/ParallelStream de StudentAnalytics, y para las versiones sobre
+ * la tabla por columnas (ParallelTable).
+ *
+ * Las versiones con streams paralelos se invocan desde dentro de un ForkJoinPool propio, de modo que
+ * el stream usa ese pool y el parámetro threads controla el paralelismo real.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g"})
+public class StudentAnalyticsBenchmark {
+
+    /**
+     * Nombres usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] FIRST_NAMES = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    /**
+     * Apellidos usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] LAST_NAMES = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+
+    /**
+     * Todas las consultas, para los benchmarks del recorrido combinado.
+     */
+    private static final Set<RosterQuery> ALL_QUERIES = EnumSet.allOf(RosterQuery.class);
+    /**
+     * La consulta de countNumberOfFailedStudentsOlderThan20 armada con StudentQuery.
+     */
+    private static final StudentQuery FAILED_QUERY = StudentQuery.all().current(false).ageGreaterThan(20).gradeLessThan(65);
+    /**
+     * Una consulta selectiva cuyos límites caen dentro de los grupos del índice.
+     */
+    private static final StudentQuery SELECTIVE_QUERY = StudentQuery.all().current(true).ageBetween(31.5, 33.5).gradeBetween(92, 93);
+    /**
+     * Rangos de edad de 5 años para los benchmarks de agrupamiento.
+     */
+    private static final StudentGrouping AGE_BRACKETS = StudentGrouping.byAgeBracket(5);
+
+    /**
+     * Datos de estudiantes generados igual que en StudentAnalyticsTest.
+     */
+    @State(Scope.Benchmark)
+    public static class Roster {
+        /**
+         * Cantidad de estudiantes.
+         */
+        @Param({"20000", "2000000"})
+        public int nStudents;
+        /**
+         * Fracción de estudiantes activos.
+         */
+        @Param({"0.3"})
+        public double currentFraction;
+        /**
+         * Datos de los estudiantes.
+         */
+        public Student[] students;
+        /**
+         * Los mismos estudiantes guardados por columnas.
+         */
+        public StudentTable table;
+        /**
+         * Índices de bitsets de la tabla.
+         */
+        public StudentIndex index;
+        /**
+         * Instancia sobre la que se invocan las consultas.
+         */
+        public StudentAnalytics analytics;
+
+        /**
+         * Genera los estudiantes con una semilla fija.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            final int nCurrent = (int) (nStudents * currentFraction);
+            final Random r = new Random(123);
+            students = new Student[nStudents];
+            for (int s = 0; s < nStudents; s++) {
+                final String firstName = FIRST_NAMES[r.nextInt(FIRST_NAMES.length)];
+                final String lastName = LAST_NAMES[r.nextInt(LAST_NAMES.length)];
+                final double age = r.nextDouble() * 100.0;
+                final int grade = 1 + r.nextInt(100);
+                students[s] = new Student(firstName, lastName, age, grade, s < nCurrent);
+            }
+            table = StudentTable.fromStudents(students);
+            index = StudentIndex.build(table);
+            analytics = new StudentAnalytics();
+        }
+    }
+
+    /**
+     * Pool en el que se ejecutan los streams paralelos, para controlar la cantidad de hilos.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        /**
+         * Paralelismo del pool; 0 significa la cantidad de procesadores disponibles.
+         */
+        @Param({"0"})
+        public int threads;
+        /**
+         * Pool de hilos usado por la medición.
+         */
+        public ForkJoinPool pool;
+
+        /**
+         * Crea el pool con el paralelismo pedido.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * Libera los hilos del pool.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Edad promedio de los activos, versión imperativa.
+     * @param roster datos de entrada
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public double averageAgeOfEnrolledStudentsImperative(final Roster roster) {
+        return roster.analytics.averageAgeOfEnrolledStudentsImperative(roster.students);
+    }
+
+    /**
+     * Edad promedio de los activos, versión con streams paralelos.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public double averageAgeOfEnrolledStudentsParallelStream(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.averageAgeOfEnrolledStudentsParallelStream(roster.students)));
+    }
+
+    /**
+     * Nombre más común de los inactivos, versión imperativa.
+     * @param roster datos de entrada
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsImperative(final Roster roster) {
+        return roster.analytics.mostCommonFirstNameOfInactiveStudentsImperative(roster.students);
+    }
+
+    /**
+     * Nombre más común de los inactivos, versión con streams paralelos.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsParallelStream(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.mostCommonFirstNameOfInactiveStudentsParallelStream(roster.students)));
+    }
+
+    /**
+     * Nombre más común de los inactivos, versión con histogramas primitivos por hilo.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsHistogram(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.mostCommonFirstNameOfInactiveStudentsHistogram(roster.students)));
+    }
+
+    /**
+     * Nombre más común de los inactivos, versión aproximada con resúmenes Space-Saving de 64 nombres por hilo.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsApproximate(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.mostCommonFirstNameOfInactiveStudentsApproximate(roster.students, 64)));
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20, versión imperativa.
+     * @param roster datos de entrada
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public int countNumberOfFailedStudentsOlderThan20Imperative(final Roster roster) {
+        return roster.analytics.countNumberOfFailedStudentsOlderThan20Imperative(roster.students);
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20, versión con streams paralelos.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public int countNumberOfFailedStudentsOlderThan20ParallelStream(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.countNumberOfFailedStudentsOlderThan20ParallelStream(roster.students)));
+    }
+
+    /**
+     * Edad promedio de los activos, versión sobre la tabla por columnas.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public double averageAgeOfEnrolledStudentsParallelTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.averageAgeOfEnrolledStudentsParallelTable(roster.table)));
+    }
+
+    /**
+     * Nombre más común de los inactivos, versión sobre la tabla por columnas.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public String mostCommonFirstNameOfInactiveStudentsParallelTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.mostCommonFirstNameOfInactiveStudentsParallelTable(roster.table)));
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20, versión sobre la tabla por columnas.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public int countNumberOfFailedStudentsOlderThan20ParallelTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.countNumberOfFailedStudentsOlderThan20ParallelTable(roster.table)));
+    }
+
+    /**
+     * Las tres consultas en un solo recorrido sobre el arreglo de estudiantes.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de las consultas
+     */
+    @Benchmark
+    public RosterReport analyzeAll(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> roster.analytics.analyze(roster.students, ALL_QUERIES)));
+    }
+
+    /**
+     * Las tres consultas en un solo recorrido sobre la tabla por columnas.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de las consultas
+     */
+    @Benchmark
+    public RosterReport analyzeAllTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> roster.analytics.analyze(roster.table, ALL_QUERIES)));
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20, armada con StudentQuery sobre el arreglo de estudiantes.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public long countFailedQuery(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> FAILED_QUERY.count(roster.students)));
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20, armada con StudentQuery sobre la tabla por columnas.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public long countFailedQueryTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> FAILED_QUERY.count(roster.table)));
+    }
+
+    /**
+     * Estudiantes reprobados mayores de 20 con los índices de bitsets; la consulta está alineada con los grupos.
+     * @param roster datos de entrada
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public int countNumberOfFailedStudentsOlderThan20Indexed(final Roster roster) {
+        return roster.analytics.countNumberOfFailedStudentsOlderThan20Indexed(roster.index);
+    }
+
+    /**
+     * Una consulta selectiva que no está alineada con los grupos, así que el índice verifica filas de borde.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public long countSelectiveIndexed(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> roster.index.count(SELECTIVE_QUERY)));
+    }
+
+    /**
+     * La misma consulta selectiva recorriendo la tabla.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return el resultado de la consulta
+     */
+    @Benchmark
+    public long countSelectiveQueryTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> SELECTIVE_QUERY.count(roster.table)));
+    }
+
+    /**
+     * Agrupa por rangos de edad de 5 años con arreglos primitivos por hilo.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return los resultados por grupo
+     */
+    @Benchmark
+    public GroupedStats groupByAgeBracket(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.groupBy(roster.students, AGE_BRACKETS)));
+    }
+
+    /**
+     * Agrupa por rangos de edad de 5 años recorriendo la tabla.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return los resultados por grupo
+     */
+    @Benchmark
+    public GroupedStats groupByAgeBracketTable(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(
+                () -> roster.analytics.groupBy(roster.table, AGE_BRACKETS)));
+    }
+
+    /**
+     * La misma agrupación con Collectors.groupingBy sobre un stream paralelo, como referencia.
+     * @param roster datos de entrada
+     * @param pool pool en el que se ejecuta el stream
+     * @return las estadísticas de nota por grupo
+     */
+    @Benchmark
+    public Map<Long, IntSummaryStatistics> groupByAgeBracketCollectors(final Roster roster, final Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt(() -> Arrays.stream(roster.students)
+                .parallel()
+                .filter(s -> !Double.isNaN(s.getAge()))
+                .collect(Collectors.groupingBy(s -> (long) Math.floor(s.getAge() / 5),
+                        Collectors.summarizingInt(Student::getGrade)))));
+    }
+}
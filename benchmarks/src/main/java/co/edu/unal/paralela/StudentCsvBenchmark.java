@@ -0,0 +1,143 @@
+package co.edu.unal.paralela;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JMH de la lectura de archivos CSV con StudentCsv, comparada con una lectura secuencial con
+ * BufferedReader y String.split.
+ *
+ * La lectura paralela se invoca desde dentro del pool de StudentAnalyticsBenchmark, de modo que el parámetro
+ * threads controla el paralelismo real.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class StudentCsvBenchmark {
+
+    /**
+     * Nombres usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] FIRST_NAMES = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    /**
+     * Apellidos usados para generar los datos, los mismos de StudentAnalyticsTest.
+     */
+    private static final String[] LAST_NAMES = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+
+    /**
+     * Archivo CSV temporal con estudiantes generados igual que en StudentAnalyticsTest.
+     */
+    @State(Scope.Benchmark)
+    public static class CsvFile {
+        /**
+         * Cantidad de estudiantes.
+         */
+        @Param({"2000000"})
+        public int nStudents;
+        /**
+         * Decimales de las edades; las edades cortas se leen por el camino rápido.
+         */
+        @Param({"1", "17"})
+        public int ageDecimals;
+        /**
+         * Archivo generado.
+         */
+        public Path file;
+
+        /**
+         * Genera el archivo con una semilla fija.
+         * @throws IOException si falla la escritura
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            final Random r = new Random(123);
+            final double scale = Math.pow(10, Math.min(ageDecimals, 15));
+            final Student[] students = new Student[nStudents];
+            for (int s = 0; s < nStudents; s++) {
+                final double age = r.nextDouble() * 100.0;
+                students[s] = new Student(FIRST_NAMES[r.nextInt(FIRST_NAMES.length)],
+                        LAST_NAMES[r.nextInt(LAST_NAMES.length)],
+                        ageDecimals >= 17 ? age : Math.round(age * scale) / scale,
+                        1 + r.nextInt(100), s < nStudents * 3 / 10);
+            }
+            file = Files.createTempFile("students", ".csv");
+            StudentCsv.write(students, file);
+        }
+
+        /**
+         * Borra el archivo.
+         * @throws IOException si falla el borrado
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Lectura paralela a una tabla por columnas.
+     * @param csv archivo de entrada
+     * @param pool pool en el que se ejecuta la lectura
+     * @return la tabla leída
+     */
+    @Benchmark
+    public StudentTable readTable(final CsvFile csv, final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt((Callable<StudentTable>) () -> StudentCsv.readTable(csv.file)));
+    }
+
+    /**
+     * Lectura paralela a un arreglo de estudiantes.
+     * @param csv archivo de entrada
+     * @param pool pool en el que se ejecuta la lectura
+     * @return los estudiantes leídos
+     */
+    @Benchmark
+    public Student[] readStudents(final CsvFile csv, final StudentAnalyticsBenchmark.Pool pool) {
+        return pool.pool.invoke(ForkJoinTask.adapt((Callable<Student[]>) () -> StudentCsv.readStudents(csv.file)));
+    }
+
+    /**
+     * Lectura secuencial con BufferedReader y String.split, como referencia.
+     * @param csv archivo de entrada
+     * @return los estudiantes leídos
+     * @throws IOException si falla la lectura
+     */
+    @Benchmark
+    public Student[] readStudentsSequential(final CsvFile csv) throws IOException {
+        final List<Student> students = new ArrayList<Student>();
+        try (BufferedReader in = Files.newBufferedReader(csv.file, StandardCharsets.UTF_8)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                final String[] fields = line.split(",");
+                students.add(new Student(fields[0], fields[1], Double.parseDouble(fields[2]),
+                        Integer.parseInt(fields[3]), Boolean.parseBoolean(fields[4])));
+            }
+        }
+        return students.toArray(new Student[0]);
+    }
+}
@@ -0,0 +1,54 @@
+package co.edu.unal.paralela;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Ciclo interno de {@link ReciprocalKernel#VECTOR} escrito con la API de vectores (jdk.incubator.vector).
+ *
+ * Se compila aparte, solo con JDK 16 o superior y --add-modules jdk.incubator.vector (perfil vector del
+ * pom), y {@link ReciprocalKernel} lo carga por reflexión: si la clase o el módulo no están disponibles al
+ * ejecutar, VECTOR usa el ciclo escalar.
+ */
+final class VectorReciprocalKernel {
+    /**
+     * Ancho de vector preferido por el procesador (por ejemplo 8 doubles con AVX-512).
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Clase de utilidad, no se instancia.
+     */
+    private VectorReciprocalKernel() {
+    }
+
+    /**
+     * Suma los recíprocos del rango [startIndexInclusive, endIndexExclusive) con dos acumuladores vectoriales
+     * independientes; los elementos que no llenan un vector se suman uno a uno.
+     *
+     * @param input Arreglo de entrada
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    static double sum(final double[] input, final int startIndexInclusive, final int endIndexExclusive) {
+        final int lanes = SPECIES.length();
+        final DoubleVector ones = DoubleVector.broadcast(SPECIES, 1);
+        DoubleVector sum0 = DoubleVector.zero(SPECIES);
+        DoubleVector sum1 = DoubleVector.zero(SPECIES);
+        int i = startIndexInclusive;
+        for (; i <= endIndexExclusive - 2 * lanes; i += 2 * lanes) {
+            sum0 = sum0.add(ones.div(DoubleVector.fromArray(SPECIES, input, i)));
+            sum1 = sum1.add(ones.div(DoubleVector.fromArray(SPECIES, input, i + lanes)));
+        }
+        for (; i <= endIndexExclusive - lanes; i += lanes) {
+            sum0 = sum0.add(ones.div(DoubleVector.fromArray(SPECIES, input, i)));
+        }
+        double sum = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+        for (; i < endIndexExclusive; i++) {
+            sum += 1 / input[i];
+        }
+        return sum;
+    }
+}
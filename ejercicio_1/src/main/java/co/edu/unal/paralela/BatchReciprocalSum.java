@@ -0,0 +1,207 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Suma de los recíprocos de muchos arreglos en una sola pasada paralela.
+ *
+ * Con muchos arreglos pequeños, sumar cada uno con parArraySum paga la entrada al pool por arreglo y no
+ * reparte nada por debajo del cutoff. Aquí se planifican unidades de trabajo de alrededor de un cutoff de
+ * elementos sobre todos los arreglos a la vez: los arreglos se recorren en orden y se parten en segmentos, los
+ * pequeños se empaquetan varios en una misma unidad y los que superan la unidad se parten en secciones
+ * iguales (ChunkPartitioner). El plan se guarda en arreglos primitivos, las unidades se reparten con una
+ * sola tarea fork-join y cada segmento escribe su suma en su propia posición; al final las sumas de los
+ * segmentos de cada arreglo se combinan en orden, así que el resultado no depende de los hilos.
+ *
+ * En modo {@link SummationMode#REPRODUCIBLE} los arreglos no se parten en segmentos arbitrarios: cada uno se
+ * suma entero con {@link ReproducibleReciprocalSum}, en paralelo si supera la unidad, y su suma es idéntica
+ * bit a bit a la de seqArraySum en ese modo.
+ */
+final class BatchReciprocalSum {
+    /**
+     * Arreglos de entrada.
+     */
+    private final double[][] inputs;
+    /**
+     * Ciclo interno del modo rápido.
+     */
+    private final ReciprocalKernel kernel;
+    /**
+     * Verdadero en modo rápido, en el que los arreglos se parten en segmentos.
+     */
+    private final boolean split;
+    /**
+     * Cantidad buscada de elementos por unidad.
+     */
+    private final int unitElements;
+    /**
+     * Arreglo de cada segmento.
+     */
+    private final int[] segmentArray;
+    /**
+     * Inicio de cada segmento, inclusivo.
+     */
+    private final int[] segmentStart;
+    /**
+     * Fin de cada segmento, exclusivo.
+     */
+    private final int[] segmentEnd;
+    /**
+     * Suma de los recíprocos de cada segmento.
+     */
+    private final double[] segmentSums;
+    /**
+     * Primer segmento de cada unidad; la última posición es la cantidad de segmentos.
+     */
+    private final int[] unitFirstSegment;
+    /**
+     * Cantidad de unidades.
+     */
+    private int unitCount;
+
+    /**
+     * Constructor: planifica los segmentos y las unidades.
+     * @param setInputs Arreglos de entrada
+     * @param setOptions Opciones de ejecución
+     * @param setUnitElements Cantidad buscada de elementos por unidad
+     */
+    private BatchReciprocalSum(final double[][] setInputs, final ReciprocalArraySumOptions setOptions,
+            final int setUnitElements) {
+        this.inputs = setInputs;
+        this.kernel = setOptions.getKernel();
+        this.split = setOptions.getSummationMode() == SummationMode.FAST;
+        this.unitElements = setUnitElements;
+        int nSegments = 0;
+        for (double[] input : setInputs) {
+            nSegments += input.length == 0 ? 0 : split ? getPieceCount(input.length) : 1;
+        }
+        this.segmentArray = new int[nSegments];
+        this.segmentStart = new int[nSegments];
+        this.segmentEnd = new int[nSegments];
+        this.segmentSums = new double[nSegments];
+        this.unitFirstSegment = new int[nSegments + 1];
+
+        int segment = 0;
+        long unitSize = 0;
+        for (int a = 0; a < setInputs.length; a++) {
+            final int length = setInputs[a].length;
+            final int pieces = length == 0 ? 0 : split ? getPieceCount(length) : 1;
+            for (int piece = 0; piece < pieces; piece++) {
+                final int start = ChunkPartitioner.getChunkStartInclusive(piece, pieces, length);
+                final int end = ChunkPartitioner.getChunkEndExclusive(piece, pieces, length);
+                // Se cierra la unidad actual si el segmento no cabe; un segmento grande queda solo en su unidad.
+                if (unitSize > 0 && unitSize + (end - start) > setUnitElements) {
+                    unitFirstSegment[++unitCount] = segment;
+                    unitSize = 0;
+                }
+                segmentArray[segment] = a;
+                segmentStart[segment] = start;
+                segmentEnd[segment] = end;
+                unitSize += end - start;
+                segment++;
+            }
+        }
+        if (unitSize > 0) {
+            unitFirstSegment[++unitCount] = segment;
+        }
+    }
+
+    /**
+     * Calcula la suma de los recíprocos de cada arreglo.
+     *
+     * @param inputs Arreglos de entrada
+     * @param options Opciones de ejecución; del pool, el cutoff, el ciclo interno y el modo de suma
+     * @return La suma de cada arreglo, en el mismo orden
+     * @throws IllegalArgumentException si algún arreglo es null
+     */
+    static double[] sum(final double[][] inputs, final ReciprocalArraySumOptions options) {
+        long nElements = 0;
+        for (int a = 0; a < inputs.length; a++) {
+            if (inputs[a] == null) {
+                throw new IllegalArgumentException("El arreglo " + a + " del lote es null");
+            }
+            nElements += inputs[a].length;
+        }
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(nElements, pool.getParallelism());
+        final double[] sums = new double[inputs.length];
+        if (nElements <= cutoff) {
+            for (int a = 0; a < inputs.length; a++) {
+                sums[a] = ReciprocalArraySum.seqArraySum(inputs[a], options);
+            }
+            return sums;
+        }
+        final BatchReciprocalSum batch = new BatchReciprocalSum(inputs, options, cutoff);
+        pool.invoke(batch.new UnitTask(0, batch.unitCount));
+        for (int segment = 0; segment < batch.segmentSums.length; segment++) {
+            sums[batch.segmentArray[segment]] += batch.segmentSums[segment];
+        }
+        return sums;
+    }
+
+    /**
+     * Calcula en cuántas secciones se parte un arreglo para que ninguna supere la unidad.
+     * @param length Cantidad de elementos del arreglo
+     * @return La cantidad de secciones
+     */
+    private int getPieceCount(final int length) {
+        return (int) (((long) length + unitElements - 1) / unitElements);
+    }
+
+    /**
+     * Suma los segmentos de una unidad.
+     * @param unit Índice de la unidad
+     */
+    private void sumUnit(final int unit) {
+        for (int segment = unitFirstSegment[unit]; segment < unitFirstSegment[unit + 1]; segment++) {
+            final double[] input = inputs[segmentArray[segment]];
+            if (split) {
+                segmentSums[segment] = kernel.sum(input, segmentStart[segment], segmentEnd[segment]);
+            } else if (input.length > unitElements) {
+                // Se ejecuta en el hilo de esta tarea, sin volver a entrar al pool, con el mismo árbol de bloques
+                // que seqArraySum.
+                final ReproducibleReciprocalSum.ReproducibleSumTask task =
+                        ReproducibleReciprocalSum.newTask(ReciprocalInput.of(input), 1, unitElements);
+                task.invoke();
+                segmentSums[segment] = task.getValue();
+            } else {
+                segmentSums[segment] = ReproducibleReciprocalSum.seqSum(ReciprocalInput.of(input));
+            }
+        }
+    }
+
+    /**
+     * Tarea que reparte un rango de unidades partiéndolo por la mitad hasta llegar a una unidad.
+     */
+    private final class UnitTask extends RecursiveAction {
+        /**
+         * Primera unidad, inclusiva.
+         */
+        private final int loUnit;
+        /**
+         * Última unidad, exclusiva.
+         */
+        private final int hiUnit;
+
+        /**
+         * Constructor.
+         * @param setLoUnit Primera unidad, inclusiva
+         * @param setHiUnit Última unidad, exclusiva
+         */
+        UnitTask(final int setLoUnit, final int setHiUnit) {
+            this.loUnit = setLoUnit;
+            this.hiUnit = setHiUnit;
+        }
+
+        @Override
+        protected void compute() {
+            if (hiUnit - loUnit == 1) {
+                sumUnit(loUnit);
+            } else {
+                final int mid = (loUnit + hiUnit) >>> 1;
+                invokeAll(new UnitTask(loUnit, mid), new UnitTask(mid, hiUnit));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package co.edu.unal.paralela;
+
+/**
+ * Reparto de un rango de elementos en secciones/trozos (chunks) de igual tamaño, compartido por las sumas
+ * de recíprocos y por el motor genérico de reducciones.
+ */
+final class ChunkPartitioner {
+
+    /**
+     * Constructor.
+     */
+    private ChunkPartitioner() {
+    }
+
+    /**
+     * calcula el tamaño de cada trozo o sección, de acuerdo con el número de secciones para crear
+     * a través de un número dado de elementos.
+     *
+     * @param nChunks El número de secciones (chunks) para crear
+     * @param nElements El número de elementos para dividir
+     * @return El tamaño por defecto de la sección (chunk)
+     */
+    static int getChunkSize(final int nChunks, final int nElements) {
+        // Función techo entera
+        return (nElements + nChunks - 1) / nChunks;
+    }
+
+    /**
+     * Calcula el índice del elemento inclusivo donde la sección/trozo (chunk) inicia,
+     * dado que hay cierto número de secciones/trozos (chunks).
+     *
+     * @param chunk la sección/trozo (chunk) para cacular la posición de inicio
+     * @param nChunks Cantidad de secciones/trozos (chunks) creados
+     * @param nElements La cantidad de elementos de la sección/trozo que deben atravesarse
+     * @return El índice inclusivo donde esta sección/trozo (chunk) inicia en el conjunto de 
+     *         nElements
+     */
+    static int getChunkStartInclusive(final int chunk, final int nChunks, final int nElements) {
+        final int chunkSize = getChunkSize(nChunks, nElements);
+        // Cuando hay más secciones que elementos, las últimas quedan vacías al final del rango.
+        return (int) Math.min((long) chunk * chunkSize, nElements);
+    }
+
+    /**
+     * Calcula el índice del elemento exclusivo que es proporcionado al final de la sección/trozo (chunk),
+     * dado que hay cierto número de secciones/trozos (chunks).
+     *
+     * @param chunk La sección para calcular donde termina
+     * @param nChunks Cantidad de secciones/trozos (chunks) creados
+     * @param nElements La cantidad de elementos de la sección/trozo que deben atravesarse
+     * @return El índice de terminación exclusivo para esta sección/trozo (chunk)
+     */
+    static int getChunkEndExclusive(final int chunk, final int nChunks,
+            final int nElements) {
+        final int chunkSize = getChunkSize(nChunks, nElements);
+        final long end = (long) (chunk + 1) * chunkSize;
+        if (end > nElements) {
+            return nElements;
+        } else {
+            return (int) end;
+        }
+    }
+}
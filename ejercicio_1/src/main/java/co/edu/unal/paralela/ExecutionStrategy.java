@@ -0,0 +1,79 @@
+package co.edu.unal.paralela;
+
+/**
+ * Forma de ejecutar las secciones (chunks) de parManyTaskArraySum.
+ *
+ * Todas las estrategias reparten la entrada con {@link ChunkPartitioner} en las mismas secciones y luego
+ * combinan las sumas parciales de las secciones. Las estrategias fork-join además siguen dividiendo cada sección mientras
+ * supere el cutoff secuencial; las demás suman cada sección de corrido con el ciclo interno de las opciones.
+ * La estrategia por defecto se puede cambiar con la propiedad del sistema {@value #STRATEGY_PROPERTY}.
+ */
+public enum ExecutionStrategy {
+    /**
+     * Fork-join con fork() de cada tarea y join() después, en el pool de las opciones.
+     */
+    FORK_JOIN_LOOP,
+    /**
+     * Fork-join con ForkJoinTask.invokeAll, en el pool de las opciones.
+     */
+    INVOKE_ALL,
+    /**
+     * Un pool de hilos de tamaño fijo (el ExecutorService de las opciones) y un Future por sección.
+     */
+    FIXED_THREAD_POOL,
+    /**
+     * Un hilo virtual por sección. En JDKs sin hilos virtuales (antes de Java 21) se comporta como
+     * FIXED_THREAD_POOL, con el pool de tamaño fijo de las opciones, y no con un hilo de plataforma por sección.
+     */
+    VIRTUAL_THREADS,
+    /**
+     * Un stream paralelo sobre las secciones, ejecutado dentro del pool de las opciones.
+     */
+    PARALLEL_STREAM,
+    /**
+     * Un CompletableFuture por sección en el pool de las opciones, combinados con thenCombine.
+     */
+    COMPLETABLE_FUTURE;
+
+    /**
+     * Propiedad del sistema para elegir la estrategia por defecto.
+     */
+    public static final String STRATEGY_PROPERTY = "co.edu.unal.paralela.strategy";
+
+    /**
+     * Estrategia por defecto, leída una sola vez de la propiedad del sistema.
+     */
+    private static final ExecutionStrategy DEFAULT = fromProperty(System.getProperty(STRATEGY_PROPERTY));
+
+    /**
+     * Indica si la estrategia ejecuta tareas fork-join que se siguen dividiendo según el cutoff secuencial.
+     * @return true para FORK_JOIN_LOOP e INVOKE_ALL
+     */
+    public boolean isForkJoin() {
+        return this == FORK_JOIN_LOOP || this == INVOKE_ALL;
+    }
+
+    /**
+     * Recupera la estrategia por defecto.
+     * @return INVOKE_ALL, salvo que la propiedad del sistema indique otra
+     */
+    public static ExecutionStrategy getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Interpreta el valor de la propiedad del sistema.
+     * @param value Valor de la propiedad, o null si no está definida
+     * @return La estrategia correspondiente, o INVOKE_ALL si el valor no está definido o no es válido
+     */
+    private static ExecutionStrategy fromProperty(final String value) {
+        if (value != null) {
+            for (ExecutionStrategy strategy : values()) {
+                if (strategy.name().equalsIgnoreCase(value.trim())) {
+                    return strategy;
+                }
+            }
+        }
+        return INVOKE_ALL;
+    }
+}
@@ -0,0 +1,147 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de ejecución que administra el ciclo de vida del ForkJoinPool usado por las sumas paralelas.
+ *
+ * Existe un motor compartido que se crea de forma perezosa la primera vez que se usa, con paralelismo
+ * acotado a la cantidad de procesadores disponibles. Al cerrarlo con {@link #closeShared()} se liberan
+ * sus hilos y la siguiente llamada crea uno nuevo. También se pueden crear motores propios, o envolver
+ * un pool suministrado por quien llama; en ese caso close() no apaga el pool ajeno.
+ * Para la estrategia {@link ExecutionStrategy#FIXED_THREAD_POOL} el motor crea además, la primera vez que
+ * se pide, un pool de hilos de tamaño fijo con el mismo paralelismo, que siempre se apaga al cerrar el motor.
+ */
+public final class ForkJoinEngine implements AutoCloseable {
+    /**
+     * Tiempo máximo de espera al cerrar un pool propio.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    /**
+     * Motor compartido, creado de forma perezosa.
+     */
+    private static ForkJoinEngine shared;
+
+    /**
+     * Pool sobre el que se ejecutan las tareas.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Si este motor creó el pool y por lo tanto debe apagarlo al cerrarse.
+     */
+    private final boolean ownsPool;
+    /**
+     * Pool de hilos de tamaño fijo, creado de forma perezosa.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Constructor para un motor con su propio pool.
+     * @param setParallelism Cantidad de hilos del pool
+     */
+    public ForkJoinEngine(final int setParallelism) {
+        this(new ForkJoinPool(setParallelism), true);
+    }
+
+    /**
+     * Constructor para un motor que usa un pool suministrado por quien llama.
+     * @param setPool Pool que se usará; no se apaga al cerrar el motor
+     */
+    public ForkJoinEngine(final ForkJoinPool setPool) {
+        this(setPool, false);
+    }
+
+    /**
+     * Constructor.
+     * @param setPool Pool sobre el que se ejecutan las tareas
+     * @param setOwnsPool Si el motor debe apagar el pool al cerrarse
+     */
+    private ForkJoinEngine(final ForkJoinPool setPool, final boolean setOwnsPool) {
+        if (setPool == null) {
+            throw new IllegalArgumentException("pool no puede ser null");
+        }
+        this.pool = setPool;
+        this.ownsPool = setOwnsPool;
+    }
+
+    /**
+     * Recupera el motor compartido, creándolo si no existe o si fue cerrado.
+     * @return El motor compartido
+     */
+    public static synchronized ForkJoinEngine shared() {
+        if (shared == null || shared.pool.isShutdown()) {
+            shared = new ForkJoinEngine(Runtime.getRuntime().availableProcessors());
+        }
+        return shared;
+    }
+
+    /**
+     * Cierra el motor compartido si existe. La siguiente llamada a {@link #shared()} crea uno nuevo.
+     */
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Recupera el pool sobre el que se ejecutan las tareas.
+     * @return El pool de este motor
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Recupera el pool de hilos de tamaño fijo del motor, creándolo si no existe. Sus hilos son daemon,
+     * para que un motor olvidado no impida que termine la JVM.
+     * @return Un ExecutorService con tantos hilos como el paralelismo del pool fork-join
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(pool.getParallelism(), r -> {
+                final Thread thread = new Thread(r, "reciprocal-sum-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Apaga el pool de hilos de tamaño fijo, si se creó, y el pool fork-join si fue creado por este motor,
+     * y espera a que terminen las tareas pendientes.
+     */
+    @Override
+    public void close() {
+        final ExecutorService created;
+        synchronized (this) {
+            created = executor;
+            executor = null;
+        }
+        if (created != null) {
+            created.shutdown();
+            awaitTermination(created);
+        }
+        if (ownsPool) {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+    }
+
+    /**
+     * Espera a que un pool apagado termine sus tareas pendientes, como máximo CLOSE_TIMEOUT_SECONDS.
+     * @param service Pool apagado
+     */
+    private static void awaitTermination(final ExecutorService service) {
+        try {
+            service.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
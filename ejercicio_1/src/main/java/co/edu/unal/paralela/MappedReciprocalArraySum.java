@@ -0,0 +1,185 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Suma de los recíprocos de un archivo de doubles crudos en little-endian, sin cargarlo en el heap.
+ *
+ * Cada hoja de las tareas fork-join mapea con FileChannel.map sólo su propia región del archivo, así que
+ * el archivo puede ser mucho más grande que el heap (y que los 2 GB que admite un solo MappedByteBuffer)
+ * y no se hace ninguna copia. Las regiones se cortan en múltiplos de {@link #PAGE_SIZE} bytes para que cada
+ * mapeo empiece en un límite de página.
+ */
+public final class MappedReciprocalArraySum {
+    /**
+     * Tamaño de página con el que se alinean las regiones mapeadas.
+     */
+    static final int PAGE_SIZE = 4096;
+    /**
+     * Cantidad de doubles en una página.
+     */
+    static final int PAGE_ELEMENTS = PAGE_SIZE / Double.BYTES;
+    /**
+     * Cantidad máxima de elementos de una hoja (128 MB mapeados a la vez por hoja).
+     */
+    static final int MAX_LEAF_ELEMENTS = 1 << 24;
+
+    /**
+     * Constructor.
+     */
+    private MappedReciprocalArraySum() {
+    }
+
+    /**
+     * Calcula en paralelo, sobre el motor compartido, la suma de los recíprocos de un archivo de doubles.
+     *
+     * @param path Archivo de doubles crudos en little-endian
+     * @return La suma de los recíprocos de los valores del archivo
+     * @throws IOException si el archivo no se puede leer
+     */
+    public static double sumFile(final Path path) throws IOException {
+        return sumFile(path, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula en paralelo la suma de los recíprocos de un archivo de doubles, con el pool y el cutoff
+     * secuencial de las opciones. El cutoff se redondea hacia arriba a un múltiplo de página.
+     *
+     * @param path Archivo de doubles crudos en little-endian
+     * @param options Opciones de ejecución; sólo se admite el modo de suma FAST
+     * @return La suma de los recíprocos de los valores del archivo
+     * @throws IOException si el archivo no se puede leer
+     */
+    public static double sumFile(final Path path, final ReciprocalArraySumOptions options) throws IOException {
+        if (options.getSummationMode() != SummationMode.FAST) {
+            throw new IllegalArgumentException("La suma sobre archivos sólo admite el modo FAST");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size % Double.BYTES != 0) {
+                throw new IllegalArgumentException("El tamaño de " + path + " no es múltiplo de " + Double.BYTES + ": " + size);
+            }
+            final long nElements = size / Double.BYTES;
+            if (nElements == 0) {
+                return 0;
+            }
+            final ForkJoinPool pool = options.getPool();
+            final int cutoff = toLeafSize(options.sequentialCutoffFor(nElements, pool.getParallelism()));
+            final MappedSumTask task = new MappedSumTask(channel, 0, nElements, cutoff);
+            try {
+                pool.invoke(task);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return task.value;
+        }
+    }
+
+    /**
+     * Ajusta un cutoff a un tamaño de hoja válido: múltiplo de página y sin superar MAX_LEAF_ELEMENTS.
+     *
+     * @param cutoff Cutoff secuencial pedido
+     * @return El tamaño de hoja en elementos
+     */
+    private static int toLeafSize(final int cutoff) {
+        final int pages = Math.max(1, (Math.min(cutoff, MAX_LEAF_ELEMENTS) + PAGE_ELEMENTS - 1) / PAGE_ELEMENTS);
+        return pages * PAGE_ELEMENTS;
+    }
+
+    /**
+     * Tarea que suma los recíprocos de una región del archivo, partiéndola en límites de página.
+     */
+    private static final class MappedSumTask extends RecursiveAction {
+        /**
+         * Canal del archivo; FileChannel.map se puede llamar desde varios hilos a la vez.
+         */
+        private final FileChannel channel;
+        /**
+         * Primer elemento de la región, inclusivo.
+         */
+        private final long startElementInclusive;
+        /**
+         * Último elemento de la región, exclusivo.
+         */
+        private final long endElementExclusive;
+        /**
+         * Cantidad máxima de elementos que esta tarea mapea y suma sin dividirse.
+         */
+        private final int leafElements;
+        /**
+         * Valor producido por esta tarea.
+         */
+        private double value;
+
+        /**
+         * Constructor.
+         * @param setChannel Canal del archivo
+         * @param setStartElementInclusive Primer elemento de la región, alineado a página
+         * @param setEndElementExclusive Último elemento de la región, exclusivo
+         * @param setLeafElements Cantidad máxima de elementos de una hoja, múltiplo de página
+         */
+        MappedSumTask(final FileChannel setChannel, final long setStartElementInclusive, final long setEndElementExclusive,
+                final int setLeafElements) {
+            this.channel = setChannel;
+            this.startElementInclusive = setStartElementInclusive;
+            this.endElementExclusive = setEndElementExclusive;
+            this.leafElements = setLeafElements;
+        }
+
+        @Override
+        protected void compute() {
+            final long length = endElementExclusive - startElementInclusive;
+            if (length <= leafElements) {
+                value = sumRegion();
+            } else {
+                // El punto medio se alinea a página; como la región tiene más de una hoja, queda estrictamente adentro.
+                final long pages = (length + PAGE_ELEMENTS - 1) / PAGE_ELEMENTS;
+                final long mid = startElementInclusive + (pages / 2) * PAGE_ELEMENTS;
+                final MappedSumTask left = new MappedSumTask(channel, startElementInclusive, mid, leafElements);
+                final MappedSumTask right = new MappedSumTask(channel, mid, endElementExclusive, leafElements);
+                invokeAll(left, right);
+                value = left.value + right.value;
+            }
+        }
+
+        /**
+         * Mapea la región de esta tarea y suma sus recíprocos con varios acumuladores independientes.
+         *
+         * @return La suma de los recíprocos de la región
+         */
+        private double sumRegion() {
+            final int n = (int) (endElementExclusive - startElementInclusive);
+            final DoubleBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, startElementInclusive * Double.BYTES, (long) n * Double.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asDoubleBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            int i = 0;
+            for (; i < n - (ReciprocalKernel.LANES - 1); i += ReciprocalKernel.LANES) {
+                sum0 += 1 / buffer.get(i);
+                sum1 += 1 / buffer.get(i + 1);
+                sum2 += 1 / buffer.get(i + 2);
+                sum3 += 1 / buffer.get(i + 3);
+            }
+            for (; i < n; i++) {
+                sum0 += 1 / buffer.get(i);
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+    }
+}
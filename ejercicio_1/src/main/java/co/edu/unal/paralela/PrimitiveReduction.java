@@ -0,0 +1,566 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Motor genérico de reducciones paralelas sobre arreglos primitivos, con el mismo reparto en secciones
+ * (ChunkPartitioner) y el mismo criterio de caso base (SequentialCutoff) que la suma de recíprocos.
+ *
+ * Una reducción aplica a cada elemento una función (mapper) y combina los resultados con una operación
+ * asociativa (combiner) que tiene un elemento identidad; por ejemplo, la suma de recíprocos es
+ * mapper = x -&gt; 1 / x, combiner = suma e identidad 0. Todo se hace sobre tipos primitivos, sin boxing, y
+ * la única memoria que se reserva son los objetos de las tareas. Los int se reducen como long para que
+ * sumas y productos no se desborden a 32 bits. Del objeto de opciones sólo se usan el pool y el cutoff.
+ */
+public final class PrimitiveReduction {
+
+    /**
+     * Constructor.
+     */
+    private PrimitiveReduction() {
+    }
+
+    /**
+     * Rechaza una cantidad de secciones menor que 1.
+     * @param numTasks El número de secciones
+     */
+    private static void requirePositiveTasks(final int numTasks) {
+        if (numTasks < 1) {
+            throw new IllegalArgumentException("La cantidad de secciones debe ser positiva: " + numTasks);
+        }
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de doubles, con una sección por hilo del pool de las opciones.
+     *
+     * @param input Arreglo de entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que se aplica a cada elemento
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     */
+    public static double reduce(final double[] input, final double identity, final DoubleUnaryOperator mapper,
+            final DoubleBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        final ForkJoinPool pool = options.getPool();
+        return reduce(input, pool.getParallelism(), identity, mapper, combiner, options);
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de doubles, partiéndolo en numTasks secciones que se siguen dividiendo
+     * si superan el cutoff secuencial.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones en las que se reparte la entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que se aplica a cada elemento
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    public static double reduce(final double[] input, final int numTasks, final double identity,
+            final DoubleUnaryOperator mapper, final DoubleBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        requirePositiveTasks(numTasks);
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(input.length, pool.getParallelism());
+        if (input.length <= cutoff) {
+            return DoubleReduceTask.fold(input, 0, input.length, identity, mapper, combiner);
+        }
+        final DoubleReduceTask[] tasks = new DoubleReduceTask[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            tasks[i] = new DoubleReduceTask(input, ChunkPartitioner.getChunkStartInclusive(i, numTasks, input.length),
+                    ChunkPartitioner.getChunkEndExclusive(i, numTasks, input.length), cutoff, identity, mapper, combiner);
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        double result = identity;
+        for (DoubleReduceTask task : tasks) {
+            result = combiner.applyAsDouble(result, task.value);
+        }
+        return result;
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de longs, con una sección por hilo del pool de las opciones.
+     *
+     * @param input Arreglo de entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que se aplica a cada elemento
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     */
+    public static long reduce(final long[] input, final long identity, final LongUnaryOperator mapper,
+            final LongBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        final ForkJoinPool pool = options.getPool();
+        return reduce(input, pool.getParallelism(), identity, mapper, combiner, options);
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de longs, partiéndolo en numTasks secciones que se siguen dividiendo
+     * si superan el cutoff secuencial.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones en las que se reparte la entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que se aplica a cada elemento
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    public static long reduce(final long[] input, final int numTasks, final long identity,
+            final LongUnaryOperator mapper, final LongBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        requirePositiveTasks(numTasks);
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(input.length, pool.getParallelism());
+        if (input.length <= cutoff) {
+            return LongReduceTask.fold(input, 0, input.length, identity, mapper, combiner);
+        }
+        final LongReduceTask[] tasks = new LongReduceTask[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            tasks[i] = new LongReduceTask(input, ChunkPartitioner.getChunkStartInclusive(i, numTasks, input.length),
+                    ChunkPartitioner.getChunkEndExclusive(i, numTasks, input.length), cutoff, identity, mapper, combiner);
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        long result = identity;
+        for (LongReduceTask task : tasks) {
+            result = combiner.applyAsLong(result, task.value);
+        }
+        return result;
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de ints, con una sección por hilo del pool de las opciones.
+     *
+     * @param input Arreglo de entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que lleva cada elemento a long
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     */
+    public static long reduce(final int[] input, final long identity, final IntToLongFunction mapper,
+            final LongBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        final ForkJoinPool pool = options.getPool();
+        return reduce(input, pool.getParallelism(), identity, mapper, combiner, options);
+    }
+
+    /**
+     * Reduce en paralelo un arreglo de ints, partiéndolo en numTasks secciones que se siguen dividiendo
+     * si superan el cutoff secuencial.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones en las que se reparte la entrada
+     * @param identity Elemento identidad del combiner
+     * @param mapper Función que lleva cada elemento a long
+     * @param combiner Operación asociativa que combina los resultados
+     * @param options Opciones de ejecución
+     * @return combiner aplicado sobre mapper(x) para todos los x de la entrada, o identity si está vacía
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    public static long reduce(final int[] input, final int numTasks, final long identity,
+            final IntToLongFunction mapper, final LongBinaryOperator combiner, final ReciprocalArraySumOptions options) {
+        requirePositiveTasks(numTasks);
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(input.length, pool.getParallelism());
+        if (input.length <= cutoff) {
+            return IntReduceTask.fold(input, 0, input.length, identity, mapper, combiner);
+        }
+        final IntReduceTask[] tasks = new IntReduceTask[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            tasks[i] = new IntReduceTask(input, ChunkPartitioner.getChunkStartInclusive(i, numTasks, input.length),
+                    ChunkPartitioner.getChunkEndExclusive(i, numTasks, input.length), cutoff, identity, mapper, combiner);
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        long result = identity;
+        for (IntReduceTask task : tasks) {
+            result = combiner.applyAsLong(result, task.value);
+        }
+        return result;
+    }
+
+    /**
+     * Suma en paralelo los elementos de un arreglo de doubles.
+     * @param input Arreglo de entrada
+     * @return La suma de los elementos
+     */
+    public static double sum(final double[] input) {
+        return reduce(input, 0, DoubleUnaryOperator.identity(), Double::sum, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Suma en paralelo los cuadrados de los elementos de un arreglo de doubles.
+     * @param input Arreglo de entrada
+     * @return La suma de los cuadrados
+     */
+    public static double sumOfSquares(final double[] input) {
+        return reduce(input, 0, x -> x * x, Double::sum, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Multiplica en paralelo los elementos de un arreglo de doubles.
+     * @param input Arreglo de entrada
+     * @return El producto de los elementos, o 1 si está vacío
+     */
+    public static double product(final double[] input) {
+        return reduce(input, 1, DoubleUnaryOperator.identity(), (a, b) -> a * b, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula en paralelo el mínimo de un arreglo de doubles.
+     * @param input Arreglo de entrada
+     * @return El menor elemento, o infinito positivo si está vacío
+     */
+    public static double min(final double[] input) {
+        return reduce(input, Double.POSITIVE_INFINITY, DoubleUnaryOperator.identity(), Math::min,
+                ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula en paralelo el máximo de un arreglo de doubles.
+     * @param input Arreglo de entrada
+     * @return El mayor elemento, o infinito negativo si está vacío
+     */
+    public static double max(final double[] input) {
+        return reduce(input, Double.NEGATIVE_INFINITY, DoubleUnaryOperator.identity(), Math::max,
+                ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Suma en paralelo los elementos de un arreglo de longs.
+     * @param input Arreglo de entrada
+     * @return La suma de los elementos
+     */
+    public static long sum(final long[] input) {
+        return reduce(input, 0L, LongUnaryOperator.identity(), Long::sum, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula en paralelo el mínimo de un arreglo de longs.
+     * @param input Arreglo de entrada
+     * @return El menor elemento, o Long.MAX_VALUE si está vacío
+     */
+    public static long min(final long[] input) {
+        return reduce(input, Long.MAX_VALUE, LongUnaryOperator.identity(), Math::min, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula en paralelo el máximo de un arreglo de longs.
+     * @param input Arreglo de entrada
+     * @return El mayor elemento, o Long.MIN_VALUE si está vacío
+     */
+    public static long max(final long[] input) {
+        return reduce(input, Long.MIN_VALUE, LongUnaryOperator.identity(), Math::max, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Suma en paralelo los elementos de un arreglo de ints, acumulando en long.
+     * @param input Arreglo de entrada
+     * @return La suma de los elementos
+     */
+    public static long sum(final int[] input) {
+        return reduce(input, 0L, x -> x, Long::sum, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Suma en paralelo los cuadrados de los elementos de un arreglo de ints, acumulando en long.
+     * @param input Arreglo de entrada
+     * @return La suma de los cuadrados
+     */
+    public static long sumOfSquares(final int[] input) {
+        return reduce(input, 0L, x -> (long) x * x, Long::sum, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Tarea de reducción sobre una sección de un arreglo de doubles.
+     */
+    private static final class DoubleReduceTask extends RecursiveAction {
+        /**
+         * Arreglo de entrada.
+         */
+        private final double[] input;
+        /**
+         * Índice inicial de la sección, inclusivo.
+         */
+        private final int startIndexInclusive;
+        /**
+         * Índice final de la sección, exclusivo.
+         */
+        private final int endIndexExclusive;
+        /**
+         * Cantidad máxima de elementos del caso base.
+         */
+        private final int sequentialCutoff;
+        /**
+         * Elemento identidad del combiner.
+         */
+        private final double identity;
+        /**
+         * Función que se aplica a cada elemento.
+         */
+        private final DoubleUnaryOperator mapper;
+        /**
+         * Operación asociativa que combina los resultados.
+         */
+        private final DoubleBinaryOperator combiner;
+        /**
+         * Valor producido por esta tarea.
+         */
+        private double value;
+
+        /**
+         * Constructor.
+         * @param setInput Arreglo de entrada
+         * @param setStartIndexInclusive Índice inicial, inclusivo
+         * @param setEndIndexExclusive Índice final, exclusivo
+         * @param setSequentialCutoff Cantidad máxima de elementos del caso base
+         * @param setIdentity Elemento identidad del combiner
+         * @param setMapper Función que se aplica a cada elemento
+         * @param setCombiner Operación asociativa que combina los resultados
+         */
+        DoubleReduceTask(final double[] setInput, final int setStartIndexInclusive, final int setEndIndexExclusive,
+                final int setSequentialCutoff, final double setIdentity, final DoubleUnaryOperator setMapper,
+                final DoubleBinaryOperator setCombiner) {
+            this.input = setInput;
+            this.startIndexInclusive = setStartIndexInclusive;
+            this.endIndexExclusive = setEndIndexExclusive;
+            this.sequentialCutoff = setSequentialCutoff;
+            this.identity = setIdentity;
+            this.mapper = setMapper;
+            this.combiner = setCombiner;
+        }
+
+        /**
+         * Reduce secuencialmente un rango.
+         *
+         * @param input Arreglo de entrada
+         * @param start Índice inicial, inclusivo
+         * @param end Índice final, exclusivo
+         * @param identity Elemento identidad del combiner
+         * @param mapper Función que se aplica a cada elemento
+         * @param combiner Operación asociativa que combina los resultados
+         * @return La reducción del rango
+         */
+        static double fold(final double[] input, final int start, final int end, final double identity,
+                final DoubleUnaryOperator mapper, final DoubleBinaryOperator combiner) {
+            double acc = identity;
+            for (int i = start; i < end; i++) {
+                acc = combiner.applyAsDouble(acc, mapper.applyAsDouble(input[i]));
+            }
+            return acc;
+        }
+
+        @Override
+        protected void compute() {
+            if (SequentialCutoff.isLeaf(endIndexExclusive - startIndexInclusive, sequentialCutoff)) {
+                value = fold(input, startIndexInclusive, endIndexExclusive, identity, mapper, combiner);
+            } else {
+                final int mid = (startIndexInclusive + endIndexExclusive) >>> 1;
+                final DoubleReduceTask left = new DoubleReduceTask(input, startIndexInclusive, mid, sequentialCutoff,
+                        identity, mapper, combiner);
+                final DoubleReduceTask right = new DoubleReduceTask(input, mid, endIndexExclusive, sequentialCutoff,
+                        identity, mapper, combiner);
+                invokeAll(left, right);
+                value = combiner.applyAsDouble(left.value, right.value);
+            }
+        }
+    }
+
+    /**
+     * Tarea de reducción sobre una sección de un arreglo de longs.
+     */
+    private static final class LongReduceTask extends RecursiveAction {
+        /**
+         * Arreglo de entrada.
+         */
+        private final long[] input;
+        /**
+         * Índice inicial de la sección, inclusivo.
+         */
+        private final int startIndexInclusive;
+        /**
+         * Índice final de la sección, exclusivo.
+         */
+        private final int endIndexExclusive;
+        /**
+         * Cantidad máxima de elementos del caso base.
+         */
+        private final int sequentialCutoff;
+        /**
+         * Elemento identidad del combiner.
+         */
+        private final long identity;
+        /**
+         * Función que se aplica a cada elemento.
+         */
+        private final LongUnaryOperator mapper;
+        /**
+         * Operación asociativa que combina los resultados.
+         */
+        private final LongBinaryOperator combiner;
+        /**
+         * Valor producido por esta tarea.
+         */
+        private long value;
+
+        /**
+         * Constructor.
+         * @param setInput Arreglo de entrada
+         * @param setStartIndexInclusive Índice inicial, inclusivo
+         * @param setEndIndexExclusive Índice final, exclusivo
+         * @param setSequentialCutoff Cantidad máxima de elementos del caso base
+         * @param setIdentity Elemento identidad del combiner
+         * @param setMapper Función que se aplica a cada elemento
+         * @param setCombiner Operación asociativa que combina los resultados
+         */
+        LongReduceTask(final long[] setInput, final int setStartIndexInclusive, final int setEndIndexExclusive,
+                final int setSequentialCutoff, final long setIdentity, final LongUnaryOperator setMapper,
+                final LongBinaryOperator setCombiner) {
+            this.input = setInput;
+            this.startIndexInclusive = setStartIndexInclusive;
+            this.endIndexExclusive = setEndIndexExclusive;
+            this.sequentialCutoff = setSequentialCutoff;
+            this.identity = setIdentity;
+            this.mapper = setMapper;
+            this.combiner = setCombiner;
+        }
+
+        /**
+         * Reduce secuencialmente un rango.
+         *
+         * @param input Arreglo de entrada
+         * @param start Índice inicial, inclusivo
+         * @param end Índice final, exclusivo
+         * @param identity Elemento identidad del combiner
+         * @param mapper Función que se aplica a cada elemento
+         * @param combiner Operación asociativa que combina los resultados
+         * @return La reducción del rango
+         */
+        static long fold(final long[] input, final int start, final int end, final long identity,
+                final LongUnaryOperator mapper, final LongBinaryOperator combiner) {
+            long acc = identity;
+            for (int i = start; i < end; i++) {
+                acc = combiner.applyAsLong(acc, mapper.applyAsLong(input[i]));
+            }
+            return acc;
+        }
+
+        @Override
+        protected void compute() {
+            if (SequentialCutoff.isLeaf(endIndexExclusive - startIndexInclusive, sequentialCutoff)) {
+                value = fold(input, startIndexInclusive, endIndexExclusive, identity, mapper, combiner);
+            } else {
+                final int mid = (startIndexInclusive + endIndexExclusive) >>> 1;
+                final LongReduceTask left = new LongReduceTask(input, startIndexInclusive, mid, sequentialCutoff,
+                        identity, mapper, combiner);
+                final LongReduceTask right = new LongReduceTask(input, mid, endIndexExclusive, sequentialCutoff,
+                        identity, mapper, combiner);
+                invokeAll(left, right);
+                value = combiner.applyAsLong(left.value, right.value);
+            }
+        }
+    }
+
+    /**
+     * Tarea de reducción sobre una sección de un arreglo de ints, acumulando en long.
+     */
+    private static final class IntReduceTask extends RecursiveAction {
+        /**
+         * Arreglo de entrada.
+         */
+        private final int[] input;
+        /**
+         * Índice inicial de la sección, inclusivo.
+         */
+        private final int startIndexInclusive;
+        /**
+         * Índice final de la sección, exclusivo.
+         */
+        private final int endIndexExclusive;
+        /**
+         * Cantidad máxima de elementos del caso base.
+         */
+        private final int sequentialCutoff;
+        /**
+         * Elemento identidad del combiner.
+         */
+        private final long identity;
+        /**
+         * Función que lleva cada elemento a long.
+         */
+        private final IntToLongFunction mapper;
+        /**
+         * Operación asociativa que combina los resultados.
+         */
+        private final LongBinaryOperator combiner;
+        /**
+         * Valor producido por esta tarea.
+         */
+        private long value;
+
+        /**
+         * Constructor.
+         * @param setInput Arreglo de entrada
+         * @param setStartIndexInclusive Índice inicial, inclusivo
+         * @param setEndIndexExclusive Índice final, exclusivo
+         * @param setSequentialCutoff Cantidad máxima de elementos del caso base
+         * @param setIdentity Elemento identidad del combiner
+         * @param setMapper Función que lleva cada elemento a long
+         * @param setCombiner Operación asociativa que combina los resultados
+         */
+        IntReduceTask(final int[] setInput, final int setStartIndexInclusive, final int setEndIndexExclusive,
+                final int setSequentialCutoff, final long setIdentity, final IntToLongFunction setMapper,
+                final LongBinaryOperator setCombiner) {
+            this.input = setInput;
+            this.startIndexInclusive = setStartIndexInclusive;
+            this.endIndexExclusive = setEndIndexExclusive;
+            this.sequentialCutoff = setSequentialCutoff;
+            this.identity = setIdentity;
+            this.mapper = setMapper;
+            this.combiner = setCombiner;
+        }
+
+        /**
+         * Reduce secuencialmente un rango.
+         *
+         * @param input Arreglo de entrada
+         * @param start Índice inicial, inclusivo
+         * @param end Índice final, exclusivo
+         * @param identity Elemento identidad del combiner
+         * @param mapper Función que lleva cada elemento a long
+         * @param combiner Operación asociativa que combina los resultados
+         * @return La reducción del rango
+         */
+        static long fold(final int[] input, final int start, final int end, final long identity,
+                final IntToLongFunction mapper, final LongBinaryOperator combiner) {
+            long acc = identity;
+            for (int i = start; i < end; i++) {
+                acc = combiner.applyAsLong(acc, mapper.applyAsLong(input[i]));
+            }
+            return acc;
+        }
+
+        @Override
+        protected void compute() {
+            if (SequentialCutoff.isLeaf(endIndexExclusive - startIndexInclusive, sequentialCutoff)) {
+                value = fold(input, startIndexInclusive, endIndexExclusive, identity, mapper, combiner);
+            } else {
+                final int mid = (startIndexInclusive + endIndexExclusive) >>> 1;
+                final IntReduceTask left = new IntReduceTask(input, startIndexInclusive, mid, sequentialCutoff,
+                        identity, mapper, combiner);
+                final IntReduceTask right = new IntReduceTask(input, mid, endIndexExclusive, sequentialCutoff,
+                        identity, mapper, combiner);
+                invokeAll(left, right);
+                value = combiner.applyAsLong(left.value, right.value);
+            }
+        }
+    }
+}
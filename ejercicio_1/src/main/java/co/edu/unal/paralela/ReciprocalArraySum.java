@@ -1,12 +1,33 @@
 package co.edu.unal.paralela;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
 
 /**
  * Clase que contiene los métodos para implementar la suma de los recíprocos de un arreglo usando paralelismo.
  */
 public final class ReciprocalArraySum {
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor, o null si el JDK no tiene hilos virtuales.
+     */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+    /**
+     * Separación, en doubles, entre los resultados de dos secciones vecinas de parManyTaskArraySum: 128 bytes,
+     * dos líneas de caché, porque algunos procesadores traen las líneas de a pares.
+     */
+    static final int PARTIAL_STRIDE = 16;
 
     /**
      * Constructor.
@@ -21,62 +42,84 @@ public final class ReciprocalArraySum {
      * @return La suma de los recíprocos del arreglo de entrada
      */
     protected static double seqArraySum(final double[] input) {
-        double sum = 0;
-
         // Calcula la suma de los recíprocos de los elementos del arreglo
-        for (int i = 0; i < input.length; i++) {
-            sum += 1 / input[i];
-        }
+        return ReciprocalKernel.getDefault().sum(input, 0, input.length);
+    }
 
-        return sum;
+    /**
+     * Calcula secuencialmente la suma de valores recíprocos para un arreglo, en el modo de suma indicado.
+     * En modo {@link SummationMode#REPRODUCIBLE} el resultado es idéntico bit a bit al de las versiones
+     * paralelas en el mismo modo.
+     *
+     * @param input Arreglo de entrada
+     * @param mode Modo de suma
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double seqArraySum(final double[] input, final SummationMode mode) {
+        return seqArraySum(input, ReciprocalArraySumOptions.defaults().withSummationMode(mode));
     }
 
     /**
-     * calcula el tamaño de cada trozo o sección, de acuerdo con el número de secciones para crear
-     * a través de un número dado de elementos.
+     * Calcula secuencialmente la suma de valores recíprocos para un arreglo, con el modo de suma y el ciclo
+     * interno de las opciones.
      *
-     * @param nChunks El número de secciones (chunks) para crear
-     * @param nElements El número de elementos para dividir
-     * @return El tamaño por defecto de la sección (chunk)
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución; el pool y el cutoff no se usan
+     * @return La suma de los recíprocos del arreglo de entrada
      */
-    private static int getChunkSize(final int nChunks, final int nElements) {
-        // Función techo entera
-        return (nElements + nChunks - 1) / nChunks;
+    protected static double seqArraySum(final double[] input, final ReciprocalArraySumOptions options) {
+        return seqSum(ReciprocalInput.of(input), options);
     }
 
     /**
-     * Calcula el índice del elemento inclusivo donde la sección/trozo (chunk) inicia,
-     * dado que hay cierto número de secciones/trozos (chunks).
+     * Calcula secuencialmente la suma de valores recíprocos para un arreglo de floats, dividiendo y acumulando
+     * en double. El resultado es el mismo que con el arreglo copiado a un double[] (idéntico bit a bit en modo
+     * {@link SummationMode#REPRODUCIBLE}), sin la copia.
      *
-     * @param chunk la sección/trozo (chunk) para cacular la posición de inicio
-     * @param nChunks Cantidad de secciones/trozos (chunks) creados
-     * @param nElements La cantidad de elementos de la sección/trozo que deben atravesarse
-     * @return El índice inclusivo donde esta sección/trozo (chunk) inicia en el conjunto de 
-     *         nElements
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución; el pool y el cutoff no se usan
+     * @return La suma de los recíprocos del arreglo de entrada
      */
-    private static int getChunkStartInclusive(final int chunk, final int nChunks, final int nElements) {
-        final int chunkSize = getChunkSize(nChunks, nElements);
-        return chunk * chunkSize;
+    protected static double seqArraySum(final float[] input, final ReciprocalArraySumOptions options) {
+        return seqSum(ReciprocalInput.of(input), options);
     }
 
     /**
-     * Calcula el índice del elemento exclusivo que es proporcionado al final de la sección/trozo (chunk),
-     * dado que hay cierto número de secciones/trozos (chunks).
+     * Calcula secuencialmente la suma de valores recíprocos para un arreglo de ints, dividiendo y acumulando
+     * en double.
      *
-     * @param chunk La sección para calcular donde termina
-     * @param nChunks Cantidad de secciones/trozos (chunks) creados
-     * @param nElements La cantidad de elementos de la sección/trozo que deben atravesarse
-     * @return El índice de terminación exclusivo para esta sección/trozo (chunk)
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución; el pool y el cutoff no se usan
+     * @return La suma de los recíprocos del arreglo de entrada
      */
-    private static int getChunkEndExclusive(final int chunk, final int nChunks,
-            final int nElements) {
-        final int chunkSize = getChunkSize(nChunks, nElements);
-        final int end = (chunk + 1) * chunkSize;
-        if (end > nElements) {
-            return nElements;
-        } else {
-            return end;
+    protected static double seqArraySum(final int[] input, final ReciprocalArraySumOptions options) {
+        return seqSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Calcula secuencialmente la suma de valores recíprocos para un arreglo de longs, dividiendo y acumulando
+     * en double.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución; el pool y el cutoff no se usan
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double seqArraySum(final long[] input, final ReciprocalArraySumOptions options) {
+        return seqSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Suma secuencialmente los recíprocos de una entrada de cualquier tipo primitivo.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double seqSum(final ReciprocalInput input, final ReciprocalArraySumOptions options) {
+        if (options.getSummationMode() == SummationMode.REPRODUCIBLE) {
+            return ReproducibleReciprocalSum.seqSum(input);
         }
+        return input.sum(options.getKernel(), 0, input.getLength());
     }
 
     /**
@@ -95,24 +138,97 @@ public final class ReciprocalArraySum {
         /**
          * Arreglo de entrada para la suma de recíprocos.
          */
-        private final double[] input;
+        private final ReciprocalInput input;
+        /**
+         * Cantidad máxima de elementos que esta tarea suma secuencialmente sin dividirse.
+         */
+        private final int sequentialCutoff;
+        /**
+         * Ciclo interno con el que se suman las hojas.
+         */
+        private final ReciprocalKernel kernel;
+        /**
+         * Estrategia con la que la tarea lanza sus dos mitades.
+         */
+        private final ExecutionStrategy strategy;
+        /**
+         * Profundidad de esta tarea en el árbol de tareas.
+         */
+        private final int depth;
+        /**
+         * Observador de las tareas.
+         */
+        private final TaskListener listener;
+        /**
+         * Hilo que creó esta tarea, para detectar robos; null si no hay observador.
+         */
+        private final Thread creator;
+        /**
+         * Resultados con relleno de las secciones de parManyTaskArraySum, o null si el valor lo lee la tarea
+         * padre.
+         */
+        private final double[] partials;
+        /**
+         * Posición de {@link #partials} donde esta tarea escribe su valor.
+         */
+        private final int slot;
         /**
          * Valor intermedio producido por esta tarea.
          */
         private double value;
 
+        /**
+         * Constructor de una tarea cuyo valor lee la tarea padre o quien la invoca.
+         * @param setStartIndexInclusive establece el índice inicial para comenzar
+         *        el recorrido trasversal.
+         * @param setEndIndexExclusive establece el índice final para el recorrido trasversal.
+         * @param setInput Valores de entrada
+         * @param setSequentialCutoff Cantidad máxima de elementos del caso base
+         * @param setKernel Ciclo interno con el que se suman las hojas
+         * @param setStrategy Estrategia fork-join con la que se lanzan las dos mitades
+         * @param setDepth Profundidad de la tarea en el árbol de tareas
+         * @param setListener Observador de las tareas
+         */
+        ReciprocalArraySumTask(final int setStartIndexInclusive, final int setEndIndexExclusive, final ReciprocalInput setInput,
+                final int setSequentialCutoff, final ReciprocalKernel setKernel, final ExecutionStrategy setStrategy,
+                final int setDepth, final TaskListener setListener) {
+            this(setStartIndexInclusive, setEndIndexExclusive, setInput, setSequentialCutoff, setKernel, setStrategy,
+                    setDepth, setListener, null, 0);
+        }
+
         /**
          * Constructor.
          * @param setStartIndexInclusive establece el índice inicial para comenzar
          *        el recorrido trasversal.
          * @param setEndIndexExclusive establece el índice final para el recorrido trasversal.
          * @param setInput Valores de entrada
+         * @param setSequentialCutoff Cantidad máxima de elementos del caso base
+         * @param setKernel Ciclo interno con el que se suman las hojas
+         * @param setStrategy Estrategia fork-join con la que se lanzan las dos mitades
+         * @param setDepth Profundidad de la tarea en el árbol de tareas
+         * @param setListener Observador de las tareas
+         * @param setPartials Resultados con relleno donde se escribe el valor, o null para guardarlo en la tarea
+         * @param setSlot Posición de setPartials donde se escribe el valor
          */
-        ReciprocalArraySumTask(final int setStartIndexInclusive, final int setEndIndexExclusive, final double[] setInput) {
+        ReciprocalArraySumTask(final int setStartIndexInclusive, final int setEndIndexExclusive, final ReciprocalInput setInput,
+                final int setSequentialCutoff, final ReciprocalKernel setKernel, final ExecutionStrategy setStrategy,
+                final int setDepth, final TaskListener setListener, final double[] setPartials, final int setSlot) {
             this.startIndexInclusive = setStartIndexInclusive;
             this.endIndexExclusive = setEndIndexExclusive;
             this.input = setInput;
-            System.out.println("NEW ReciprocalArraySumTask" + this.hashCode() + ":\t" + setStartIndexInclusive + "\t-\t" + setEndIndexExclusive);
+            this.sequentialCutoff = setSequentialCutoff;
+            this.kernel = setKernel;
+            this.strategy = setStrategy;
+            this.depth = setDepth;
+            this.listener = setListener;
+            this.partials = setPartials;
+            this.slot = setSlot;
+            if (setListener != TaskListener.NOOP) {
+                this.creator = Thread.currentThread();
+                setListener.taskCreated(setDepth);
+            } else {
+                this.creator = null;
+            }
         }
 
         /**
@@ -127,36 +243,47 @@ public final class ReciprocalArraySum {
          * Implementación recursiva de la tarea para calcular la suma de los recíprocos del arreglo.
          * A la hora de computar la suma, se divide el trabajo en dos tareas más pequeñas.
          * LA Recursión Múltiple (Árbol Recursivo) se utiliza para dividir el trabajo en tareas más pequeñas.
+         * Un rango es caso base si no supera el cutoff secuencial, o si no supera unas pocas veces el cutoff
+         * y el hilo ya tiene suficientes tareas sin robar en su cola (los demás hilos tienen de dónde tomar
+         * trabajo, así que dividir más sólo agregaría costo).
+         * Sin observador, el único costo extra es comparar el observador con {@link TaskListener#NOOP}.
          */
         @Override
         protected void compute() {
-            if (endIndexExclusive - startIndexInclusive <= input.length/2) {
-                System.out.println("ReciprocalArraySumTask" + this.hashCode() + " caso base.");
-                double sum = 0;
-                for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
-                    sum += 1 / input[i];
+            final boolean observed = listener != TaskListener.NOOP;
+            // Las tareas creadas fuera del pool siempre las ejecuta otro hilo; eso no es un robo.
+            if (observed && creator != Thread.currentThread() && creator instanceof ForkJoinWorkerThread) {
+                listener.taskStolen(depth);
+            }
+            final int length = endIndexExclusive - startIndexInclusive;
+            final double sum;
+            if (SequentialCutoff.isLeaf(length, sequentialCutoff)) {
+                if (observed) {
+                    final long start = System.nanoTime();
+                    sum = input.sum(kernel, startIndexInclusive, endIndexExclusive);
+                    listener.leafCompleted(depth, length, System.nanoTime() - start, getQueuedTaskCount());
+                } else {
+                    sum = input.sum(kernel, startIndexInclusive, endIndexExclusive);
                 }
-                value = sum;
             } else {
-                System.out.println("ReciprocalArraySumTask" + this.hashCode() + " recursion.");
                 int mid = (startIndexInclusive + endIndexExclusive) / 2;
-                ReciprocalArraySumTask left = new ReciprocalArraySumTask(startIndexInclusive, mid, input);
-                ReciprocalArraySumTask right = new ReciprocalArraySumTask(mid, endIndexExclusive, input);
-                /* 
-                // Estrategia #1
-                left.fork();
-                right.compute();
-                left.join();
-                value = left.value + right.value;
-                */
-                /*
-                // Estrategia #2
-                ForkJoinTask.invokeAll(left, right);
-                value = left.getValue() + right.getValue();
-                */
-                // Estrategia #3
-                RecursiveAction.invokeAll(left, right);
-                value = left.getValue() + right.getValue();
+                ReciprocalArraySumTask left = new ReciprocalArraySumTask(startIndexInclusive, mid, input, sequentialCutoff, kernel,
+                        strategy, depth + 1, listener);
+                ReciprocalArraySumTask right = new ReciprocalArraySumTask(mid, endIndexExclusive, input, sequentialCutoff, kernel,
+                        strategy, depth + 1, listener);
+                if (strategy == ExecutionStrategy.FORK_JOIN_LOOP) {
+                    left.fork();
+                    right.compute();
+                    left.join();
+                } else {
+                    invokeAll(left, right);
+                }
+                sum = left.getValue() + right.getValue();
+            }
+            if (partials != null) {
+                partials[slot] = sum;
+            } else {
+                value = sum;
             }
         }
     }
@@ -171,74 +298,487 @@ public final class ReciprocalArraySum {
      * @return La suma de los recíprocos del arreglo de entrada
      */
     protected static double parArraySum(final double[] input) {
-        assert input.length % 2 == 0;
+        return parArraySum(input, ReciprocalArraySumOptions.defaults());
+    }
 
-        double sum = 0;
+    /**
+     * Calcula la suma de recíprocos como parArraySum, pero ejecutando las tareas en el pool suministrado
+     * en lugar del pool del motor compartido.
+     *
+     * @param input Arreglo de entrada
+     * @param pool Pool en el que se ejecutan las tareas
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double parArraySum(final double[] input, final ForkJoinPool pool) {
+        return parArraySum(input, ReciprocalArraySumOptions.defaults().withPool(pool));
+    }
+
+    /**
+     * Calcula la suma de recíprocos como parArraySum, con el pool, el cutoff secuencial y el modo de suma
+     * de las opciones. Los arreglos que no superan el cutoff se suman secuencialmente, sin pasar por el pool.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double parArraySum(final double[] input, final ReciprocalArraySumOptions options) {
+        return parSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de floats como parArraySum, con el mismo reparto y las
+     * mismas opciones, dividiendo y acumulando en double. Lee la mitad de memoria que el arreglo convertido a
+     * double[] y da el mismo resultado (idéntico bit a bit en modo {@link SummationMode#REPRODUCIBLE}).
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double parArraySum(final float[] input, final ReciprocalArraySumOptions options) {
+        return parSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de ints como parArraySum, dividiendo y acumulando en double.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double parArraySum(final int[] input, final ReciprocalArraySumOptions options) {
+        return parSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de longs como parArraySum, dividiendo y acumulando en double.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    protected static double parArraySum(final long[] input, final ReciprocalArraySumOptions options) {
+        return parSum(ReciprocalInput.of(input), options);
+    }
+
+    /**
+     * Suma en paralelo, con una tarea que se divide en mitades, los recíprocos de una entrada de cualquier
+     * tipo primitivo.
+     *
+     * @param input Arreglo de entrada
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double parSum(final ReciprocalInput input, final ReciprocalArraySumOptions options) {
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(input.getLength(), pool.getParallelism());
+        if (input.getLength() <= cutoff) {
+            return seqSum(input, options);
+        }
+        if (options.getSummationMode() == SummationMode.REPRODUCIBLE) {
+            return ReproducibleReciprocalSum.parSum(input, 2, cutoff, pool);
+        }
 
         // Se crea la tarea para todo el arreglo.
-        ReciprocalArraySumTask task = new ReciprocalArraySumTask(0, input.length, input);
-        // Se utiliza el pool común para invocar la tarea, lo que permite que las sub-tareas se ejecuten en paralelo.
-        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ReciprocalArraySumTask task = new ReciprocalArraySumTask(0, input.getLength(), input, cutoff, options.getKernel(),
+                forkJoinStrategy(options), 0, options.getListener());
+        // Se invoca la tarea en el pool, lo que permite que las sub-tareas se ejecuten en paralelo.
         pool.invoke(task);
-        sum = task.getValue();
-        return sum;
+        return task.getValue();
     }
 
     /**
      * Para hacer: extender el trabajo hecho para implementar parArraySum que permita utilizar un número establecido
      * de tareas para calcular la suma del arreglo recíproco. 
-     * getChunkStartInclusive y getChunkEndExclusive pueden ser útiles para cacular 
+     * ChunkPartitioner.getChunkStartInclusive y getChunkEndExclusive pueden ser útiles para cacular 
      * el rango de elementos índice que pertenecen a cada sección/trozo (chunk).
      *
      * @param input Arreglo de entrada
      * @param numTasks El número de tareas para crear
      * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
      */
     protected static double parManyTaskArraySum(final double[] input, final int numTasks) {
+        return parManyTaskArraySum(input, numTasks, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula la suma de recíprocos como parManyTaskArraySum, pero ejecutando las tareas en el pool
+     * suministrado en lugar del pool del motor compartido.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de tareas para crear
+     * @param pool Pool en el que se ejecutan las tareas
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    protected static double parManyTaskArraySum(final double[] input, final int numTasks, final ForkJoinPool pool) {
+        return parManyTaskArraySum(input, numTasks, ReciprocalArraySumOptions.defaults().withPool(pool));
+    }
+
+    /**
+     * Calcula la suma de recíprocos como parManyTaskArraySum, con el pool, el cutoff secuencial y el modo de
+     * suma de las opciones. Las numTasks secciones se ejecutan con la estrategia de las opciones; con las
+     * estrategias fork-join cada sección se sigue dividiendo si supera el cutoff. Los arreglos que no superan
+     * el cutoff se suman secuencialmente, sin pasar por el pool.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de tareas para crear
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    protected static double parManyTaskArraySum(final double[] input, final int numTasks,
+            final ReciprocalArraySumOptions options) {
+        return parManyTaskSum(ReciprocalInput.of(input), numTasks, options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de floats como parManyTaskArraySum, con las mismas secciones
+     * y las mismas opciones, dividiendo y acumulando en double.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de tareas para crear
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    protected static double parManyTaskArraySum(final float[] input, final int numTasks,
+            final ReciprocalArraySumOptions options) {
+        return parManyTaskSum(ReciprocalInput.of(input), numTasks, options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de ints como parManyTaskArraySum, dividiendo y acumulando
+     * en double.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de tareas para crear
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    protected static double parManyTaskArraySum(final int[] input, final int numTasks,
+            final ReciprocalArraySumOptions options) {
+        return parManyTaskSum(ReciprocalInput.of(input), numTasks, options);
+    }
+
+    /**
+     * Calcula la suma de recíprocos de un arreglo de longs como parManyTaskArraySum, dividiendo y acumulando
+     * en double.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de tareas para crear
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    protected static double parManyTaskArraySum(final long[] input, final int numTasks,
+            final ReciprocalArraySumOptions options) {
+        return parManyTaskSum(ReciprocalInput.of(input), numTasks, options);
+    }
+
+    /**
+     * Suma en paralelo, en numTasks secciones con la estrategia de las opciones, los recíprocos de una entrada
+     * de cualquier tipo primitivo.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones
+     * @param options Opciones de ejecución
+     * @return La suma de los recíprocos del arreglo de entrada
+     * @throws IllegalArgumentException si numTasks es menor que 1
+     */
+    private static double parManyTaskSum(final ReciprocalInput input, final int numTasks,
+            final ReciprocalArraySumOptions options) {
+        requirePositiveTasks(numTasks);
+        final ForkJoinPool pool = options.getPool();
+        final int cutoff = options.sequentialCutoffFor(input.getLength(), pool.getParallelism());
+        if (input.getLength() <= cutoff) {
+            return seqSum(input, options);
+        }
+        if (options.getSummationMode() == SummationMode.REPRODUCIBLE) {
+            return ReproducibleReciprocalSum.parSum(input, numTasks, cutoff, pool);
+        }
+
+        switch (options.getExecutionStrategy()) {
+            case FIXED_THREAD_POOL:
+                return executorSum(input, numTasks, options, options.getExecutor());
+            case VIRTUAL_THREADS:
+                final ExecutorService perTask = newVirtualThreadExecutor();
+                if (perTask == null) {
+                    // Sin hilos virtuales no se lanza un hilo de plataforma por sección: se usa el pool fijo.
+                    return executorSum(input, numTasks, options, options.getExecutor());
+                }
+                try {
+                    return executorSum(input, numTasks, options, perTask);
+                } finally {
+                    perTask.shutdown();
+                }
+            case PARALLEL_STREAM:
+                return parallelStreamSum(input, numTasks, options, pool);
+            case COMPLETABLE_FUTURE:
+                return completableFutureSum(input, numTasks, options, pool);
+            default:
+                return forkJoinSum(input, numTasks, cutoff, options, pool);
+        }
+    }
+
+    /**
+     * Rechaza una cantidad de secciones menor que 1.
+     * @param numTasks El número de secciones
+     */
+    private static void requirePositiveTasks(final int numTasks) {
+        if (numTasks < 1) {
+            throw new IllegalArgumentException("La cantidad de secciones debe ser positiva: " + numTasks);
+        }
+    }
+
+    /**
+     * Calcula la suma de recíprocos de cada uno de muchos arreglos en una sola pasada paralela sobre el motor
+     * compartido.
+     *
+     * @param inputs Arreglos de entrada
+     * @return La suma de los recíprocos de cada arreglo, en el mismo orden
+     */
+    protected static double[] parBatchArraySum(final double[][] inputs) {
+        return parBatchArraySum(inputs, ReciprocalArraySumOptions.defaults());
+    }
+
+    /**
+     * Calcula la suma de recíprocos de cada uno de muchos arreglos en una sola pasada paralela, con el pool,
+     * el cutoff secuencial, el ciclo interno y el modo de suma de las opciones. En lugar de una tarea por
+     * arreglo, el trabajo se reparte en unidades de alrededor de un cutoff de elementos: los arreglos pequeños
+     * se empaquetan juntos y los grandes se parten (ver {@link BatchReciprocalSum}). Si el lote completo no
+     * supera el cutoff, se suma secuencialmente, sin pasar por el pool.
+     *
+     * @param inputs Arreglos de entrada
+     * @param options Opciones de ejecución; la estrategia y el observador no se usan
+     * @return La suma de los recíprocos de cada arreglo, en el mismo orden
+     * @throws IllegalArgumentException si algún arreglo es null
+     */
+    protected static double[] parBatchArraySum(final double[][] inputs, final ReciprocalArraySumOptions options) {
+        return BatchReciprocalSum.sum(inputs, options);
+    }
+
+    /**
+     * Suma las secciones con tareas fork-join que se siguen dividiendo según el cutoff.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones
+     * @param cutoff Cutoff secuencial efectivo
+     * @param options Opciones de ejecución
+     * @param pool Pool en el que se ejecutan las tareas
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double forkJoinSum(final ReciprocalInput input, final int numTasks, final int cutoff,
+            final ReciprocalArraySumOptions options, final ForkJoinPool pool) {
+        final ExecutionStrategy strategy = options.getExecutionStrategy();
         ReciprocalArraySumTask[] tasks = new ReciprocalArraySumTask[numTasks];
-        int nElements = input.length;
+        final double[] partials = newPartials(numTasks);
+        int nElements = input.getLength();
         // Se parte el arreglo en secciones/trozos (chunks) y se crea una tarea para cada sección/trozo (chunk).
         for (int i = 0; i < numTasks; i++) {
             // Para el i-ésimo trozo, se calcula el índice de inicio y fin.
-            int start = getChunkStartInclusive(i, numTasks, nElements);
-            int end = getChunkEndExclusive(i, numTasks, nElements);
-            tasks[i] = new ReciprocalArraySumTask(start, end, input);
+            int start = ChunkPartitioner.getChunkStartInclusive(i, numTasks, nElements);
+            int end = ChunkPartitioner.getChunkEndExclusive(i, numTasks, nElements);
+            tasks[i] = new ReciprocalArraySumTask(start, end, input, cutoff, options.getKernel(), strategy, 0, options.getListener(),
+                    partials, i * PARTIAL_STRIDE);
         }
 
-        /* 
-        // Estrategia #1
-        // Ejecuta las tareas en paralelo usando fork/join
-        for (int i = 0; i < numTasks; i++) {
-            tasks[i].fork();
+        // Las tareas se lanzan desde dentro del pool, no desde el hilo que llama, para que siempre
+        // se ejecuten en el pool indicado y no en el pool común.
+        if (strategy == ExecutionStrategy.FORK_JOIN_LOOP) {
+            pool.invoke(ForkJoinTask.adapt(() -> {
+                for (ReciprocalArraySumTask task : tasks) {
+                    task.fork();
+                }
+                for (ReciprocalArraySumTask task : tasks) {
+                    task.join();
+                }
+            }));
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
         }
-        // Espera a que todas finalicen
+
+        return sumPartials(partials);
+    }
+
+    /**
+     * Suma cada sección de corrido en un ExecutorService, con un Future por sección; cada sección escribe su
+     * resultado en su posición con relleno.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones
+     * @param options Opciones de ejecución
+     * @param executor Pool de hilos en el que se suman las secciones
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double executorSum(final ReciprocalInput input, final int numTasks, final ReciprocalArraySumOptions options,
+            final ExecutorService executor) {
+        final double[] partials = newPartials(numTasks);
+        final List<Future<?>> futures = new ArrayList<>(numTasks);
         for (int i = 0; i < numTasks; i++) {
-            tasks[i].join();
+            final int chunk = i;
+            futures.add(executor.submit(() -> {
+                partials[chunk * PARTIAL_STRIDE] = chunkSum(input, chunk, numTasks, options.getKernel());
+            }));
         }
-        
-        // Suma los resultados parciales de cada tarea
-        double sum = 0;
-        for (int i = 0; i < numTasks; i++) {
-            sum += tasks[i].getValue();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la espera de las secciones", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
         }
-        return sum;
-        */
-
-        /*
-        // Estrategia #2
-        // Invoca todas las tareas en paralelo de forma optimizada.
-        ForkJoinTask.invokeAll(tasks);
-        */
-
-        // Estrategia #3
-        // 
-        RecursiveAction.invokeAll(tasks);
-        
-        // Suma los resultados parciales.
+        return sumPartials(partials);
+    }
+
+    /**
+     * Suma las secciones con un stream paralelo sobre los índices de sección; cada sección escribe su resultado
+     * en su posición con relleno. El stream se lanza desde dentro del pool para
+     * que use sus hilos y no los del pool común.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones
+     * @param options Opciones de ejecución
+     * @param pool Pool en el que se ejecuta el stream
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double parallelStreamSum(final ReciprocalInput input, final int numTasks, final ReciprocalArraySumOptions options,
+            final ForkJoinPool pool) {
+        final double[] partials = newPartials(numTasks);
+        pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, numTasks)
+                .parallel()
+                .forEach(chunk -> partials[chunk * PARTIAL_STRIDE] = chunkSum(input, chunk, numTasks, options.getKernel()))));
+        return sumPartials(partials);
+    }
+
+    /**
+     * Crea el arreglo de resultados con relleno de parManyTaskArraySum: la sección i escribe en la posición
+     * i * {@link #PARTIAL_STRIDE}, así que dos secciones que terminan a la vez en hilos distintos nunca
+     * escriben en la misma línea de caché.
+     *
+     * @param numTasks El número de secciones
+     * @return El arreglo, de numTasks * PARTIAL_STRIDE posiciones
+     */
+    private static double[] newPartials(final int numTasks) {
+        return new double[numTasks * PARTIAL_STRIDE];
+    }
+
+    /**
+     * Suma los resultados con relleno en el orden de las secciones, para que no dependan de la planificación.
+     *
+     * @param partials Resultados de {@link #newPartials}
+     * @return La suma de los resultados
+     */
+    private static double sumPartials(final double[] partials) {
         double sum = 0;
-        for (ReciprocalArraySumTask task : tasks) {
-            sum += task.getValue();
+        for (int i = 0; i < partials.length; i += PARTIAL_STRIDE) {
+            sum += partials[i];
         }
         return sum;
     }
+
+    /**
+     * Suma cada sección en un CompletableFuture sobre el pool y encadena las sumas parciales con thenCombine.
+     *
+     * @param input Arreglo de entrada
+     * @param numTasks El número de secciones
+     * @param options Opciones de ejecución
+     * @param pool Pool en el que se suman las secciones
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    private static double completableFutureSum(final ReciprocalInput input, final int numTasks, final ReciprocalArraySumOptions options,
+            final ForkJoinPool pool) {
+        CompletableFuture<Double> sum = CompletableFuture.completedFuture(0.0);
+        for (int i = 0; i < numTasks; i++) {
+            final int chunk = i;
+            sum = sum.thenCombine(CompletableFuture.supplyAsync(() -> chunkSum(input, chunk, numTasks, options.getKernel()), pool),
+                    Double::sum);
+        }
+        try {
+            return sum.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Suma secuencialmente los recíprocos de una sección.
+     *
+     * @param input Arreglo de entrada
+     * @param chunk Índice de la sección
+     * @param numTasks El número de secciones
+     * @param kernel Ciclo interno con el que se suma la sección
+     * @return La suma de los recíprocos de la sección
+     */
+    private static double chunkSum(final ReciprocalInput input, final int chunk, final int numTasks, final ReciprocalKernel kernel) {
+        final int nElements = input.getLength();
+        return input.sum(kernel, ChunkPartitioner.getChunkStartInclusive(chunk, numTasks, nElements),
+                ChunkPartitioner.getChunkEndExclusive(chunk, numTasks, nElements));
+    }
+
+    /**
+     * Elige cómo divide sus mitades una tarea fork-join: la estrategia de las opciones si es fork-join,
+     * o INVOKE_ALL si no lo es.
+     *
+     * @param options Opciones de ejecución
+     * @return La estrategia fork-join para las tareas
+     */
+    private static ExecutionStrategy forkJoinStrategy(final ReciprocalArraySumOptions options) {
+        final ExecutionStrategy strategy = options.getExecutionStrategy();
+        return strategy.isForkJoin() ? strategy : ExecutionStrategy.INVOKE_ALL;
+    }
+
+    /**
+     * Crea un ExecutorService que lanza un hilo virtual por tarea. Los hilos virtuales sólo existen desde
+     * Java 21 y el proyecto compila para Java 8, así que se buscan por reflexión.
+     *
+     * @return Un ExecutorService que hay que apagar al terminar, o null si el JDK no tiene hilos virtuales
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Se usa el pool fijo.
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Busca Executors.newVirtualThreadPerTaskExecutor.
+     *
+     * @return El método, o null si el JDK no tiene hilos virtuales
+     */
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Relanza la causa de una falla en una sección tal como llegó, si es una excepción no verificada.
+     *
+     * @param cause Causa de la falla
+     * @return Nunca retorna; el tipo de retorno permite escribir throw rethrow(...)
+     */
+    private static RuntimeException rethrow(final Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException("Falló la suma de una sección", cause);
+    }
 }
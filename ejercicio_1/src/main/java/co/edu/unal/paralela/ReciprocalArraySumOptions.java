@@ -0,0 +1,226 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Opciones inmutables de ejecución para las sumas paralelas de ReciprocalArraySum.
+ *
+ * Cada método with* retorna una copia con la opción cambiada, de modo que una misma instancia se
+ * puede compartir entre hilos y llamadas.
+ */
+public final class ReciprocalArraySumOptions {
+    /**
+     * Opciones por defecto: motor compartido, cutoff automático, suma directa, el ciclo interno y la
+     * estrategia por defecto, y sin observador de tareas.
+     */
+    private static final ReciprocalArraySumOptions DEFAULTS = new ReciprocalArraySumOptions(null, null, 0, SummationMode.FAST,
+            ReciprocalKernel.getDefault(), TaskListener.NOOP, ExecutionStrategy.getDefault());
+
+    /**
+     * Pool en el que se ejecutan las tareas; null para usar el motor compartido.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Pool de hilos de la estrategia {@link ExecutionStrategy#FIXED_THREAD_POOL}; null para usar el del motor
+     * compartido.
+     */
+    private final ExecutorService executor;
+    /**
+     * Tamaño máximo de un rango que se suma secuencialmente; 0 para calcularlo automáticamente.
+     */
+    private final int sequentialCutoff;
+    /**
+     * Modo de suma.
+     */
+    private final SummationMode summationMode;
+    /**
+     * Ciclo interno de las hojas en modo {@link SummationMode#FAST}.
+     */
+    private final ReciprocalKernel kernel;
+    /**
+     * Observador de las tareas fork-join.
+     */
+    private final TaskListener listener;
+    /**
+     * Estrategia de ejecución de parManyTaskArraySum.
+     */
+    private final ExecutionStrategy executionStrategy;
+
+    /**
+     * Constructor.
+     * @param setPool Pool en el que se ejecutan las tareas, o null para el motor compartido
+     * @param setExecutor Pool de hilos de tamaño fijo, o null para el del motor compartido
+     * @param setSequentialCutoff Cutoff secuencial, o 0 para calcularlo automáticamente
+     * @param setSummationMode Modo de suma
+     * @param setKernel Ciclo interno de las hojas
+     * @param setListener Observador de las tareas fork-join
+     * @param setExecutionStrategy Estrategia de ejecución de parManyTaskArraySum
+     */
+    private ReciprocalArraySumOptions(final ForkJoinPool setPool, final ExecutorService setExecutor, final int setSequentialCutoff,
+            final SummationMode setSummationMode, final ReciprocalKernel setKernel, final TaskListener setListener,
+            final ExecutionStrategy setExecutionStrategy) {
+        this.pool = setPool;
+        this.executor = setExecutor;
+        this.sequentialCutoff = setSequentialCutoff;
+        this.summationMode = setSummationMode;
+        this.kernel = setKernel;
+        this.listener = setListener;
+        this.executionStrategy = setExecutionStrategy;
+    }
+
+    /**
+     * Recupera las opciones por defecto.
+     * @return Las opciones por defecto
+     */
+    public static ReciprocalArraySumOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Copia estas opciones cambiando el pool.
+     * @param setPool Pool en el que se ejecutan las tareas, o null para el motor compartido
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withPool(final ForkJoinPool setPool) {
+        return new ReciprocalArraySumOptions(setPool, executor, sequentialCutoff, summationMode, kernel, listener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando el cutoff secuencial.
+     * @param setSequentialCutoff Cantidad máxima de elementos de un caso base, o 0 para calcularla
+     *        automáticamente a partir del tamaño de la entrada y del paralelismo del pool
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withSequentialCutoff(final int setSequentialCutoff) {
+        if (setSequentialCutoff < 0) {
+            throw new IllegalArgumentException("El cutoff no puede ser negativo: " + setSequentialCutoff);
+        }
+        return new ReciprocalArraySumOptions(pool, executor, setSequentialCutoff, summationMode, kernel, listener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando el modo de suma.
+     * @param setSummationMode Modo de suma
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withSummationMode(final SummationMode setSummationMode) {
+        if (setSummationMode == null) {
+            throw new IllegalArgumentException("summationMode no puede ser null");
+        }
+        return new ReciprocalArraySumOptions(pool, executor, sequentialCutoff, setSummationMode, kernel, listener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando el ciclo interno de las hojas. El modo reproducible no lo usa, porque
+     * su resultado no puede depender de la configuración.
+     * @param setKernel Ciclo interno de las hojas
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withKernel(final ReciprocalKernel setKernel) {
+        if (setKernel == null) {
+            throw new IllegalArgumentException("kernel no puede ser null");
+        }
+        return new ReciprocalArraySumOptions(pool, executor, sequentialCutoff, summationMode, setKernel, listener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando el observador de las tareas fork-join. Sólo lo usan las tareas del modo
+     * {@link SummationMode#FAST}.
+     * @param setListener Observador de las tareas, o {@link TaskListener#NOOP} para no observarlas
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withListener(final TaskListener setListener) {
+        if (setListener == null) {
+            throw new IllegalArgumentException("listener no puede ser null");
+        }
+        return new ReciprocalArraySumOptions(pool, executor, sequentialCutoff, summationMode, kernel, setListener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando el pool de hilos de la estrategia {@link ExecutionStrategy#FIXED_THREAD_POOL}.
+     * @param setExecutor Pool de hilos, o null para el del motor compartido; no se apaga al terminar la suma
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withExecutor(final ExecutorService setExecutor) {
+        return new ReciprocalArraySumOptions(pool, setExecutor, sequentialCutoff, summationMode, kernel, listener, executionStrategy);
+    }
+
+    /**
+     * Copia estas opciones cambiando la estrategia de ejecución de parManyTaskArraySum.
+     * @param setExecutionStrategy Estrategia de ejecución
+     * @return Las nuevas opciones
+     */
+    public ReciprocalArraySumOptions withExecutionStrategy(final ExecutionStrategy setExecutionStrategy) {
+        if (setExecutionStrategy == null) {
+            throw new IllegalArgumentException("executionStrategy no puede ser null");
+        }
+        return new ReciprocalArraySumOptions(pool, executor, sequentialCutoff, summationMode, kernel, listener, setExecutionStrategy);
+    }
+
+    /**
+     * Recupera el pool en el que se deben ejecutar las tareas.
+     * @return El pool configurado, o el del motor compartido si no hay uno configurado
+     */
+    public ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinEngine.shared().getPool();
+    }
+
+    /**
+     * Recupera el pool de hilos de la estrategia {@link ExecutionStrategy#FIXED_THREAD_POOL}.
+     * @return El pool de hilos configurado, o el del motor compartido si no hay uno configurado
+     */
+    public ExecutorService getExecutor() {
+        return executor != null ? executor : ForkJoinEngine.shared().getExecutor();
+    }
+
+    /**
+     * Recupera el cutoff secuencial configurado.
+     * @return El cutoff, o 0 si se calcula automáticamente
+     */
+    public int getSequentialCutoff() {
+        return sequentialCutoff;
+    }
+
+    /**
+     * Recupera el modo de suma.
+     * @return El modo de suma configurado
+     */
+    public SummationMode getSummationMode() {
+        return summationMode;
+    }
+
+    /**
+     * Recupera el ciclo interno de las hojas.
+     * @return El ciclo interno configurado
+     */
+    public ReciprocalKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Recupera el observador de las tareas fork-join.
+     * @return El observador configurado, o {@link TaskListener#NOOP}
+     */
+    public TaskListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Recupera la estrategia de ejecución de parManyTaskArraySum.
+     * @return La estrategia configurada
+     */
+    public ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    /**
+     * Calcula el cutoff secuencial efectivo para una entrada.
+     * @param nElements Cantidad de elementos de la entrada
+     * @param parallelism Paralelismo del pool que ejecutará las tareas
+     * @return El cutoff configurado, o uno calculado a partir de la entrada y el paralelismo
+     */
+    int sequentialCutoffFor(final long nElements, final int parallelism) {
+        return sequentialCutoff > 0 ? sequentialCutoff : SequentialCutoff.forSize(nElements, parallelism);
+    }
+}
@@ -0,0 +1,160 @@
+package co.edu.unal.paralela;
+
+/**
+ * Arreglo de entrada de la suma de recíprocos: double[], float[], int[] o long[].
+ *
+ * Las tareas y el reparto en secciones sólo ven esta clase, así que las versiones para cada tipo primitivo
+ * comparten el mismo código paralelo. Cada tipo suma sus rangos con el ciclo interno propio de ese tipo, sin
+ * copiar el arreglo, y divide y acumula en double.
+ */
+abstract class ReciprocalInput {
+    /**
+     * Cantidad de elementos.
+     */
+    private final int length;
+
+    /**
+     * Constructor.
+     * @param setLength Cantidad de elementos
+     */
+    private ReciprocalInput(final int setLength) {
+        this.length = setLength;
+    }
+
+    /**
+     * Recupera la cantidad de elementos.
+     * @return La cantidad de elementos
+     */
+    final int getLength() {
+        return length;
+    }
+
+    /**
+     * Suma los recíprocos de un rango con un ciclo interno.
+     *
+     * @param kernel Ciclo interno
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    abstract double sum(ReciprocalKernel kernel, int startIndexInclusive, int endIndexExclusive);
+
+    /**
+     * Suma los recíprocos de un rango de a lo sumo un bloque con la compensación del modo reproducible
+     * ({@link ReproducibleReciprocalSum}), con el mismo resultado que sobre el rango convertido a doubles.
+     *
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @param scratch Arreglo auxiliar de un bloque si {@link #needsScratch()}, o null
+     * @return La suma compensada de los recíprocos del rango
+     */
+    abstract double compensatedSum(int startIndexInclusive, int endIndexExclusive, double[] scratch);
+
+    /**
+     * Indica si {@link #compensatedSum} necesita un arreglo auxiliar donde convertir el rango a doubles.
+     * @return Falso salvo para float[], int[] y long[]
+     */
+    boolean needsScratch() {
+        return false;
+    }
+
+    /**
+     * Envuelve un arreglo de doubles.
+     * @param input Arreglo
+     * @return La entrada
+     */
+    static ReciprocalInput of(final double[] input) {
+        return new ReciprocalInput(input.length) {
+            @Override
+            double sum(final ReciprocalKernel kernel, final int startIndexInclusive, final int endIndexExclusive) {
+                return kernel.sum(input, startIndexInclusive, endIndexExclusive);
+            }
+
+            @Override
+            double compensatedSum(final int startIndexInclusive, final int endIndexExclusive, final double[] scratch) {
+                return ReproducibleReciprocalSum.blockSum(input, startIndexInclusive, endIndexExclusive);
+            }
+        };
+    }
+
+    /**
+     * Envuelve un arreglo de floats.
+     * @param input Arreglo
+     * @return La entrada
+     */
+    static ReciprocalInput of(final float[] input) {
+        return new ReciprocalInput(input.length) {
+            @Override
+            double sum(final ReciprocalKernel kernel, final int startIndexInclusive, final int endIndexExclusive) {
+                return kernel.sum(input, startIndexInclusive, endIndexExclusive);
+            }
+
+            @Override
+            double compensatedSum(final int startIndexInclusive, final int endIndexExclusive, final double[] scratch) {
+                for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                    scratch[i - startIndexInclusive] = input[i];
+                }
+                return ReproducibleReciprocalSum.blockSum(scratch, 0, endIndexExclusive - startIndexInclusive);
+            }
+
+            @Override
+            boolean needsScratch() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Envuelve un arreglo de ints.
+     * @param input Arreglo
+     * @return La entrada
+     */
+    static ReciprocalInput of(final int[] input) {
+        return new ReciprocalInput(input.length) {
+            @Override
+            double sum(final ReciprocalKernel kernel, final int startIndexInclusive, final int endIndexExclusive) {
+                return kernel.sum(input, startIndexInclusive, endIndexExclusive);
+            }
+
+            @Override
+            double compensatedSum(final int startIndexInclusive, final int endIndexExclusive, final double[] scratch) {
+                for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                    scratch[i - startIndexInclusive] = input[i];
+                }
+                return ReproducibleReciprocalSum.blockSum(scratch, 0, endIndexExclusive - startIndexInclusive);
+            }
+
+            @Override
+            boolean needsScratch() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Envuelve un arreglo de longs.
+     * @param input Arreglo
+     * @return La entrada
+     */
+    static ReciprocalInput of(final long[] input) {
+        return new ReciprocalInput(input.length) {
+            @Override
+            double sum(final ReciprocalKernel kernel, final int startIndexInclusive, final int endIndexExclusive) {
+                return kernel.sum(input, startIndexInclusive, endIndexExclusive);
+            }
+
+            @Override
+            double compensatedSum(final int startIndexInclusive, final int endIndexExclusive, final double[] scratch) {
+                for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                    scratch[i - startIndexInclusive] = input[i];
+                }
+                return ReproducibleReciprocalSum.blockSum(scratch, 0, endIndexExclusive - startIndexInclusive);
+            }
+
+            @Override
+            boolean needsScratch() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,289 @@
+package co.edu.unal.paralela;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Ciclo interno que suma los recíprocos de un rango de un arreglo; lo usan la suma secuencial y cada hoja
+ * de las tareas fork-join.
+ *
+ * El ciclo escalar tiene una dependencia serial en el acumulador: cada suma espera a la anterior. La
+ * versión desenrollada usa {@link #LANES} acumuladores independientes para que el procesador pueda solapar
+ * las divisiones, pero en las mediciones no fue más rápida que la escalar, así que solo se usa si se pide.
+ * La versión vectorial usa la API de vectores (jdk.incubator.vector) cuando está disponible: requiere la
+ * clase VectorReciprocalKernel, que se compila con JDK 16 o superior, y ejecutar con
+ * --add-modules jdk.incubator.vector.
+ *
+ * La versión por defecto es la vectorial si está disponible y la escalar si no; se puede cambiar con la
+ * propiedad del sistema {@value #KERNEL_PROPERTY}.
+ */
+public enum ReciprocalKernel {
+    /**
+     * Ciclo escalar con un solo acumulador, igual al ciclo original.
+     */
+    SCALAR {
+        @Override
+        double sum(final double[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum = 0;
+            for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                sum += 1 / input[i];
+            }
+            return sum;
+        }
+
+        @Override
+        double sum(final float[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum = 0;
+            for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                sum += 1.0 / input[i];
+            }
+            return sum;
+        }
+
+        @Override
+        double sum(final int[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum = 0;
+            for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                sum += 1.0 / input[i];
+            }
+            return sum;
+        }
+
+        @Override
+        double sum(final long[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum = 0;
+            for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+                sum += 1.0 / input[i];
+            }
+            return sum;
+        }
+    },
+    /**
+     * Ciclo desenrollado con varios acumuladores independientes.
+     */
+    UNROLLED {
+        @Override
+        double sum(final double[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            int i = startIndexInclusive;
+            for (; i < endIndexExclusive - (LANES - 1); i += LANES) {
+                sum0 += 1 / input[i];
+                sum1 += 1 / input[i + 1];
+                sum2 += 1 / input[i + 2];
+                sum3 += 1 / input[i + 3];
+            }
+            for (; i < endIndexExclusive; i++) {
+                sum0 += 1 / input[i];
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+
+        @Override
+        double sum(final float[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            int i = startIndexInclusive;
+            for (; i < endIndexExclusive - (LANES - 1); i += LANES) {
+                sum0 += 1.0 / input[i];
+                sum1 += 1.0 / input[i + 1];
+                sum2 += 1.0 / input[i + 2];
+                sum3 += 1.0 / input[i + 3];
+            }
+            for (; i < endIndexExclusive; i++) {
+                sum0 += 1.0 / input[i];
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+
+        @Override
+        double sum(final int[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            int i = startIndexInclusive;
+            for (; i < endIndexExclusive - (LANES - 1); i += LANES) {
+                sum0 += 1.0 / input[i];
+                sum1 += 1.0 / input[i + 1];
+                sum2 += 1.0 / input[i + 2];
+                sum3 += 1.0 / input[i + 3];
+            }
+            for (; i < endIndexExclusive; i++) {
+                sum0 += 1.0 / input[i];
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+
+        @Override
+        double sum(final long[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            int i = startIndexInclusive;
+            for (; i < endIndexExclusive - (LANES - 1); i += LANES) {
+                sum0 += 1.0 / input[i];
+                sum1 += 1.0 / input[i + 1];
+                sum2 += 1.0 / input[i + 2];
+                sum3 += 1.0 / input[i + 3];
+            }
+            for (; i < endIndexExclusive; i++) {
+                sum0 += 1.0 / input[i];
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+    },
+    /**
+     * Ciclo con la API de vectores para arreglos de doubles. Si la API no está disponible, y para arreglos de
+     * floats, ints o longs, suma igual que SCALAR.
+     */
+    VECTOR {
+        @Override
+        double sum(final double[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            if (VECTOR_SUM == null) {
+                return SCALAR.sum(input, startIndexInclusive, endIndexExclusive);
+            }
+            try {
+                return (double) VECTOR_SUM.invokeExact(input, startIndexInclusive, endIndexExclusive);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        double sum(final float[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            return SCALAR.sum(input, startIndexInclusive, endIndexExclusive);
+        }
+
+        @Override
+        double sum(final int[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            return SCALAR.sum(input, startIndexInclusive, endIndexExclusive);
+        }
+
+        @Override
+        double sum(final long[] input, final int startIndexInclusive, final int endIndexExclusive) {
+            return SCALAR.sum(input, startIndexInclusive, endIndexExclusive);
+        }
+    };
+
+    /**
+     * Propiedad del sistema para elegir el ciclo por defecto (SCALAR, UNROLLED o VECTOR).
+     */
+    public static final String KERNEL_PROPERTY = "co.edu.unal.paralela.kernel";
+    /**
+     * Cantidad de acumuladores independientes de la versión desenrollada.
+     */
+    static final int LANES = 4;
+
+    /**
+     * VectorReciprocalKernel.sum, o null si la API de vectores no está disponible.
+     */
+    private static final MethodHandle VECTOR_SUM = findVectorSum();
+
+    /**
+     * Ciclo por defecto, leído una sola vez de la propiedad del sistema.
+     */
+    private static final ReciprocalKernel DEFAULT = fromProperty(System.getProperty(KERNEL_PROPERTY));
+
+    /**
+     * Suma los recíprocos del rango [startIndexInclusive, endIndexExclusive) del arreglo.
+     *
+     * @param input Arreglo de entrada
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    abstract double sum(double[] input, int startIndexInclusive, int endIndexExclusive);
+
+    /**
+     * Suma los recíprocos del rango [startIndexInclusive, endIndexExclusive) de un arreglo de floats. Cada
+     * valor se ensancha a double antes de dividir y la suma se acumula en double, así que el resultado es el
+     * de sumar el mismo arreglo convertido a double[], sin leer el doble de memoria.
+     *
+     * @param input Arreglo de entrada
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    abstract double sum(float[] input, int startIndexInclusive, int endIndexExclusive);
+
+    /**
+     * Suma los recíprocos del rango [startIndexInclusive, endIndexExclusive) de un arreglo de ints, dividiendo
+     * y acumulando en double (1 / 0 es infinito, como con doubles).
+     *
+     * @param input Arreglo de entrada
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    abstract double sum(int[] input, int startIndexInclusive, int endIndexExclusive);
+
+    /**
+     * Suma los recíprocos del rango [startIndexInclusive, endIndexExclusive) de un arreglo de longs, dividiendo
+     * y acumulando en double. Los valores de más de 53 bits se redondean al convertirlos, igual que al copiarlos
+     * a un double[].
+     *
+     * @param input Arreglo de entrada
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     * @return La suma de los recíprocos del rango
+     */
+    abstract double sum(long[] input, int startIndexInclusive, int endIndexExclusive);
+
+    /**
+     * Recupera el ciclo por defecto.
+     * @return VECTOR si la API de vectores está disponible o SCALAR si no, salvo que la propiedad del sistema
+     *         indique otro
+     */
+    public static ReciprocalKernel getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Indica si VECTOR usa la API de vectores o solo suma como SCALAR.
+     * @return true si la API de vectores está disponible
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_SUM != null;
+    }
+
+    /**
+     * Interpreta el valor de la propiedad del sistema.
+     * @param value Valor de la propiedad, o null si no está definida
+     * @return El ciclo correspondiente, o el vectorial o el escalar si el valor no está definido o no es válido
+     */
+    private static ReciprocalKernel fromProperty(final String value) {
+        if (value != null) {
+            for (ReciprocalKernel kernel : values()) {
+                if (kernel.name().equalsIgnoreCase(value.trim())) {
+                    return kernel;
+                }
+            }
+        }
+        return isVectorAvailable() ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Busca VectorReciprocalKernel.sum. Cargar la clase falla si no se compiló (JDK anterior a 16), si el
+     * JDK no la puede leer o si el módulo jdk.incubator.vector no se agregó al ejecutar.
+     *
+     * @return El método, o null si la API de vectores no está disponible
+     */
+    private static MethodHandle findVectorSum() {
+        try {
+            final Class<?> kernel = Class.forName("co.edu.unal.paralela.VectorReciprocalKernel");
+            return MethodHandles.lookup().findStatic(kernel, "sum",
+                    MethodType.methodType(double.class, double[].class, int.class, int.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
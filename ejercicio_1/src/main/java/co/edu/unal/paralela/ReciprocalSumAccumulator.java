@@ -0,0 +1,322 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Acumulador concurrente de la suma de recíprocos para valores que llegan de forma continua desde muchos hilos.
+ *
+ * Al estilo de DoubleAdder, el estado se reparte en varias celdas (stripes), cada una en su propia línea de
+ * caché, y no hay candados. Cada celda guarda una referencia a un estado inmutable con la suma (con
+ * compensación de Neumaier), la compensación y la cantidad de valores; un escritor arma el estado nuevo y lo
+ * publica con un compareAndSet sobre la referencia. Cada hilo empieza por la celda que le corresponde según su
+ * identificador y, si el compareAndSet falla porque otro hilo escribió la misma celda, reintenta en la
+ * siguiente; un fallo sólo ocurre porque otro escritor avanzó, así que nadie espera a nadie. Los lectores leen
+ * la referencia de cada celda, que siempre apunta a un estado completo, sin tomar nada ni reintentar. Leer la
+ * suma y la cantidad cuesta O(cantidad de celdas), sin importar cuántos valores se hayan agregado.
+ */
+public final class ReciprocalSumAccumulator {
+    /**
+     * Celdas en las que se reparte el estado; la cantidad es potencia de dos.
+     */
+    private final Cell[] cells;
+    /**
+     * Máscara para convertir un hash en un índice de celda.
+     */
+    private final int mask;
+
+    /**
+     * Constructor con dos celdas por procesador disponible.
+     */
+    public ReciprocalSumAccumulator() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * @param setStripes Cantidad mínima de celdas; se redondea a la siguiente potencia de dos
+     */
+    public ReciprocalSumAccumulator(final int setStripes) {
+        if (setStripes <= 0) {
+            throw new IllegalArgumentException("La cantidad de celdas debe ser positiva: " + setStripes);
+        }
+        final int n = Integer.highestOneBit(Math.min(setStripes, 1 << 16) * 2 - 1);
+        this.cells = new Cell[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = new Cell();
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * Agrega el recíproco de un valor.
+     *
+     * @param value Valor cuyo recíproco se suma
+     */
+    public void add(final double value) {
+        publish(1 / value, 0, 1);
+    }
+
+    /**
+     * Agrega los recíprocos de un rango de valores. El rango se suma localmente, con compensación de Neumaier,
+     * y el resultado se publica con un solo compareAndSet, así que ni los lectores ni los demás escritores
+     * notan el tamaño del rango.
+     *
+     * @param values Valores cuyos recíprocos se suman
+     * @param startIndexInclusive Índice inicial, inclusivo
+     * @param endIndexExclusive Índice final, exclusivo
+     */
+    public void addAll(final double[] values, final int startIndexInclusive, final int endIndexExclusive) {
+        if (endIndexExclusive <= startIndexInclusive) {
+            return;
+        }
+        double sum = 0;
+        double compensation = 0;
+        for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
+            final double x = 1 / values[i];
+            final double t = sum + x;
+            compensation += neumaier(sum, x, t);
+            sum = t;
+        }
+        publish(sum, compensation, endIndexExclusive - startIndexInclusive);
+    }
+
+    /**
+     * Toma una foto consistente de la suma y la cantidad. Cada celda se lee completa (suma, compensación y
+     * cantidad de un mismo estado) con una sola lectura, sin esperar a los escritores; los valores que se
+     * agregan mientras se toma la foto pueden quedar o no incluidos.
+     *
+     * @return La suma de los recíprocos y la cantidad de valores agregados hasta ahora
+     */
+    public Snapshot snapshot() {
+        double sum = 0;
+        double compensation = 0;
+        long count = 0;
+        for (Cell cell : cells) {
+            final State state = cell.state;
+            final double cellSum = state.sum + state.compensation;
+            final double t = sum + cellSum;
+            compensation += neumaier(sum, cellSum, t);
+            sum = t;
+            count += state.count;
+        }
+        return new Snapshot(sum + compensation, count);
+    }
+
+    /**
+     * Publica en alguna celda una suma parcial: parte de la celda del hilo actual y, cada vez que el
+     * compareAndSet falla porque otro escritor cambió la celda, sigue con la siguiente.
+     *
+     * @param sum Suma parcial
+     * @param compensation Compensación de la suma parcial
+     * @param count Cantidad de valores de la suma parcial
+     */
+    private void publish(final double sum, final double compensation, final long count) {
+        final long id = Thread.currentThread().getId();
+        int index = (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+        while (true) {
+            final Cell cell = cells[(index >>> 16) & mask];
+            final State current = cell.state;
+            if (cell.compareAndSet(current, current.plus(sum, compensation, count))) {
+                return;
+            }
+            index += 1 << 16;
+        }
+    }
+
+    /**
+     * Calcula el error de redondeo de la suma t = sum + x, según Neumaier.
+     *
+     * @param sum Acumulador antes de la suma
+     * @param x Término sumado
+     * @param t Resultado redondeado de sum + x
+     * @return La parte de sum + x que se perdió al redondear
+     */
+    private static double neumaier(final double sum, final double x, final double t) {
+        return Math.abs(sum) >= Math.abs(x) ? (sum - t) + x : (x - t) + sum;
+    }
+
+    /**
+     * Estado inmutable de una celda.
+     */
+    private static final class State {
+        /**
+         * Estado de una celda vacía.
+         */
+        static final State EMPTY = new State(0, 0, 0);
+
+        /**
+         * Suma de los recíprocos.
+         */
+        private final double sum;
+        /**
+         * Compensación de Neumaier de la suma.
+         */
+        private final double compensation;
+        /**
+         * Cantidad de valores.
+         */
+        private final long count;
+
+        /**
+         * Constructor.
+         * @param setSum Suma de los recíprocos
+         * @param setCompensation Compensación de Neumaier de la suma
+         * @param setCount Cantidad de valores
+         */
+        State(final double setSum, final double setCompensation, final long setCount) {
+            this.sum = setSum;
+            this.compensation = setCompensation;
+            this.count = setCount;
+        }
+
+        /**
+         * Arma el estado que resulta de agregar una suma parcial.
+         * @param x Suma parcial
+         * @param xCompensation Compensación de la suma parcial
+         * @param xCount Cantidad de valores de la suma parcial
+         * @return El estado nuevo
+         */
+        State plus(final double x, final double xCompensation, final long xCount) {
+            final double t = sum + x;
+            return new State(t, compensation + xCompensation + neumaier(sum, x, t), count + xCount);
+        }
+    }
+
+    /**
+     * Foto inmutable de la suma de recíprocos y la cantidad de valores.
+     */
+    public static final class Snapshot {
+        /**
+         * Suma de los recíprocos.
+         */
+        private final double sum;
+        /**
+         * Cantidad de valores agregados.
+         */
+        private final long count;
+
+        /**
+         * Constructor.
+         * @param setSum Suma de los recíprocos
+         * @param setCount Cantidad de valores agregados
+         */
+        Snapshot(final double setSum, final long setCount) {
+            this.sum = setSum;
+            this.count = setCount;
+        }
+
+        /**
+         * Recupera la suma de los recíprocos.
+         * @return La suma de los recíprocos de los valores agregados
+         */
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * Recupera la cantidad de valores.
+         * @return La cantidad de valores agregados
+         */
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Relleno para que dos celdas nunca compartan línea de caché (ni el par de líneas que trae el prefetcher).
+     */
+    @SuppressWarnings("unused")
+    private static class PaddedBefore {
+        /**
+         * Relleno.
+         */
+        private long p0;
+        /**
+         * Relleno.
+         */
+        private long p1;
+        /**
+         * Relleno.
+         */
+        private long p2;
+        /**
+         * Relleno.
+         */
+        private long p3;
+        /**
+         * Relleno.
+         */
+        private long p4;
+        /**
+         * Relleno.
+         */
+        private long p5;
+        /**
+         * Relleno.
+         */
+        private long p6;
+        /**
+         * Relleno.
+         */
+        private long p7;
+    }
+
+    /**
+     * Celda con una referencia al estado, que sólo cambia con compareAndSet.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell extends PaddedBefore {
+        /**
+         * Actualizador atómico del estado.
+         */
+        private static final AtomicReferenceFieldUpdater<Cell, State> STATE =
+                AtomicReferenceFieldUpdater.newUpdater(Cell.class, State.class, "state");
+
+        /**
+         * Estado actual de la celda.
+         */
+        private volatile State state = State.EMPTY;
+        /**
+         * Relleno.
+         */
+        private long q0;
+        /**
+         * Relleno.
+         */
+        private long q1;
+        /**
+         * Relleno.
+         */
+        private long q2;
+        /**
+         * Relleno.
+         */
+        private long q3;
+        /**
+         * Relleno.
+         */
+        private long q4;
+        /**
+         * Relleno.
+         */
+        private long q5;
+        /**
+         * Relleno.
+         */
+        private long q6;
+        /**
+         * Relleno.
+         */
+        private long q7;
+
+        /**
+         * Reemplaza el estado si no cambió desde que se leyó.
+         * @param expected Estado leído
+         * @param update Estado nuevo
+         * @return true si se reemplazó
+         */
+        boolean compareAndSet(final State expected, final State update) {
+            return STATE.compareAndSet(this, expected, update);
+        }
+    }
+}
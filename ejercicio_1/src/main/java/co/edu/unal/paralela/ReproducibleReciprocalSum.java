@@ -0,0 +1,249 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Suma de recíprocos reproducible: el resultado sólo depende del arreglo de entrada.
+ *
+ * El arreglo se parte en bloques de {@link #BLOCK_SIZE} elementos, fijos sin importar cuántos hilos o
+ * tareas se usen. Cada bloque se suma con compensación de Neumaier en {@link ReciprocalKernel#LANES}
+ * acumuladores independientes (el mismo desenrollado del ciclo interno rápido, siempre con la misma
+ * asignación de elementos a acumuladores) y los resultados de los bloques se
+ * combinan en un árbol binario que siempre parte el rango de bloques por la mitad. Las tareas fork-join
+ * siguen exactamente ese mismo árbol, y cuando una tarea deja de dividirse calcula su subárbol con la
+ * misma recursión, así que la secuencia de operaciones de punto flotante es siempre la misma.
+ *
+ * Las entradas float[], int[] y long[] se convierten a double de a un bloque, en un arreglo auxiliar que cabe
+ * en caché, y ese bloque se suma con el mismo ciclo: el resultado es idéntico bit a bit al de la misma entrada
+ * copiada a un double[]. Convertir el bloque aparte resultó más rápido que convertir cada valor dentro del
+ * ciclo compensado.
+ */
+final class ReproducibleReciprocalSum {
+    /**
+     * Cantidad de elementos de cada bloque. Cambiarla cambia los resultados, así que es parte de la definición
+     * del modo reproducible.
+     */
+    static final int BLOCK_SIZE = 1 << 12;
+
+    /**
+     * Constructor.
+     */
+    private ReproducibleReciprocalSum() {
+    }
+
+    /**
+     * Calcula secuencialmente la suma reproducible de los recíprocos.
+     *
+     * @param input Arreglo de entrada
+     * @return La suma de los recíprocos del arreglo de entrada
+     */
+    static double seqSum(final ReciprocalInput input) {
+        final int nBlocks = getBlockCount(input.getLength());
+        return nBlocks == 0 ? 0 : treeSum(input, 0, nBlocks, newScratch(input));
+    }
+
+    /**
+     * Calcula en paralelo la suma reproducible de los recíprocos.
+     *
+     * @param input Arreglo de entrada
+     * @param minTasks Cantidad mínima de hojas en las que se reparte el trabajo
+     * @param sequentialCutoff Cantidad máxima de elementos de una hoja
+     * @param pool Pool en el que se ejecutan las tareas
+     * @return La suma de los recíprocos del arreglo de entrada, idéntica a la de {@link #seqSum(ReciprocalInput)}
+     */
+    static double parSum(final ReciprocalInput input, final int minTasks, final int sequentialCutoff, final ForkJoinPool pool) {
+        if (input.getLength() == 0) {
+            return 0;
+        }
+        final ReproducibleSumTask task = newTask(input, minTasks, sequentialCutoff);
+        pool.invoke(task);
+        return task.getValue();
+    }
+
+    /**
+     * Crea la tarea raíz de {@link #parSum}, para ejecutarla desde otra tarea del pool con invoke() en vez de
+     * entrar de nuevo al pool.
+     *
+     * @param input Arreglo de entrada, no vacío
+     * @param minTasks Cantidad mínima de hojas en las que se reparte el trabajo
+     * @param sequentialCutoff Cantidad máxima de elementos de una hoja
+     * @return La tarea; su valor, una vez ejecutada, es idéntico al de {@link #seqSum(ReciprocalInput)}
+     */
+    static ReproducibleSumTask newTask(final ReciprocalInput input, final int minTasks, final int sequentialCutoff) {
+        final int nBlocks = getBlockCount(input.getLength());
+        final int tasks = Math.max(1, minTasks);
+        final int blocksPerTask = (nBlocks + tasks - 1) / tasks;
+        final int cutoffBlocks = Math.max(1, sequentialCutoff / BLOCK_SIZE);
+        return new ReproducibleSumTask(input, 0, nBlocks, Math.min(blocksPerTask, cutoffBlocks));
+    }
+
+    /**
+     * Calcula la cantidad de bloques de un arreglo.
+     *
+     * @param nElements Cantidad de elementos del arreglo
+     * @return La cantidad de bloques, contando el último bloque incompleto
+     */
+    private static int getBlockCount(final int nElements) {
+        return (int) (((long) nElements + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    /**
+     * Crea el arreglo auxiliar en el que se convierte cada bloque de una entrada que no es de doubles.
+     *
+     * @param input Arreglo de entrada
+     * @return Un arreglo de un bloque, o null si la entrada no lo necesita
+     */
+    private static double[] newScratch(final ReciprocalInput input) {
+        return input.needsScratch() ? new double[Math.min(BLOCK_SIZE, input.getLength())] : null;
+    }
+
+    /**
+     * Suma los bloques [loBlock, hiBlock) con el árbol de forma fija.
+     *
+     * @param input Arreglo de entrada
+     * @param loBlock Primer bloque, inclusivo
+     * @param hiBlock Último bloque, exclusivo
+     * @param scratch Arreglo auxiliar de {@link #newScratch}
+     * @return La suma de los recíprocos de los bloques
+     */
+    private static double treeSum(final ReciprocalInput input, final int loBlock, final int hiBlock, final double[] scratch) {
+        if (hiBlock - loBlock == 1) {
+            return blockSum(input, loBlock, scratch);
+        }
+        final int mid = (loBlock + hiBlock) >>> 1;
+        return treeSum(input, loBlock, mid, scratch) + treeSum(input, mid, hiBlock, scratch);
+    }
+
+    /**
+     * Suma los recíprocos de un bloque con el ciclo del tipo de la entrada.
+     *
+     * @param input Arreglo de entrada
+     * @param block Índice del bloque
+     * @param scratch Arreglo auxiliar de {@link #newScratch}
+     * @return La suma compensada de los recíprocos del bloque
+     */
+    private static double blockSum(final ReciprocalInput input, final int block, final double[] scratch) {
+        final int start = block * BLOCK_SIZE;
+        return input.compensatedSum(start, Math.min(input.getLength(), start + BLOCK_SIZE), scratch);
+    }
+
+    /**
+     * Suma los recíprocos de un rango de a lo sumo un bloque con compensación de Neumaier. El elemento
+     * start + 4k + j va al acumulador j, y los elementos que sobran al final del rango van al acumulador 0.
+     *
+     * @param input Arreglo de entrada
+     * @param start Índice inicial, inclusivo
+     * @param end Índice final, exclusivo
+     * @return La suma compensada de los recíprocos del rango
+     */
+    static double blockSum(final double[] input, final int start, final int end) {
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        double c0 = 0;
+        double c1 = 0;
+        double c2 = 0;
+        double c3 = 0;
+        int i = start;
+        for (; i < end - (ReciprocalKernel.LANES - 1); i += ReciprocalKernel.LANES) {
+            final double x0 = 1 / input[i];
+            final double x1 = 1 / input[i + 1];
+            final double x2 = 1 / input[i + 2];
+            final double x3 = 1 / input[i + 3];
+            final double t0 = sum0 + x0;
+            final double t1 = sum1 + x1;
+            final double t2 = sum2 + x2;
+            final double t3 = sum3 + x3;
+            c0 += compensation(sum0, x0, t0);
+            c1 += compensation(sum1, x1, t1);
+            c2 += compensation(sum2, x2, t2);
+            c3 += compensation(sum3, x3, t3);
+            sum0 = t0;
+            sum1 = t1;
+            sum2 = t2;
+            sum3 = t3;
+        }
+        for (; i < end; i++) {
+            final double x0 = 1 / input[i];
+            final double t0 = sum0 + x0;
+            c0 += compensation(sum0, x0, t0);
+            sum0 = t0;
+        }
+        return ((sum0 + c0) + (sum1 + c1)) + ((sum2 + c2) + (sum3 + c3));
+    }
+
+    /**
+     * Calcula el error de redondeo de la suma t = sum + x, según Neumaier.
+     *
+     * @param sum Acumulador antes de la suma
+     * @param x Término sumado
+     * @param t Resultado redondeado de sum + x
+     * @return La parte de sum + x que se perdió al redondear
+     */
+    private static double compensation(final double sum, final double x, final double t) {
+        return Math.abs(sum) >= Math.abs(x) ? (sum - t) + x : (x - t) + sum;
+    }
+
+    /**
+     * Tarea que recorre el árbol de bloques; se divide en el mismo punto medio que {@link #treeSum}.
+     */
+    static final class ReproducibleSumTask extends RecursiveAction {
+        /**
+         * Arreglo de entrada para la suma de recíprocos.
+         */
+        private final ReciprocalInput input;
+        /**
+         * Primer bloque de esta tarea, inclusivo.
+         */
+        private final int loBlock;
+        /**
+         * Último bloque de esta tarea, exclusivo.
+         */
+        private final int hiBlock;
+        /**
+         * Cantidad máxima de bloques que esta tarea suma sin dividirse.
+         */
+        private final int leafBlocks;
+        /**
+         * Valor producido por esta tarea.
+         */
+        private double value;
+
+        /**
+         * Constructor.
+         * @param setInput Valores de entrada
+         * @param setLoBlock Primer bloque, inclusivo
+         * @param setHiBlock Último bloque, exclusivo
+         * @param setLeafBlocks Cantidad máxima de bloques de una hoja
+         */
+        ReproducibleSumTask(final ReciprocalInput setInput, final int setLoBlock, final int setHiBlock, final int setLeafBlocks) {
+            this.input = setInput;
+            this.loBlock = setLoBlock;
+            this.hiBlock = setHiBlock;
+            this.leafBlocks = setLeafBlocks;
+        }
+
+        /**
+         * Recupera la suma calculada por esta tarea.
+         * @return La suma de los recíprocos de los bloques de la tarea
+         */
+        double getValue() {
+            return value;
+        }
+
+        @Override
+        protected void compute() {
+            if (hiBlock - loBlock <= leafBlocks) {
+                value = treeSum(input, loBlock, hiBlock, newScratch(input));
+            } else {
+                final int mid = (loBlock + hiBlock) >>> 1;
+                final ReproducibleSumTask left = new ReproducibleSumTask(input, loBlock, mid, leafBlocks);
+                final ReproducibleSumTask right = new ReproducibleSumTask(input, mid, hiBlock, leafBlocks);
+                invokeAll(left, right);
+                value = left.value + right.value;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Calcula el tamaño del caso base (cutoff secuencial) de las tareas fork-join de la suma de recíprocos.
+ *
+ * El cutoff se elige para que haya varias hojas por hilo del pool (lo que deja margen para el robo de
+ * trabajo cuando unas hojas tardan más que otras), pero sin bajar de un tamaño mínimo por debajo del cual
+ * el costo de crear y planificar una tarea deja de ser despreciable frente al trabajo de la hoja.
+ * El tamaño mínimo se obtiene con una calibración rápida la primera vez que se necesita, y se puede fijar
+ * con la propiedad del sistema {@value #CUTOFF_PROPERTY}.
+ */
+final class SequentialCutoff {
+    /**
+     * Propiedad del sistema para fijar el cutoff en lugar de calcularlo.
+     */
+    static final String CUTOFF_PROPERTY = "co.edu.unal.paralela.sequentialCutoff";
+    /**
+     * Cantidad de hojas que se buscan por cada hilo del pool.
+     */
+    static final int LEAVES_PER_WORKER = 8;
+    /**
+     * Límite inferior del tamaño mínimo de hoja, sin importar lo que diga la calibración.
+     */
+    static final int MIN_LEAF_FLOOR = 1 << 10;
+    /**
+     * Límite superior del tamaño mínimo de hoja (512 KB de doubles, del orden de una caché L2).
+     */
+    static final int MIN_LEAF_CEILING = 1 << 16;
+    /**
+     * Cantidad de tareas sin robar en la cola del hilo a partir de la cual se deja de dividir.
+     */
+    static final int SURPLUS_QUEUED_TASKS = 3;
+    /**
+     * Múltiplo del cutoff hasta el cual un rango se procesa sin dividir si el hilo tiene tareas de sobra.
+     */
+    static final int SURPLUS_LEAF_FACTOR = 4;
+    /**
+     * Duración buscada para una hoja, en nanosegundos, frente a un costo de tarea del orden del microsegundo.
+     */
+    private static final long TARGET_LEAF_NANOS = 20_000;
+    /**
+     * Cantidad de elementos del arreglo de calibración.
+     */
+    private static final int CALIBRATION_ELEMENTS = 1 << 14;
+    /**
+     * Repeticiones de la calibración; se toma la más rápida para descartar el tiempo del intérprete.
+     */
+    private static final int CALIBRATION_REPEATS = 64;
+
+    /**
+     * Tamaño mínimo de hoja; 0 mientras no se ha calibrado.
+     */
+    private static volatile int minimumLeaf;
+    /**
+     * Valor que se usa para que el compilador JIT no descarte la calibración.
+     */
+    private static volatile double sink;
+
+    /**
+     * Constructor.
+     */
+    private SequentialCutoff() {
+    }
+
+    /**
+     * Calcula el cutoff para un arreglo de nElements elementos procesado por un pool con el paralelismo dado.
+     *
+     * @param nElements Cantidad de elementos a sumar
+     * @param parallelism Cantidad de hilos del pool
+     * @return El tamaño máximo de un rango que se procesa secuencialmente
+     */
+    static int forSize(final long nElements, final int parallelism) {
+        final Integer fixed = Integer.getInteger(CUTOFF_PROPERTY);
+        if (fixed != null && fixed > 0) {
+            return fixed;
+        }
+        final long leaves = (long) Math.max(1, parallelism) * LEAVES_PER_WORKER;
+        final long bySize = (nElements + leaves - 1) / leaves;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(minimumLeaf(), bySize));
+    }
+
+    /**
+     * Decide si una tarea fork-join debe procesar su rango secuencialmente en lugar de dividirse. Un rango es
+     * caso base si no supera el cutoff, o si no supera unas pocas veces el cutoff y el hilo ya tiene suficientes
+     * tareas sin robar en su cola (los demás hilos tienen de dónde tomar trabajo, así que dividir más sólo
+     * agregaría costo). Sólo se debe llamar desde el compute() de una tarea.
+     *
+     * @param length Cantidad de elementos del rango de la tarea
+     * @param sequentialCutoff Cutoff secuencial de la tarea
+     * @return true si la tarea debe ser una hoja
+     */
+    static boolean isLeaf(final int length, final int sequentialCutoff) {
+        return length <= sequentialCutoff
+                || (length <= SURPLUS_LEAF_FACTOR * (long) sequentialCutoff
+                && ForkJoinTask.getSurplusQueuedTaskCount() > SURPLUS_QUEUED_TASKS);
+    }
+
+    /**
+     * Recupera el tamaño mínimo de hoja, calibrándolo la primera vez.
+     *
+     * @return La cantidad de elementos por debajo de la cual no vale la pena crear otra tarea
+     */
+    static int minimumLeaf() {
+        int leaf = minimumLeaf;
+        if (leaf == 0) {
+            leaf = calibrate();
+            minimumLeaf = leaf;
+        }
+        return leaf;
+    }
+
+    /**
+     * Mide cuánto tarda el ciclo secuencial por elemento y deduce cuántos elementos toma una hoja
+     * de {@link #TARGET_LEAF_NANOS} nanosegundos.
+     *
+     * @return El tamaño mínimo de hoja calibrado
+     */
+    private static int calibrate() {
+        final double[] input = new double[CALIBRATION_ELEMENTS];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = 1 + (i & 127);
+        }
+        long best = Long.MAX_VALUE;
+        double total = 0;
+        for (int r = 0; r < CALIBRATION_REPEATS; r++) {
+            final long start = System.nanoTime();
+            double sum = 0;
+            for (int i = 0; i < input.length; i++) {
+                sum += 1 / input[i];
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            total += sum;
+        }
+        sink = total;
+        final double nanosPerElement = Math.max(1, best) / (double) CALIBRATION_ELEMENTS;
+        final long leaf = (long) (TARGET_LEAF_NANOS / nanosPerElement);
+        return (int) Math.min(MIN_LEAF_CEILING, Math.max(MIN_LEAF_FLOOR, leaf));
+    }
+}
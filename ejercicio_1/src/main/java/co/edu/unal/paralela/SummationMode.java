@@ -0,0 +1,16 @@
+package co.edu.unal.paralela;
+
+/**
+ * Modo de suma de las versiones secuencial y paralelas de ReciprocalArraySum.
+ */
+public enum SummationMode {
+    /**
+     * Suma directa; el resultado puede cambiar en los últimos bits según cómo se divida el trabajo.
+     */
+    FAST,
+    /**
+     * Suma compensada por bloques de tamaño fijo, combinados en un árbol de forma fija. El resultado es
+     * idéntico bit a bit sin importar la cantidad de hilos, de tareas o el cutoff secuencial.
+     */
+    REPRODUCIBLE
+}
@@ -0,0 +1,152 @@
+package co.edu.unal.paralela;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Observador de tareas que acumula contadores: tareas creadas, robos, hojas, elementos sumados, tiempo en
+ * las hojas, profundidad máxima y la cola más larga vista por una hoja.
+ *
+ * Los contadores son LongAdder y LongAccumulator, así que los hilos del pool no compiten por una misma
+ * variable. Una misma instancia se puede pasar a varias sumas para acumular sus contadores, y reiniciar
+ * con {@link #reset()}; las lecturas hechas mientras hay sumas en curso son aproximadas.
+ */
+public final class TaskCounters implements TaskListener {
+    /**
+     * Tareas creadas.
+     */
+    private final LongAdder tasks = new LongAdder();
+    /**
+     * Tareas robadas por otro hilo.
+     */
+    private final LongAdder steals = new LongAdder();
+    /**
+     * Hojas completadas.
+     */
+    private final LongAdder leaves = new LongAdder();
+    /**
+     * Elementos sumados por las hojas.
+     */
+    private final LongAdder elements = new LongAdder();
+    /**
+     * Tiempo total en las hojas, en nanosegundos.
+     */
+    private final LongAdder leafNanos = new LongAdder();
+    /**
+     * Profundidad máxima de una tarea.
+     */
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    /**
+     * Duración máxima de una hoja, en nanosegundos.
+     */
+    private final LongAccumulator maxLeafNanos = new LongAccumulator(Math::max, 0);
+    /**
+     * Mayor cantidad de tareas en la cola de un hilo vista al terminar una hoja.
+     */
+    private final LongAccumulator maxQueuedTasks = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void taskCreated(final int depth) {
+        tasks.increment();
+        maxDepth.accumulate(depth);
+    }
+
+    @Override
+    public void taskStolen(final int depth) {
+        steals.increment();
+    }
+
+    @Override
+    public void leafCompleted(final int depth, final int leafElements, final long nanos, final int queuedTasks) {
+        leaves.increment();
+        elements.add(leafElements);
+        leafNanos.add(nanos);
+        maxLeafNanos.accumulate(nanos);
+        maxQueuedTasks.accumulate(queuedTasks);
+    }
+
+    /**
+     * Pone todos los contadores en cero.
+     */
+    public void reset() {
+        tasks.reset();
+        steals.reset();
+        leaves.reset();
+        elements.reset();
+        leafNanos.reset();
+        maxDepth.reset();
+        maxLeafNanos.reset();
+        maxQueuedTasks.reset();
+    }
+
+    /**
+     * Recupera la cantidad de tareas creadas.
+     * @return Tareas creadas
+     */
+    public long getTasks() {
+        return tasks.sum();
+    }
+
+    /**
+     * Recupera la cantidad de tareas robadas por otro hilo.
+     * @return Tareas robadas
+     */
+    public long getSteals() {
+        return steals.sum();
+    }
+
+    /**
+     * Recupera la cantidad de hojas completadas.
+     * @return Hojas completadas
+     */
+    public long getLeaves() {
+        return leaves.sum();
+    }
+
+    /**
+     * Recupera la cantidad de elementos sumados por las hojas.
+     * @return Elementos sumados
+     */
+    public long getElements() {
+        return elements.sum();
+    }
+
+    /**
+     * Recupera el tiempo total en las hojas.
+     * @return Tiempo total en las hojas, en nanosegundos
+     */
+    public long getLeafNanos() {
+        return leafNanos.sum();
+    }
+
+    /**
+     * Recupera la duración de la hoja más lenta.
+     * @return Duración máxima de una hoja, en nanosegundos
+     */
+    public long getMaxLeafNanos() {
+        return maxLeafNanos.get();
+    }
+
+    /**
+     * Recupera la profundidad máxima de una tarea.
+     * @return Profundidad máxima
+     */
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * Recupera la cola más larga vista al terminar una hoja.
+     * @return Mayor cantidad de tareas en la cola de un hilo
+     */
+    public long getMaxQueuedTasks() {
+        return maxQueuedTasks.get();
+    }
+
+    @Override
+    public String toString() {
+        return "tareas=" + getTasks() + ", robos=" + getSteals() + ", hojas=" + getLeaves() + ", elementos=" + getElements()
+                + ", nanosHojas=" + getLeafNanos() + ", maxNanosHoja=" + getMaxLeafNanos() + ", maxProfundidad=" + getMaxDepth()
+                + ", maxCola=" + getMaxQueuedTasks();
+    }
+}
@@ -0,0 +1,46 @@
+package co.edu.unal.paralela;
+
+/**
+ * Observador de las tareas fork-join de la suma de recíprocos, para ver cómo se reparte el trabajo sin
+ * imprimir nada desde las tareas.
+ *
+ * Todos los métodos tienen una implementación vacía, así que un observador sólo redefine los eventos que le
+ * interesan. Los métodos se llaman desde los hilos del pool, muchas veces y en paralelo, así que deben ser
+ * baratos y seguros entre hilos. Con {@link #NOOP}, que es el valor por defecto, las tareas ni siquiera
+ * toman el tiempo de las hojas.
+ */
+public interface TaskListener {
+    /**
+     * Observador que no hace nada.
+     */
+    TaskListener NOOP = new TaskListener() {
+    };
+
+    /**
+     * Se llama al crear una tarea.
+     *
+     * @param depth Profundidad de la tarea; las tareas creadas directamente por el método de suma tienen 0
+     */
+    default void taskCreated(final int depth) {
+    }
+
+    /**
+     * Se llama cuando una tarea empieza a ejecutarse en un hilo distinto del que la creó, es decir, cuando
+     * otro hilo del pool la robó.
+     *
+     * @param depth Profundidad de la tarea
+     */
+    default void taskStolen(final int depth) {
+    }
+
+    /**
+     * Se llama cuando una hoja termina de sumar su rango.
+     *
+     * @param depth Profundidad de la hoja
+     * @param elements Cantidad de elementos de la hoja
+     * @param nanos Duración de la suma de la hoja, en nanosegundos
+     * @param queuedTasks Tareas que esperaban en la cola del hilo de la hoja al terminarla
+     */
+    default void leafCompleted(final int depth, final int elements, final long nanos, final int queuedTasks) {
+    }
+}
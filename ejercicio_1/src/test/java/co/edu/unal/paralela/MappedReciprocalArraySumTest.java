@@ -0,0 +1,108 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MappedReciprocalArraySumTest extends TestCase {
+
+    /**
+     * Crea un arreglo double[] de longitud N sin ceros, igual que ReciprocalArraySumTest.
+     *
+     * @param N Tamaño del arreglo a crear
+     * @return Arreglo double de longitud N inicializado
+     */
+    private double[] createArray(final int N) {
+        final double[] input = new double[N];
+        final Random rand = new Random(314);
+
+        for (int i = 0; i < N; i++) {
+            input[i] = rand.nextInt(100);
+            if (input[i] == 0.0) {
+                i--;
+            }
+        }
+
+        return input;
+    }
+
+    /**
+     * Escribe un arreglo como doubles crudos en little-endian en un archivo temporal.
+     *
+     * @param input Valores a escribir
+     * @return La ruta del archivo creado
+     * @throws IOException si no se puede escribir el archivo
+     */
+    private Path writeDoubles(final double[] input) throws IOException {
+        final Path path = Files.createTempFile("reciprocal", ".bin");
+        final ByteBuffer buffer = ByteBuffer.allocate(input.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (double v : input) {
+            buffer.putDouble(v);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Calcula la suma de referencia.
+     *
+     * @param input Arreglo de entrada
+     * @return Suma de los recíprocos de la entrada
+     */
+    private double seqArraySum(final double[] input) {
+        double sum = 0;
+        for (int i = 0; i < input.length; i++) {
+            sum += 1 / input[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Prueba que la suma sobre el archivo mapeado concuerda con la suma del arreglo, con tamaños que no son
+     * múltiplo de página y con cutoffs que obligan a mapear muchas regiones.
+     */
+    public void testSumFile() throws IOException {
+        for (int n : new int[] {0, 1, 511, 512, 513, 100_003}) {
+            final double[] input = createArray(n);
+            final Path path = writeDoubles(input);
+            try {
+                final double correct = seqArraySum(input);
+                assertEquals(correct, MappedReciprocalArraySum.sumFile(path), 1E-9);
+                for (int cutoff : new int[] {1, 1000, 1 << 20}) {
+                    final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withSequentialCutoff(cutoff);
+                    assertEquals(correct, MappedReciprocalArraySum.sumFile(path, options), 1E-9);
+                }
+            } finally {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Prueba que un archivo cuyo tamaño no es múltiplo de 8 bytes se rechaza.
+     */
+    public void testRejectsTruncatedFile() throws IOException {
+        final Path path = Files.createTempFile("reciprocal", ".bin");
+        try {
+            Files.write(path, new byte[] {1, 2, 3});
+            MappedReciprocalArraySum.sumFile(path);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // esperado
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
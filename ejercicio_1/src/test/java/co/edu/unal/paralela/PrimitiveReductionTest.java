@@ -0,0 +1,116 @@
+package co.edu.unal.paralela;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class PrimitiveReductionTest extends TestCase {
+    /**
+     * Cantidad de elementos de los arreglos de prueba.
+     */
+    final static private int N = 3_000_001;
+
+    /**
+     * Prueba las reducciones de doubles contra un ciclo secuencial, incluyendo la suma de recíprocos expresada
+     * como reducción genérica.
+     */
+    public void testDoubleReductions() {
+        final double[] input = new double[N];
+        final Random rand = new Random(314);
+        for (int i = 0; i < N; i++) {
+            input[i] = 1 + rand.nextInt(100);
+        }
+        double sum = 0;
+        double squares = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double x : input) {
+            sum += x;
+            squares += x * x;
+            min = Math.min(min, x);
+            max = Math.max(max, x);
+        }
+        assertEquals(sum, PrimitiveReduction.sum(input), 1E-9 * sum);
+        assertEquals(squares, PrimitiveReduction.sumOfSquares(input), 1E-9 * squares);
+        assertEquals(min, PrimitiveReduction.min(input));
+        assertEquals(max, PrimitiveReduction.max(input));
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withPool(pool).withSequentialCutoff(10_000);
+            final double reciprocals = PrimitiveReduction.reduce(input, 7, 0, x -> 1 / x, Double::sum, options);
+            final double expected = ReciprocalArraySum.seqArraySum(input);
+            assertEquals(expected, reciprocals, 1E-9 * expected);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prueba las reducciones de enteros, que deben coincidir exactamente con el ciclo secuencial y no
+     * desbordarse al sumar ints.
+     */
+    public void testIntegerReductions() {
+        final int[] ints = new int[N];
+        final long[] longs = new long[N];
+        final Random rand = new Random(271);
+        long sum = 0;
+        long squares = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < N; i++) {
+            ints[i] = rand.nextInt();
+            longs[i] = ints[i];
+            sum += ints[i];
+            squares += (long) ints[i] * ints[i];
+            min = Math.min(min, ints[i]);
+            max = Math.max(max, ints[i]);
+        }
+        assertEquals(sum, PrimitiveReduction.sum(ints));
+        assertEquals(squares, PrimitiveReduction.sumOfSquares(ints));
+        assertEquals(sum, PrimitiveReduction.sum(longs));
+        assertEquals(min, PrimitiveReduction.min(longs));
+        assertEquals(max, PrimitiveReduction.max(longs));
+    }
+
+    /**
+     * Prueba que una entrada vacía o más pequeña que la cantidad de secciones devuelve lo esperado.
+     */
+    public void testSmallInputs() {
+        assertEquals(0.0, PrimitiveReduction.sum(new double[0]));
+        assertEquals(1.0, PrimitiveReduction.product(new double[0]));
+        assertEquals(Long.MIN_VALUE, PrimitiveReduction.max(new long[0]));
+        final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withSequentialCutoff(1);
+        assertEquals(6L, PrimitiveReduction.reduce(new int[] {1, 2, 3}, 16, 1L, x -> x, (a, b) -> a * b, options));
+        assertEquals(24.0, PrimitiveReduction.reduce(new double[] {1, 2, 3, 4}, 16, 1, x -> x, (a, b) -> a * b, options));
+    }
+
+    /**
+     * Prueba que una cantidad de secciones menor que 1 se rechaza en los tres tipos, aun con entradas que se
+     * reducirían secuencialmente.
+     */
+    public void testRejectsNonPositiveTasks() {
+        final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withSequentialCutoff(1);
+        for (int numTasks : new int[] {0, -1}) {
+            try {
+                PrimitiveReduction.reduce(new double[] {1, 2, 3}, numTasks, 0, x -> x, Double::sum, options);
+                fail("Se esperaba IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // Esperado.
+            }
+            try {
+                PrimitiveReduction.reduce(new long[0], numTasks, 0L, x -> x, Long::sum, options);
+                fail("Se esperaba IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // Esperado.
+            }
+            try {
+                PrimitiveReduction.reduce(new int[] {1, 2, 3}, numTasks, 0L, x -> x, Long::sum, options);
+                fail("Se esperaba IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // Esperado.
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package co.edu.unal.paralela;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import junit.framework.TestCase;
 
@@ -148,4 +151,409 @@ public class ReciprocalArraySumTest extends TestCase {
                 " %fx veces más rápido, pero solo alcanzo a mejorar la rapidez (speedup) %fx veces", minimalExpectedSpeedup, speedup);
         assertTrue(errMsg, speedup >= minimalExpectedSpeedup);
     }
+
+    /**
+     * Prueba que las versiones paralelas calculan el resultado correcto en un pool suministrado por quien llama,
+     * y que ese pool no se apaga.
+     */
+    public void testParWithSuppliedPool() {
+        final double[] input = createArray(100_000);
+        final double correct = seqArraySum(input);
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(correct, ReciprocalArraySum.parArraySum(input, pool), 1E-2);
+            assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 8, pool), 1E-2);
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prueba que el motor compartido se reutiliza entre llamadas y se vuelve a crear después de cerrarlo.
+     */
+    public void testSharedEngineLifecycle() {
+        final double[] input = createArray(100_000);
+        final double correct = seqArraySum(input);
+        final ForkJoinEngine engine = ForkJoinEngine.shared();
+        assertEquals(correct, ReciprocalArraySum.parArraySum(input), 1E-2);
+        assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 8), 1E-2);
+        assertSame(engine, ForkJoinEngine.shared());
+
+        ForkJoinEngine.closeShared();
+        assertTrue(engine.getPool().isShutdown());
+        assertNotSame(engine, ForkJoinEngine.shared());
+        assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 8), 1E-2);
+    }
+
+    /**
+     * Prueba que las versiones paralelas calculan el resultado correcto con un cutoff secuencial explícito,
+     * también cuando el cutoff obliga a dividir cada sección en muchas hojas.
+     */
+    public void testParWithSequentialCutoff() {
+        final double[] input = createArray(100_001);
+        final double correct = seqArraySum(input);
+        for (int cutoff : new int[] {1, 100, 4096, 1_000_000}) {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withSequentialCutoff(cutoff);
+            assertEquals(correct, ReciprocalArraySum.parArraySum(input, options), 1E-2);
+            assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 7, options), 1E-2);
+        }
+    }
+
+    /**
+     * Prueba que el cutoff automático no divide arreglos pequeños y que para arreglos grandes deja
+     * varias hojas por hilo.
+     */
+    public void testAutomaticSequentialCutoff() {
+        final int minimumLeaf = SequentialCutoff.minimumLeaf();
+        assertTrue(minimumLeaf >= SequentialCutoff.MIN_LEAF_FLOOR && minimumLeaf <= SequentialCutoff.MIN_LEAF_CEILING);
+        assertEquals(minimumLeaf, SequentialCutoff.forSize(minimumLeaf / 2, 16));
+
+        final int parallelism = 16;
+        final int cutoff = SequentialCutoff.forSize(200_000_000, parallelism);
+        assertTrue(200_000_000 / cutoff >= parallelism * SequentialCutoff.LEAVES_PER_WORKER - 1);
+    }
+
+    /**
+     * Prueba que el modo reproducible da el mismo resultado bit a bit sin importar la cantidad de hilos,
+     * de tareas o el cutoff, y que ese resultado concuerda con la suma secuencial.
+     */
+    public void testReproducibleSummationIsBitIdentical() {
+        final double[] input = createArray(1_000_003);
+        final double expected = ReciprocalArraySum.seqArraySum(input, SummationMode.REPRODUCIBLE);
+        assertEquals(seqArraySum(input), expected, 1E-2);
+
+        for (int threads = 1; threads <= 3; threads++) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int cutoff : new int[] {0, 1, 10_000, 300_000}) {
+                    final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                            .withPool(pool)
+                            .withSequentialCutoff(cutoff)
+                            .withSummationMode(SummationMode.REPRODUCIBLE);
+                    assertEquals(Double.doubleToLongBits(expected),
+                            Double.doubleToLongBits(ReciprocalArraySum.parArraySum(input, options)));
+                    for (int numTasks : new int[] {1, 2, 7, 64, 1000}) {
+                        assertEquals(Double.doubleToLongBits(expected),
+                                Double.doubleToLongBits(ReciprocalArraySum.parManyTaskArraySum(input, numTasks, options)));
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Prueba que los ciclos internos escalar, desenrollado y vectorial calculan la misma suma sobre rangos de
+     * cualquier tamaño y alineación, y que las versiones paralelas los usan correctamente.
+     */
+    public void testKernelsAgree() {
+        final double[] input = createArray(10_007);
+        for (ReciprocalKernel kernel : ReciprocalKernel.values()) {
+            for (int start = 0; start < 17; start++) {
+                for (int end = input.length - 17; end <= input.length; end++) {
+                    final double scalar = ReciprocalKernel.SCALAR.sum(input, start, end);
+                    assertEquals(kernel.name(), scalar, kernel.sum(input, start, end), 1E-9);
+                }
+            }
+            for (int length = 0; length < 40; length++) {
+                assertEquals(kernel.name(), ReciprocalKernel.SCALAR.sum(input, 3, 3 + length),
+                        kernel.sum(input, 3, 3 + length), 1E-9);
+            }
+            assertEquals(kernel.name(), 0.0, kernel.sum(input, 3, 3));
+            assertEquals(kernel.name(), 1 / input[3], kernel.sum(input, 3, 4));
+        }
+
+        final double correct = seqArraySum(input);
+        for (ReciprocalKernel kernel : ReciprocalKernel.values()) {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                    .withKernel(kernel)
+                    .withSequentialCutoff(1000);
+            assertEquals(correct, ReciprocalArraySum.seqArraySum(input, options), 1E-9);
+            assertEquals(correct, ReciprocalArraySum.parArraySum(input, options), 1E-9);
+            assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 3, options), 1E-9);
+        }
+    }
+
+    /**
+     * Prueba que los contadores de tareas cuadran con el árbol de tareas: cada hoja suma su rango, las hojas
+     * cubren todo el arreglo y con un cutoff fijo hay al menos tantas tareas como el árbol exige.
+     */
+    public void testTaskCounters() {
+        final double[] input = createArray(100_000);
+        final double correct = seqArraySum(input);
+        final TaskCounters counters = new TaskCounters();
+        final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                .withSequentialCutoff(1000)
+                .withListener(counters);
+
+        assertEquals(correct, ReciprocalArraySum.parArraySum(input, options), 1E-2);
+        assertEquals(input.length, counters.getElements());
+        assertTrue(counters.getLeaves() >= input.length / 1000 / SequentialCutoff.SURPLUS_LEAF_FACTOR);
+        assertEquals(2 * counters.getLeaves() - 1, counters.getTasks());
+        assertTrue(counters.getMaxDepth() > 0);
+        assertTrue(counters.getSteals() < counters.getTasks());
+
+        counters.reset();
+        assertEquals(0, counters.getTasks());
+        assertEquals(correct, ReciprocalArraySum.parManyTaskArraySum(input, 4, options), 1E-2);
+        assertEquals(input.length, counters.getElements());
+        assertEquals(2 * counters.getLeaves() - 4, counters.getTasks());
+    }
+
+    /**
+     * Prueba que todas las estrategias de ejecución calculan el resultado correcto, con más y con menos
+     * secciones que hilos, y que cerrar el motor apaga su pool de hilos de tamaño fijo.
+     */
+    public void testExecutionStrategies() {
+        final double[] input = createArray(100_003);
+        final double correct = seqArraySum(input);
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+                final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                        .withPool(engine.getPool())
+                        .withExecutor(engine.getExecutor())
+                        .withSequentialCutoff(1000)
+                        .withExecutionStrategy(strategy);
+                for (int numTasks : new int[] {1, 3, 64}) {
+                    assertEquals(strategy.name(), correct, ReciprocalArraySum.parManyTaskArraySum(input, numTasks, options), 1E-9);
+                }
+                assertEquals(strategy.name(), correct, ReciprocalArraySum.parArraySum(input, options), 1E-9);
+            }
+            engine.close();
+            assertTrue(engine.getPool().isShutdown());
+        }
+    }
+
+    /**
+     * Prueba que una cantidad de secciones menor que 1 se rechaza con todas las estrategias y todos los tipos,
+     * también con arreglos que se sumarían secuencialmente.
+     */
+    public void testRejectsNonPositiveTasks() {
+        final double[] input = createArray(3_000_000);
+        for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withExecutionStrategy(strategy);
+            for (int numTasks : new int[] {0, -1}) {
+                try {
+                    ReciprocalArraySum.parManyTaskArraySum(input, numTasks, options);
+                    fail("Se esperaba IllegalArgumentException con " + strategy);
+                } catch (IllegalArgumentException e) {
+                    // Esperado.
+                }
+            }
+        }
+        try {
+            ReciprocalArraySum.parManyTaskArraySum(new double[] {1, 2}, 0);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: se valida antes de sumar secuencialmente.
+        }
+        try {
+            ReciprocalArraySum.parManyTaskArraySum(new float[] {1, 2}, 0, ReciprocalArraySumOptions.defaults());
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado.
+        }
+        try {
+            ReciprocalArraySum.parManyTaskArraySum(new int[] {1, 2}, -1, ReciprocalArraySumOptions.defaults());
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado.
+        }
+        try {
+            ReciprocalArraySum.parManyTaskArraySum(new long[] {1, 2}, 0, ReciprocalArraySumOptions.defaults());
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado.
+        }
+    }
+
+    /**
+     * Prueba que VIRTUAL_THREADS no lanza un hilo de plataforma por sección: con hilos virtuales los
+     * portadores son a lo sumo uno por núcleo, y sin ellos se usa el pool fijo de las opciones.
+     */
+    public void testVirtualThreadsAreBounded() {
+        final double[] input = createArray(1_000_003);
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                    .withPool(engine.getPool())
+                    .withExecutor(engine.getExecutor())
+                    .withExecutionStrategy(ExecutionStrategy.VIRTUAL_THREADS);
+            final int before = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            assertEquals(seqArraySum(input), ReciprocalArraySum.parManyTaskArraySum(input, 4096, options), 1E-6);
+            final int created = threads.getPeakThreadCount() - before;
+            assertTrue("Se crearon " + created + " hilos",
+                    created <= Runtime.getRuntime().availableProcessors() + 4);
+        }
+    }
+
+    /**
+     * Prueba que con muchas más secciones que núcleos, cada una con su resultado en una posición con relleno,
+     * las sumas siguen siendo correctas con todas las estrategias, también con más secciones que elementos.
+     */
+    public void testManyChunks() {
+        final double[] small = createArray(5);
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+                final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                        .withPool(engine.getPool())
+                        .withExecutor(engine.getExecutor())
+                        .withExecutionStrategy(strategy)
+                        .withSequentialCutoff(1);
+                assertEquals(strategy.name(), seqArraySum(small), ReciprocalArraySum.parManyTaskArraySum(small, 8, options),
+                        1E-12);
+            }
+        }
+
+        final double[] input = createArray(1_000_003);
+        final double correct = seqArraySum(input);
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+                final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                        .withPool(engine.getPool())
+                        .withExecutor(engine.getExecutor())
+                        .withExecutionStrategy(strategy);
+                assertEquals(strategy.name(), correct, ReciprocalArraySum.parManyTaskArraySum(input, 4096, options), 1E-6);
+            }
+        }
+    }
+
+    /**
+     * Prueba que en modo rápido, con una cantidad fija de secciones que no se siguen dividiendo, el resultado
+     * es el mismo bit a bit con cualquier estrategia, cantidad de hilos y repetición: los resultados de las
+     * secciones se suman en orden y no en el que terminan.
+     */
+    public void testFastSumIsDeterministicForFixedTasks() {
+        final double[] input = createArray(1_000_003);
+        final int numTasks = 64;
+        Long expected = null;
+        for (int threads = 1; threads <= 3; threads++) {
+            try (ForkJoinEngine engine = new ForkJoinEngine(threads)) {
+                for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+                    final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                            .withPool(engine.getPool())
+                            .withExecutor(engine.getExecutor())
+                            .withSequentialCutoff(100_000)
+                            .withExecutionStrategy(strategy);
+                    for (int r = 0; r < 5; r++) {
+                        final long bits = Double.doubleToLongBits(ReciprocalArraySum.parManyTaskArraySum(input, numTasks, options));
+                        if (expected == null) {
+                            expected = bits;
+                        }
+                        assertEquals(strategy.name() + " con " + threads + " hilos", expected.longValue(), bits);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Prueba que las versiones para float[], int[] y long[] dan la suma del mismo arreglo convertido a
+     * double[]: con tolerancia en modo rápido, con todas las estrategias, e idéntica bit a bit en modo reproducible.
+     */
+    public void testPrimitiveInputs() {
+        final int n = 1_000_003;
+        final double[] doubles = createArray(n);
+        final float[] floats = new float[n];
+        final int[] ints = new int[n];
+        final long[] longs = new long[n];
+        for (int i = 0; i < n; i++) {
+            // Valores con parte fraccionaria para float, que sí se redondean al convertirlos a float.
+            floats[i] = (float) (doubles[i] / 3);
+            ints[i] = (int) doubles[i];
+            longs[i] = (long) doubles[i] * 1_000_000_007L;
+        }
+        final double[] widenedFloats = new double[n];
+        final double[] widenedLongs = new double[n];
+        for (int i = 0; i < n; i++) {
+            widenedFloats[i] = floats[i];
+            widenedLongs[i] = longs[i];
+        }
+        final double floatSum = seqArraySum(widenedFloats);
+        final double intSum = seqArraySum(doubles);
+        final double longSum = seqArraySum(widenedLongs);
+
+        for (ReciprocalKernel kernel : ReciprocalKernel.values()) {
+            final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults().withKernel(kernel);
+            assertEquals(floatSum, ReciprocalArraySum.seqArraySum(floats, options), 1E-6);
+            assertEquals(intSum, ReciprocalArraySum.seqArraySum(ints, options), 1E-6);
+            assertEquals(longSum, ReciprocalArraySum.seqArraySum(longs, options), 1E-15);
+        }
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+                final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                        .withPool(engine.getPool())
+                        .withExecutor(engine.getExecutor())
+                        .withSequentialCutoff(1000)
+                        .withExecutionStrategy(strategy);
+                for (int numTasks : new int[] {3, 4096}) {
+                    assertEquals(strategy.name(), floatSum, ReciprocalArraySum.parManyTaskArraySum(floats, numTasks, options), 1E-6);
+                    assertEquals(strategy.name(), intSum, ReciprocalArraySum.parManyTaskArraySum(ints, numTasks, options), 1E-6);
+                    assertEquals(strategy.name(), longSum, ReciprocalArraySum.parManyTaskArraySum(longs, numTasks, options), 1E-15);
+                }
+                assertEquals(strategy.name(), floatSum, ReciprocalArraySum.parArraySum(floats, options), 1E-6);
+                assertEquals(strategy.name(), intSum, ReciprocalArraySum.parArraySum(ints, options), 1E-6);
+                assertEquals(strategy.name(), longSum, ReciprocalArraySum.parArraySum(longs, options), 1E-15);
+            }
+
+            final ReciprocalArraySumOptions reproducible = ReciprocalArraySumOptions.defaults()
+                    .withPool(engine.getPool())
+                    .withSequentialCutoff(10_000)
+                    .withSummationMode(SummationMode.REPRODUCIBLE);
+            final long floatBits = Double.doubleToLongBits(ReciprocalArraySum.seqArraySum(widenedFloats, reproducible));
+            final long intBits = Double.doubleToLongBits(ReciprocalArraySum.seqArraySum(doubles, reproducible));
+            final long longBits = Double.doubleToLongBits(ReciprocalArraySum.seqArraySum(widenedLongs, reproducible));
+            assertEquals(floatBits, Double.doubleToLongBits(ReciprocalArraySum.seqArraySum(floats, reproducible)));
+            assertEquals(floatBits, Double.doubleToLongBits(ReciprocalArraySum.parArraySum(floats, reproducible)));
+            assertEquals(floatBits, Double.doubleToLongBits(ReciprocalArraySum.parManyTaskArraySum(floats, 7, reproducible)));
+            assertEquals(intBits, Double.doubleToLongBits(ReciprocalArraySum.parArraySum(ints, reproducible)));
+            assertEquals(longBits, Double.doubleToLongBits(ReciprocalArraySum.parManyTaskArraySum(longs, 7, reproducible)));
+        }
+        // La división es en double: el recíproco de un int no se trunca a 0.
+        assertEquals(0.5, ReciprocalArraySum.seqArraySum(new int[] {2}, ReciprocalArraySumOptions.defaults()));
+        assertEquals(0.0, ReciprocalArraySum.parArraySum(new float[0], ReciprocalArraySumOptions.defaults()));
+    }
+
+    /**
+     * Prueba que la suma por lotes da la suma de cada arreglo, con arreglos vacíos, pequeños que se empaquetan
+     * juntos y grandes que se parten, con cualquier cutoff, y que en modo reproducible cada suma es idéntica bit
+     * a bit a la secuencial.
+     */
+    public void testBatchSum() {
+        final Random rand = new Random(271);
+        final double[][] inputs = new double[500][];
+        for (int a = 0; a < inputs.length; a++) {
+            final int length = a % 50 == 0 ? 0 : a % 97 == 0 ? 100_000 + rand.nextInt(50_000) : rand.nextInt(3000);
+            inputs[a] = createArray(length);
+        }
+        try (ForkJoinEngine engine = new ForkJoinEngine(2)) {
+            for (int cutoff : new int[] {0, 1, 4096, 10_000_000}) {
+                final ReciprocalArraySumOptions options = ReciprocalArraySumOptions.defaults()
+                        .withPool(engine.getPool())
+                        .withSequentialCutoff(cutoff);
+                final double[] sums = ReciprocalArraySum.parBatchArraySum(inputs, options);
+                assertEquals(inputs.length, sums.length);
+                for (int a = 0; a < inputs.length; a++) {
+                    assertEquals("arreglo " + a, seqArraySum(inputs[a]), sums[a], 1E-6);
+                }
+
+                final ReciprocalArraySumOptions reproducible = options.withSummationMode(SummationMode.REPRODUCIBLE);
+                final double[] exact = ReciprocalArraySum.parBatchArraySum(inputs, reproducible);
+                for (int a = 0; a < inputs.length; a++) {
+                    assertEquals("arreglo " + a, Double.doubleToLongBits(ReciprocalArraySum.seqArraySum(inputs[a], reproducible)),
+                            Double.doubleToLongBits(exact[a]));
+                }
+            }
+        }
+        assertEquals(0, ReciprocalArraySum.parBatchArraySum(new double[0][]).length);
+        try {
+            ReciprocalArraySum.parBatchArraySum(new double[][] {{1.0}, null});
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: un arreglo del lote es null.
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class ReciprocalSumAccumulatorTest extends TestCase {
+    /**
+     * Cantidad de hilos escritores.
+     */
+    final static private int WRITERS = 8;
+    /**
+     * Cantidad de valores que agrega cada escritor.
+     */
+    final static private int VALUES_PER_WRITER = 200_000;
+
+    /**
+     * Crea los valores de un escritor, sin ceros.
+     *
+     * @param seed Semilla del escritor
+     * @return Valores a agregar
+     */
+    private double[] createValues(final int seed) {
+        final double[] values = new double[VALUES_PER_WRITER];
+        final Random rand = new Random(seed);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + rand.nextInt(99);
+        }
+        return values;
+    }
+
+    /**
+     * Prueba que con muchos escritores concurrentes la suma y la cantidad finales son las esperadas, y que
+     * las fotos tomadas durante la escritura nunca superan el total.
+     */
+    public void testConcurrentWriters() throws InterruptedException {
+        final ReciprocalSumAccumulator accumulator = new ReciprocalSumAccumulator(4);
+        final double[][] values = new double[WRITERS][];
+        double expected = 0;
+        for (int w = 0; w < WRITERS; w++) {
+            values[w] = createValues(w);
+            for (double v : values[w]) {
+                expected += 1 / v;
+            }
+        }
+
+        final Thread[] writers = new Thread[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            final double[] mine = values[w];
+            final boolean batched = w % 2 == 0;
+            writers[w] = new Thread(() -> {
+                if (batched) {
+                    for (int i = 0; i < mine.length; i += 1000) {
+                        accumulator.addAll(mine, i, Math.min(mine.length, i + 1000));
+                    }
+                } else {
+                    for (double v : mine) {
+                        accumulator.add(v);
+                    }
+                }
+            });
+            writers[w].start();
+        }
+        long lastCount = 0;
+        for (int r = 0; r < 100; r++) {
+            final ReciprocalSumAccumulator.Snapshot snapshot = accumulator.snapshot();
+            assertTrue(snapshot.getCount() >= lastCount);
+            assertTrue(snapshot.getCount() <= (long) WRITERS * VALUES_PER_WRITER);
+            lastCount = snapshot.getCount();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        final ReciprocalSumAccumulator.Snapshot snapshot = accumulator.snapshot();
+        assertEquals((long) WRITERS * VALUES_PER_WRITER, snapshot.getCount());
+        assertEquals(expected, snapshot.getSum(), 1E-6);
+    }
+
+    /**
+     * Prueba que cada foto toma la suma y la cantidad de un mismo estado de cada celda: con valores 1 la suma
+     * es exactamente la cantidad, también mientras otros hilos escriben rangos grandes.
+     */
+    public void testSnapshotIsConsistent() throws InterruptedException {
+        final ReciprocalSumAccumulator accumulator = new ReciprocalSumAccumulator(2);
+        final double[] ones = new double[100_000];
+        Arrays.fill(ones, 1.0);
+        final Thread[] writers = new Thread[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            final boolean batched = w % 2 == 0;
+            writers[w] = new Thread(() -> {
+                for (int r = 0; r < 20; r++) {
+                    if (batched) {
+                        accumulator.addAll(ones, 0, ones.length);
+                    } else {
+                        for (int i = 0; i < 1000; i++) {
+                            accumulator.add(1.0);
+                        }
+                    }
+                }
+            });
+            writers[w].start();
+        }
+        for (int r = 0; r < 1000; r++) {
+            final ReciprocalSumAccumulator.Snapshot snapshot = accumulator.snapshot();
+            assertEquals((double) snapshot.getCount(), snapshot.getSum());
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(WRITERS / 2 * 20 * (100_000L + 1000), accumulator.snapshot().getCount());
+        accumulator.addAll(ones, 5, 5);
+        assertEquals(WRITERS / 2 * 20 * (100_000L + 1000), accumulator.snapshot().getCount());
+    }
+
+    /**
+     * Prueba que un acumulador vacío reporta cero.
+     */
+    public void testEmpty() {
+        final ReciprocalSumAccumulator.Snapshot snapshot = new ReciprocalSumAccumulator().snapshot();
+        assertEquals(0L, snapshot.getCount());
+        assertEquals(0.0, snapshot.getSum());
+    }
+}
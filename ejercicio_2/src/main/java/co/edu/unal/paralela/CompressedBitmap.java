@@ -0,0 +1,136 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+
+/**
+ * Bitset de filas comprimido por bloques de 65536 filas, para los índices de {@link StudentIndex}.
+ *
+ * Cada bloque se guarda de una de tres formas: null si no tiene ningún bit encendido, el arreglo compartido
+ * {@link #FULL} si tiene todos los bits encendidos, o un long[] propio de 1024 palabras. Un índice sobre datos
+ * agrupados (por ejemplo los activos al principio del arreglo) queda casi todo en bloques vacíos o llenos, que
+ * no ocupan memoria y que las operaciones resuelven sin recorrer palabras.
+ */
+final class CompressedBitmap {
+    /**
+     * Logaritmo en base 2 de la cantidad de filas de un bloque.
+     */
+    static final int BLOCK_SHIFT = 16;
+    /**
+     * Cantidad de palabras de un bloque.
+     */
+    static final int BLOCK_WORDS = 1 << (BLOCK_SHIFT - 6);
+    /**
+     * Bloque con todos los bits encendidos, compartido; se compara por referencia y no se debe modificar.
+     */
+    static final long[] FULL = filled();
+
+    /**
+     * Bloques del bitset.
+     */
+    private final long[][] blocks;
+
+    /**
+     * Constructor.
+     * @param setBlocks Bloques ya comprimidos con {@link #compress(long[], int)}
+     */
+    CompressedBitmap(final long[][] setBlocks) {
+        this.blocks = setBlocks;
+    }
+
+    /**
+     * Crea el bloque lleno.
+     * @return Un bloque con todas las palabras en -1
+     */
+    private static long[] filled() {
+        final long[] words = new long[BLOCK_WORDS];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    /**
+     * Calcula la cantidad de bloques para n filas.
+     * @param n Cantidad de filas
+     * @return La cantidad de bloques
+     */
+    static int blockCount(final int n) {
+        return (int) ((n + (1L << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT);
+    }
+
+    /**
+     * Comprime las palabras de un bloque.
+     * @param words Palabras del bloque, o null si no tiene bits
+     * @param rows Cantidad de filas del bloque; menos de 65536 sólo en el último
+     * @return null, {@link #FULL} o las mismas palabras
+     */
+    static long[] compress(final long[] words, final int rows) {
+        if (words == null) {
+            return null;
+        }
+        boolean empty = true;
+        boolean full = true;
+        for (int w = 0; w < BLOCK_WORDS; w++) {
+            final int rowsInWord = Math.max(0, Math.min(64, rows - (w << 6)));
+            final long valid = rowsInWord == 64 ? -1L : (1L << rowsInWord) - 1;
+            empty &= words[w] == 0;
+            full &= words[w] == valid;
+        }
+        return empty ? null : full ? FULL : words;
+    }
+
+    /**
+     * Recupera un bloque.
+     * @param b Índice del bloque
+     * @return null si el bloque está vacío, {@link #FULL} si está lleno o sus palabras; no se debe modificar
+     */
+    long[] block(final int b) {
+        return blocks[b];
+    }
+
+    /**
+     * Calcula la unión de un bloque de varios bitsets.
+     * @param bitmaps Bitsets
+     * @param selected Qué bitsets entran en la unión
+     * @param b Índice del bloque
+     * @return null si la unión está vacía, {@link #FULL} si algún bloque está lleno, o las palabras de la unión;
+     *     no se deben modificar, porque pueden ser las de uno de los bitsets
+     */
+    static long[] union(final CompressedBitmap[] bitmaps, final boolean[] selected, final int b) {
+        long[] result = null;
+        boolean owned = false;
+        for (int i = 0; i < bitmaps.length; i++) {
+            final long[] block = selected[i] ? bitmaps[i].blocks[b] : null;
+            if (block == null) {
+                continue;
+            }
+            if (block == FULL) {
+                return FULL;
+            }
+            if (result == null) {
+                result = block;
+            } else {
+                if (!owned) {
+                    result = result.clone();
+                    owned = true;
+                }
+                for (int w = 0; w < BLOCK_WORDS; w++) {
+                    result[w] |= block[w];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cuenta los bloques guardados como palabras, es decir los que no están vacíos ni llenos.
+     * @return La cantidad de bloques densos
+     */
+    int denseBlocks() {
+        int dense = 0;
+        for (long[] block : blocks) {
+            if (block != null && block != FULL) {
+                dense++;
+            }
+        }
+        return dense;
+    }
+}
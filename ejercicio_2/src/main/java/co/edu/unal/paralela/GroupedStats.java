@@ -0,0 +1,452 @@
+package co.edu.unal.paralela;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Resultados por grupo de un recorrido paralelo: cantidad de estudiantes, de activos y de notas perdidas, y
+ * sumas de edad y nota de cada grupo, en arreglos primitivos.
+ *
+ * Cada hilo acumula en sus propios arreglos long[] y double[] indexados por el número del grupo (el código
+ * del nombre, o piso(valor / ancho) para las franjas y rangos, desplazado al menor número visto), que crecen
+ * cuando aparece un grupo fuera de su rango. Los arreglos de los hilos se combinan de a pares siguiendo el
+ * árbol en que se partió el recorrido. No se crean listas de estudiantes por grupo ni contadores boxed como en
+ * Collectors.groupingBy; sólo se reserva memoria al crecer los arreglos.
+ *
+ * Los grupos sin estudiantes no aparecen. Los grupos numéricos quedan ordenados de menor a mayor, y los de
+ * nombres en orden lexicográfico, igual que en los mapas de {@link StudentQuery#countBy}.
+ */
+public final class GroupedStats {
+    /**
+     * Nota mínima para aprobar; una nota por debajo es una nota perdida, como en StudentAnalytics.
+     */
+    static final int PASSING_GRADE = 65;
+    /**
+     * Cantidad de estudiantes de cada bloque del recorrido sobre un arreglo.
+     */
+    private static final int BLOCK = 1024;
+    /**
+     * Cantidad máxima de grupos numéricos entre el menor y el mayor visto, para que un ancho demasiado pequeño
+     * falle en lugar de agotar la memoria.
+     */
+    private static final int MAX_NUMERIC_GROUPS = 1 << 20;
+
+    /**
+     * Etiqueta de cada grupo.
+     */
+    private final String[] keys;
+    /**
+     * Cantidad de estudiantes de cada grupo.
+     */
+    private final long[] counts;
+    /**
+     * Cantidad de estudiantes activos de cada grupo.
+     */
+    private final long[] currentCounts;
+    /**
+     * Cantidad de notas perdidas de cada grupo.
+     */
+    private final long[] failedCounts;
+    /**
+     * Suma de las edades de cada grupo.
+     */
+    private final double[] ageSums;
+    /**
+     * Suma de las notas de cada grupo.
+     */
+    private final double[] gradeSums;
+
+    /**
+     * Constructor.
+     * @param setKeys Etiqueta de cada grupo
+     * @param setCounts Cantidad de estudiantes de cada grupo
+     * @param setCurrentCounts Cantidad de estudiantes activos de cada grupo
+     * @param setFailedCounts Cantidad de notas perdidas de cada grupo
+     * @param setAgeSums Suma de las edades de cada grupo
+     * @param setGradeSums Suma de las notas de cada grupo
+     */
+    private GroupedStats(final String[] setKeys, final long[] setCounts, final long[] setCurrentCounts,
+            final long[] setFailedCounts, final double[] setAgeSums, final double[] setGradeSums) {
+        this.keys = setKeys;
+        this.counts = setCounts;
+        this.currentCounts = setCurrentCounts;
+        this.failedCounts = setFailedCounts;
+        this.ageSums = setAgeSums;
+        this.gradeSums = setGradeSums;
+    }
+
+    /**
+     * Agrupa en paralelo los estudiantes de un arreglo que cumplen una consulta, por bloques.
+     * @param query Consulta
+     * @param grouping Agrupación
+     * @param students Estudiantes
+     * @return Los resultados por grupo
+     */
+    static GroupedStats scan(final StudentQuery query, final StudentGrouping grouping, final Student[] students) {
+        final StudentField field = grouping.getField();
+        final NameHistogram.Dictionary dictionary = grouping.byName() ? new NameHistogram.Dictionary() : null;
+        final int blocks = (int) ((students.length + (long) BLOCK - 1) / BLOCK);
+        final Partial total = IntStream.range(0, blocks)
+                .parallel()
+                .collect(() -> new Partial(dictionary == null ? null : new NameHistogram.CodeCache(dictionary),
+                        !grouping.byName()),
+                    (partial, b) -> {
+                        final int to = (int) Math.min(students.length, (b + 1L) * BLOCK);
+                        for (int i = b * BLOCK; i < to; i++) {
+                            final Student s = students[i];
+                            if (!query.matches(s) || (field == StudentField.AGE && Double.isNaN(s.getAge()))) {
+                                continue;
+                            }
+                            final long key;
+                            if (field == StudentField.FIRST_NAME) {
+                                key = partial.codes.codeOf(s.getFirstName());
+                            } else if (field == StudentField.LAST_NAME) {
+                                key = partial.codes.codeOf(s.getLastName());
+                            } else {
+                                key = grouping.keyOf(field == StudentField.AGE ? s.getAge() : s.getGrade());
+                            }
+                            partial.add(key, s.checkIsCurrent(), s.getAge(), s.getGrade());
+                        }
+                    },
+                    Partial::merge);
+        return finish(grouping, total, dictionary == null ? null : dictionary.toArray());
+    }
+
+    /**
+     * Agrupa en paralelo las filas de una tabla que cumplen una consulta, por palabras del bitset; los
+     * nombres se agrupan directamente por los códigos de la tabla.
+     * @param query Consulta
+     * @param grouping Agrupación
+     * @param table Estudiantes por columnas
+     * @return Los resultados por grupo
+     */
+    static GroupedStats scan(final StudentQuery query, final StudentGrouping grouping, final StudentTable table) {
+        final StudentField field = grouping.getField();
+        final StudentQuery.TableFilter filter = query.on(table);
+        final double[] ages = table.ages();
+        final int[] grades = table.grades();
+        final long[] current = table.currentBits();
+        final int[] codes = field == StudentField.FIRST_NAME ? table.firstNameCodes()
+                : field == StudentField.LAST_NAME ? table.lastNameCodes() : null;
+        final Partial total = IntStream.range(0, StudentTable.wordCount(table.size()))
+                .parallel()
+                .collect(() -> new Partial(null, !grouping.byName()),
+                    (partial, w) -> {
+                        for (long bits = filter.rows(w); bits != 0; bits &= bits - 1) {
+                            final int j = Long.numberOfTrailingZeros(bits);
+                            final int row = (w << 6) + j;
+                            if (field == StudentField.AGE && Double.isNaN(ages[row])) {
+                                continue;
+                            }
+                            final long key = codes != null ? codes[row]
+                                    : grouping.keyOf(field == StudentField.AGE ? ages[row] : grades[row]);
+                            partial.add(key, ((current[w] >>> j) & 1L) != 0, ages[row], grades[row]);
+                        }
+                    },
+                    Partial::merge);
+        return finish(grouping, total, field == StudentField.FIRST_NAME ? table.firstNameDictionary()
+                : field == StudentField.LAST_NAME ? table.lastNameDictionary() : null);
+    }
+
+    /**
+     * Arma el resultado con los grupos que tienen estudiantes, en orden.
+     * @param grouping Agrupación
+     * @param total Estado combinado de todos los hilos
+     * @param names Nombre de cada código, o null si los grupos son numéricos
+     * @return Los resultados por grupo
+     */
+    private static GroupedStats finish(final StudentGrouping grouping, final Partial total, final String[] names) {
+        final List<Integer> groups = new ArrayList<Integer>();
+        for (int i = 0; i < total.counts.length; i++) {
+            if (total.counts[i] > 0) {
+                groups.add(i);
+            }
+        }
+        if (names != null) {
+            groups.sort((a, b) -> names[(int) (total.origin + a)].compareTo(names[(int) (total.origin + b)]));
+        }
+        final int n = groups.size();
+        final String[] keys = new String[n];
+        final long[] counts = new long[n];
+        final long[] currentCounts = new long[n];
+        final long[] failedCounts = new long[n];
+        final double[] ageSums = new double[n];
+        final double[] gradeSums = new double[n];
+        for (int g = 0; g < n; g++) {
+            final int i = groups.get(g);
+            final long key = total.origin + i;
+            keys[g] = names != null ? names[(int) key] : grouping.label(key);
+            counts[g] = total.counts[i];
+            currentCounts[g] = total.currentCounts[i];
+            failedCounts[g] = total.failedCounts[i];
+            ageSums[g] = total.ageSums[i];
+            gradeSums[g] = total.gradeSums[i];
+        }
+        return new GroupedStats(keys, counts, currentCounts, failedCounts, ageSums, gradeSums);
+    }
+
+    /**
+     * Recupera la cantidad de grupos con estudiantes.
+     * @return La cantidad de grupos
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Busca un grupo por su etiqueta.
+     * @param key Etiqueta, como la devuelve {@link #getKey(int)}
+     * @return La posición del grupo, o -1 si no hay estudiantes en ese grupo
+     */
+    public int indexOf(final String key) {
+        for (int g = 0; g < keys.length; g++) {
+            if (keys[g].equals(key)) {
+                return g;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recupera la etiqueta de un grupo: el nombre, la franja de notas (por ejemplo {@code 60-64}) o el rango
+     * de edades (por ejemplo {@code [20.0, 22.5)}).
+     * @param group Posición del grupo
+     * @return La etiqueta
+     */
+    public String getKey(final int group) {
+        return keys[group];
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes de un grupo.
+     * @param group Posición del grupo
+     * @return La cantidad
+     */
+    public long getCount(final int group) {
+        return counts[group];
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes activos de un grupo.
+     * @param group Posición del grupo
+     * @return La cantidad de activos
+     */
+    public long getCurrentCount(final int group) {
+        return currentCounts[group];
+    }
+
+    /**
+     * Calcula la fracción de estudiantes activos de un grupo.
+     * @param group Posición del grupo
+     * @return Activos sobre el total del grupo
+     */
+    public double getCurrentRatio(final int group) {
+        return currentCounts[group] / (double) counts[group];
+    }
+
+    /**
+     * Recupera la cantidad de notas perdidas (por debajo de 65) de un grupo.
+     * @param group Posición del grupo
+     * @return La cantidad de notas perdidas
+     */
+    public long getFailedCount(final int group) {
+        return failedCounts[group];
+    }
+
+    /**
+     * Calcula el promedio de un campo numérico en un grupo.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param group Posición del grupo
+     * @return El promedio
+     * @throws IllegalArgumentException si el campo no es numérico
+     */
+    public double getAverage(final StudentField value, final int group) {
+        if (value == null || !value.isNumeric()) {
+            throw new IllegalArgumentException("Se esperaba un campo numérico pero se recibió " + value);
+        }
+        return (value == StudentField.AGE ? ageSums[group] : gradeSums[group]) / counts[group];
+    }
+
+    /**
+     * Arma la cantidad por grupo; la usa {@link StudentQuery#countBy}.
+     * @return La cantidad de cada grupo, ordenada por etiqueta
+     */
+    Map<String, Long> countsByKey() {
+        final Map<String, Long> result = new TreeMap<String, Long>();
+        for (int g = 0; g < keys.length; g++) {
+            result.put(keys[g], counts[g]);
+        }
+        return result;
+    }
+
+    /**
+     * Arma el promedio por grupo; la usa {@link StudentQuery#averageBy}.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @return El promedio de cada grupo, ordenado por etiqueta
+     */
+    Map<String, Double> averagesByKey(final StudentField value) {
+        final Map<String, Double> result = new TreeMap<String, Double>();
+        for (int g = 0; g < keys.length; g++) {
+            result.put(keys[g], getAverage(value, g));
+        }
+        return result;
+    }
+
+    /**
+     * Busca el grupo con más estudiantes; si hay empate, el primero en orden, que para los nombres es el menor
+     * en orden lexicográfico como en {@link NameHistogram}. La usa {@link StudentQuery#mode}.
+     * @return La etiqueta del grupo, o null si no hay grupos
+     */
+    String mode() {
+        int mode = -1;
+        for (int g = 0; g < keys.length; g++) {
+            if (mode < 0 || counts[g] > counts[mode]) {
+                mode = g;
+            }
+        }
+        return mode < 0 ? null : keys[mode];
+    }
+
+    /**
+     * Estado parcial de un hilo: arreglos por grupo que cubren los números de grupo desde origin.
+     */
+    private static final class Partial {
+        /**
+         * Códigos de los nombres con la caché de este hilo, o null si los grupos son numéricos o los códigos
+         * ya vienen de una tabla.
+         */
+        private final NameHistogram.CodeCache codes;
+        /**
+         * Verdadero si los grupos son franjas o rangos, que tienen un límite de cantidad.
+         */
+        private final boolean numeric;
+        /**
+         * Número del grupo de la posición 0 de los arreglos.
+         */
+        private long origin;
+        /**
+         * Cantidad de estudiantes por grupo.
+         */
+        private long[] counts = new long[0];
+        /**
+         * Cantidad de activos por grupo.
+         */
+        private long[] currentCounts = new long[0];
+        /**
+         * Cantidad de notas perdidas por grupo.
+         */
+        private long[] failedCounts = new long[0];
+        /**
+         * Suma de edades por grupo.
+         */
+        private double[] ageSums = new double[0];
+        /**
+         * Suma de notas por grupo.
+         */
+        private double[] gradeSums = new double[0];
+
+        /**
+         * Constructor.
+         * @param setCodes Códigos de los nombres, o null
+         * @param setNumeric Verdadero si los grupos son franjas o rangos
+         */
+        Partial(final NameHistogram.CodeCache setCodes, final boolean setNumeric) {
+            this.codes = setCodes;
+            this.numeric = setNumeric;
+        }
+
+        /**
+         * Agrega un estudiante a su grupo.
+         * @param key Número del grupo
+         * @param current Si el estudiante está activo
+         * @param age Edad
+         * @param grade Nota
+         */
+        void add(final long key, final boolean current, final double age, final int grade) {
+            if (key < origin || key - origin >= counts.length) {
+                cover(key, key);
+            }
+            final int i = (int) (key - origin);
+            counts[i]++;
+            currentCounts[i] += current ? 1 : 0;
+            failedCounts[i] += grade < PASSING_GRADE ? 1 : 0;
+            ageSums[i] += age;
+            gradeSums[i] += grade;
+        }
+
+        /**
+         * Suma a este estado el de otro hilo.
+         * @param other Estado de otro hilo
+         */
+        void merge(final Partial other) {
+            if (other.counts.length == 0) {
+                return;
+            }
+            cover(other.origin, other.origin + other.counts.length - 1);
+            final int offset = (int) (other.origin - origin);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[offset + i] += other.counts[i];
+                currentCounts[offset + i] += other.currentCounts[i];
+                failedCounts[offset + i] += other.failedCounts[i];
+                ageSums[offset + i] += other.ageSums[i];
+                gradeSums[offset + i] += other.gradeSums[i];
+            }
+        }
+
+        /**
+         * Agranda los arreglos, al menos al doble, para que cubran un rango de grupos.
+         * @param lo Menor número de grupo
+         * @param hi Mayor número de grupo
+         * @throws IllegalArgumentException si hay demasiados grupos numéricos
+         */
+        private void cover(final long lo, final long hi) {
+            final boolean empty = counts.length == 0;
+            final long newLo = empty ? lo : Math.min(origin, lo);
+            final long newHi = empty ? hi : Math.max(origin + counts.length - 1, hi);
+            final long span = newHi - newLo + 1;
+            final long limit = numeric ? MAX_NUMERIC_GROUPS : Integer.MAX_VALUE - 8;
+            if (span <= 0 || span > limit) {
+                throw new IllegalArgumentException("Demasiados grupos entre " + newLo + " y " + newHi
+                        + "; use un ancho mayor");
+            }
+            final int length = (int) Math.min(limit, Math.max(span, Math.max(16, 2L * counts.length)));
+            final long newOrigin = empty || newLo >= origin ? newLo : newHi - length + 1;
+            final int offset = empty ? 0 : (int) (origin - newOrigin);
+            counts = move(counts, offset, length);
+            currentCounts = move(currentCounts, offset, length);
+            failedCounts = move(failedCounts, offset, length);
+            ageSums = move(ageSums, offset, length);
+            gradeSums = move(gradeSums, offset, length);
+            origin = newOrigin;
+        }
+
+        /**
+         * Copia un arreglo a uno más grande, desplazado.
+         * @param values Arreglo
+         * @param offset Posición de values[0] en el nuevo arreglo
+         * @param length Largo del nuevo arreglo
+         * @return El nuevo arreglo
+         */
+        private static long[] move(final long[] values, final int offset, final int length) {
+            final long[] moved = new long[length];
+            System.arraycopy(values, 0, moved, offset, values.length);
+            return moved;
+        }
+
+        /**
+         * Copia un arreglo a uno más grande, desplazado.
+         * @param values Arreglo
+         * @param offset Posición de values[0] en el nuevo arreglo
+         * @param length Largo del nuevo arreglo
+         * @return El nuevo arreglo
+         */
+        private static double[] move(final double[] values, final int offset, final int length) {
+            final double[] moved = new double[length];
+            System.arraycopy(values, 0, moved, offset, values.length);
+            return moved;
+        }
+    }
+}
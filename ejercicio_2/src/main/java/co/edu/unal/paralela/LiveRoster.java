@@ -0,0 +1,376 @@
+package co.edu.unal.paralela;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Grupo de estudiantes que cambia con el tiempo y mantiene los resultados de las consultas de StudentAnalytics
+ * de forma incremental.
+ *
+ * Cada evento (alta, cambio o baja de un estudiante) resta la contribución del estudiante anterior y suma la
+ * del nuevo a unos acumuladores: suma y cantidad de edades de los activos, cantidad de reprobados mayores de
+ * 20 años y cantidad de inactivos por nombre; un nombre cuya cantidad vuelve a 0 se quita. Además se mantiene
+ * el nombre más común de los inactivos (el líder) con su cantidad. Así leer cualquier resultado cuesta O(1),
+ * sin recorrer a los estudiantes, sin importar el tamaño del grupo. La excepción es leer el nombre más común
+ * después de que el líder perdió un inactivo: esa lectura recorre los nombres, O(cantidad de nombres
+ * distintos), y deja el líder calculado para las siguientes.
+ *
+ * Varios hilos pueden enviar eventos a la vez sin candados globales. Los eventos de un mismo estudiante se
+ * serializan con el candado por entrada de ConcurrentHashMap.compute; los acumuladores de edades y reprobados
+ * son LongAdder y DoubleAdder, con celdas por hilo, y la cantidad de cada nombre es un AtomicLong propio, así
+ * que los escritores sólo compiten si cambian el mismo nombre. El líder es un par (nombre, cantidad) inmutable
+ * que se reemplaza con compareAndSet sólo cuando un nombre lo alcanza o lo supera; si el líder pierde un
+ * inactivo, se marca vencido y se recalcula en la siguiente lectura. Una lectura hecha mientras hay eventos en
+ * curso puede ver un evento a medias; una vez que los escritores terminan, las lecturas son exactas, salvo el
+ * redondeo acumulado de sumar y restar edades en double.
+ */
+public final class LiveRoster {
+    /**
+     * Estudiantes por identificador.
+     */
+    private final ConcurrentHashMap<Long, Student> students = new ConcurrentHashMap<Long, Student>();
+    /**
+     * Suma de las edades de los activos.
+     */
+    private final DoubleAdder enrolledAgeSum = new DoubleAdder();
+    /**
+     * Cantidad de activos.
+     */
+    private final LongAdder enrolledCount = new LongAdder();
+    /**
+     * Cantidad de inactivos mayores de 20 años con nota por debajo de 65.
+     */
+    private final LongAdder failedOlderThan20 = new LongAdder();
+    /**
+     * Cantidad de inactivos por nombre. Una celda que llega a 0 se marca con {@link #DEAD} y se quita; un
+     * incremento que encuentra una celda marcada la quita también y vuelve a buscar.
+     */
+    private final ConcurrentHashMap<String, AtomicLong> inactiveByFirstName = new ConcurrentHashMap<String, AtomicLong>();
+    /**
+     * Nombre más común de los inactivos con su cantidad, o un líder vencido que se recalcula al leerlo.
+     */
+    private final AtomicReference<Leader> leader = new AtomicReference<Leader>(Leader.NONE);
+
+    /**
+     * Valor de una celda de {@link #inactiveByFirstName} que ya se quitó o se está quitando.
+     */
+    private static final long DEAD = -1;
+
+    /**
+     * Crea un grupo con los estudiantes de un arreglo, cargados en paralelo; el identificador de cada
+     * estudiante es su posición en el arreglo.
+     *
+     * @param studentArray Estudiantes iniciales
+     * @return El grupo con los estudiantes
+     */
+    public static LiveRoster of(final Student[] studentArray) {
+        final LiveRoster roster = new LiveRoster();
+        IntStream.range(0, studentArray.length)
+                .parallel()
+                .forEach(i -> roster.insert(i, studentArray[i]));
+        return roster;
+    }
+
+    /**
+     * Agrega un estudiante.
+     *
+     * @param id Identificador del estudiante
+     * @param student Estudiante
+     * @throws IllegalArgumentException si ya hay un estudiante con ese identificador
+     */
+    public void insert(final long id, final Student student) {
+        requireNonNull(student);
+        students.compute(id, (k, previous) -> {
+            if (previous != null) {
+                throw new IllegalArgumentException("Ya existe el estudiante " + id);
+            }
+            apply(student, 1);
+            return student;
+        });
+    }
+
+    /**
+     * Reemplaza los datos de un estudiante, por ejemplo porque se graduó o le cambió la nota.
+     *
+     * @param id Identificador del estudiante
+     * @param student Nuevos datos del estudiante
+     * @return Los datos anteriores
+     * @throws IllegalArgumentException si no hay un estudiante con ese identificador
+     */
+    public Student update(final long id, final Student student) {
+        requireNonNull(student);
+        final Student[] previous = new Student[1];
+        students.compute(id, (k, old) -> {
+            if (old == null) {
+                throw new IllegalArgumentException("No existe el estudiante " + id);
+            }
+            apply(old, -1);
+            apply(student, 1);
+            previous[0] = old;
+            return student;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Quita un estudiante.
+     *
+     * @param id Identificador del estudiante
+     * @return Los datos del estudiante quitado, o null si no había un estudiante con ese identificador
+     */
+    public Student remove(final long id) {
+        final Student[] removed = new Student[1];
+        students.computeIfPresent(id, (k, old) -> {
+            apply(old, -1);
+            removed[0] = old;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Recupera los datos de un estudiante.
+     * @param id Identificador del estudiante
+     * @return Los datos del estudiante, o null si no existe
+     */
+    public Student get(final long id) {
+        return students.get(id);
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes.
+     * @return La cantidad de estudiantes del grupo
+     */
+    public int size() {
+        return students.size();
+    }
+
+    /**
+     * Recupera la edad promedio de los estudiantes activos, en O(1).
+     * @return Edad promedio de los estudiantes registrados, o NaN si no hay ninguno
+     */
+    public double getAverageAgeOfEnrolled() {
+        return enrolledAgeSum.sum() / (double) enrolledCount.sum();
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes inactivos mayores de 20 años con nota por debajo de 65, en O(1).
+     * @return Cantidad de calificaciones perdidas de estudiantes mayores de 20 años de edad
+     */
+    public int getFailedOlderThan20() {
+        return (int) failedOlderThan20.sum();
+    }
+
+    /**
+     * Recupera cuántos estudiantes inactivos tienen un nombre.
+     * @param firstName Nombre
+     * @return La cantidad de inactivos con ese nombre
+     */
+    public long getInactiveCount(final String firstName) {
+        final AtomicLong count = inactiveByFirstName.get(firstName);
+        return count == null ? 0 : Math.max(0, count.get());
+    }
+
+    /**
+     * Recupera el nombre más común de los estudiantes inactivos; si hay empate, el menor en orden
+     * lexicográfico, como en {@link NameHistogram}. Cuesta O(1) salvo si el líder está vencido, en cuyo caso se
+     * recalcula en O(cantidad de nombres distintos).
+     * @return Nombre más común de los estudiantes inactivos, o null si no hay ninguno
+     */
+    public String getMostCommonFirstNameOfInactive() {
+        final Leader current = leader.get();
+        if (!current.stale) {
+            return current.name;
+        }
+        Leader computed = Leader.NONE;
+        for (Map.Entry<String, AtomicLong> entry : inactiveByFirstName.entrySet()) {
+            final long count = entry.getValue().get();
+            if (count > 0 && computed.isBeatenBy(entry.getKey(), count)) {
+                computed = new Leader(entry.getKey(), count, false);
+            }
+        }
+        // Si algún evento cambió los nombres durante el recorrido, reemplazó la marca y el líder queda vencido.
+        leader.compareAndSet(current, computed);
+        return computed.name;
+    }
+
+    /**
+     * Suma o resta la contribución de un estudiante a los acumuladores.
+     *
+     * @param s Estudiante
+     * @param sign 1 para sumar, -1 para restar
+     */
+    private void apply(final Student s, final int sign) {
+        if (s.checkIsCurrent()) {
+            enrolledAgeSum.add(sign * s.getAge());
+            enrolledCount.add(sign);
+        } else {
+            addInactive(s.getFirstName(), sign);
+            if (s.getAge() > 20 && s.getGrade() < 65) {
+                failedOlderThan20.add(sign);
+            }
+        }
+    }
+
+    /**
+     * Cambia la cantidad de inactivos de un nombre y actualiza el líder. Un nombre que queda en 0 se quita.
+     *
+     * @param firstName Nombre
+     * @param delta 1 o -1
+     */
+    private void addInactive(final String firstName, final int delta) {
+        if (delta > 0) {
+            AtomicLong cell;
+            long count;
+            do {
+                cell = inactiveByFirstName.computeIfAbsent(firstName, k -> new AtomicLong());
+                count = incrementUnlessDead(cell);
+                if (count == DEAD) {
+                    inactiveByFirstName.remove(firstName, cell);
+                }
+            } while (count == DEAD);
+            offerLeader(firstName, count, cell);
+        } else {
+            // La celda existe y no está marcada: su cantidad incluye al estudiante que se resta.
+            final AtomicLong cell = inactiveByFirstName.get(firstName);
+            if (cell.decrementAndGet() == 0 && cell.compareAndSet(0, DEAD)) {
+                inactiveByFirstName.remove(firstName, cell);
+            }
+            invalidateLeader(firstName);
+        }
+    }
+
+    /**
+     * Suma 1 a una celda, salvo que esté marcada como quitada.
+     * @param cell Celda
+     * @return La nueva cantidad, o {@link #DEAD} si la celda está marcada
+     */
+    private static long incrementUnlessDead(final AtomicLong cell) {
+        while (true) {
+            final long count = cell.get();
+            if (count == DEAD) {
+                return DEAD;
+            }
+            if (cell.compareAndSet(count, count + 1)) {
+                return count + 1;
+            }
+        }
+    }
+
+    /**
+     * Propone un nombre recién incrementado como líder: lo reemplaza si lo alcanza o lo supera. Si el líder
+     * está vencido, sólo renueva la marca para que una lectura que lo esté recalculando no publique un
+     * resultado que no vio este evento. Después de publicar, si la cantidad ya bajó (un decremento que no vio
+     * al nuevo líder), lo marca vencido.
+     *
+     * @param firstName Nombre
+     * @param count Cantidad del nombre después del incremento
+     * @param cell Celda del nombre
+     */
+    private void offerLeader(final String firstName, final long count, final AtomicLong cell) {
+        while (true) {
+            final Leader current = leader.get();
+            final Leader next;
+            if (current.stale) {
+                next = Leader.stale();
+            } else if (current.isBeatenBy(firstName, count)) {
+                next = new Leader(firstName, count, false);
+            } else {
+                return;
+            }
+            if (leader.compareAndSet(current, next)) {
+                if (!next.stale && cell.get() < count) {
+                    leader.compareAndSet(next, Leader.stale());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marca vencido al líder si el nombre recién decrementado es el líder, o renueva la marca si ya estaba
+     * vencido.
+     * @param firstName Nombre
+     */
+    private void invalidateLeader(final String firstName) {
+        while (true) {
+            final Leader current = leader.get();
+            if (!current.stale && !firstName.equals(current.name)) {
+                return;
+            }
+            if (leader.compareAndSet(current, Leader.stale())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Nombre más común de los inactivos con su cantidad; inmutable, para reemplazarlo con compareAndSet.
+     */
+    private static final class Leader {
+        /**
+         * Líder cuando no hay inactivos.
+         */
+        static final Leader NONE = new Leader(null, 0, false);
+        /**
+         * Nombre, o null si no hay inactivos o el líder está vencido.
+         */
+        private final String name;
+        /**
+         * Cantidad de inactivos con ese nombre.
+         */
+        private final long count;
+        /**
+         * Verdadero si hay que recalcular el líder.
+         */
+        private final boolean stale;
+
+        /**
+         * Constructor.
+         * @param setName Nombre
+         * @param setCount Cantidad de inactivos con ese nombre
+         * @param setStale Verdadero si hay que recalcular el líder
+         */
+        Leader(final String setName, final long setCount, final boolean setStale) {
+            this.name = setName;
+            this.count = setCount;
+            this.stale = setStale;
+        }
+
+        /**
+         * Crea una marca de líder vencido; cada marca es un objeto distinto, así que reemplazar una marca por
+         * otra hace fallar el compareAndSet de una lectura que recalcula.
+         * @return La marca
+         */
+        static Leader stale() {
+            return new Leader(null, 0, true);
+        }
+
+        /**
+         * Indica si un nombre con una cantidad le gana a este líder: tiene más inactivos o, con los mismos,
+         * es menor en orden lexicográfico.
+         * @param otherName Nombre
+         * @param otherCount Cantidad de inactivos con ese nombre
+         * @return Verdadero si el nombre debe reemplazar a este líder
+         */
+        boolean isBeatenBy(final String otherName, final long otherCount) {
+            return otherCount > count
+                    || (otherCount == count && (name == null || otherName.compareTo(name) < 0));
+        }
+    }
+
+    /**
+     * Rechaza un estudiante null.
+     * @param student Estudiante
+     */
+    private static void requireNonNull(final Student student) {
+        if (student == null) {
+            throw new IllegalArgumentException("student no puede ser null");
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Grupo de estudiantes guardado en un archivo binario por columnas y leído a través de un mapeo en memoria.
+ *
+ * El archivo tiene un encabezado de {@link #HEADER_BYTES} bytes seguido de las mismas columnas de
+ * {@link StudentTable}, cada una alineada a una página: edades (double), notas (int), bitset de activos (long),
+ * códigos de nombre y de apellido (int), y al final los dos diccionarios de nombres, cada nombre como su largo
+ * (int) y sus bytes en UTF-8. Todos los números están en little-endian. El encabezado empieza con
+ * {@link #MAGIC} y la versión {@link #VERSION}; un lector rechaza los archivos de otra versión.
+ *
+ * Abrir el archivo sólo lee el encabezado y los diccionarios y mapea las columnas: no crea un objeto por
+ * estudiante ni copia las columnas al heap, así que un grupo de cien millones de estudiantes se abre en
+ * milisegundos y puede ser más grande que el heap. Las filas se leen con los mismos métodos de StudentTable
+ * directamente del mapeo, y el sistema operativo trae del disco sólo las páginas que se tocan. Cada columna se
+ * mapea por segmentos de 2^24 filas, porque un mapeo no puede pasar de 2 GB.
+ *
+ * El contenido de las columnas no se valida al abrir, para no tener que recorrerlas; un archivo con códigos de
+ * nombre fuera de los diccionarios falla al leer esas filas. El mapeo se libera cuando el objeto deja de usarse.
+ */
+public final class MappedStudentRoster {
+    /**
+     * Primeros bytes de todo archivo de estudiantes.
+     */
+    public static final String MAGIC = "UNROSTER";
+    /**
+     * Versión del formato que escribe y lee esta clase.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Tamaño del encabezado, en bytes.
+     */
+    static final int HEADER_BYTES = 128;
+    /**
+     * Alineación de cada sección del archivo, en bytes.
+     */
+    private static final int ALIGNMENT = 4096;
+    /**
+     * Logaritmo en base 2 de la cantidad de filas de cada segmento mapeado.
+     */
+    private static final int SEGMENT_SHIFT = 24;
+    /**
+     * Tamaño del buffer de escritura, en bytes.
+     */
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Cantidad de estudiantes.
+     */
+    private final int size;
+    /**
+     * Cantidad de estudiantes activos.
+     */
+    private final int currentCount;
+    /**
+     * Logaritmo en base 2 de la cantidad de filas de cada segmento.
+     */
+    private final int segmentShift;
+    /**
+     * Edades, por segmentos.
+     */
+    private final DoubleBuffer[] ages;
+    /**
+     * Notas, por segmentos.
+     */
+    private final IntBuffer[] grades;
+    /**
+     * Bitset de activos, por segmentos.
+     */
+    private final LongBuffer[] current;
+    /**
+     * Códigos de nombre, por segmentos.
+     */
+    private final IntBuffer[] firstNameCodes;
+    /**
+     * Códigos de apellido, por segmentos.
+     */
+    private final IntBuffer[] lastNameCodes;
+    /**
+     * Diccionario de nombres.
+     */
+    private final String[] firstNames;
+    /**
+     * Diccionario de apellidos.
+     */
+    private final String[] lastNames;
+
+    /**
+     * Constructor.
+     * @param setSize Cantidad de estudiantes
+     * @param setCurrentCount Cantidad de estudiantes activos
+     * @param setSegmentShift Logaritmo en base 2 de la cantidad de filas de cada segmento
+     * @param setAges Edades, por segmentos
+     * @param setGrades Notas, por segmentos
+     * @param setCurrent Bitset de activos, por segmentos
+     * @param setFirstNameCodes Códigos de nombre, por segmentos
+     * @param setLastNameCodes Códigos de apellido, por segmentos
+     * @param setFirstNames Diccionario de nombres
+     * @param setLastNames Diccionario de apellidos
+     */
+    private MappedStudentRoster(final int setSize, final int setCurrentCount, final int setSegmentShift,
+            final DoubleBuffer[] setAges, final IntBuffer[] setGrades, final LongBuffer[] setCurrent,
+            final IntBuffer[] setFirstNameCodes, final IntBuffer[] setLastNameCodes, final String[] setFirstNames,
+            final String[] setLastNames) {
+        this.size = setSize;
+        this.currentCount = setCurrentCount;
+        this.segmentShift = setSegmentShift;
+        this.ages = setAges;
+        this.grades = setGrades;
+        this.current = setCurrent;
+        this.firstNameCodes = setFirstNameCodes;
+        this.lastNameCodes = setLastNameCodes;
+        this.firstNames = setFirstNames;
+        this.lastNames = setLastNames;
+    }
+
+    /**
+     * Escribe una tabla de estudiantes en un archivo binario.
+     *
+     * @param table Estudiantes
+     * @param file Archivo de destino; se reemplaza si existe
+     * @throws IOException si falla la escritura
+     */
+    public static void write(final StudentTable table, final Path file) throws IOException {
+        final int n = table.size();
+        final long[] offsets = columnOffsets(n);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Output out = new Output(channel);
+            out.padTo(offsets[0]);
+            for (double age : table.ages()) {
+                out.putDouble(age);
+            }
+            out.padTo(offsets[1]);
+            for (int grade : table.grades()) {
+                out.putInt(grade);
+            }
+            out.padTo(offsets[2]);
+            for (long word : table.currentBits()) {
+                out.putLong(word);
+            }
+            out.padTo(offsets[3]);
+            for (int code : table.firstNameCodes()) {
+                out.putInt(code);
+            }
+            out.padTo(offsets[4]);
+            for (int code : table.lastNameCodes()) {
+                out.putInt(code);
+            }
+            out.padTo(offsets[5]);
+            final long lastNamesOffset = out.putDictionary(table.firstNameDictionary());
+            out.padTo(lastNamesOffset);
+            out.putDictionary(table.lastNameDictionary());
+            final long end = out.flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC.getBytes(StandardCharsets.US_ASCII));
+            header.putInt(VERSION);
+            header.putInt(n);
+            header.putInt(table.getCurrentCount());
+            header.putInt(table.firstNameDictionary().length);
+            header.putInt(table.lastNameDictionary().length);
+            header.putInt(0);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            header.putLong(lastNamesOffset);
+            header.putLong(end);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Abre un archivo binario de estudiantes, mapeando sus columnas.
+     *
+     * @param file Archivo
+     * @return La vista del archivo
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si el archivo no es de estudiantes, es de otra versión o está truncado
+     */
+    public static MappedStudentRoster open(final Path file) throws IOException {
+        return open(file, SEGMENT_SHIFT);
+    }
+
+    /**
+     * Abre un archivo binario de estudiantes con un tamaño de segmento dado.
+     * @param file Archivo
+     * @param segmentShift Logaritmo en base 2 de la cantidad de filas de cada segmento; entre 6 y 27
+     * @return La vista del archivo
+     * @throws IOException si falla la lectura
+     */
+    static MappedStudentRoster open(final Path file, final int segmentShift) throws IOException {
+        if (segmentShift < 6 || segmentShift > 27) {
+            throw new IllegalArgumentException("segmentShift debe estar entre 6 y 27: " + segmentShift);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw invalid(file, "es más corto que el encabezado");
+            }
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                channel.read(header, header.position());
+            }
+            header.flip();
+            final byte[] magic = new byte[MAGIC.length()];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC.getBytes(StandardCharsets.US_ASCII))) {
+                throw invalid(file, "no es un archivo de estudiantes");
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw invalid(file, "tiene la versión " + version + " y sólo se lee la " + VERSION);
+            }
+            final int n = header.getInt();
+            final int currentCount = header.getInt();
+            final int firstNameCount = header.getInt();
+            final int lastNameCount = header.getInt();
+            header.getInt();
+            final long[] offsets = new long[7];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = header.getLong();
+            }
+            final long end = header.getLong();
+            if (n < 0 || currentCount < 0 || currentCount > n || firstNameCount < 0 || lastNameCount < 0) {
+                throw invalid(file, "tiene un encabezado con cantidades inválidas");
+            }
+            if (!Arrays.equals(Arrays.copyOf(offsets, 6), columnOffsets(n)) || offsets[6] < offsets[5]
+                    || end < offsets[6] || end != fileSize) {
+                throw invalid(file, "está truncado o tiene secciones inválidas");
+            }
+
+            final int segments = (int) (((long) n + (1L << segmentShift) - 1) >>> segmentShift);
+            final DoubleBuffer[] ages = new DoubleBuffer[segments];
+            final IntBuffer[] grades = new IntBuffer[segments];
+            final LongBuffer[] current = new LongBuffer[segments];
+            final IntBuffer[] firstNameCodes = new IntBuffer[segments];
+            final IntBuffer[] lastNameCodes = new IntBuffer[segments];
+            for (int s = 0; s < segments; s++) {
+                final long firstRow = (long) s << segmentShift;
+                final int rows = (int) Math.min(1L << segmentShift, n - firstRow);
+                ages[s] = map(channel, offsets[0] + firstRow * 8, rows * 8L).asDoubleBuffer();
+                grades[s] = map(channel, offsets[1] + firstRow * 4, rows * 4L).asIntBuffer();
+                current[s] = map(channel, offsets[2] + firstRow / 8, StudentTable.wordCount(rows) * 8L).asLongBuffer();
+                firstNameCodes[s] = map(channel, offsets[3] + firstRow * 4, rows * 4L).asIntBuffer();
+                lastNameCodes[s] = map(channel, offsets[4] + firstRow * 4, rows * 4L).asIntBuffer();
+            }
+            final String[] firstNames = readDictionary(file, map(channel, offsets[5], offsets[6] - offsets[5]),
+                    firstNameCount);
+            final String[] lastNames = readDictionary(file, map(channel, offsets[6], end - offsets[6]), lastNameCount);
+            return new MappedStudentRoster(n, currentCount, segmentShift, ages, grades, current, firstNameCodes,
+                    lastNameCodes, firstNames, lastNames);
+        }
+    }
+
+    /**
+     * Calcula la posición de cada columna en el archivo, y la del primer diccionario.
+     * @param n Cantidad de estudiantes
+     * @return Las posiciones de edades, notas, activos, códigos de nombre, códigos de apellido y nombres
+     */
+    private static long[] columnOffsets(final int n) {
+        final long[] offsets = new long[6];
+        offsets[0] = align(HEADER_BYTES);
+        offsets[1] = align(offsets[0] + n * 8L);
+        offsets[2] = align(offsets[1] + n * 4L);
+        offsets[3] = align(offsets[2] + StudentTable.wordCount(n) * 8L);
+        offsets[4] = align(offsets[3] + n * 4L);
+        offsets[5] = align(offsets[4] + n * 4L);
+        return offsets;
+    }
+
+    /**
+     * Redondea una posición hacia arriba a la alineación de las secciones.
+     * @param position Posición
+     * @return La primera posición alineada en position o después
+     */
+    private static long align(final long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Mapea una parte del archivo en little-endian.
+     * @param channel Archivo
+     * @param offset Posición
+     * @param bytes Tamaño
+     * @return El mapeo
+     * @throws IOException si falla el mapeo
+     */
+    private static ByteBuffer map(final FileChannel channel, final long offset, final long bytes) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Lee un diccionario de nombres.
+     * @param file Archivo, para los mensajes de error
+     * @param bytes Sección del diccionario
+     * @param count Cantidad de nombres
+     * @return Los nombres, indexados por código
+     */
+    private static String[] readDictionary(final Path file, final ByteBuffer bytes, final int count) {
+        final String[] names = new String[count];
+        for (int c = 0; c < count; c++) {
+            final int length = bytes.remaining() >= 4 ? bytes.getInt() : -1;
+            if (length < 0 || length > bytes.remaining()) {
+                throw invalid(file, "tiene un diccionario de nombres truncado");
+            }
+            final byte[] name = new byte[length];
+            bytes.get(name);
+            names[c] = new String(name, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Crea el error de un archivo inválido.
+     * @param file Archivo
+     * @param reason Causa
+     * @return La excepción
+     */
+    private static IllegalArgumentException invalid(final Path file, final String reason) {
+        return new IllegalArgumentException("El archivo " + file + " " + reason);
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes.
+     * @return La cantidad de filas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes activos.
+     * @return La cantidad de filas con el bit de activo encendido
+     */
+    public int getCurrentCount() {
+        return currentCount;
+    }
+
+    /**
+     * Recupera la edad de un estudiante.
+     * @param row Fila del estudiante
+     * @return Edad del estudiante
+     */
+    public double getAge(final int row) {
+        return ages[row >>> segmentShift].get(row & ((1 << segmentShift) - 1));
+    }
+
+    /**
+     * Recupera la nota de un estudiante.
+     * @param row Fila del estudiante
+     * @return Nota del estudiante
+     */
+    public int getGrade(final int row) {
+        return grades[row >>> segmentShift].get(row & ((1 << segmentShift) - 1));
+    }
+
+    /**
+     * Revisa si un estudiante está activo.
+     * @param row Fila del estudiante
+     * @return verdadero si el estudiante está registrado en la actualidad
+     */
+    public boolean checkIsCurrent(final int row) {
+        return (currentBits(row >>> 6) & (1L << row)) != 0;
+    }
+
+    /**
+     * Recupera el nombre de un estudiante.
+     * @param row Fila del estudiante
+     * @return Nombres del estudiante
+     */
+    public String getFirstName(final int row) {
+        return firstNames[firstNameCode(row)];
+    }
+
+    /**
+     * Recupera el apellido de un estudiante.
+     * @param row Fila del estudiante
+     * @return Apellidos del estudiante
+     */
+    public String getLastName(final int row) {
+        return lastNames[lastNameCodes[row >>> segmentShift].get(row & ((1 << segmentShift) - 1))];
+    }
+
+    /**
+     * Reconstruye el estudiante de una fila.
+     * @param row Fila del estudiante
+     * @return Un estudiante con los datos de la fila
+     */
+    public Student getStudent(final int row) {
+        return new Student(getFirstName(row), getLastName(row), getAge(row), getGrade(row), checkIsCurrent(row));
+    }
+
+    /**
+     * Recupera el código del nombre de un estudiante.
+     * @param row Fila del estudiante
+     * @return Posición del nombre en {@link #firstNameDictionary()}
+     */
+    int firstNameCode(final int row) {
+        return firstNameCodes[row >>> segmentShift].get(row & ((1 << segmentShift) - 1));
+    }
+
+    /**
+     * Recupera el segmento de edades de una fila.
+     * @param row Fila
+     * @return Las edades del segmento, indexadas por {@link #segmentRow(int)}
+     */
+    DoubleBuffer ageSegment(final int row) {
+        return ages[row >>> segmentShift];
+    }
+
+    /**
+     * Recupera el segmento de notas de una fila.
+     * @param row Fila
+     * @return Las notas del segmento, indexadas por {@link #segmentRow(int)}
+     */
+    IntBuffer gradeSegment(final int row) {
+        return grades[row >>> segmentShift];
+    }
+
+    /**
+     * Calcula la posición de una fila dentro de su segmento.
+     * @param row Fila
+     * @return La posición
+     */
+    int segmentRow(final int row) {
+        return row & ((1 << segmentShift) - 1);
+    }
+
+    /**
+     * Recupera una palabra del bitset de activos.
+     * @param word Índice de la palabra
+     * @return Los bits de las filas activas word * 64 a word * 64 + 63
+     */
+    long currentBits(final int word) {
+        final int shift = segmentShift - 6;
+        return current[word >>> shift].get(word & ((1 << shift) - 1));
+    }
+
+    /**
+     * Recupera una palabra del bitset de inactivos, sin los bits que sobran después de la última fila.
+     * @param word Índice de la palabra
+     * @return Los bits de las filas inactivas word * 64 a word * 64 + 63
+     */
+    long inactiveBits(final int word) {
+        final long bits = ~currentBits(word);
+        final int rowsInWord = size - (word << 6);
+        return rowsInWord >= 64 ? bits : bits & ((1L << rowsInWord) - 1);
+    }
+
+    /**
+     * Diccionario de nombres, sin copiar; no se debe modificar.
+     * @return Los nombres distintos, indexados por código
+     */
+    String[] firstNameDictionary() {
+        return firstNames;
+    }
+
+    /**
+     * Escritura con buffer de un archivo binario, en little-endian.
+     */
+    private static final class Output {
+        /**
+         * Archivo.
+         */
+        private final FileChannel channel;
+        /**
+         * Buffer de escritura.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        /**
+         * Posición en el archivo del primer byte del buffer.
+         */
+        private long position;
+
+        /**
+         * Constructor.
+         * @param setChannel Archivo
+         */
+        Output(final FileChannel setChannel) {
+            this.channel = setChannel;
+        }
+
+        /**
+         * Escribe el buffer en el archivo si le quedan menos de unos bytes libres.
+         * @param bytes Bytes que se van a escribir
+         * @throws IOException si falla la escritura
+         */
+        private void reserve(final int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Escribe el buffer en el archivo.
+         * @return La posición del archivo después del último byte escrito
+         * @throws IOException si falla la escritura
+         */
+        long flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+            return position;
+        }
+
+        /**
+         * Completa con ceros hasta una posición.
+         * @param offset Posición del archivo, en la actual o después
+         * @throws IOException si falla la escritura
+         */
+        void padTo(final long offset) throws IOException {
+            for (long p = position + buffer.position(); p < offset; p++) {
+                reserve(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        /**
+         * Escribe un double.
+         * @param value Valor
+         * @throws IOException si falla la escritura
+         */
+        void putDouble(final double value) throws IOException {
+            reserve(8);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Escribe un int.
+         * @param value Valor
+         * @throws IOException si falla la escritura
+         */
+        void putInt(final int value) throws IOException {
+            reserve(4);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Escribe un long.
+         * @param value Valor
+         * @throws IOException si falla la escritura
+         */
+        void putLong(final long value) throws IOException {
+            reserve(8);
+            buffer.putLong(value);
+        }
+
+        /**
+         * Escribe un diccionario de nombres.
+         * @param names Nombres, indexados por código
+         * @return La primera posición alineada después del diccionario
+         * @throws IOException si falla la escritura
+         */
+        long putDictionary(final String[] names) throws IOException {
+            for (String name : names) {
+                final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                putInt(bytes.length);
+                for (int i = 0; i < bytes.length; i += WRITE_BUFFER_BYTES) {
+                    final int length = Math.min(WRITE_BUFFER_BYTES, bytes.length - i);
+                    reserve(length);
+                    buffer.put(bytes, i, length);
+                }
+            }
+            return align(position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Histograma de nombres contado en paralelo sin boxing en el ciclo de conteo.
+ *
+ * Cada nombre distinto recibe un código int la primera vez que aparece, en un diccionario compartido; a partir
+ * de ahí cada hilo cuenta en su propio int[] indexado por código, y al final los int[] de los hilos se suman.
+ * El ciclo de conteo no reserva memoria: buscar un código en el diccionario no crea objetos, y cada hilo
+ * guarda en una caché pequeña los String que ya vio, así que un nombre repetido (el mismo objeto String, como
+ * pasa con literales o nombres leídos con deduplicación) casi nunca consulta el diccionario compartido.
+ * Sólo se reserva memoria cuando aparece un nombre nuevo.
+ *
+ * El nombre más común se elige de forma determinista: mayor cantidad y, si hay empate, el menor en orden
+ * lexicográfico, sin importar el orden en que se asignaron los códigos ni cómo se repartió el trabajo.
+ */
+public final class NameHistogram {
+    /**
+     * Cantidad de entradas de la caché de nombres de cada hilo; potencia de dos.
+     */
+    private static final int CACHE_SIZE = 256;
+    /**
+     * Nombre de cada código.
+     */
+    private final String[] names;
+    /**
+     * Cantidad de cada código.
+     */
+    private final int[] counts;
+
+    /**
+     * Constructor.
+     * @param setNames Nombre de cada código
+     * @param setCounts Cantidad de cada código, del mismo largo que setNames
+     */
+    NameHistogram(final String[] setNames, final int[] setCounts) {
+        this.names = setNames;
+        this.counts = setCounts;
+    }
+
+    /**
+     * Cuenta en paralelo los nombres de los estudiantes que cumplen un filtro.
+     *
+     * @param students Estudiantes
+     * @param filter Estudiantes que se cuentan
+     * @param name Nombre que se cuenta de cada estudiante, por ejemplo Student::getFirstName
+     * @return El histograma de los nombres
+     */
+    public static NameHistogram of(final Student[] students, final Predicate<Student> filter,
+            final Function<Student, String> name) {
+        final Dictionary dictionary = new Dictionary();
+        final Counts total = IntStream.range(0, students.length)
+                .parallel()
+                .collect(() -> new Counts(dictionary),
+                    (counts, i) -> {
+                        final Student s = students[i];
+                        if (filter.test(s)) {
+                            counts.add(name.apply(s));
+                        }
+                    },
+                    Counts::merge);
+        return of(dictionary, total);
+    }
+
+    /**
+     * Cuenta en paralelo los nombres de los estudiantes inactivos.
+     *
+     * @param students Estudiantes
+     * @return El histograma de los nombres de los estudiantes inactivos
+     */
+    public static NameHistogram ofFirstNamesOfInactive(final Student[] students) {
+        return of(students, s -> !s.checkIsCurrent(), Student::getFirstName);
+    }
+
+    /**
+     * Arma el histograma final a partir del diccionario y de los conteos ya combinados de todos los hilos.
+     *
+     * @param dictionary Diccionario compartido
+     * @param total Conteos combinados
+     * @return El histograma
+     */
+    static NameHistogram of(final Dictionary dictionary, final Counts total) {
+        final String[] names = dictionary.toArray();
+        return new NameHistogram(names, Arrays.copyOf(total.counts, names.length));
+    }
+
+    /**
+     * Recupera cuántas veces se contó un nombre.
+     * @param name Nombre
+     * @return La cantidad de veces, o 0 si el nombre no se contó
+     */
+    public int getCount(final String name) {
+        for (int c = 0; c < counts.length; c++) {
+            if (names[c].equals(name)) {
+                return counts[c];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Recupera la cantidad total de nombres contados.
+     * @return La suma de todas las cantidades
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Recupera el nombre más común; si hay empate, el menor en orden lexicográfico.
+     * @return El nombre más común, o null si no se contó ninguno
+     */
+    public String mostCommon() {
+        String mostCommon = null;
+        int mostCommonCount = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > mostCommonCount
+                    || (counts[c] == mostCommonCount && counts[c] > 0 && names[c].compareTo(mostCommon) < 0)) {
+                mostCommon = names[c];
+                mostCommonCount = counts[c];
+            }
+        }
+        return mostCommon;
+    }
+
+    /**
+     * Diccionario compartido entre los hilos, de nombre a código. También lo usa el recorrido combinado de
+     * {@link RosterReport}.
+     */
+    static final class Dictionary {
+        /**
+         * Código de cada nombre.
+         */
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();
+        /**
+         * Siguiente código libre.
+         */
+        private final AtomicInteger nextCode = new AtomicInteger();
+
+        /**
+         * Busca el código de un nombre, asignándole uno nuevo si no tiene.
+         * @param name Nombre
+         * @return El código del nombre
+         */
+        int codeOf(final String name) {
+            final Integer code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+            return codes.computeIfAbsent(name, k -> nextCode.getAndIncrement());
+        }
+
+        /**
+         * Arma el arreglo de nombres indexado por código; sólo se llama cuando ya terminó el conteo.
+         * @return El nombre de cada código
+         */
+        String[] toArray() {
+            final String[] names = new String[nextCode.get()];
+            for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+                names[entry.getValue()] = entry.getKey();
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Caché de un hilo delante del diccionario compartido, de nombre (comparado por referencia) a código. También
+     * la usa {@link StudentQuery} para agrupar por nombre.
+     */
+    static final class CodeCache {
+        /**
+         * Diccionario compartido.
+         */
+        private final Dictionary dictionary;
+        /**
+         * Caché de un solo camino, indexada por el hash del String, que el String ya tiene calculado.
+         */
+        private final String[] cachedNames = new String[CACHE_SIZE];
+        /**
+         * Código de cada nombre de la caché.
+         */
+        private final int[] cachedCodes = new int[CACHE_SIZE];
+
+        /**
+         * Constructor.
+         * @param setDictionary Diccionario compartido
+         */
+        CodeCache(final Dictionary setDictionary) {
+            this.dictionary = setDictionary;
+        }
+
+        /**
+         * Busca el código de un nombre, consultando el diccionario sólo si el String no está en la caché.
+         * @param name Nombre
+         * @return El código del nombre
+         */
+        int codeOf(final String name) {
+            final int slot = name.hashCode() & (CACHE_SIZE - 1);
+            if (cachedNames[slot] == name) {
+                return cachedCodes[slot];
+            }
+            final int code = dictionary.codeOf(name);
+            cachedNames[slot] = name;
+            cachedCodes[slot] = code;
+            return code;
+        }
+    }
+
+    /**
+     * Histograma parcial de un hilo. También lo usa el recorrido combinado de {@link RosterReport}.
+     */
+    static final class Counts {
+        /**
+         * Códigos de los nombres, con la caché de este hilo.
+         */
+        private final CodeCache codes;
+        /**
+         * Cantidad de cada código; crece cuando aparece un código mayor.
+         */
+        private int[] counts = new int[16];
+
+        /**
+         * Constructor.
+         * @param setDictionary Diccionario compartido
+         */
+        Counts(final Dictionary setDictionary) {
+            this.codes = new CodeCache(setDictionary);
+        }
+
+        /**
+         * Cuenta un nombre.
+         * @param name Nombre
+         */
+        void add(final String name) {
+            final int code = codes.codeOf(name);
+            if (code >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(code + 1, 2 * counts.length));
+            }
+            counts[code]++;
+        }
+
+        /**
+         * Suma a este histograma el de otro hilo.
+         * @param other Histograma de otro hilo
+         */
+        void merge(final Counts other) {
+            if (other.counts.length > counts.length) {
+                counts = Arrays.copyOf(counts, other.counts.length);
+            }
+            for (int c = 0; c < other.counts.length; c++) {
+                counts[c] += other.counts[c];
+            }
+        }
+    }
+}
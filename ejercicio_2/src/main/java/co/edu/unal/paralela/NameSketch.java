@@ -0,0 +1,412 @@
+package co.edu.unal.paralela;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Conteo aproximado de los nombres más frecuentes en memoria fija, con el algoritmo Space-Saving.
+ *
+ * El resumen guarda a lo más {@code capacity} contadores. Un nombre que ya tiene contador lo incrementa; uno
+ * nuevo ocupa un contador libre o, si no hay, reemplaza al de menor cantidad y hereda esa cantidad como error.
+ * Así la cantidad de cada nombre es una cota superior de la real y su error una cota de cuánto puede sobrar:
+ * la cantidad real está entre {@link HeavyHitter#getLowerBound()} y {@link HeavyHitter#getCount()}. Un nombre
+ * sin contador aparece a lo más {@link #getUnseenBound()} veces, así que todo nombre más frecuente que eso tiene
+ * contador, y ningún error pasa de esa cota. En un resumen sin combinar la cota es a lo más total / capacity.
+ *
+ * Los resúmenes se combinan: cada hilo cuenta en el suyo y al final se suman las cotas de los dos resúmenes
+ * y se conservan los capacity nombres con mayor cota. Las cotas de cada nombre siguen siendo válidas, pero la
+ * de los nombres sin contador puede crecer con cada combinación, así que conviene una capacidad bastante mayor
+ * que la cantidad de nombres que se buscan. Con menos nombres distintos que capacity el conteo es exacto. Los
+ * nombres se guardan por referencia, sin copiarlos.
+ */
+public final class NameSketch {
+    /**
+     * Orden de los resultados: mayor cantidad primero y, si hay empate, el menor nombre en orden lexicográfico.
+     */
+    private static final Comparator<HeavyHitter> BY_COUNT = (a, b) -> a.count != b.count
+            ? Long.compare(b.count, a.count) : a.name.compareTo(b.name);
+
+    /**
+     * Cantidad máxima de contadores.
+     */
+    private final int capacity;
+    /**
+     * Contadores en un montículo de mínimos por cantidad; el de menor cantidad está en la posición 0.
+     */
+    private final Counter[] heap;
+    /**
+     * Contador de cada nombre.
+     */
+    private final Map<String, Counter> counters;
+    /**
+     * Cantidad de contadores en uso.
+     */
+    private int size;
+    /**
+     * Cantidad total de nombres contados.
+     */
+    private long total;
+    /**
+     * Cota de la cantidad de cualquier nombre sin contador.
+     */
+    private long unseenBound;
+
+    /**
+     * Constructor.
+     * @param setCapacity Cantidad máxima de contadores
+     * @throws IllegalArgumentException si la capacidad no es positiva
+     */
+    public NameSketch(final int setCapacity) {
+        if (setCapacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + setCapacity);
+        }
+        this.capacity = setCapacity;
+        this.heap = new Counter[setCapacity];
+        this.counters = new HashMap<String, Counter>(setCapacity * 4 / 3 + 1);
+    }
+
+    /**
+     * Cuenta en paralelo los nombres de los estudiantes que cumplen un filtro, con un resumen por hilo.
+     *
+     * @param students Estudiantes
+     * @param filter Estudiantes que se cuentan
+     * @param name Nombre que se cuenta de cada estudiante, por ejemplo Student::getFirstName
+     * @param capacity Cantidad máxima de contadores de cada resumen
+     * @return El resumen de los nombres
+     */
+    public static NameSketch of(final Student[] students, final Predicate<Student> filter,
+            final Function<Student, String> name, final int capacity) {
+        return IntStream.range(0, students.length)
+                .parallel()
+                .collect(() -> new NameSketch(capacity),
+                    (sketch, i) -> {
+                        final Student s = students[i];
+                        if (filter.test(s)) {
+                            sketch.add(name.apply(s));
+                        }
+                    },
+                    NameSketch::merge);
+    }
+
+    /**
+     * Cuenta en paralelo los nombres de los estudiantes inactivos.
+     *
+     * @param students Estudiantes
+     * @param capacity Cantidad máxima de contadores de cada resumen
+     * @return El resumen de los nombres de los estudiantes inactivos
+     */
+    public static NameSketch ofFirstNamesOfInactive(final Student[] students, final int capacity) {
+        return of(students, s -> !s.checkIsCurrent(), Student::getFirstName, capacity);
+    }
+
+    /**
+     * Collector que cuenta los nombres de un stream, secuencial o paralelo, en un resumen.
+     *
+     * @param capacity Cantidad máxima de contadores de cada resumen
+     * @return El collector
+     */
+    public static Collector<String, ?, NameSketch> collector(final int capacity) {
+        return Collector.of(() -> new NameSketch(capacity), NameSketch::add, NameSketch::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Cuenta un nombre.
+     * @param name Nombre
+     */
+    public void add(final String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Cuenta varias veces un nombre.
+     * @param name Nombre
+     * @param weight Cantidad de veces; no negativa
+     * @throws IllegalArgumentException si la cantidad es negativa o el nombre es null
+     */
+    public void add(final String name, final long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + weight);
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("El nombre no puede ser null");
+        }
+        total += weight;
+        final Counter counter = counters.get(name);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.position);
+        } else if (size < capacity) {
+            final Counter added = new Counter(name, unseenBound + weight, unseenBound);
+            counters.put(name, added);
+            heap[size] = added;
+            added.position = size;
+            siftUp(size++);
+        } else {
+            final Counter evicted = heap[0];
+            counters.remove(evicted.name);
+            unseenBound = Math.max(unseenBound, evicted.count);
+            evicted.name = name;
+            evicted.error = evicted.count;
+            evicted.count += weight;
+            counters.put(name, evicted);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Suma a este resumen el de otro hilo. Para cada nombre la cota nueva es la suma de sus cotas en los dos
+     * resúmenes, usando {@link #getUnseenBound()} del resumen en el que no tiene contador; luego se conservan
+     * los nombres con mayor cota y la de los descartados pasa a ser la cota de los nombres sin contador.
+     *
+     * @param other Resumen de otro hilo; no se modifica
+     * @return Este resumen
+     */
+    public NameSketch merge(final NameSketch other) {
+        final List<Counter> merged = new ArrayList<Counter>(size + other.size);
+        for (int i = 0; i < size; i++) {
+            final Counter mine = heap[i];
+            final Counter theirs = other.counters.get(mine.name);
+            merged.add(new Counter(mine.name, mine.count + (theirs != null ? theirs.count : other.unseenBound),
+                    mine.error + (theirs != null ? theirs.error : other.unseenBound)));
+        }
+        for (int i = 0; i < other.size; i++) {
+            final Counter theirs = other.heap[i];
+            if (!counters.containsKey(theirs.name)) {
+                merged.add(new Counter(theirs.name, theirs.count + unseenBound, theirs.error + unseenBound));
+            }
+        }
+        Collections.sort(merged, (a, b) -> Long.compare(b.count, a.count));
+        long bound = unseenBound + other.unseenBound;
+        for (int i = capacity; i < merged.size(); i++) {
+            bound = Math.max(bound, merged.get(i).count);
+        }
+        counters.clear();
+        Arrays.fill(heap, null);
+        size = Math.min(capacity, merged.size());
+        for (int i = 0; i < size; i++) {
+            // De mayor a menor cantidad, así que se llena el montículo de atrás hacia adelante.
+            final Counter counter = merged.get(i);
+            final int position = size - 1 - i;
+            heap[position] = counter;
+            counter.position = position;
+            counters.put(counter.name, counter);
+        }
+        total += other.total;
+        unseenBound = bound;
+        return this;
+    }
+
+    /**
+     * Recupera los nombres más frecuentes según sus cotas superiores.
+     *
+     * @param k Cantidad de nombres; si el resumen tiene menos, se devuelven todos
+     * @return Los nombres, de mayor a menor cantidad y, si hay empate, en orden lexicográfico
+     * @throws IllegalArgumentException si k es negativo
+     */
+    public List<HeavyHitter> top(final int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k no puede ser negativo: " + k);
+        }
+        final List<HeavyHitter> all = new ArrayList<HeavyHitter>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(new HeavyHitter(heap[i].name, heap[i].count, heap[i].error));
+        }
+        Collections.sort(all, BY_COUNT);
+        return Collections.unmodifiableList(new ArrayList<HeavyHitter>(all.subList(0, Math.min(k, all.size()))));
+    }
+
+    /**
+     * Recupera el nombre con mayor cota superior; si hay empate, el menor en orden lexicográfico. Su cantidad
+     * real es menor que la del nombre más común a lo más en su propio error.
+     * @return El nombre, o null si no se contó ninguno
+     */
+    public String mostCommon() {
+        final List<HeavyHitter> top = top(1);
+        return top.isEmpty() ? null : top.get(0).getName();
+    }
+
+    /**
+     * Recupera la cantidad total de nombres contados.
+     * @return La suma de todas las cantidades
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Recupera la cantidad máxima de contadores.
+     * @return La capacidad
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Recupera la cota de la cantidad de cualquier nombre que no tiene contador.
+     * @return La cota; 0 si nunca se descartó un nombre
+     */
+    public long getUnseenBound() {
+        return unseenBound;
+    }
+
+    /**
+     * Sube un contador en el montículo hasta su lugar.
+     * @param position Posición del contador
+     */
+    private void siftUp(final int position) {
+        int i = position;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= heap[i].count) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Baja un contador en el montículo hasta su lugar, después de aumentar su cantidad.
+     * @param position Posición del contador
+     */
+    private void siftDown(final int position) {
+        int i = position;
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smallest = right < size && heap[right].count < heap[left].count ? right : left;
+            if (heap[i].count <= heap[smallest].count) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    /**
+     * Intercambia dos contadores del montículo.
+     * @param i Posición de uno
+     * @param j Posición del otro
+     */
+    private void swap(final int i, final int j) {
+        final Counter a = heap[i];
+        heap[i] = heap[j];
+        heap[j] = a;
+        heap[i].position = i;
+        heap[j].position = j;
+    }
+
+    /**
+     * Contador de un nombre.
+     */
+    private static final class Counter {
+        /**
+         * Nombre; cambia cuando el contador se reutiliza para otro.
+         */
+        private String name;
+        /**
+         * Cota superior de la cantidad.
+         */
+        private long count;
+        /**
+         * Cota de cuánto de la cantidad puede sobrar.
+         */
+        private long error;
+        /**
+         * Posición en el montículo.
+         */
+        private int position;
+
+        /**
+         * Constructor.
+         * @param setName Nombre
+         * @param setCount Cota superior de la cantidad
+         * @param setError Cota de cuánto puede sobrar
+         */
+        Counter(final String setName, final long setCount, final long setError) {
+            this.name = setName;
+            this.count = setCount;
+            this.error = setError;
+        }
+    }
+
+    /**
+     * Un nombre frecuente con las cotas de su cantidad.
+     */
+    public static final class HeavyHitter {
+        /**
+         * Nombre.
+         */
+        private final String name;
+        /**
+         * Cota superior de la cantidad.
+         */
+        private final long count;
+        /**
+         * Cota de cuánto de la cantidad puede sobrar.
+         */
+        private final long error;
+
+        /**
+         * Constructor.
+         * @param setName Nombre
+         * @param setCount Cota superior de la cantidad
+         * @param setError Cota de cuánto puede sobrar
+         */
+        HeavyHitter(final String setName, final long setCount, final long setError) {
+            this.name = setName;
+            this.count = setCount;
+            this.error = setError;
+        }
+
+        /**
+         * Recupera el nombre.
+         * @return Nombre
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Recupera la cantidad estimada, que es una cota superior de la real.
+         * @return La cantidad estimada
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Recupera la cota de cuánto puede sobrar en la cantidad estimada.
+         * @return El error máximo; 0 si la cantidad es exacta
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * Recupera una cota inferior de la cantidad real.
+         * @return La cantidad estimada menos el error
+         */
+        public long getLowerBound() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + count + "±" + error;
+        }
+    }
+}
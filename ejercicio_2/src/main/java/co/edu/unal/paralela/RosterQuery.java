@@ -0,0 +1,21 @@
+package co.edu.unal.paralela;
+
+/**
+ * Consultas de StudentAnalytics que se pueden pedir juntas en un solo recorrido con
+ * {@link StudentAnalytics#analyze(Student[], java.util.Set)}.
+ */
+public enum RosterQuery {
+    /**
+     * Edad promedio de los estudiantes activos, como averageAgeOfEnrolledStudents.
+     */
+    AVERAGE_AGE_OF_ENROLLED,
+    /**
+     * Nombre más común de los estudiantes inactivos, como mostCommonFirstNameOfInactiveStudents.
+     */
+    MOST_COMMON_FIRST_NAME_OF_INACTIVE,
+    /**
+     * Cantidad de estudiantes inactivos mayores de 20 años con nota por debajo de 65, como
+     * countNumberOfFailedStudentsOlderThan20.
+     */
+    FAILED_OLDER_THAN_20
+}
@@ -0,0 +1,284 @@
+package co.edu.unal.paralela;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Resultados de varias consultas sobre un mismo grupo de estudiantes, calculados en un solo recorrido
+ * paralelo.
+ *
+ * En lugar de recorrer los estudiantes una vez por consulta, cada hilo lleva un estado parcial con lo que
+ * necesitan todas las consultas pedidas (suma de edades, contadores, histograma de nombres) y lo actualiza
+ * en la misma pasada; al final se combinan los estados parciales de los hilos. Así cada estudiante se lee
+ * de memoria una sola vez sin importar cuántas consultas se pidan.
+ */
+public final class RosterReport {
+    /**
+     * Consultas calculadas.
+     */
+    private final Set<RosterQuery> queries;
+    /**
+     * Edad promedio de los estudiantes activos.
+     */
+    private final double averageAgeOfEnrolled;
+    /**
+     * Nombre más común de los estudiantes inactivos.
+     */
+    private final String mostCommonFirstNameOfInactive;
+    /**
+     * Cantidad de estudiantes inactivos mayores de 20 años con nota por debajo de 65.
+     */
+    private final int failedOlderThan20;
+
+    /**
+     * Constructor.
+     * @param setQueries Consultas calculadas
+     * @param setAverageAgeOfEnrolled Edad promedio de los estudiantes activos
+     * @param setMostCommonFirstNameOfInactive Nombre más común de los estudiantes inactivos
+     * @param setFailedOlderThan20 Cantidad de estudiantes reprobados mayores de 20 años
+     */
+    private RosterReport(final Set<RosterQuery> setQueries, final double setAverageAgeOfEnrolled,
+            final String setMostCommonFirstNameOfInactive, final int setFailedOlderThan20) {
+        this.queries = setQueries;
+        this.averageAgeOfEnrolled = setAverageAgeOfEnrolled;
+        this.mostCommonFirstNameOfInactive = setMostCommonFirstNameOfInactive;
+        this.failedOlderThan20 = setFailedOlderThan20;
+    }
+
+    /**
+     * Calcula las consultas pedidas sobre un arreglo de estudiantes en un solo recorrido paralelo.
+     *
+     * @param students Estudiantes
+     * @param queries Consultas a calcular
+     * @return Los resultados de las consultas
+     */
+    static RosterReport scan(final Student[] students, final Set<RosterQuery> queries) {
+        final EnumSet<RosterQuery> requested = copyOf(queries);
+        final boolean wantsNames = requested.contains(RosterQuery.MOST_COMMON_FIRST_NAME_OF_INACTIVE);
+        final boolean wantsFailed = requested.contains(RosterQuery.FAILED_OLDER_THAN_20);
+        final NameHistogram.Dictionary dictionary = new NameHistogram.Dictionary();
+        final StudentPartial total = IntStream.range(0, students.length)
+                .parallel()
+                .collect(() -> new StudentPartial(dictionary),
+                    (partial, i) -> {
+                        final Student s = students[i];
+                        if (s.checkIsCurrent()) {
+                            partial.ageSum += s.getAge();
+                            partial.enrolled++;
+                        } else {
+                            if (wantsNames) {
+                                partial.names.add(s.getFirstName());
+                            }
+                            if (wantsFailed && s.getAge() > 20 && s.getGrade() < 65) {
+                                partial.failed++;
+                            }
+                        }
+                    },
+                    StudentPartial::merge);
+        return new RosterReport(requested, total.ageSum / (double) total.enrolled,
+                wantsNames ? NameHistogram.of(dictionary, total.names).mostCommon() : null, total.failed);
+    }
+
+    /**
+     * Calcula las consultas pedidas sobre una tabla por columnas en un solo recorrido paralelo por palabras
+     * del bitset de activos.
+     *
+     * @param table Estudiantes por columnas
+     * @param queries Consultas a calcular
+     * @return Los resultados de las consultas
+     */
+    static RosterReport scan(final StudentTable table, final Set<RosterQuery> queries) {
+        final EnumSet<RosterQuery> requested = copyOf(queries);
+        final boolean wantsAge = requested.contains(RosterQuery.AVERAGE_AGE_OF_ENROLLED);
+        final boolean wantsNames = requested.contains(RosterQuery.MOST_COMMON_FIRST_NAME_OF_INACTIVE);
+        final boolean wantsFailed = requested.contains(RosterQuery.FAILED_OLDER_THAN_20);
+        final double[] ages = table.ages();
+        final int[] grades = table.grades();
+        final int[] codes = table.firstNameCodes();
+        final long[] current = table.currentBits();
+        final String[] names = table.firstNameDictionary();
+        final TablePartial total = IntStream.range(0, current.length)
+                .parallel()
+                .collect(() -> new TablePartial(wantsNames ? names.length : 0),
+                    (partial, w) -> {
+                        final int base = w << 6;
+                        if (wantsAge) {
+                            for (long bits = current[w]; bits != 0; bits &= bits - 1) {
+                                partial.ageSum += ages[base + Long.numberOfTrailingZeros(bits)];
+                            }
+                        }
+                        final long inactive = table.inactiveBits(w);
+                        if (wantsNames) {
+                            for (long bits = inactive; bits != 0; bits &= bits - 1) {
+                                partial.names[codes[base + Long.numberOfTrailingZeros(bits)]]++;
+                            }
+                        }
+                        if (wantsFailed) {
+                            final int end = Math.min(64, ages.length - base);
+                            for (int j = 0; j < end; j++) {
+                                partial.failed += (int) (inactive >>> j) & (ages[base + j] > 20 ? 1 : 0)
+                                        & (grades[base + j] < 65 ? 1 : 0);
+                            }
+                        }
+                    },
+                    TablePartial::merge);
+        return new RosterReport(requested, total.ageSum / (double) table.getCurrentCount(),
+                wantsNames ? new NameHistogram(names, total.names).mostCommon() : null, total.failed);
+    }
+
+    /**
+     * Arma un reporte con resultados ya calculados; lo usa {@link ShardCoordinator} al combinar fragmentos.
+     *
+     * @param queries Consultas calculadas
+     * @param averageAgeOfEnrolled Edad promedio de los estudiantes activos
+     * @param mostCommonFirstNameOfInactive Nombre más común de los estudiantes inactivos
+     * @param failedOlderThan20 Cantidad de estudiantes reprobados mayores de 20 años
+     * @return El reporte
+     */
+    static RosterReport of(final Set<RosterQuery> queries, final double averageAgeOfEnrolled,
+            final String mostCommonFirstNameOfInactive, final int failedOlderThan20) {
+        return new RosterReport(copyOf(queries), averageAgeOfEnrolled, mostCommonFirstNameOfInactive,
+                failedOlderThan20);
+    }
+
+    /**
+     * Copia el conjunto de consultas, rechazando un conjunto vacío.
+     * @param queries Consultas pedidas
+     * @return Una copia del conjunto
+     */
+    private static EnumSet<RosterQuery> copyOf(final Set<RosterQuery> queries) {
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("Se debe pedir al menos una consulta");
+        }
+        return EnumSet.copyOf(queries);
+    }
+
+    /**
+     * Indica si una consulta se calculó.
+     * @param query Consulta
+     * @return verdadero si la consulta estaba entre las pedidas
+     */
+    public boolean contains(final RosterQuery query) {
+        return queries.contains(query);
+    }
+
+    /**
+     * Recupera la edad promedio de los estudiantes activos.
+     * @return Edad promedio de los estudiantes registrados
+     * @throws IllegalStateException si no se pidió {@link RosterQuery#AVERAGE_AGE_OF_ENROLLED}
+     */
+    public double getAverageAgeOfEnrolled() {
+        require(RosterQuery.AVERAGE_AGE_OF_ENROLLED);
+        return averageAgeOfEnrolled;
+    }
+
+    /**
+     * Recupera el nombre más común de los estudiantes inactivos; si hay empate, el menor en orden lexicográfico.
+     * @return Nombre más común de los estudiantes inactivos, o null si no hay ninguno
+     * @throws IllegalStateException si no se pidió {@link RosterQuery#MOST_COMMON_FIRST_NAME_OF_INACTIVE}
+     */
+    public String getMostCommonFirstNameOfInactive() {
+        require(RosterQuery.MOST_COMMON_FIRST_NAME_OF_INACTIVE);
+        return mostCommonFirstNameOfInactive;
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes inactivos mayores de 20 años con nota por debajo de 65.
+     * @return Cantidad de calificaciones perdidas de estudiantes mayores de 20 años de edad
+     * @throws IllegalStateException si no se pidió {@link RosterQuery#FAILED_OLDER_THAN_20}
+     */
+    public int getFailedOlderThan20() {
+        require(RosterQuery.FAILED_OLDER_THAN_20);
+        return failedOlderThan20;
+    }
+
+    /**
+     * Verifica que una consulta se haya calculado.
+     * @param query Consulta
+     */
+    private void require(final RosterQuery query) {
+        if (!queries.contains(query)) {
+            throw new IllegalStateException("No se pidió la consulta " + query);
+        }
+    }
+
+    /**
+     * Estado parcial de un hilo en el recorrido sobre un arreglo de estudiantes.
+     */
+    private static final class StudentPartial {
+        /**
+         * Suma de las edades de los activos.
+         */
+        private double ageSum;
+        /**
+         * Cantidad de activos.
+         */
+        private int enrolled;
+        /**
+         * Cantidad de reprobados mayores de 20 años.
+         */
+        private int failed;
+        /**
+         * Histograma de nombres de los inactivos.
+         */
+        private final NameHistogram.Counts names;
+
+        /**
+         * Constructor.
+         * @param setDictionary Diccionario de nombres compartido
+         */
+        StudentPartial(final NameHistogram.Dictionary setDictionary) {
+            this.names = new NameHistogram.Counts(setDictionary);
+        }
+
+        /**
+         * Suma a este estado el de otro hilo.
+         * @param other Estado de otro hilo
+         */
+        void merge(final StudentPartial other) {
+            ageSum += other.ageSum;
+            enrolled += other.enrolled;
+            failed += other.failed;
+            names.merge(other.names);
+        }
+    }
+
+    /**
+     * Estado parcial de un hilo en el recorrido sobre una tabla por columnas.
+     */
+    private static final class TablePartial {
+        /**
+         * Suma de las edades de los activos.
+         */
+        private double ageSum;
+        /**
+         * Cantidad de reprobados mayores de 20 años.
+         */
+        private int failed;
+        /**
+         * Histograma de nombres de los inactivos, indexado por código.
+         */
+        private final int[] names;
+
+        /**
+         * Constructor.
+         * @param setNameCount Cantidad de nombres del diccionario, o 0 si no se cuentan nombres
+         */
+        TablePartial(final int setNameCount) {
+            this.names = new int[setNameCount];
+        }
+
+        /**
+         * Suma a este estado el de otro hilo.
+         * @param other Estado de otro hilo
+         */
+        void merge(final TablePartial other) {
+            ageSum += other.ageSum;
+            failed += other.failed;
+            for (int c = 0; c < names.length; c++) {
+                names[c] += other.names[c];
+            }
+        }
+    }
+}
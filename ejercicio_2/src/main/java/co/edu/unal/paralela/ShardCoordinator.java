@@ -0,0 +1,338 @@
+package co.edu.unal.paralela;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coordinador de consultas sobre un grupo de estudiantes repartido en fragmentos, cada uno servido por un
+ * {@link ShardWorker}, normalmente en su propia JVM.
+ *
+ * Cada consulta se envía a todos los fragmentos a la vez (scatter), cada uno calcula en paralelo sus
+ * resultados parciales (suma y cantidad de edades, histograma de nombres, cantidad de reprobados) y el
+ * coordinador los combina (gather). Así el grupo puede ser más grande que el heap de una JVM y usar los
+ * núcleos de varios procesos. Todas las respuestas se esperan juntas hasta un plazo: un fragmento que no
+ * responde a tiempo, que falla o que no acepta la conexión queda fuera del resultado, y
+ * {@link ShardedReport} dice cuáles faltaron en lugar de bloquear la consulta.
+ *
+ * Para probar en una sola máquina, {@link #launch(List, long)} lanza un proceso por fragmento con el mismo
+ * classpath y {@link #connect(List, long)} usa servidores que ya están corriendo.
+ */
+public final class ShardCoordinator implements Closeable {
+    /**
+     * Servidores de los fragmentos, en orden.
+     */
+    private final List<InetSocketAddress> workers;
+    /**
+     * Plazo de cada consulta en milisegundos.
+     */
+    private final int timeoutMillis;
+    /**
+     * Procesos lanzados por el coordinador; vacía si los servidores ya estaban corriendo.
+     */
+    private final List<Process> processes;
+    /**
+     * Hilos que esperan las respuestas de los fragmentos.
+     */
+    private final ExecutorService requests = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "shard-coordinator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor.
+     * @param setWorkers Servidores de los fragmentos, en orden
+     * @param setTimeoutMillis Plazo de cada consulta en milisegundos
+     * @param setProcesses Procesos lanzados por el coordinador
+     */
+    private ShardCoordinator(final List<InetSocketAddress> setWorkers, final int setTimeoutMillis,
+            final List<Process> setProcesses) {
+        this.workers = setWorkers;
+        this.timeoutMillis = setTimeoutMillis;
+        this.processes = setProcesses;
+    }
+
+    /**
+     * Reparte los estudiantes en fragmentos contiguos de tamaño parecido y escribe cada uno con
+     * {@link MappedStudentRoster#write}.
+     *
+     * @param students Estudiantes
+     * @param shardCount Cantidad de fragmentos
+     * @param directory Directorio donde se escriben los archivos {@code shard-<i>.roster}
+     * @return Los archivos, en orden
+     * @throws IOException si falla la escritura
+     * @throws IllegalArgumentException si la cantidad de fragmentos no es positiva
+     */
+    public static List<Path> writeShards(final Student[] students, final int shardCount, final Path directory)
+            throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("La cantidad de fragmentos debe ser positiva: " + shardCount);
+        }
+        final List<Path> shards = new ArrayList<Path>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            final int from = (int) ((long) students.length * i / shardCount);
+            final int to = (int) ((long) students.length * (i + 1) / shardCount);
+            final Path shard = directory.resolve("shard-" + i + ".roster");
+            MappedStudentRoster.write(StudentTable.fromStudents(Arrays.copyOfRange(students, from, to)), shard);
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    /**
+     * Lanza un proceso {@link ShardWorker} por fragmento con la misma JVM y classpath, y espera a que cada uno
+     * anuncie su puerto, con el mismo plazo que las consultas.
+     *
+     * @param shards Archivos de los fragmentos, en orden
+     * @param timeoutMillis Plazo de cada consulta, y del arranque de los procesos, en milisegundos
+     * @return El coordinador; al cerrarlo terminan los procesos
+     * @throws IOException si algún proceso no arranca o no anuncia su puerto dentro del plazo
+     * @throws IllegalArgumentException si no hay fragmentos o el plazo no es positivo
+     */
+    public static ShardCoordinator launch(final List<Path> shards, final long timeoutMillis) throws IOException {
+        final int timeout = requireTimeout(timeoutMillis);
+        requireShards(shards);
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final List<Process> processes = new ArrayList<Process>(shards.size());
+        final List<InetSocketAddress> workers;
+        try {
+            for (Path shard : shards) {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ShardWorker.class.getName(), shard.toAbsolutePath().toString())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start());
+            }
+            workers = awaitPorts(processes, shards, timeout);
+        } catch (IOException | RuntimeException e) {
+            stop(processes);
+            throw e;
+        }
+        return new ShardCoordinator(workers, timeout, processes);
+    }
+
+    /**
+     * Lee la primera línea de cada proceso, en la que anuncia su puerto. Las lecturas se hacen en hilos aparte
+     * para que un proceso que no escribe nada no bloquee el arranque: todos comparten un mismo plazo, y el
+     * proceso que no responde a tiempo se mata.
+     *
+     * @param processes Procesos, ya lanzados
+     * @param shards Archivos de los fragmentos de cada proceso, para los mensajes de error
+     * @param timeoutMillis Plazo en milisegundos
+     * @return Las direcciones de los servidores, en orden
+     * @throws IOException si algún proceso termina, anuncia otra cosa o no responde dentro del plazo
+     */
+    static List<InetSocketAddress> awaitPorts(final List<Process> processes, final List<Path> shards,
+            final int timeoutMillis) throws IOException {
+        final ExecutorService readers = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "shard-launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<String>> lines = new ArrayList<Future<String>>(processes.size());
+            for (Process process : processes) {
+                lines.add(readers.submit(() -> new BufferedReader(new InputStreamReader(process.getInputStream(),
+                        StandardCharsets.US_ASCII)).readLine()));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            final List<InetSocketAddress> workers = new ArrayList<InetSocketAddress>(processes.size());
+            for (int i = 0; i < processes.size(); i++) {
+                final String line;
+                try {
+                    line = lines.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Al matar el proceso se cierra su salida y el hilo que la lee termina.
+                    processes.get(i).destroyForcibly();
+                    throw new IOException("El fragmento " + shards.get(i) + " no anunció su puerto en "
+                            + timeoutMillis + " ms");
+                } catch (ExecutionException e) {
+                    throw new IOException("No se pudo leer el puerto del fragmento " + shards.get(i), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Se interrumpió el arranque de los fragmentos");
+                }
+                if (line == null || !line.startsWith(ShardWorker.PORT_PREFIX)) {
+                    throw new IOException("El fragmento " + shards.get(i) + " no arrancó: " + line);
+                }
+                workers.add(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(line.substring(ShardWorker.PORT_PREFIX.length()).trim())));
+            }
+            return workers;
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    /**
+     * Usa servidores de fragmentos que ya están corriendo.
+     *
+     * @param workers Direcciones de los servidores, en orden
+     * @param timeoutMillis Plazo de cada consulta en milisegundos
+     * @return El coordinador
+     * @throws IllegalArgumentException si no hay fragmentos o el plazo no es positivo
+     */
+    public static ShardCoordinator connect(final List<InetSocketAddress> workers, final long timeoutMillis) {
+        final int timeout = requireTimeout(timeoutMillis);
+        requireShards(workers);
+        return new ShardCoordinator(new ArrayList<InetSocketAddress>(workers), timeout,
+                Collections.<Process>emptyList());
+    }
+
+    /**
+     * Recupera la cantidad de fragmentos.
+     * @return La cantidad de fragmentos
+     */
+    public int getShardCount() {
+        return workers.size();
+    }
+
+    /**
+     * Calcula varias consultas sobre todos los fragmentos a la vez y combina los resultados de los que
+     * responden dentro del plazo.
+     *
+     * @param queries Consultas a calcular; al menos una
+     * @return El reporte combinado y los fragmentos que faltaron
+     * @throws IllegalArgumentException si no se pide ninguna consulta
+     */
+    public ShardedReport analyze(final Set<RosterQuery> queries) {
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("Se debe pedir al menos una consulta");
+        }
+        final int mask = ShardWorker.maskOf(queries);
+        final List<Callable<ShardPartial>> tasks = new ArrayList<Callable<ShardPartial>>(workers.size());
+        for (InetSocketAddress worker : workers) {
+            tasks.add(() -> query(worker, mask));
+        }
+        final List<Future<ShardPartial>> futures;
+        try {
+            // Las tareas que no terminan en el plazo se cancelan; el plazo del socket libera sus hilos.
+            futures = requests.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la espera de los fragmentos", e);
+        }
+        final ShardPartial total = new ShardPartial();
+        final List<Integer> missing = new ArrayList<Integer>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                total.merge(futures.get(i).get());
+            } catch (CancellationException | ExecutionException e) {
+                missing.add(i);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Se interrumpió la espera de los fragmentos", e);
+            }
+        }
+        return new ShardedReport(total.toReport(queries), workers.size(), missing);
+    }
+
+    /**
+     * Envía una consulta a un fragmento y lee sus resultados parciales.
+     * @param worker Dirección del servidor
+     * @param mask Los bits de las consultas
+     * @return Los resultados parciales
+     * @throws IOException si falla la conexión, se vence el plazo o el servidor responde con un error
+     */
+    private ShardPartial query(final InetSocketAddress worker, final int mask) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(worker, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(ShardWorker.MAGIC);
+            out.writeInt(ShardWorker.VERSION);
+            out.writeInt(mask);
+            out.flush();
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (in.readInt() != ShardWorker.MAGIC) {
+                throw new IOException("Respuesta inválida de " + worker);
+            }
+            if (in.readInt() != ShardWorker.OK) {
+                throw new IOException("Error en " + worker + ": " + in.readUTF());
+            }
+            return ShardPartial.read(in);
+        }
+    }
+
+    /**
+     * Deja de consultar y termina los procesos lanzados por el coordinador.
+     */
+    @Override
+    public void close() {
+        requests.shutdownNow();
+        stop(processes);
+    }
+
+    /**
+     * Termina procesos de fragmentos: cierra su entrada estándar para que terminen solos y, si no lo hacen
+     * en un segundo, los mata.
+     * @param processes Procesos
+     */
+    private static void stop(final List<Process> processes) {
+        for (Process process : processes) {
+            try {
+                process.getOutputStream().close();
+            } catch (IOException e) {
+                // El proceso ya terminó.
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Valida el plazo de las consultas.
+     * @param timeoutMillis Plazo en milisegundos
+     * @return El plazo como int, como lo piden los sockets
+     */
+    private static int requireTimeout(final long timeoutMillis) {
+        if (timeoutMillis < 1 || timeoutMillis > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El plazo debe estar entre 1 y " + Integer.MAX_VALUE + " ms: "
+                    + timeoutMillis);
+        }
+        return (int) timeoutMillis;
+    }
+
+    /**
+     * Rechaza una lista vacía de fragmentos.
+     * @param shards Fragmentos
+     */
+    private static void requireShards(final List<?> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un fragmento");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package co.edu.unal.paralela;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Resultados parciales de las consultas de {@link RosterQuery} sobre un fragmento de estudiantes: suma y
+ * cantidad de edades de los activos, cantidad de reprobados mayores de 20 años e histograma de nombres de los
+ * inactivos. A diferencia de un promedio o un nombre más común, estos valores se pueden sumar entre fragmentos,
+ * así que {@link ShardWorker} los envía y {@link ShardCoordinator} los combina.
+ */
+final class ShardPartial {
+    /**
+     * Cantidad de estudiantes activos.
+     */
+    private long enrolled;
+    /**
+     * Suma de las edades de los activos.
+     */
+    private double ageSum;
+    /**
+     * Cantidad de inactivos mayores de 20 años con nota por debajo de 65.
+     */
+    private long failed;
+    /**
+     * Cantidad de inactivos por nombre, ordenada por nombre.
+     */
+    private final Map<String, Long> names = new TreeMap<String, Long>();
+
+    /**
+     * Calcula en paralelo los resultados parciales de las consultas pedidas sobre un archivo mapeado, en un
+     * solo recorrido por palabras de los bitsets.
+     *
+     * @param roster Fragmento de estudiantes
+     * @param queries Consultas pedidas
+     * @return Los resultados parciales; los de consultas no pedidas quedan en cero
+     */
+    static ShardPartial scan(final MappedStudentRoster roster, final Set<RosterQuery> queries) {
+        final boolean wantsAge = queries.contains(RosterQuery.AVERAGE_AGE_OF_ENROLLED);
+        final boolean wantsNames = queries.contains(RosterQuery.MOST_COMMON_FIRST_NAME_OF_INACTIVE);
+        final boolean wantsFailed = queries.contains(RosterQuery.FAILED_OLDER_THAN_20);
+        final String[] dictionary = roster.firstNameDictionary();
+        final WordPartial total = IntStream.range(0, StudentTable.wordCount(roster.size()))
+                .parallel()
+                .collect(() -> new WordPartial(wantsNames ? dictionary.length : 0),
+                    (partial, w) -> {
+                        final int base = w << 6;
+                        final long inactive = roster.inactiveBits(w);
+                        if (wantsAge) {
+                            for (long bits = roster.currentBits(w); bits != 0; bits &= bits - 1) {
+                                partial.ageSum += roster.getAge(base + Long.numberOfTrailingZeros(bits));
+                            }
+                        }
+                        if (wantsNames) {
+                            for (long bits = inactive; bits != 0; bits &= bits - 1) {
+                                partial.names[roster.firstNameCode(base + Long.numberOfTrailingZeros(bits))]++;
+                            }
+                        }
+                        if (wantsFailed) {
+                            final DoubleBuffer ages = roster.ageSegment(base);
+                            final IntBuffer grades = roster.gradeSegment(base);
+                            final int offset = roster.segmentRow(base);
+                            final int end = Math.min(64, roster.size() - base);
+                            for (int j = 0; j < end; j++) {
+                                partial.failed += (int) (inactive >>> j) & (ages.get(offset + j) > 20 ? 1 : 0)
+                                        & (grades.get(offset + j) < 65 ? 1 : 0);
+                            }
+                        }
+                    },
+                    WordPartial::merge);
+        final ShardPartial result = new ShardPartial();
+        result.enrolled = wantsAge ? roster.getCurrentCount() : 0;
+        result.ageSum = total.ageSum;
+        result.failed = total.failed;
+        for (int c = 0; c < total.names.length; c++) {
+            if (total.names[c] > 0) {
+                result.names.put(dictionary[c], (long) total.names[c]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suma a estos resultados los de otro fragmento.
+     * @param other Resultados de otro fragmento
+     */
+    void merge(final ShardPartial other) {
+        enrolled += other.enrolled;
+        ageSum += other.ageSum;
+        failed += other.failed;
+        for (Map.Entry<String, Long> entry : other.names.entrySet()) {
+            names.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Arma el reporte de las consultas pedidas con los resultados combinados.
+     * @param queries Consultas pedidas
+     * @return El reporte
+     */
+    RosterReport toReport(final Set<RosterQuery> queries) {
+        String mostCommon = null;
+        long mostCommonCount = 0;
+        // El mapa está ordenado, así que en un empate queda el menor nombre, como en NameHistogram.
+        for (Map.Entry<String, Long> entry : names.entrySet()) {
+            if (entry.getValue() > mostCommonCount) {
+                mostCommon = entry.getKey();
+                mostCommonCount = entry.getValue();
+            }
+        }
+        return RosterReport.of(queries, ageSum / (double) enrolled, mostCommon, Math.toIntExact(failed));
+    }
+
+    /**
+     * Escribe los resultados en un flujo, con el formato que lee {@link #read(DataInputStream)}.
+     * @param out Flujo de salida
+     * @throws IOException si falla la escritura
+     */
+    void write(final DataOutputStream out) throws IOException {
+        out.writeLong(enrolled);
+        out.writeDouble(ageSum);
+        out.writeLong(failed);
+        out.writeInt(names.size());
+        for (Map.Entry<String, Long> entry : names.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    /**
+     * Lee resultados escritos con {@link #write(DataOutputStream)}.
+     * @param in Flujo de entrada
+     * @return Los resultados
+     * @throws IOException si falla la lectura o el flujo termina antes de tiempo
+     */
+    static ShardPartial read(final DataInputStream in) throws IOException {
+        final ShardPartial result = new ShardPartial();
+        result.enrolled = in.readLong();
+        result.ageSum = in.readDouble();
+        result.failed = in.readLong();
+        final int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Cantidad de nombres inválida: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            result.names.put(in.readUTF(), in.readLong());
+        }
+        return result;
+    }
+
+    /**
+     * Estado parcial de un hilo en el recorrido de un fragmento.
+     */
+    private static final class WordPartial {
+        /**
+         * Suma de las edades de los activos.
+         */
+        private double ageSum;
+        /**
+         * Cantidad de reprobados mayores de 20 años.
+         */
+        private long failed;
+        /**
+         * Histograma de nombres de los inactivos, indexado por código.
+         */
+        private final int[] names;
+
+        /**
+         * Constructor.
+         * @param setNameCount Cantidad de nombres del diccionario, o 0 si no se cuentan nombres
+         */
+        WordPartial(final int setNameCount) {
+            this.names = new int[setNameCount];
+        }
+
+        /**
+         * Suma a este estado el de otro hilo.
+         * @param other Estado de otro hilo
+         */
+        void merge(final WordPartial other) {
+            ageSum += other.ageSum;
+            failed += other.failed;
+            for (int c = 0; c < names.length; c++) {
+                names[c] += other.names[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package co.edu.unal.paralela;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor de un fragmento de estudiantes: abre un archivo de {@link MappedStudentRoster} y responde consultas
+ * de {@link ShardCoordinator} por un socket en localhost.
+ *
+ * El protocolo usa DataInputStream y DataOutputStream, una conexión por consulta. El coordinador envía
+ * {@link #MAGIC}, {@link #VERSION} y un int con un bit por cada {@link RosterQuery} pedida (el bit del ordinal).
+ * El servidor responde {@link #MAGIC} y un estado: {@link #OK} seguido de los resultados parciales de
+ * {@link ShardPartial}, o {@link #ERROR} seguido de un mensaje. Cada conexión se atiende en su propio hilo, y la
+ * consulta se calcula en paralelo sobre el archivo mapeado.
+ *
+ * Como proceso aparte, {@link #main(String[])} imprime en la salida estándar {@code PORT <puerto>} cuando está
+ * listo y termina cuando se cierra su entrada estándar, así que no queda vivo si muere el coordinador.
+ */
+public final class ShardWorker implements Closeable {
+    /**
+     * Primer int de toda consulta y de toda respuesta.
+     */
+    static final int MAGIC = 0x554E5348;
+    /**
+     * Versión del protocolo.
+     */
+    static final int VERSION = 1;
+    /**
+     * Estado de una respuesta con resultados.
+     */
+    static final int OK = 0;
+    /**
+     * Estado de una respuesta con un mensaje de error.
+     */
+    static final int ERROR = 1;
+    /**
+     * Prefijo de la línea con la que el proceso anuncia su puerto.
+     */
+    static final String PORT_PREFIX = "PORT ";
+
+    /**
+     * Fragmento de estudiantes.
+     */
+    private final MappedStudentRoster roster;
+    /**
+     * Socket en el que se esperan conexiones.
+     */
+    private final ServerSocket server;
+    /**
+     * Hilos que atienden las conexiones.
+     */
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "shard-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor.
+     * @param setRoster Fragmento de estudiantes
+     * @param setServer Socket en el que se esperan conexiones
+     */
+    private ShardWorker(final MappedStudentRoster setRoster, final ServerSocket setServer) {
+        this.roster = setRoster;
+        this.server = setServer;
+    }
+
+    /**
+     * Abre un fragmento y empieza a atender conexiones en localhost en un hilo aparte.
+     *
+     * @param shard Archivo del fragmento, escrito con {@link MappedStudentRoster#write}
+     * @param port Puerto, o 0 para uno libre
+     * @return El servidor
+     * @throws IOException si no se puede abrir el archivo o el puerto
+     */
+    public static ShardWorker start(final Path shard, final int port) throws IOException {
+        final MappedStudentRoster roster = MappedStudentRoster.open(shard);
+        final ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        final ShardWorker worker = new ShardWorker(roster, server);
+        worker.connections.execute(worker::acceptLoop);
+        return worker;
+    }
+
+    /**
+     * Recupera el puerto en el que se esperan conexiones.
+     * @return El puerto
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Deja de atender conexiones.
+     * @throws IOException si falla el cierre del socket
+     */
+    @Override
+    public void close() throws IOException {
+        connections.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * Acepta conexiones hasta que se cierra el socket.
+     */
+    private void acceptLoop() {
+        try {
+            while (true) {
+                final Socket socket = server.accept();
+                connections.execute(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            // El socket se cerró.
+        }
+    }
+
+    /**
+     * Atiende una consulta. Una consulta mal formada recibe un mensaje de error; si se corta la conexión, por
+     * ejemplo porque el coordinador dejó de esperar, se descarta.
+     * @param socket Conexión
+     */
+    private void serve(final Socket socket) {
+        try (Socket s = socket) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            final int magic = in.readInt();
+            final int version = in.readInt();
+            final int mask = in.readInt();
+            out.writeInt(MAGIC);
+            if (magic != MAGIC || version != VERSION) {
+                out.writeInt(ERROR);
+                out.writeUTF("Se esperaba el protocolo " + VERSION + " pero se recibió " + magic + "/" + version);
+            } else {
+                final EnumSet<RosterQuery> queries = queriesOf(mask);
+                if (queries.isEmpty()) {
+                    out.writeInt(ERROR);
+                    out.writeUTF("Se debe pedir al menos una consulta");
+                } else {
+                    final ShardPartial partial = ShardPartial.scan(roster, queries);
+                    out.writeInt(OK);
+                    partial.write(out);
+                }
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // El coordinador cerró la conexión.
+        } catch (IOException e) {
+            // Conexión incompleta; no hay a quién responder.
+        }
+    }
+
+    /**
+     * Traduce un conjunto de consultas a un int con un bit por consulta.
+     * @param queries Consultas
+     * @return Los bits de las consultas
+     */
+    static int maskOf(final Iterable<RosterQuery> queries) {
+        int mask = 0;
+        for (RosterQuery query : queries) {
+            mask |= 1 << query.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Traduce un int con un bit por consulta a un conjunto; los bits desconocidos se ignoran.
+     * @param mask Los bits de las consultas
+     * @return Las consultas
+     */
+    static EnumSet<RosterQuery> queriesOf(final int mask) {
+        final EnumSet<RosterQuery> queries = EnumSet.noneOf(RosterQuery.class);
+        for (RosterQuery query : RosterQuery.values()) {
+            if ((mask & (1 << query.ordinal())) != 0) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Sirve un fragmento como proceso aparte.
+     * @param args Archivo del fragmento y, opcionalmente, el puerto (0 o ausente para uno libre)
+     * @throws IOException si no se puede abrir el archivo o el puerto
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: ShardWorker <fragmento> [puerto]");
+            System.exit(2);
+        }
+        try (ShardWorker worker = start(Paths.get(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 0)) {
+            System.out.println(PORT_PREFIX + worker.getPort());
+            System.out.flush();
+            final InputStream stdin = System.in;
+            while (stdin.read() >= 0) {
+                // Se espera a que el coordinador cierre la entrada estándar.
+            }
+        }
+    }
+}
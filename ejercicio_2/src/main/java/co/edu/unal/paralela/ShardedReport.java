@@ -0,0 +1,78 @@
+package co.edu.unal.paralela;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una consulta de {@link ShardCoordinator}: el reporte combinado de los fragmentos que
+ * respondieron a tiempo y cuáles faltaron.
+ *
+ * Si falta algún fragmento el reporte es parcial: el promedio de edad y el nombre más común son los de los
+ * estudiantes de los fragmentos que respondieron, y la cantidad de reprobados no cuenta a los que faltaron.
+ */
+public final class ShardedReport {
+    /**
+     * Reporte combinado de los fragmentos que respondieron.
+     */
+    private final RosterReport report;
+    /**
+     * Cantidad de fragmentos consultados.
+     */
+    private final int shardCount;
+    /**
+     * Posiciones de los fragmentos que no respondieron a tiempo, en orden.
+     */
+    private final List<Integer> missingShards;
+
+    /**
+     * Constructor.
+     * @param setReport Reporte combinado de los fragmentos que respondieron
+     * @param setShardCount Cantidad de fragmentos consultados
+     * @param setMissingShards Posiciones de los fragmentos que no respondieron, en orden
+     */
+    ShardedReport(final RosterReport setReport, final int setShardCount, final List<Integer> setMissingShards) {
+        this.report = setReport;
+        this.shardCount = setShardCount;
+        this.missingShards = Collections.unmodifiableList(setMissingShards);
+    }
+
+    /**
+     * Recupera el reporte combinado de los fragmentos que respondieron.
+     * @return El reporte
+     */
+    public RosterReport getReport() {
+        return report;
+    }
+
+    /**
+     * Recupera la cantidad de fragmentos consultados.
+     * @return La cantidad de fragmentos
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Recupera la cantidad de fragmentos que respondieron a tiempo.
+     * @return La cantidad de fragmentos que respondieron
+     */
+    public int getAnsweredCount() {
+        return shardCount - missingShards.size();
+    }
+
+    /**
+     * Recupera los fragmentos que no respondieron a tiempo o fallaron.
+     * @return Sus posiciones, en orden
+     */
+    public List<Integer> getMissingShards() {
+        return missingShards;
+    }
+
+    /**
+     * Indica si respondieron todos los fragmentos.
+     * @return verdadero si el reporte cubre a todos los estudiantes
+     */
+    public boolean isComplete() {
+        return missingShards.isEmpty();
+    }
+}
@@ -1,9 +1,13 @@
 package co.edu.unal.paralela;
 
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -163,6 +167,33 @@ public final class StudentAnalytics {
     }
 
 
+    /**
+     * Calcula en paralelo el nombre más común de los estudiantes inactivos con {@link NameHistogram}: cada
+     * nombre recibe un código int una sola vez y cada hilo cuenta en su propio int[], sin boxing ni mapas por
+     * estudiante. Si dos nombres empatan se elige el menor en orden lexicográfico.
+     *
+     * @param studentArray Datos de estudiantes para la clase.
+     * @return Nombre más comun de los estudiantes inactivos, o null si no hay ninguno.
+     */
+    public String mostCommonFirstNameOfInactiveStudentsHistogram(final Student[] studentArray) {
+        return NameHistogram.ofFirstNamesOfInactive(studentArray).mostCommon();
+    }
+
+    /**
+     * Calcula en paralelo, de forma aproximada y en memoria fija, el nombre más común de los estudiantes
+     * inactivos con {@link NameSketch}: cada hilo cuenta en un resumen de a lo más capacity nombres y al final
+     * se combinan. Es para datos con muchísimos nombres distintos, donde un conteo exacto por nombre no cabe en
+     * memoria; la versión exacta sigue siendo mostCommonFirstNameOfInactiveStudentsHistogram.
+     *
+     * @param studentArray Datos de estudiantes para la clase.
+     * @param capacity Cantidad máxima de nombres que cuenta cada hilo.
+     * @return Un nombre cuya cantidad es menor que la del nombre más común a lo más en el error que reporta
+     *     NameSketch, o null si no hay estudiantes inactivos.
+     */
+    public String mostCommonFirstNameOfInactiveStudentsApproximate(final Student[] studentArray, final int capacity) {
+        return NameSketch.ofFirstNamesOfInactive(studentArray, capacity).mostCommon();
+    }
+
     /**
      * calcula secuencialmente el número de estudiantes que han perdido el curso 
      * que son mayores de 20 años. Una calificación de perdido es cualquiera por debajo de 65 
@@ -200,4 +231,214 @@ public final class StudentAnalytics {
                 .filter(s -> !s.checkIsCurrent() && s.getAge() > 20 && s.getGrade() < 65) // morfismo: funtor:Stream(Parelelismo)<Student> -> funtor:Stream(Parelelismo)<Student>
                 .count(); // catamorfismo: funtor:Stream(Parelelismo)<Student> -> long
     }
+
+    /**
+     * Calcula en paralelo la edad promedio de los estudiantes activos sobre una tabla por columnas. Cada
+     * tarea recorre palabras del bitset de activos y sólo lee las edades de los bits encendidos.
+     *
+     * @param table Datos de los estudiantes por columnas.
+     * @return Edad promedio de los estudiantes registrados
+     */
+    public double averageAgeOfEnrolledStudentsParallelTable(final StudentTable table) {
+        final double[] ages = table.ages();
+        final long[] current = table.currentBits();
+        final double ageSum = IntStream.range(0, current.length)
+                .parallel()
+                .mapToDouble(w -> {
+                    double sum = 0;
+                    for (long bits = current[w]; bits != 0; bits &= bits - 1) {
+                        sum += ages[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                    }
+                    return sum;
+                })
+                .sum();
+        return ageSum / (double) table.getCurrentCount();
+    }
+
+    /**
+     * Calcula en paralelo el nombre más común de los estudiantes inactivos sobre una tabla por columnas.
+     * Cada hilo cuenta en su propio histograma int[] indexado por el código del nombre y al final se suman
+     * los histogramas; si dos nombres empatan se elige el menor en orden lexicográfico.
+     *
+     * @param table Datos de los estudiantes por columnas.
+     * @return Nombre más común de los estudiantes inactivos, o null si no hay ninguno.
+     */
+    public String mostCommonFirstNameOfInactiveStudentsParallelTable(final StudentTable table) {
+        final int[] codes = table.firstNameCodes();
+        final String[] names = table.firstNameDictionary();
+        final int[] counts = IntStream.range(0, StudentTable.wordCount(table.size()))
+                .parallel()
+                .collect(() -> new int[names.length],
+                    (histogram, w) -> {
+                        for (long bits = table.inactiveBits(w); bits != 0; bits &= bits - 1) {
+                            histogram[codes[(w << 6) + Long.numberOfTrailingZeros(bits)]]++;
+                        }
+                    },
+                    (left, right) -> {
+                        for (int c = 0; c < left.length; c++) {
+                            left[c] += right[c];
+                        }
+                    });
+        return new NameHistogram(names, counts).mostCommon();
+    }
+
+    /**
+     * Calcula en paralelo el número de estudiantes inactivos mayores de 20 años con nota por debajo de 65,
+     * sobre una tabla por columnas. Cada tarea recorre palabras del bitset de inactivos junto con las columnas
+     * de edad y nota.
+     *
+     * @param table Datos de los estudiantes por columnas.
+     * @return Cantidad de calificaciones perdidas de estudiantes mayores de 20 años de edad.
+     */
+    public int countNumberOfFailedStudentsOlderThan20ParallelTable(final StudentTable table) {
+        final double[] ages = table.ages();
+        final int[] grades = table.grades();
+        return IntStream.range(0, StudentTable.wordCount(table.size()))
+                .parallel()
+                .map(w -> {
+                    // Recorre las 64 filas de la palabra sin saltos condicionales: la edad y la nota son
+                    // aleatorias, así que un if fallaría la predicción de saltos en casi la mitad de las filas.
+                    final long bits = table.inactiveBits(w);
+                    final int base = w << 6;
+                    final int end = Math.min(64, ages.length - base);
+                    int count = 0;
+                    for (int j = 0; j < end; j++) {
+                        count += (int) (bits >>> j) & (ages[base + j] > 20 ? 1 : 0) & (grades[base + j] < 65 ? 1 : 0);
+                    }
+                    return count;
+                })
+                .sum();
+    }
+
+    /**
+     * Calcula en paralelo la edad promedio de los estudiantes activos directamente sobre un archivo binario
+     * mapeado en memoria, igual que la versión sobre la tabla por columnas.
+     *
+     * @param roster Datos de los estudiantes en un archivo mapeado.
+     * @return Edad promedio de los estudiantes registrados
+     */
+    public double averageAgeOfEnrolledStudentsMapped(final MappedStudentRoster roster) {
+        final double ageSum = IntStream.range(0, StudentTable.wordCount(roster.size()))
+                .parallel()
+                .mapToDouble(w -> {
+                    double sum = 0;
+                    for (long bits = roster.currentBits(w); bits != 0; bits &= bits - 1) {
+                        sum += roster.getAge((w << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                    return sum;
+                })
+                .sum();
+        return ageSum / (double) roster.getCurrentCount();
+    }
+
+    /**
+     * Calcula en paralelo el nombre más común de los estudiantes inactivos directamente sobre un archivo
+     * binario mapeado en memoria, con un histograma int[] por hilo indexado por el código del nombre.
+     *
+     * @param roster Datos de los estudiantes en un archivo mapeado.
+     * @return Nombre más común de los estudiantes inactivos, o null si no hay ninguno.
+     */
+    public String mostCommonFirstNameOfInactiveStudentsMapped(final MappedStudentRoster roster) {
+        final String[] names = roster.firstNameDictionary();
+        final int[] counts = IntStream.range(0, StudentTable.wordCount(roster.size()))
+                .parallel()
+                .collect(() -> new int[names.length],
+                    (histogram, w) -> {
+                        for (long bits = roster.inactiveBits(w); bits != 0; bits &= bits - 1) {
+                            histogram[roster.firstNameCode((w << 6) + Long.numberOfTrailingZeros(bits))]++;
+                        }
+                    },
+                    (left, right) -> {
+                        for (int c = 0; c < left.length; c++) {
+                            left[c] += right[c];
+                        }
+                    });
+        return new NameHistogram(names, counts).mostCommon();
+    }
+
+    /**
+     * Calcula en paralelo el número de estudiantes inactivos mayores de 20 años con nota por debajo de 65
+     * directamente sobre un archivo binario mapeado en memoria, sin saltos condicionales por fila.
+     *
+     * @param roster Datos de los estudiantes en un archivo mapeado.
+     * @return Cantidad de calificaciones perdidas de estudiantes mayores de 20 años de edad.
+     */
+    public int countNumberOfFailedStudentsOlderThan20Mapped(final MappedStudentRoster roster) {
+        return IntStream.range(0, StudentTable.wordCount(roster.size()))
+                .parallel()
+                .map(w -> {
+                    // Las 64 filas de una palabra están en el mismo segmento, así que se busca una sola vez.
+                    final long bits = roster.inactiveBits(w);
+                    final int base = w << 6;
+                    final DoubleBuffer ages = roster.ageSegment(base);
+                    final IntBuffer grades = roster.gradeSegment(base);
+                    final int offset = roster.segmentRow(base);
+                    final int end = Math.min(64, roster.size() - base);
+                    int count = 0;
+                    for (int j = 0; j < end; j++) {
+                        count += (int) (bits >>> j) & (ages.get(offset + j) > 20 ? 1 : 0)
+                                & (grades.get(offset + j) < 65 ? 1 : 0);
+                    }
+                    return count;
+                })
+                .sum();
+    }
+
+    /**
+     * Calcula el número de estudiantes inactivos mayores de 20 años con nota por debajo de 65 con los índices
+     * de bitsets de una tabla, sin recorrerla si los grupos del índice están alineados con la consulta.
+     *
+     * @param index Índices de la tabla de estudiantes.
+     * @return Cantidad de calificaciones perdidas de estudiantes mayores de 20 años de edad.
+     */
+    public int countNumberOfFailedStudentsOlderThan20Indexed(final StudentIndex index) {
+        return (int) index.count(StudentQuery.all().current(false).ageGreaterThan(20).gradeLessThan(65));
+    }
+
+    /**
+     * Calcula varias consultas sobre los mismos estudiantes en un solo recorrido paralelo, en lugar de un
+     * recorrido por consulta. Cada hilo lleva un estado parcial con lo que piden todas las consultas y al
+     * final se combinan.
+     *
+     * @param studentArray Datos de los estudiantes para la clase.
+     * @param queries Consultas a calcular; al menos una.
+     * @return Los resultados de las consultas pedidas
+     */
+    public RosterReport analyze(final Student[] studentArray, final Set<RosterQuery> queries) {
+        return RosterReport.scan(studentArray, queries);
+    }
+
+    /**
+     * Calcula varias consultas sobre una tabla por columnas en un solo recorrido paralelo.
+     *
+     * @param table Datos de los estudiantes por columnas.
+     * @param queries Consultas a calcular; al menos una.
+     * @return Los resultados de las consultas pedidas
+     */
+    public RosterReport analyze(final StudentTable table, final Set<RosterQuery> queries) {
+        return RosterReport.scan(table, queries);
+    }
+
+    /**
+     * Agrupa los estudiantes en paralelo y calcula por grupo la cantidad, la proporción de activos, las notas
+     * perdidas y los promedios de edad y nota, en arreglos primitivos por hilo en lugar de mapas.
+     *
+     * @param studentArray Datos de los estudiantes para la clase.
+     * @param grouping Agrupación, por ejemplo {@link StudentGrouping#byAgeBracket(double)}.
+     * @return Los resultados de los grupos con estudiantes
+     */
+    public GroupedStats groupBy(final Student[] studentArray, final StudentGrouping grouping) {
+        return StudentQuery.all().groupBy(grouping, studentArray);
+    }
+
+    /**
+     * Agrupa en paralelo las filas de una tabla por columnas.
+     *
+     * @param table Datos de los estudiantes por columnas.
+     * @param grouping Agrupación, por ejemplo {@link StudentGrouping#byAgeBracket(double)}.
+     * @return Los resultados de los grupos con estudiantes
+     */
+    public GroupedStats groupBy(final StudentTable table, final StudentGrouping grouping) {
+        return StudentQuery.all().groupBy(grouping, table);
+    }
 }
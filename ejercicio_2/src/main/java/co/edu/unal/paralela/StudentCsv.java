@@ -0,0 +1,820 @@
+package co.edu.unal.paralela;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Lectura en paralelo de grupos de estudiantes desde archivos CSV, y escritura de esos archivos.
+ *
+ * Cada línea tiene cinco campos separados por comas: nombre, apellido, edad, nota y si está activo
+ * ({@code true}/{@code false} o {@code 1}/{@code 0}), en UTF-8 y sin comillas, por ejemplo
+ * {@code Max,Grossman,23.5,87,true}. La primera línea puede ser el encabezado {@link #HEADER}; se aceptan
+ * finales de línea {@code \n} y {@code \r\n}, y las líneas vacías se ignoran.
+ *
+ * El archivo se mapea en memoria y se parte en trozos de varios megabytes cortados justo después de un salto de
+ * línea. Cada tarea copia su trozo por ventanas de 1 MB a un arreglo propio, que es mucho más rápido de leer
+ * byte a byte que el mapeo. Los trozos se procesan en paralelo dos veces: primero cada uno cuenta sus filas, y
+ * con la suma acumulada cada trozo sabe en qué fila empieza; después cada uno interpreta sus líneas y escribe
+ * directamente en las columnas finales de una {@link StudentTable} (o en el Student[] final), sin listas
+ * intermedias. Los números se leen de los bytes sin crear Strings; la edad usa el camino rápido exacto para
+ * decimales cortos y sólo recurre a Double.parseDouble con exponentes o muchos dígitos. Los nombres se
+ * deduplican: cada hilo guarda en una caché los bytes de los nombres que ya vio, y sólo crea un String la
+ * primera vez que ve un nombre, que luego busca en un diccionario compartido. Así todas las filas con el mismo
+ * nombre comparten el mismo String y la memoria reservada es la de las columnas, la de los nombres distintos y
+ * una ventana por tarea.
+ *
+ * Cada trozo se mapea por separado, así que el archivo puede pasar de 2 GB. Los códigos de nombre de la
+ * tabla se asignan en el orden en que los hilos encuentran cada nombre, que puede cambiar de una lectura a
+ * otra.
+ */
+public final class StudentCsv {
+    /**
+     * Encabezado opcional de la primera línea.
+     */
+    public static final String HEADER = "firstName,lastName,age,grade,isCurrent";
+    /**
+     * Tamaño mínimo de un trozo, en bytes.
+     */
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    /**
+     * Tamaño máximo de un trozo, en bytes.
+     */
+    private static final long MAX_CHUNK_BYTES = 1L << 26;
+    /**
+     * Trozos por procesador, para repartir la carga si unas líneas son más largas que otras.
+     */
+    private static final int CHUNKS_PER_CORE = 4;
+    /**
+     * Cantidad de entradas de la caché de nombres de cada hilo; potencia de dos.
+     */
+    private static final int CACHE_SIZE = 1024;
+    /**
+     * Tamaño inicial de la ventana por la que cada tarea lee su trozo, en bytes.
+     */
+    private static final int WINDOW_BYTES = 1 << 20;
+    /**
+     * Potencias de 10 que un double representa de forma exacta.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /**
+     * Bytes de true.
+     */
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    /**
+     * Bytes de false.
+     */
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    /**
+     * Bytes de 1.
+     */
+    private static final byte[] ONE = {'1'};
+    /**
+     * Bytes de 0.
+     */
+    private static final byte[] ZERO = {'0'};
+
+    /**
+     * Constructor privado; la clase sólo tiene métodos estáticos.
+     */
+    private StudentCsv() {
+    }
+
+    /**
+     * Escribe un grupo de estudiantes en un archivo CSV con encabezado.
+     *
+     * @param students Estudiantes
+     * @param file Archivo de destino; se reemplaza si existe
+     * @throws IOException si falla la escritura
+     * @throws IllegalArgumentException si un nombre contiene comas o saltos de línea
+     */
+    public static void write(final Student[] students, final Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.write('\n');
+            for (Student s : students) {
+                out.write(requireField(s.getFirstName()));
+                out.write(',');
+                out.write(requireField(s.getLastName()));
+                out.write(',');
+                out.write(Double.toString(s.getAge()));
+                out.write(',');
+                out.write(Integer.toString(s.getGrade()));
+                out.write(',');
+                out.write(s.checkIsCurrent() ? "true" : "false");
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Lee en paralelo un archivo CSV a una tabla por columnas.
+     *
+     * @param file Archivo
+     * @return La tabla con una fila por línea, en el orden del archivo
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si una línea está mal formada
+     */
+    public static StudentTable readTable(final Path file) throws IOException {
+        return readTable(file, defaultChunkBytes(Files.size(file)));
+    }
+
+    /**
+     * Lee en paralelo un archivo CSV a un arreglo de estudiantes.
+     *
+     * @param file Archivo
+     * @return Un estudiante por línea, en el orden del archivo
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si una línea está mal formada
+     */
+    public static Student[] readStudents(final Path file) throws IOException {
+        return readStudents(file, defaultChunkBytes(Files.size(file)));
+    }
+
+    /**
+     * Lee un archivo CSV a una tabla con un tamaño de trozo dado.
+     * @param file Archivo
+     * @param chunkBytes Tamaño aproximado de cada trozo
+     * @return La tabla
+     * @throws IOException si falla la lectura
+     */
+    static StudentTable readTable(final Path file, final long chunkBytes) throws IOException {
+        final Chunk[] chunks = split(file, chunkBytes);
+        final int n = countRows(chunks);
+        final Output out = new Output(n, true);
+        parse(chunks, out);
+        return new StudentTable(out.ages, out.grades, out.current, out.currentCount.get(), out.firstNameCodes,
+                out.lastNameCodes, out.firstNames.toArray(), out.lastNames.toArray());
+    }
+
+    /**
+     * Lee un archivo CSV a un arreglo de estudiantes con un tamaño de trozo dado.
+     * @param file Archivo
+     * @param chunkBytes Tamaño aproximado de cada trozo
+     * @return Los estudiantes
+     * @throws IOException si falla la lectura
+     */
+    static Student[] readStudents(final Path file, final long chunkBytes) throws IOException {
+        final Chunk[] chunks = split(file, chunkBytes);
+        final int n = countRows(chunks);
+        final Output out = new Output(n, false);
+        parse(chunks, out);
+        return out.students;
+    }
+
+    /**
+     * Elige el tamaño de trozo para un archivo: unos cuantos trozos por procesador, entre 1 MB y 64 MB.
+     * @param size Tamaño del archivo
+     * @return El tamaño de trozo
+     */
+    private static long defaultChunkBytes(final long size) {
+        final long perChunk = size / ((long) CHUNKS_PER_CORE * Runtime.getRuntime().availableProcessors());
+        return Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, perChunk));
+    }
+
+    /**
+     * Parte el archivo en trozos que terminan justo después de un salto de línea y mapea cada uno, saltando el
+     * encabezado si lo hay.
+     *
+     * @param file Archivo
+     * @param chunkBytes Tamaño aproximado de cada trozo
+     * @return Los trozos, en orden
+     * @throws IOException si falla la lectura
+     */
+    private static Chunk[] split(final Path file, final long chunkBytes) throws IOException {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes debe ser positivo: " + chunkBytes);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long start = skipHeader(channel);
+            final int count = (int) Math.max(1, (size - start + chunkBytes - 1) / chunkBytes);
+            final long[] bounds = new long[count + 1];
+            bounds[0] = start;
+            bounds[count] = size;
+            for (int c = 1; c < count; c++) {
+                bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, start + c * chunkBytes));
+            }
+            final Chunk[] chunks = new Chunk[count];
+            for (int c = 0; c < count; c++) {
+                final long length = bounds[c + 1] - bounds[c];
+                if (length > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Línea de más de 2 GB cerca del byte " + bounds[c]);
+                }
+                chunks[c] = new Chunk(bounds[c], channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], length));
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * Busca el final del encabezado, si la primera línea es {@link #HEADER}.
+     * @param channel Archivo
+     * @return La posición donde empiezan los datos
+     * @throws IOException si falla la lectura
+     */
+    private static long skipHeader(final FileChannel channel) throws IOException {
+        final byte[] header = HEADER.getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer buffer = ByteBuffer.allocate(header.length + 2);
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, buffer.position());
+        }
+        buffer.flip();
+        for (int i = 0; i < header.length; i++) {
+            if (i >= buffer.limit() || buffer.get(i) != header[i]) {
+                return 0;
+            }
+        }
+        int end = header.length;
+        if (end < buffer.limit() && buffer.get(end) == '\r') {
+            end++;
+        }
+        if (end == buffer.limit()) {
+            return end;
+        }
+        return buffer.get(end) == '\n' ? end + 1 : 0;
+    }
+
+    /**
+     * Busca el comienzo de la primera línea que empieza en una posición o después.
+     * @param channel Archivo
+     * @param from Posición
+     * @return La posición siguiente al primer salto de línea en from - 1 o después, o el tamaño del archivo
+     * @throws IOException si falla la lectura
+     */
+    private static long nextLineStart(final FileChannel channel, final long from) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = from - 1;
+        while (true) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Cuenta en paralelo las filas de cada trozo y calcula la fila en la que empieza cada uno.
+     * @param chunks Trozos
+     * @return La cantidad total de filas
+     */
+    private static int countRows(final Chunk[] chunks) {
+        IntStream.range(0, chunks.length)
+                .parallel()
+                .forEach(c -> chunks[c].rows = new ChunkParser(chunks[c], null).scan(false));
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            chunk.firstRow = (int) Math.min(total, Integer.MAX_VALUE);
+            total += chunk.rows;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Demasiadas filas para un arreglo: " + total);
+        }
+        return (int) total;
+    }
+
+    /**
+     * Interpreta en paralelo todos los trozos, escribiendo en la salida.
+     * @param chunks Trozos, ya contados
+     * @param out Salida
+     */
+    private static void parse(final Chunk[] chunks, final Output out) {
+        IntStream.range(0, chunks.length)
+                .parallel()
+                .forEach(c -> new ChunkParser(chunks[c], out).scan(true));
+    }
+
+    /**
+     * Rechaza un nombre que no se puede escribir sin comillas.
+     * @param field Nombre
+     * @return El mismo nombre
+     */
+    private static String requireField(final String field) {
+        if (field.indexOf(',') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("El nombre no puede tener comas ni saltos de línea: " + field);
+        }
+        return field;
+    }
+
+    /**
+     * Trozo del archivo mapeado en memoria.
+     */
+    private static final class Chunk {
+        /**
+         * Posición del trozo en el archivo, para los mensajes de error.
+         */
+        private final long offset;
+        /**
+         * Bytes del trozo.
+         */
+        private final MappedByteBuffer bytes;
+        /**
+         * Cantidad de filas del trozo.
+         */
+        private int rows;
+        /**
+         * Fila en la que empieza el trozo.
+         */
+        private int firstRow;
+
+        /**
+         * Constructor.
+         * @param setOffset Posición del trozo en el archivo
+         * @param setBytes Bytes del trozo
+         */
+        Chunk(final long setOffset, final MappedByteBuffer setBytes) {
+            this.offset = setOffset;
+            this.bytes = setBytes;
+        }
+    }
+
+    /**
+     * Destino de la lectura: las columnas de una tabla o un arreglo de estudiantes, más los diccionarios de
+     * nombres compartidos por los hilos.
+     */
+    private static final class Output {
+        /**
+         * Verdadero si se llena una tabla, falso si se llena un arreglo de estudiantes.
+         */
+        private final boolean table;
+        /**
+         * Edades, si se llena una tabla.
+         */
+        private final double[] ages;
+        /**
+         * Notas, si se llena una tabla.
+         */
+        private final int[] grades;
+        /**
+         * Bitset de activos, si se llena una tabla.
+         */
+        private final long[] current;
+        /**
+         * Cantidad de activos.
+         */
+        private final AtomicInteger currentCount = new AtomicInteger();
+        /**
+         * Códigos de nombre, si se llena una tabla.
+         */
+        private final int[] firstNameCodes;
+        /**
+         * Códigos de apellido, si se llena una tabla.
+         */
+        private final int[] lastNameCodes;
+        /**
+         * Estudiantes, si se llena un arreglo.
+         */
+        private final Student[] students;
+        /**
+         * Diccionario de nombres.
+         */
+        private final Names firstNames = new Names();
+        /**
+         * Diccionario de apellidos.
+         */
+        private final Names lastNames = new Names();
+
+        /**
+         * Constructor.
+         * @param setRows Cantidad de filas
+         * @param setTable Verdadero para llenar una tabla, falso para llenar un arreglo de estudiantes
+         */
+        Output(final int setRows, final boolean setTable) {
+            this.table = setTable;
+            this.ages = setTable ? new double[setRows] : null;
+            this.grades = setTable ? new int[setRows] : null;
+            this.current = setTable ? new long[StudentTable.wordCount(setRows)] : null;
+            this.firstNameCodes = setTable ? new int[setRows] : null;
+            this.lastNameCodes = setTable ? new int[setRows] : null;
+            this.students = setTable ? null : new Student[setRows];
+        }
+    }
+
+    /**
+     * Nombre deduplicado con su código.
+     */
+    private static final class Name {
+        /**
+         * El String compartido por todas las filas con este nombre.
+         */
+        private final String value;
+        /**
+         * Código del nombre.
+         */
+        private final int code;
+
+        /**
+         * Constructor.
+         * @param setValue Nombre
+         * @param setCode Código del nombre
+         */
+        Name(final String setValue, final int setCode) {
+            this.value = setValue;
+            this.code = setCode;
+        }
+    }
+
+    /**
+     * Diccionario de nombres compartido por los hilos.
+     */
+    private static final class Names {
+        /**
+         * Nombre deduplicado de cada String.
+         */
+        private final ConcurrentHashMap<String, Name> names = new ConcurrentHashMap<String, Name>();
+        /**
+         * Siguiente código libre.
+         */
+        private final AtomicInteger nextCode = new AtomicInteger();
+
+        /**
+         * Busca un nombre, agregándolo si no estaba.
+         * @param value Nombre
+         * @return El nombre deduplicado
+         */
+        Name of(final String value) {
+            final Name name = names.get(value);
+            return name != null ? name : names.computeIfAbsent(value, k -> new Name(k, nextCode.getAndIncrement()));
+        }
+
+        /**
+         * Arma el arreglo de nombres indexado por código; sólo se llama cuando ya terminó la lectura.
+         * @return El nombre de cada código
+         */
+        String[] toArray() {
+            final String[] result = new String[nextCode.get()];
+            for (Name name : names.values()) {
+                result[name.code] = name.value;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Intérprete de las líneas de un trozo; cada tarea usa el suyo, con sus propias cachés de nombres.
+     */
+    private static final class ChunkParser {
+        /**
+         * Trozo.
+         */
+        private final Chunk chunk;
+        /**
+         * Ventana con una copia de los bytes del trozo que se están leyendo.
+         */
+        private byte[] bytes;
+        /**
+         * Posición dentro del trozo del primer byte de la ventana.
+         */
+        private int base;
+        /**
+         * Salida.
+         */
+        private final Output out;
+        /**
+         * Caché de nombres: bytes de cada entrada.
+         */
+        private final byte[][] firstNameKeys = new byte[CACHE_SIZE][];
+        /**
+         * Caché de nombres: nombre de cada entrada.
+         */
+        private final Name[] firstNameValues = new Name[CACHE_SIZE];
+        /**
+         * Caché de apellidos: bytes de cada entrada.
+         */
+        private final byte[][] lastNameKeys = new byte[CACHE_SIZE][];
+        /**
+         * Caché de apellidos: apellido de cada entrada.
+         */
+        private final Name[] lastNameValues = new Name[CACHE_SIZE];
+        /**
+         * Palabra del bitset de activos que se está llenando.
+         */
+        private int pendingWord = -1;
+        /**
+         * Bits acumulados de esa palabra.
+         */
+        private long pendingBits;
+
+        /**
+         * Constructor.
+         * @param setChunk Trozo
+         * @param setOut Salida
+         */
+        ChunkParser(final Chunk setChunk, final Output setOut) {
+            this.chunk = setChunk;
+            this.bytes = new byte[(int) Math.min(WINDOW_BYTES, setChunk.bytes.limit() + 1L)];
+            this.out = setOut;
+        }
+
+        /**
+         * Recorre las líneas no vacías del trozo. Los bytes mapeados se copian por ventanas a un arreglo propio
+         * y se leen de ahí, porque leerlos uno a uno del MappedByteBuffer cuesta varias veces más; la línea que
+         * queda partida al final de una ventana se pasa al principio de la siguiente, y la ventana sólo crece si
+         * una línea no cabe en ella.
+         * @param parse verdadero para interpretar las líneas y escribirlas en la salida, falso para sólo contarlas
+         * @return La cantidad de filas del trozo
+         */
+        int scan(final boolean parse) {
+            final ByteBuffer source = chunk.bytes.duplicate();
+            int rows = 0;
+            int currentCount = 0;
+            int length = 0;
+            int lineStart = 0;
+            boolean last = false;
+            while (!last) {
+                if (lineStart > 0) {
+                    System.arraycopy(bytes, lineStart, bytes, 0, length - lineStart);
+                    base += lineStart;
+                    length -= lineStart;
+                    lineStart = 0;
+                }
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                final int read = Math.min(bytes.length - length, source.remaining());
+                source.get(bytes, length, read);
+                length += read;
+                last = !source.hasRemaining();
+                while (lineStart < length) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < length && bytes[lineEnd] != '\n') {
+                        lineEnd++;
+                    }
+                    if (lineEnd == length && !last) {
+                        break;
+                    }
+                    final int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+                    if (contentEnd > lineStart) {
+                        if (parse && parseLine(lineStart, contentEnd, chunk.firstRow + rows)) {
+                            currentCount++;
+                        }
+                        rows++;
+                    }
+                    lineStart = lineEnd + 1;
+                }
+            }
+            if (parse) {
+                flushCurrent();
+                out.currentCount.addAndGet(currentCount);
+            }
+            return rows;
+        }
+
+        /**
+         * Interpreta una línea y la escribe en la salida.
+         * @param from Primer byte de la línea
+         * @param to Byte siguiente al último de la línea, sin el salto de línea
+         * @param row Fila de la línea
+         * @return verdadero si el estudiante está activo
+         */
+        private boolean parseLine(final int from, final int to, final int row) {
+            final int c1 = comma(from, to);
+            final int c2 = comma(c1 + 1, to);
+            final int c3 = comma(c2 + 1, to);
+            final int c4 = comma(c3 + 1, to);
+            final Name firstName = name(from, c1, firstNameKeys, firstNameValues, out.firstNames);
+            final Name lastName = name(c1 + 1, c2, lastNameKeys, lastNameValues, out.lastNames);
+            final double age = parseDouble(c2 + 1, c3);
+            final int grade = parseInt(c3 + 1, c4);
+            final boolean current = parseBoolean(c4 + 1, to);
+            if (out.table) {
+                out.ages[row] = age;
+                out.grades[row] = grade;
+                out.firstNameCodes[row] = firstName.code;
+                out.lastNameCodes[row] = lastName.code;
+                if (current) {
+                    setCurrent(row);
+                }
+            } else {
+                out.students[row] = new Student(firstName.value, lastName.value, age, grade, current);
+            }
+            return current;
+        }
+
+        /**
+         * Busca la siguiente coma.
+         * @param from Primer byte del campo
+         * @param to Final de la línea
+         * @return La posición de la coma
+         */
+        private int comma(final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == ',') {
+                    return i;
+                }
+            }
+            throw malformed(from, "faltan campos");
+        }
+
+        /**
+         * Enciende el bit de activo de una fila. Las palabras del bitset que el trozo comparte con sus vecinos se
+         * combinan con un candado; las demás se escriben de una vez cuando se completan.
+         * @param row Fila
+         */
+        private void setCurrent(final int row) {
+            final int word = row >>> 6;
+            if (word != pendingWord) {
+                flushCurrent();
+                pendingWord = word;
+            }
+            pendingBits |= 1L << row;
+        }
+
+        /**
+         * Escribe la palabra del bitset que se estaba llenando.
+         */
+        private void flushCurrent() {
+            if (pendingWord < 0 || pendingBits == 0) {
+                return;
+            }
+            final long wordStart = (long) pendingWord << 6;
+            if (wordStart >= chunk.firstRow && wordStart + 64 <= (long) chunk.firstRow + chunk.rows) {
+                out.current[pendingWord] = pendingBits;
+            } else {
+                synchronized (out.current) {
+                    out.current[pendingWord] |= pendingBits;
+                }
+            }
+            pendingBits = 0;
+        }
+
+        /**
+         * Busca un nombre en la caché del hilo por sus bytes, y sólo si no está crea el String y lo busca en el
+         * diccionario compartido.
+         * @param from Primer byte del nombre
+         * @param to Byte siguiente al último
+         * @param keys Bytes de cada entrada de la caché
+         * @param values Nombre de cada entrada de la caché
+         * @param names Diccionario compartido
+         * @return El nombre deduplicado
+         */
+        private Name name(final int from, final int to, final byte[][] keys, final Name[] values, final Names names) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            final int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+            final byte[] key = keys[slot];
+            if (key != null && sameBytes(key, from, to)) {
+                return values[slot];
+            }
+            final byte[] copy = Arrays.copyOfRange(bytes, from, to);
+            final Name name = names.of(new String(copy, StandardCharsets.UTF_8));
+            keys[slot] = copy;
+            values[slot] = name;
+            return name;
+        }
+
+        /**
+         * Compara unos bytes del trozo con otros, por ejemplo los de una entrada de la caché.
+         * @param key Bytes con los que se compara
+         * @param from Primer byte del trozo
+         * @param to Byte siguiente al último
+         * @return verdadero si son iguales
+         */
+        private boolean sameBytes(final byte[] key, final int from, final int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lee una edad. Un decimal de hasta 18 dígitos sin exponente cuya mantisa cabe en 53 bits se calcula
+         * como mantisa / 10^decimales, que es exacto porque los dos operandos lo son y la división redondea una
+         * sola vez; cualquier otro caso se delega en Double.parseDouble.
+         * @param from Primer byte del campo
+         * @param to Byte siguiente al último
+         * @return La edad
+         */
+        private double parseDouble(final int from, final int to) {
+            int i = from;
+            final boolean negative = i < to && bytes[i] == '-';
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int decimals = 0;
+            boolean dot = false;
+            boolean fast = true;
+            for (; i < to && fast; i++) {
+                final int b = bytes[i];
+                if (b >= '0' && b <= '9' && digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    decimals += dot ? 1 : 0;
+                } else if (b == '.' && !dot) {
+                    dot = true;
+                } else {
+                    fast = false;
+                }
+            }
+            if (fast && digits > 0 && mantissa < (1L << 53) && decimals < POWERS_OF_TEN.length) {
+                final double value = mantissa / POWERS_OF_TEN[decimals];
+                return negative ? -value : value;
+            }
+            final String text = ascii(from, to);
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw malformed(from, "edad inválida: " + text);
+            }
+        }
+
+        /**
+         * Lee una nota.
+         * @param from Primer byte del campo
+         * @param to Byte siguiente al último
+         * @return La nota
+         */
+        private int parseInt(final int from, final int to) {
+            int i = from;
+            final boolean negative = i < to && bytes[i] == '-';
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                i++;
+            }
+            if (i == to) {
+                throw malformed(from, "nota vacía");
+            }
+            long value = 0;
+            for (; i < to; i++) {
+                final int b = bytes[i];
+                if (b < '0' || b > '9' || value > Integer.MAX_VALUE + 1L) {
+                    throw malformed(from, "nota inválida: " + ascii(from, to));
+                }
+                value = value * 10 + (b - '0');
+            }
+            value = negative ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw malformed(from, "nota inválida: " + ascii(from, to));
+            }
+            return (int) value;
+        }
+
+        /**
+         * Lee si el estudiante está activo.
+         * @param from Primer byte del campo
+         * @param to Byte siguiente al último
+         * @return verdadero para true o 1, falso para false o 0
+         */
+        private boolean parseBoolean(final int from, final int to) {
+            if (sameBytes(TRUE, from, to) || sameBytes(ONE, from, to)) {
+                return true;
+            }
+            if (sameBytes(FALSE, from, to) || sameBytes(ZERO, from, to)) {
+                return false;
+            }
+            throw malformed(from, "estado inválido: " + ascii(from, to));
+        }
+
+        /**
+         * Copia unos bytes a un String, sólo para errores y para el camino lento de la edad.
+         * @param from Primer byte
+         * @param to Byte siguiente al último
+         * @return El texto
+         */
+        private String ascii(final int from, final int to) {
+            final byte[] copy = Arrays.copyOfRange(bytes, from, to);
+            return new String(copy, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Crea el error de una línea mal formada.
+         * @param position Posición del error dentro de la ventana
+         * @param reason Causa
+         * @return La excepción
+         */
+        private IllegalArgumentException malformed(final int position, final String reason) {
+            return new IllegalArgumentException("Línea mal formada cerca del byte " + (chunk.offset + base + position) + ": "
+                    + reason);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package co.edu.unal.paralela;
+
+/**
+ * Campos de un estudiante que {@link StudentQuery} puede agregar o usar para agrupar.
+ */
+public enum StudentField {
+    /**
+     * Edad; se puede promediar y buscar su mínimo y máximo.
+     */
+    AGE,
+    /**
+     * Nota; se puede promediar y buscar su mínimo y máximo.
+     */
+    GRADE,
+    /**
+     * Nombre; se puede usar para agrupar y para buscar el más común.
+     */
+    FIRST_NAME,
+    /**
+     * Apellido; se puede usar para agrupar y para buscar el más común.
+     */
+    LAST_NAME;
+
+    /**
+     * Indica si el campo es numérico.
+     * @return verdadero para la edad y la nota
+     */
+    boolean isNumeric() {
+        return this == AGE || this == GRADE;
+    }
+}
@@ -0,0 +1,129 @@
+package co.edu.unal.paralela;
+
+/**
+ * Criterio para agrupar estudiantes en {@link GroupedStats}: por nombre, por apellido, por franjas de nota o
+ * por rangos de edad.
+ *
+ * Las franjas y los rangos empiezan en múltiplos del ancho: con ancho 5 las notas 60 a 64 quedan en el mismo
+ * grupo, y con ancho 2.5 las edades desde 20 hasta antes de 22.5. Cada grupo numérico se identifica por
+ * piso(valor / ancho), así que los grupos se cuentan en arreglos indexados por ese número y no en mapas.
+ */
+public final class StudentGrouping {
+    /**
+     * Agrupación por nombre.
+     */
+    private static final StudentGrouping FIRST_NAME = new StudentGrouping(StudentField.FIRST_NAME, 0);
+    /**
+     * Agrupación por apellido.
+     */
+    private static final StudentGrouping LAST_NAME = new StudentGrouping(StudentField.LAST_NAME, 0);
+
+    /**
+     * Campo por el que se agrupa.
+     */
+    private final StudentField field;
+    /**
+     * Ancho de cada grupo numérico; 0 para los nombres.
+     */
+    private final double width;
+
+    /**
+     * Constructor.
+     * @param setField Campo por el que se agrupa
+     * @param setWidth Ancho de cada grupo numérico; 0 para los nombres
+     */
+    private StudentGrouping(final StudentField setField, final double setWidth) {
+        this.field = setField;
+        this.width = setWidth;
+    }
+
+    /**
+     * Agrupa por nombre.
+     * @return La agrupación
+     */
+    public static StudentGrouping byFirstName() {
+        return FIRST_NAME;
+    }
+
+    /**
+     * Agrupa por apellido.
+     * @return La agrupación
+     */
+    public static StudentGrouping byLastName() {
+        return LAST_NAME;
+    }
+
+    /**
+     * Agrupa por franjas de nota.
+     * @param width Cantidad de notas de cada franja
+     * @return La agrupación
+     * @throws IllegalArgumentException si el ancho no es positivo
+     */
+    public static StudentGrouping byGradeBand(final int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("El ancho debe ser positivo: " + width);
+        }
+        return new StudentGrouping(StudentField.GRADE, width);
+    }
+
+    /**
+     * Agrupa por rangos de edad; los estudiantes con edad NaN no quedan en ningún grupo.
+     * @param width Años de cada rango
+     * @return La agrupación
+     * @throws IllegalArgumentException si el ancho no es positivo y finito
+     */
+    public static StudentGrouping byAgeBracket(final double width) {
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("El ancho debe ser positivo y finito: " + width);
+        }
+        return new StudentGrouping(StudentField.AGE, width);
+    }
+
+    /**
+     * Agrupa por un nombre o apellido; lo usa {@link StudentQuery} para countBy y averageBy.
+     * @param field {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @return La agrupación
+     */
+    static StudentGrouping byName(final StudentField field) {
+        return field == StudentField.FIRST_NAME ? FIRST_NAME : LAST_NAME;
+    }
+
+    /**
+     * Recupera el campo por el que se agrupa.
+     * @return El campo
+     */
+    StudentField getField() {
+        return field;
+    }
+
+    /**
+     * Indica si se agrupa por nombre o apellido.
+     * @return verdadero para los nombres, falso para las franjas y rangos
+     */
+    boolean byName() {
+        return !field.isNumeric();
+    }
+
+    /**
+     * Calcula el número de grupo de una nota o una edad.
+     * @param value Nota o edad; no NaN
+     * @return piso(value / ancho), saturado al rango de long
+     */
+    long keyOf(final double value) {
+        return (long) Math.floor(value / width);
+    }
+
+    /**
+     * Arma la etiqueta de un grupo numérico: {@code 60-64} para una franja de notas (o {@code 60} con ancho 1)
+     * y {@code [20.0, 22.5)} para un rango de edades.
+     * @param key Número del grupo
+     * @return La etiqueta
+     */
+    String label(final long key) {
+        if (field == StudentField.GRADE) {
+            final long lo = key * (long) width;
+            return width == 1 ? Long.toString(lo) : lo + "-" + (lo + (long) width - 1);
+        }
+        return "[" + key * width + ", " + (key + 1) * width + ")";
+    }
+}
@@ -0,0 +1,448 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Índices secundarios sobre una {@link StudentTable} para contar rápido las filas que cumplen una
+ * {@link StudentQuery} selectiva, sin recorrer toda la tabla.
+ *
+ * Las notas se reparten en grupos de ancho fijo (por ejemplo 60 a 64, 65 a 69) y las edades en rangos de
+ * ancho fijo (por ejemplo [20, 25)); cada grupo tiene un bitset comprimido ({@link CompressedBitmap}) con sus
+ * filas, y el estado activo tiene otro. Al construir el índice también se cuentan las filas de cada celda
+ * estado x grupo de nota x rango de edad, que es la cantidad de bits de la intersección de los tres bitsets.
+ *
+ * Para contar, cada grupo se clasifica según el rango de valores que realmente tiene: dentro del filtro,
+ * afuera, o en el borde. Las celdas con los dos grupos dentro del filtro se suman directamente, sin tocar
+ * filas; sólo las celdas de borde (y todas, si la consulta filtra por nombre, que no está indexado) se
+ * resuelven con la unión e intersección de los bitsets, verificando cada fila candidata contra la tabla. Un
+ * tablero que repite consultas alineadas con los grupos, como los reprobados mayores de 20 años con los
+ * anchos por defecto, se responde en microsegundos sin importar el tamaño de la tabla. Si hay que verificar
+ * más de un cuarto de las filas, el índice no ayuda y la consulta recorre la tabla como siempre.
+ *
+ * Las filas con edad NaN no entran en el índice, porque tampoco cumplen ninguna consulta. El índice es
+ * inmutable y describe la tabla con la que se construyó.
+ */
+public final class StudentIndex {
+    /**
+     * Ancho por defecto de los grupos de nota.
+     */
+    public static final int DEFAULT_GRADE_WIDTH = 5;
+    /**
+     * Ancho por defecto de los rangos de edad, en años.
+     */
+    public static final double DEFAULT_AGE_WIDTH = 5.0;
+    /**
+     * Cantidad máxima de grupos de nota o de rangos de edad.
+     */
+    private static final int MAX_BUCKETS = 1024;
+    /**
+     * Si hay que verificar más de size / SCAN_DIVISOR filas, se recorre la tabla.
+     */
+    private static final int SCAN_DIVISOR = 4;
+
+    /**
+     * Tabla indexada.
+     */
+    private final StudentTable table;
+    /**
+     * Bitset de activos.
+     */
+    private final CompressedBitmap current;
+    /**
+     * Bitset de cada grupo de nota.
+     */
+    private final CompressedBitmap[] grades;
+    /**
+     * Bitset de cada rango de edad.
+     */
+    private final CompressedBitmap[] ages;
+    /**
+     * Cantidad de filas de cada celda, en la posición (estado * grupos de nota + grupo) * rangos de edad + rango,
+     * con estado 1 para los activos.
+     */
+    private final long[] cells;
+    /**
+     * Nota mínima que aparece en cada grupo de nota.
+     */
+    private final int[] gradeLo;
+    /**
+     * Nota máxima que aparece en cada grupo de nota.
+     */
+    private final int[] gradeHi;
+    /**
+     * Edad mínima que aparece en cada rango de edad.
+     */
+    private final double[] ageLo;
+    /**
+     * Edad máxima que aparece en cada rango de edad.
+     */
+    private final double[] ageHi;
+
+    /**
+     * Constructor.
+     * @param setTable Tabla indexada
+     * @param setCurrent Bitset de activos
+     * @param setGrades Bitset de cada grupo de nota
+     * @param setAges Bitset de cada rango de edad
+     * @param setTotals Conteos y extremos por celda y grupo
+     */
+    private StudentIndex(final StudentTable setTable, final CompressedBitmap setCurrent, final CompressedBitmap[] setGrades,
+            final CompressedBitmap[] setAges, final BuildPartial setTotals) {
+        this.table = setTable;
+        this.current = setCurrent;
+        this.grades = setGrades;
+        this.ages = setAges;
+        this.cells = setTotals.cells;
+        this.gradeLo = setTotals.gradeLo;
+        this.gradeHi = setTotals.gradeHi;
+        this.ageLo = setTotals.ageLo;
+        this.ageHi = setTotals.ageHi;
+    }
+
+    /**
+     * Construye en paralelo el índice de una tabla con los anchos por defecto.
+     * @param table Tabla
+     * @return El índice
+     */
+    public static StudentIndex build(final StudentTable table) {
+        return build(table, DEFAULT_GRADE_WIDTH, DEFAULT_AGE_WIDTH);
+    }
+
+    /**
+     * Construye en paralelo el índice de una tabla. Cada tarea indexa un bloque de 65536 filas y escribe sólo
+     * los bloques de ese rango en cada bitset, así que las tareas no comparten nada hasta combinar los conteos.
+     *
+     * @param table Tabla
+     * @param gradeWidth Ancho de los grupos de nota
+     * @param ageWidth Ancho de los rangos de edad, en años
+     * @return El índice
+     * @throws IllegalArgumentException si un ancho no es positivo o si saldrían más de 1024 grupos o rangos
+     */
+    public static StudentIndex build(final StudentTable table, final int gradeWidth, final double ageWidth) {
+        if (gradeWidth <= 0 || !(ageWidth > 0) || Double.isInfinite(ageWidth)) {
+            throw new IllegalArgumentException("Los anchos deben ser positivos: " + gradeWidth + ", " + ageWidth);
+        }
+        final IntSummaryStatistics gradeStats = IntStream.of(table.grades()).parallel().summaryStatistics();
+        final DoubleSummaryStatistics ageStats = DoubleStream.of(table.ages())
+                .parallel()
+                .filter(age -> !Double.isNaN(age))
+                .summaryStatistics();
+        final long firstGradeBucket = Math.floorDiv(gradeStats.getMin(), gradeWidth);
+        final long firstAgeBucket = ageBucket(ageStats.getMin(), ageWidth);
+        final int gradeBuckets = bucketCount(ageStats.getCount(), firstGradeBucket,
+                Math.floorDiv(gradeStats.getMax(), gradeWidth), "nota");
+        final int ageBuckets = bucketCount(ageStats.getCount(), firstAgeBucket,
+                ageBucket(ageStats.getMax(), ageWidth), "edad");
+
+        final int blocks = CompressedBitmap.blockCount(table.size());
+        final long[][] currentBlocks = new long[blocks][];
+        final long[][][] gradeBlocks = new long[gradeBuckets][blocks][];
+        final long[][][] ageBlocks = new long[ageBuckets][blocks][];
+        final BuildPartial totals = IntStream.range(0, blocks)
+                .parallel()
+                .collect(() -> new BuildPartial(gradeBuckets, ageBuckets),
+                    (partial, b) -> partial.indexBlock(table, b, gradeWidth, ageWidth, firstGradeBucket,
+                            firstAgeBucket, currentBlocks, gradeBlocks, ageBlocks),
+                    BuildPartial::merge);
+
+        final CompressedBitmap[] grades = new CompressedBitmap[gradeBuckets];
+        for (int g = 0; g < gradeBuckets; g++) {
+            grades[g] = new CompressedBitmap(gradeBlocks[g]);
+        }
+        final CompressedBitmap[] ages = new CompressedBitmap[ageBuckets];
+        for (int a = 0; a < ageBuckets; a++) {
+            ages[a] = new CompressedBitmap(ageBlocks[a]);
+        }
+        return new StudentIndex(table, new CompressedBitmap(currentBlocks), grades, ages, totals);
+    }
+
+    /**
+     * Calcula el rango de edad de una edad.
+     * @param age Edad, no NaN
+     * @param width Ancho de los rangos
+     * @return El número de rango, sin restar el primero
+     */
+    private static long ageBucket(final double age, final double width) {
+        return (long) Math.floor(age / width);
+    }
+
+    /**
+     * Calcula la cantidad de grupos entre el primero y el último.
+     * @param rows Cantidad de filas indexadas
+     * @param first Primer grupo
+     * @param last Último grupo
+     * @param field Campo, para el mensaje de error
+     * @return La cantidad de grupos, 0 si no hay filas
+     */
+    private static int bucketCount(final long rows, final long first, final long last, final String field) {
+        if (rows == 0) {
+            return 0;
+        }
+        final long count = last - first + 1;
+        if (count <= 0 || count > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Demasiados grupos de " + field + "; use un ancho mayor");
+        }
+        return (int) count;
+    }
+
+    /**
+     * Recupera la tabla indexada.
+     * @return La tabla con la que se construyó el índice
+     */
+    public StudentTable getTable() {
+        return table;
+    }
+
+    /**
+     * Recupera la cantidad de grupos de nota.
+     * @return La cantidad de bitsets de nota
+     */
+    public int getGradeBuckets() {
+        return grades.length;
+    }
+
+    /**
+     * Recupera la cantidad de rangos de edad.
+     * @return La cantidad de bitsets de edad
+     */
+    public int getAgeBuckets() {
+        return ages.length;
+    }
+
+    /**
+     * Cuenta los bloques de bitset guardados como palabras, en todos los bitsets; los bloques vacíos y llenos
+     * no ocupan memoria.
+     * @return La cantidad de bloques densos
+     */
+    public int getDenseBlocks() {
+        int dense = current.denseBlocks();
+        for (CompressedBitmap bitmap : grades) {
+            dense += bitmap.denseBlocks();
+        }
+        for (CompressedBitmap bitmap : ages) {
+            dense += bitmap.denseBlocks();
+        }
+        return dense;
+    }
+
+    /**
+     * Cuenta las filas de la tabla que cumplen una consulta; da lo mismo que
+     * {@link StudentQuery#count(StudentTable)} sobre la tabla indexada.
+     *
+     * @param query Consulta
+     * @return La cantidad de estudiantes que cumplen los filtros
+     */
+    public long count(final StudentQuery query) {
+        final boolean byName = query.filtersByName();
+        final boolean[] gradeAll = new boolean[grades.length];
+        final boolean[] gradeIn = new boolean[grades.length];
+        for (int g = 0; g < grades.length; g++) {
+            gradeAll[g] = gradeLo[g] <= gradeHi[g] && query.overlapsGrades(gradeLo[g], gradeHi[g]);
+            gradeIn[g] = gradeAll[g] && !byName && query.containsGrades(gradeLo[g], gradeHi[g]);
+        }
+        final boolean[] ageAll = new boolean[ages.length];
+        final boolean[] ageIn = new boolean[ages.length];
+        for (int a = 0; a < ages.length; a++) {
+            ageAll[a] = ageLo[a] <= ageHi[a] && query.overlapsAges(ageLo[a], ageHi[a]);
+            ageIn[a] = ageAll[a] && !byName && query.containsAges(ageLo[a], ageHi[a]);
+        }
+
+        long exact = 0;
+        long candidates = 0;
+        for (int state = 0; state < 2; state++) {
+            if (state == 1 ? !query.acceptsCurrent() : !query.acceptsInactive()) {
+                continue;
+            }
+            for (int g = 0; g < grades.length; g++) {
+                if (!gradeAll[g]) {
+                    continue;
+                }
+                final int row = (state * grades.length + g) * ages.length;
+                for (int a = 0; a < ages.length; a++) {
+                    if (gradeIn[g] && ageIn[a]) {
+                        exact += cells[row + a];
+                    } else if (ageAll[a]) {
+                        candidates += cells[row + a];
+                    }
+                }
+            }
+        }
+        if (candidates == 0) {
+            return exact;
+        }
+        if (candidates > table.size() / SCAN_DIVISOR) {
+            return query.count(table);
+        }
+        return exact + IntStream.range(0, CompressedBitmap.blockCount(table.size()))
+                .parallel()
+                .mapToLong(b -> verifyBlock(query, b, gradeAll, gradeIn, ageAll, ageIn))
+                .sum();
+    }
+
+    /**
+     * Verifica las filas candidatas de un bloque: las del estado pedido que están en un grupo de nota y un rango
+     * de edad que se cruzan con el filtro, sin las que ya se sumaron por estar del todo dentro.
+     *
+     * @param query Consulta
+     * @param b Índice del bloque
+     * @param gradeAll Grupos de nota que se cruzan con el filtro
+     * @param gradeIn Grupos de nota del todo dentro del filtro
+     * @param ageAll Rangos de edad que se cruzan con el filtro
+     * @param ageIn Rangos de edad del todo dentro del filtro
+     * @return La cantidad de filas candidatas que cumplen la consulta
+     */
+    private long verifyBlock(final StudentQuery query, final int b, final boolean[] gradeAll, final boolean[] gradeIn,
+            final boolean[] ageAll, final boolean[] ageIn) {
+        final boolean acceptCurrent = query.acceptsCurrent();
+        final boolean acceptInactive = query.acceptsInactive();
+        final long[] currentBlock = current.block(b);
+        if ((!acceptCurrent || currentBlock == null) && (!acceptInactive || currentBlock == CompressedBitmap.FULL)) {
+            return 0;
+        }
+        final long[] gradeCandidates = CompressedBitmap.union(grades, gradeAll, b);
+        final long[] ageCandidates = CompressedBitmap.union(ages, ageAll, b);
+        if (gradeCandidates == null || ageCandidates == null) {
+            return 0;
+        }
+        final long[] gradeExact = CompressedBitmap.union(grades, gradeIn, b);
+        final long[] ageExact = CompressedBitmap.union(ages, ageIn, b);
+        final long[] currentBits = table.currentBits();
+        final int firstWord = b * CompressedBitmap.BLOCK_WORDS;
+        final int words = Math.min(CompressedBitmap.BLOCK_WORDS, currentBits.length - firstWord);
+        long count = 0;
+        for (int w = 0; w < words; w++) {
+            final long state = (acceptCurrent ? currentBits[firstWord + w] : 0L)
+                    | (acceptInactive ? table.inactiveBits(firstWord + w) : 0L);
+            final long exact = gradeExact == null || ageExact == null ? 0L : gradeExact[w] & ageExact[w];
+            for (long bits = state & gradeCandidates[w] & ageCandidates[w] & ~exact; bits != 0; bits &= bits - 1) {
+                if (query.matches(table, ((firstWord + w) << 6) + Long.numberOfTrailingZeros(bits))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Conteos y extremos por celda y grupo de las tareas de construcción.
+     */
+    private static final class BuildPartial {
+        /**
+         * Cantidad de filas de cada celda.
+         */
+        private final long[] cells;
+        /**
+         * Nota mínima de cada grupo de nota.
+         */
+        private final int[] gradeLo;
+        /**
+         * Nota máxima de cada grupo de nota.
+         */
+        private final int[] gradeHi;
+        /**
+         * Edad mínima de cada rango de edad.
+         */
+        private final double[] ageLo;
+        /**
+         * Edad máxima de cada rango de edad.
+         */
+        private final double[] ageHi;
+
+        /**
+         * Constructor.
+         * @param setGradeBuckets Cantidad de grupos de nota
+         * @param setAgeBuckets Cantidad de rangos de edad
+         */
+        BuildPartial(final int setGradeBuckets, final int setAgeBuckets) {
+            this.cells = new long[2 * setGradeBuckets * setAgeBuckets];
+            this.gradeLo = new int[setGradeBuckets];
+            this.gradeHi = new int[setGradeBuckets];
+            this.ageLo = new double[setAgeBuckets];
+            this.ageHi = new double[setAgeBuckets];
+            Arrays.fill(gradeLo, Integer.MAX_VALUE);
+            Arrays.fill(gradeHi, Integer.MIN_VALUE);
+            Arrays.fill(ageLo, Double.POSITIVE_INFINITY);
+            Arrays.fill(ageHi, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * Indexa un bloque de filas: llena el bloque b de cada bitset y suma los conteos de sus celdas.
+         *
+         * @param table Tabla
+         * @param b Índice del bloque
+         * @param gradeWidth Ancho de los grupos de nota
+         * @param ageWidth Ancho de los rangos de edad
+         * @param firstGradeBucket Grupo de nota del primer bitset
+         * @param firstAgeBucket Rango de edad del primer bitset
+         * @param currentBlocks Bloques del bitset de activos
+         * @param gradeBlocks Bloques de los bitsets de nota
+         * @param ageBlocks Bloques de los bitsets de edad
+         */
+        void indexBlock(final StudentTable table, final int b, final int gradeWidth, final double ageWidth,
+                final long firstGradeBucket, final long firstAgeBucket, final long[][] currentBlocks,
+                final long[][][] gradeBlocks, final long[][][] ageBlocks) {
+            final double[] tableAges = table.ages();
+            final int[] tableGrades = table.grades();
+            final long[] currentBits = table.currentBits();
+            final int from = b << CompressedBitmap.BLOCK_SHIFT;
+            final int rows = Math.min(1 << CompressedBitmap.BLOCK_SHIFT, tableAges.length - from);
+            final int firstWord = from >>> 6;
+            final long[][] gradeWords = new long[gradeLo.length][];
+            final long[][] ageWords = new long[ageLo.length][];
+            for (int i = 0; i < rows; i++) {
+                final int row = from + i;
+                final double age = tableAges[row];
+                if (Double.isNaN(age)) {
+                    continue;
+                }
+                final int grade = tableGrades[row];
+                final int g = (int) (Math.floorDiv(grade, gradeWidth) - firstGradeBucket);
+                final int a = (int) (ageBucket(age, ageWidth) - firstAgeBucket);
+                if (gradeWords[g] == null) {
+                    gradeWords[g] = new long[CompressedBitmap.BLOCK_WORDS];
+                }
+                if (ageWords[a] == null) {
+                    ageWords[a] = new long[CompressedBitmap.BLOCK_WORDS];
+                }
+                gradeWords[g][i >>> 6] |= 1L << i;
+                ageWords[a][i >>> 6] |= 1L << i;
+                final int state = (int) (currentBits[row >>> 6] >>> row) & 1;
+                cells[(state * gradeLo.length + g) * ageLo.length + a]++;
+                gradeLo[g] = Math.min(gradeLo[g], grade);
+                gradeHi[g] = Math.max(gradeHi[g], grade);
+                ageLo[a] = Math.min(ageLo[a], age);
+                ageHi[a] = Math.max(ageHi[a], age);
+            }
+            final long[] currentWords = Arrays.copyOfRange(currentBits, firstWord, firstWord + CompressedBitmap.BLOCK_WORDS);
+            currentBlocks[b] = CompressedBitmap.compress(currentWords, rows);
+            for (int g = 0; g < gradeWords.length; g++) {
+                gradeBlocks[g][b] = CompressedBitmap.compress(gradeWords[g], rows);
+            }
+            for (int a = 0; a < ageWords.length; a++) {
+                ageBlocks[a][b] = CompressedBitmap.compress(ageWords[a], rows);
+            }
+        }
+
+        /**
+         * Suma a estos conteos los de otra tarea.
+         * @param other Conteos de otra tarea
+         */
+        void merge(final BuildPartial other) {
+            for (int c = 0; c < cells.length; c++) {
+                cells[c] += other.cells[c];
+            }
+            for (int g = 0; g < gradeLo.length; g++) {
+                gradeLo[g] = Math.min(gradeLo[g], other.gradeLo[g]);
+                gradeHi[g] = Math.max(gradeHi[g], other.gradeHi[g]);
+            }
+            for (int a = 0; a < ageLo.length; a++) {
+                ageLo[a] = Math.min(ageLo[a], other.ageLo[a]);
+                ageHi[a] = Math.max(ageHi[a], other.ageHi[a]);
+            }
+        }
+    }
+}
@@ -0,0 +1,800 @@
+package co.edu.unal.paralela;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Consulta sobre estudiantes armada por partes: filtros por edad, nota, si está activo y nombre, y un agregado
+ * (cantidad, promedio, mínimo, máximo, el valor más común o un agrupamiento), que se ejecuta en paralelo sobre un
+ * arreglo de estudiantes o sobre una {@link StudentTable}. Los agrupamientos se calculan con
+ * {@link GroupedStats}.
+ *
+ * La consulta no guarda una cadena de lambdas que se interpreta por cada estudiante. Cada filtro sólo ajusta
+ * unos límites primitivos (edad mínima y máxima, nota mínima y máxima, qué estados se aceptan, nombre y
+ * apellido), y un filtro que no se pidió queda con límites neutros que siempre se cumplen. Así toda consulta
+ * se evalúa con el mismo método final, una conjunción de comparaciones combinadas con {@code &} sin saltos,
+ * y el sitio de llamada dentro del ciclo ve siempre la misma clase: el JIT lo puede compilar en línea sin
+ * importar cuántas consultas distintas se ejecuten, en lugar de volverse megamórfico como un
+ * {@code filter(p1).filter(p2)} con lambdas distintas.
+ *
+ * El recorrido paralelo reparte bloques de estudiantes (o palabras del bitset de activos, en la tabla), de
+ * modo que el stream llama a su lambda una vez por bloque y el ciclo interno es un for sobre índices. El
+ * ciclo se elige según lo que se pide: si sólo se cuenta, suma el resultado del predicado sin saltar; si se
+ * agrega un campo, acumula cantidad, suma, mínimo y máximo. Al final se combinan los estados parciales de los
+ * hilos.
+ *
+ * Las consultas son inmutables: cada filtro devuelve una consulta nueva, y los filtros se acumulan (todos se
+ * deben cumplir).
+ */
+public final class StudentQuery {
+    /**
+     * Cantidad de estudiantes de cada bloque del recorrido sobre un arreglo.
+     */
+    private static final int BLOCK = 1024;
+    /**
+     * Código de nombre que indica que no se filtra por nombre.
+     */
+    private static final int ANY_NAME = -1;
+    /**
+     * Código de nombre que indica que el nombre pedido no está en el diccionario de la tabla.
+     */
+    private static final int MISSING_NAME = -2;
+    /**
+     * Consulta sin filtros.
+     */
+    private static final StudentQuery ALL = new StudentQuery(true, true, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null);
+
+    /**
+     * Se aceptan estudiantes activos.
+     */
+    private final boolean acceptCurrent;
+    /**
+     * Se aceptan estudiantes inactivos.
+     */
+    private final boolean acceptInactive;
+    /**
+     * Edad mínima, incluida.
+     */
+    private final double minAge;
+    /**
+     * Edad máxima, incluida.
+     */
+    private final double maxAge;
+    /**
+     * Nota mínima, incluida; long para que los límites abiertos no se desborden.
+     */
+    private final long minGrade;
+    /**
+     * Nota máxima, incluida.
+     */
+    private final long maxGrade;
+    /**
+     * Nombre pedido, o null si no se filtra por nombre.
+     */
+    private final String firstName;
+    /**
+     * Apellido pedido, o null si no se filtra por apellido.
+     */
+    private final String lastName;
+
+    /**
+     * Constructor.
+     * @param setAcceptCurrent Se aceptan estudiantes activos
+     * @param setAcceptInactive Se aceptan estudiantes inactivos
+     * @param setMinAge Edad mínima, incluida
+     * @param setMaxAge Edad máxima, incluida
+     * @param setMinGrade Nota mínima, incluida
+     * @param setMaxGrade Nota máxima, incluida
+     * @param setFirstName Nombre pedido, o null
+     * @param setLastName Apellido pedido, o null
+     */
+    private StudentQuery(final boolean setAcceptCurrent, final boolean setAcceptInactive, final double setMinAge,
+            final double setMaxAge, final long setMinGrade, final long setMaxGrade, final String setFirstName,
+            final String setLastName) {
+        this.acceptCurrent = setAcceptCurrent;
+        this.acceptInactive = setAcceptInactive;
+        this.minAge = setMinAge;
+        this.maxAge = setMaxAge;
+        this.minGrade = setMinGrade;
+        this.maxGrade = setMaxGrade;
+        this.firstName = setFirstName;
+        this.lastName = setLastName;
+    }
+
+    /**
+     * Crea una consulta sin filtros, que acepta a todos los estudiantes.
+     * @return La consulta
+     */
+    public static StudentQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Filtra por estado.
+     * @param current verdadero para quedarse con los activos, falso para quedarse con los inactivos
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery current(final boolean current) {
+        return new StudentQuery(acceptCurrent && current, acceptInactive && !current, minAge, maxAge, minGrade, maxGrade,
+                firstName, lastName);
+    }
+
+    /**
+     * Filtra por edad mayor que un valor.
+     * @param age Edad, excluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery ageGreaterThan(final double age) {
+        return ageBetween(Math.nextUp(requireAge(age)), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Filtra por edad menor que un valor.
+     * @param age Edad, excluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery ageLessThan(final double age) {
+        return ageBetween(Double.NEGATIVE_INFINITY, Math.nextDown(requireAge(age)));
+    }
+
+    /**
+     * Filtra por edad dentro de un rango.
+     * @param min Edad mínima, incluida
+     * @param max Edad máxima, incluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery ageBetween(final double min, final double max) {
+        return new StudentQuery(acceptCurrent, acceptInactive, Math.max(minAge, requireAge(min)),
+                Math.min(maxAge, requireAge(max)), minGrade, maxGrade, firstName, lastName);
+    }
+
+    /**
+     * Filtra por nota menor que un valor.
+     * @param grade Nota, excluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery gradeLessThan(final int grade) {
+        return gradeBetween(Integer.MIN_VALUE, grade - 1L);
+    }
+
+    /**
+     * Filtra por nota mayor o igual que un valor.
+     * @param grade Nota, incluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery gradeAtLeast(final int grade) {
+        return gradeBetween(grade, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Filtra por nota dentro de un rango.
+     * @param min Nota mínima, incluida
+     * @param max Nota máxima, incluida
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery gradeBetween(final int min, final int max) {
+        return gradeBetween(min, (long) max);
+    }
+
+    /**
+     * Filtra por nota dentro de un rango con límites long.
+     * @param min Nota mínima, incluida
+     * @param max Nota máxima, incluida
+     * @return Una consulta con el filtro agregado
+     */
+    private StudentQuery gradeBetween(final long min, final long max) {
+        return new StudentQuery(acceptCurrent, acceptInactive, minAge, maxAge, Math.max(minGrade, min),
+                Math.min(maxGrade, max), firstName, lastName);
+    }
+
+    /**
+     * Filtra por nombre. Si ya se filtró por otro nombre, la consulta no acepta a ningún estudiante.
+     * @param name Nombre
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery firstName(final String name) {
+        requireName(name);
+        final boolean conflict = firstName != null && !firstName.equals(name);
+        return new StudentQuery(acceptCurrent && !conflict, acceptInactive && !conflict, minAge, maxAge, minGrade,
+                maxGrade, name, lastName);
+    }
+
+    /**
+     * Filtra por apellido. Si ya se filtró por otro apellido, la consulta no acepta a ningún estudiante.
+     * @param name Apellido
+     * @return Una consulta con el filtro agregado
+     */
+    public StudentQuery lastName(final String name) {
+        requireName(name);
+        final boolean conflict = lastName != null && !lastName.equals(name);
+        return new StudentQuery(acceptCurrent && !conflict, acceptInactive && !conflict, minAge, maxAge, minGrade,
+                maxGrade, firstName, name);
+    }
+
+    /**
+     * Cuenta en paralelo los estudiantes que cumplen la consulta.
+     * @param students Estudiantes
+     * @return La cantidad de estudiantes que cumplen los filtros
+     */
+    public long count(final Student[] students) {
+        return scan(students, null).count;
+    }
+
+    /**
+     * Cuenta en paralelo las filas de una tabla que cumplen la consulta.
+     * @param table Estudiantes por columnas
+     * @return La cantidad de estudiantes que cumplen los filtros
+     */
+    public long count(final StudentTable table) {
+        return scan(table, null).count;
+    }
+
+    /**
+     * Promedia en paralelo un campo numérico de los estudiantes que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param students Estudiantes
+     * @return El promedio, o NaN si ningún estudiante cumple los filtros
+     */
+    public double average(final StudentField value, final Student[] students) {
+        return scan(students, requireNumeric(value)).average();
+    }
+
+    /**
+     * Promedia en paralelo un campo numérico de las filas de una tabla que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param table Estudiantes por columnas
+     * @return El promedio, o NaN si ningún estudiante cumple los filtros
+     */
+    public double average(final StudentField value, final StudentTable table) {
+        return scan(table, requireNumeric(value)).average();
+    }
+
+    /**
+     * Busca en paralelo el mínimo de un campo numérico de los estudiantes que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param students Estudiantes
+     * @return El mínimo, o NaN si ningún estudiante cumple los filtros
+     */
+    public double min(final StudentField value, final Student[] students) {
+        return scan(students, requireNumeric(value)).min();
+    }
+
+    /**
+     * Busca en paralelo el mínimo de un campo numérico de las filas de una tabla que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param table Estudiantes por columnas
+     * @return El mínimo, o NaN si ningún estudiante cumple los filtros
+     */
+    public double min(final StudentField value, final StudentTable table) {
+        return scan(table, requireNumeric(value)).min();
+    }
+
+    /**
+     * Busca en paralelo el máximo de un campo numérico de los estudiantes que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param students Estudiantes
+     * @return El máximo, o NaN si ningún estudiante cumple los filtros
+     */
+    public double max(final StudentField value, final Student[] students) {
+        return scan(students, requireNumeric(value)).max();
+    }
+
+    /**
+     * Busca en paralelo el máximo de un campo numérico de las filas de una tabla que cumplen la consulta.
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param table Estudiantes por columnas
+     * @return El máximo, o NaN si ningún estudiante cumple los filtros
+     */
+    public double max(final StudentField value, final StudentTable table) {
+        return scan(table, requireNumeric(value)).max();
+    }
+
+    /**
+     * Busca en paralelo el nombre o apellido más común de los estudiantes que cumplen la consulta; si hay
+     * empate, el menor en orden lexicográfico, como en {@link NameHistogram}.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param students Estudiantes
+     * @return El valor más común, o null si ningún estudiante cumple los filtros
+     */
+    public String mode(final StudentField key, final Student[] students) {
+        return groupBy(StudentGrouping.byName(requireName(key)), students).mode();
+    }
+
+    /**
+     * Busca en paralelo el nombre o apellido más común de las filas de una tabla que cumplen la consulta.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param table Estudiantes por columnas
+     * @return El valor más común, o null si ningún estudiante cumple los filtros
+     */
+    public String mode(final StudentField key, final StudentTable table) {
+        return groupBy(StudentGrouping.byName(requireName(key)), table).mode();
+    }
+
+    /**
+     * Cuenta en paralelo los estudiantes que cumplen la consulta, agrupados por nombre o apellido.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param students Estudiantes
+     * @return La cantidad por grupo, ordenada por grupo y sólo con los grupos que tienen estudiantes
+     */
+    public Map<String, Long> countBy(final StudentField key, final Student[] students) {
+        return groupBy(StudentGrouping.byName(requireName(key)), students).countsByKey();
+    }
+
+    /**
+     * Cuenta en paralelo las filas de una tabla que cumplen la consulta, agrupadas por nombre o apellido.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param table Estudiantes por columnas
+     * @return La cantidad por grupo, ordenada por grupo y sólo con los grupos que tienen estudiantes
+     */
+    public Map<String, Long> countBy(final StudentField key, final StudentTable table) {
+        return groupBy(StudentGrouping.byName(requireName(key)), table).countsByKey();
+    }
+
+    /**
+     * Promedia en paralelo un campo numérico de los estudiantes que cumplen la consulta, agrupados por nombre
+     * o apellido.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param students Estudiantes
+     * @return El promedio por grupo, ordenado por grupo y sólo con los grupos que tienen estudiantes
+     */
+    public Map<String, Double> averageBy(final StudentField key, final StudentField value, final Student[] students) {
+        return groupBy(StudentGrouping.byName(requireName(key)), students).averagesByKey(requireNumeric(value));
+    }
+
+    /**
+     * Promedia en paralelo un campo numérico de las filas de una tabla que cumplen la consulta, agrupadas por
+     * nombre o apellido.
+     * @param key {@link StudentField#FIRST_NAME} o {@link StudentField#LAST_NAME}
+     * @param value {@link StudentField#AGE} o {@link StudentField#GRADE}
+     * @param table Estudiantes por columnas
+     * @return El promedio por grupo, ordenado por grupo y sólo con los grupos que tienen estudiantes
+     */
+    public Map<String, Double> averageBy(final StudentField key, final StudentField value, final StudentTable table) {
+        return groupBy(StudentGrouping.byName(requireName(key)), table).averagesByKey(requireNumeric(value));
+    }
+
+    /**
+     * Agrupa en paralelo los estudiantes que cumplen la consulta y calcula por grupo la cantidad, los activos,
+     * las notas perdidas y las sumas de edad y nota, en arreglos primitivos por hilo.
+     * @param grouping Agrupación, por ejemplo {@link StudentGrouping#byGradeBand(int)}
+     * @param students Estudiantes
+     * @return Los resultados de los grupos con estudiantes
+     */
+    public GroupedStats groupBy(final StudentGrouping grouping, final Student[] students) {
+        return GroupedStats.scan(this, requireGrouping(grouping), students);
+    }
+
+    /**
+     * Agrupa en paralelo las filas de una tabla que cumplen la consulta; los nombres se agrupan por los códigos
+     * de la tabla.
+     * @param grouping Agrupación, por ejemplo {@link StudentGrouping#byGradeBand(int)}
+     * @param table Estudiantes por columnas
+     * @return Los resultados de los grupos con estudiantes
+     */
+    public GroupedStats groupBy(final StudentGrouping grouping, final StudentTable table) {
+        return GroupedStats.scan(this, requireGrouping(grouping), table);
+    }
+
+    /**
+     * Revisa si un estudiante cumple todos los filtros. Es el único predicado de cualquier consulta: los
+     * filtros numéricos y de estado se combinan con {@code &} para no saltar por cada uno.
+     * @param s Estudiante
+     * @return verdadero si el estudiante cumple la consulta
+     */
+    boolean matches(final Student s) {
+        final double age = s.getAge();
+        final int grade = s.getGrade();
+        return (s.checkIsCurrent() ? acceptCurrent : acceptInactive)
+                & age >= minAge & age <= maxAge & grade >= minGrade & grade <= maxGrade
+                && (firstName == null || firstName.equals(s.getFirstName()))
+                && (lastName == null || lastName.equals(s.getLastName()));
+    }
+
+    /**
+     * Revisa si una fila de una tabla cumple todos los filtros; la usa {@link StudentIndex} para verificar las
+     * filas candidatas.
+     * @param table Estudiantes por columnas
+     * @param row Fila
+     * @return verdadero si la fila cumple la consulta
+     */
+    boolean matches(final StudentTable table, final int row) {
+        final double age = table.getAge(row);
+        final int grade = table.getGrade(row);
+        return (table.checkIsCurrent(row) ? acceptCurrent : acceptInactive)
+                & age >= minAge & age <= maxAge & grade >= minGrade & grade <= maxGrade
+                && (firstName == null || firstName.equals(table.getFirstName(row)))
+                && (lastName == null || lastName.equals(table.getLastName(row)));
+    }
+
+    /**
+     * Indica si se aceptan estudiantes activos.
+     * @return verdadero si la consulta no descarta a los activos
+     */
+    boolean acceptsCurrent() {
+        return acceptCurrent;
+    }
+
+    /**
+     * Indica si se aceptan estudiantes inactivos.
+     * @return verdadero si la consulta no descarta a los inactivos
+     */
+    boolean acceptsInactive() {
+        return acceptInactive;
+    }
+
+    /**
+     * Revisa si todas las edades de un intervalo cumplen el filtro de edad.
+     * @param lo Edad mínima del intervalo
+     * @param hi Edad máxima del intervalo
+     * @return verdadero si el intervalo está dentro del rango pedido
+     */
+    boolean containsAges(final double lo, final double hi) {
+        return lo >= minAge & hi <= maxAge;
+    }
+
+    /**
+     * Revisa si alguna edad de un intervalo puede cumplir el filtro de edad.
+     * @param lo Edad mínima del intervalo
+     * @param hi Edad máxima del intervalo
+     * @return verdadero si el intervalo se cruza con el rango pedido
+     */
+    boolean overlapsAges(final double lo, final double hi) {
+        return lo <= maxAge & hi >= minAge;
+    }
+
+    /**
+     * Revisa si todas las notas de un intervalo cumplen el filtro de nota.
+     * @param lo Nota mínima del intervalo
+     * @param hi Nota máxima del intervalo
+     * @return verdadero si el intervalo está dentro del rango pedido
+     */
+    boolean containsGrades(final int lo, final int hi) {
+        return lo >= minGrade & hi <= maxGrade;
+    }
+
+    /**
+     * Revisa si alguna nota de un intervalo puede cumplir el filtro de nota.
+     * @param lo Nota mínima del intervalo
+     * @param hi Nota máxima del intervalo
+     * @return verdadero si el intervalo se cruza con el rango pedido
+     */
+    boolean overlapsGrades(final int lo, final int hi) {
+        return lo <= maxGrade & hi >= minGrade;
+    }
+
+    /**
+     * Indica si la consulta filtra por nombre o apellido.
+     * @return verdadero si hay un filtro por nombre o apellido
+     */
+    boolean filtersByName() {
+        return firstName != null || lastName != null;
+    }
+
+    /**
+     * Traduce la consulta a los diccionarios de una tabla; la usa {@link GroupedStats}.
+     * @param table Estudiantes por columnas
+     * @return El filtro de la tabla
+     */
+    TableFilter on(final StudentTable table) {
+        return new TableFilter(table);
+    }
+
+    /**
+     * Recorre en paralelo un arreglo de estudiantes por bloques.
+     * @param students Estudiantes
+     * @param value Campo numérico que se agrega, o null si sólo se cuenta
+     * @return El estado combinado de todos los hilos
+     */
+    private Partial scan(final Student[] students, final StudentField value) {
+        final int blocks = (int) ((students.length + (long) BLOCK - 1) / BLOCK);
+        return IntStream.range(0, blocks)
+                .parallel()
+                .collect(Partial::new,
+                    (partial, b) -> scanBlock(students, b * BLOCK, (int) Math.min(students.length, (b + 1L) * BLOCK),
+                            value, partial),
+                    Partial::merge);
+    }
+
+    /**
+     * Recorre un bloque de estudiantes con el ciclo especializado para lo que se agrega.
+     * @param students Estudiantes
+     * @param from Primer estudiante del bloque, incluido
+     * @param to Último estudiante del bloque, excluido
+     * @param value Campo numérico que se agrega, o null si sólo se cuenta
+     * @param partial Estado del hilo
+     */
+    private void scanBlock(final Student[] students, final int from, final int to, final StudentField value,
+            final Partial partial) {
+        if (value == null) {
+            // Sólo contar: sin saltos según si el estudiante cumple, que con datos aleatorios fallaría la
+            // predicción en buena parte de las filas.
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                count += matches(students[i]) ? 1 : 0;
+            }
+            partial.count += count;
+            return;
+        }
+        final boolean byAge = value != StudentField.GRADE;
+        for (int i = from; i < to; i++) {
+            final Student s = students[i];
+            if (matches(s)) {
+                partial.add(byAge ? s.getAge() : s.getGrade());
+            }
+        }
+    }
+
+    /**
+     * Recorre en paralelo una tabla por palabras del bitset de activos. Los filtros por nombre se traducen una
+     * sola vez a códigos del diccionario, así que el ciclo sólo compara ints.
+     * @param table Estudiantes por columnas
+     * @param value Campo numérico que se agrega, o null si sólo se cuenta
+     * @return El estado combinado de todos los hilos
+     */
+    private Partial scan(final StudentTable table, final StudentField value) {
+        final int firstCode = codeIn(table.firstNameDictionary(), firstName);
+        final int lastCode = codeIn(table.lastNameDictionary(), lastName);
+        return IntStream.range(0, StudentTable.wordCount(table.size()))
+                .parallel()
+                .collect(Partial::new,
+                    (partial, w) -> scanWord(table, w, value, firstCode, lastCode, partial),
+                    Partial::merge);
+    }
+
+    /**
+     * Recorre las 64 filas de una palabra del bitset con el ciclo especializado para lo que se agrega; el
+     * bitset de estados pedidos entra en la misma conjunción que los demás filtros.
+     * @param table Estudiantes por columnas
+     * @param w Índice de la palabra
+     * @param value Campo numérico que se agrega, o null si sólo se cuenta
+     * @param firstCode Código del nombre pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}
+     * @param lastCode Código del apellido pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}
+     * @param partial Estado del hilo
+     */
+    private void scanWord(final StudentTable table, final int w, final StudentField value, final int firstCode,
+            final int lastCode, final Partial partial) {
+        final double[] ages = table.ages();
+        final int[] grades = table.grades();
+        final int[] firstNameCodes = table.firstNameCodes();
+        final int[] lastNameCodes = table.lastNameCodes();
+        final int base = w << 6;
+        final int end = Math.min(64, ages.length - base);
+        final long bits = (acceptCurrent ? table.currentBits()[w] : 0L) | (acceptInactive ? table.inactiveBits(w) : 0L);
+        if (value == null) {
+            // Sólo contar: sin saltos, como countNumberOfFailedStudentsOlderThan20ParallelTable.
+            int count = 0;
+            for (int j = 0; j < end; j++) {
+                final int row = base + j;
+                count += (int) (bits >>> j) & (matchesRow(ages[row], grades[row], firstNameCodes[row],
+                        lastNameCodes[row], firstCode, lastCode) ? 1 : 0);
+            }
+            partial.count += count;
+            return;
+        }
+        final boolean byAge = value != StudentField.GRADE;
+        for (int j = 0; j < end; j++) {
+            final int row = base + j;
+            if (((bits >>> j) & 1L) != 0
+                    && matchesRow(ages[row], grades[row], firstNameCodes[row], lastNameCodes[row], firstCode, lastCode)) {
+                partial.add(byAge ? ages[row] : grades[row]);
+            }
+        }
+    }
+
+    /**
+     * Revisa si una fila de una tabla cumple los filtros numéricos y de nombre; el estado ya lo filtró el bitset.
+     * @param age Edad de la fila
+     * @param grade Nota de la fila
+     * @param firstNameCode Código del nombre de la fila
+     * @param lastNameCode Código del apellido de la fila
+     * @param firstCode Código del nombre pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}
+     * @param lastCode Código del apellido pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}
+     * @return verdadero si la fila cumple los filtros
+     */
+    private boolean matchesRow(final double age, final int grade, final int firstNameCode, final int lastNameCode,
+            final int firstCode, final int lastCode) {
+        return age >= minAge & age <= maxAge & grade >= minGrade & grade <= maxGrade
+                & (firstCode == ANY_NAME | firstNameCode == firstCode)
+                & (lastCode == ANY_NAME | lastNameCode == lastCode);
+    }
+
+    /**
+     * Busca el código de un nombre en el diccionario de una tabla.
+     * @param dictionary Diccionario de la tabla
+     * @param name Nombre pedido, o null
+     * @return El código, {@link #ANY_NAME} si name es null o {@link #MISSING_NAME} si no está en el diccionario
+     */
+    private static int codeIn(final String[] dictionary, final String name) {
+        if (name == null) {
+            return ANY_NAME;
+        }
+        for (int c = 0; c < dictionary.length; c++) {
+            if (dictionary[c].equals(name)) {
+                return c;
+            }
+        }
+        return MISSING_NAME;
+    }
+
+    /**
+     * Rechaza una edad NaN.
+     * @param age Edad
+     * @return La misma edad
+     */
+    private static double requireAge(final double age) {
+        if (Double.isNaN(age)) {
+            throw new IllegalArgumentException("La edad no puede ser NaN");
+        }
+        return age;
+    }
+
+    /**
+     * Rechaza un nombre null.
+     * @param name Nombre
+     */
+    private static void requireName(final String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("El nombre no puede ser null");
+        }
+    }
+
+    /**
+     * Rechaza un campo que no es numérico.
+     * @param field Campo
+     * @return El mismo campo
+     */
+    private static StudentField requireNumeric(final StudentField field) {
+        if (field == null || !field.isNumeric()) {
+            throw new IllegalArgumentException("Se esperaba un campo numérico pero se recibió " + field);
+        }
+        return field;
+    }
+
+    /**
+     * Rechaza un campo que no es un nombre.
+     * @param field Campo
+     * @return El mismo campo
+     */
+    private static StudentField requireName(final StudentField field) {
+        if (field == null || field.isNumeric()) {
+            throw new IllegalArgumentException("Se esperaba un nombre o apellido pero se recibió " + field);
+        }
+        return field;
+    }
+
+    /**
+     * Rechaza una agrupación null.
+     * @param grouping Agrupación
+     * @return La misma agrupación
+     */
+    private static StudentGrouping requireGrouping(final StudentGrouping grouping) {
+        if (grouping == null) {
+            throw new IllegalArgumentException("La agrupación no puede ser null");
+        }
+        return grouping;
+    }
+
+    /**
+     * Filtro de una consulta traducido a los códigos de los diccionarios de una tabla.
+     */
+    final class TableFilter {
+        /**
+         * Estudiantes por columnas.
+         */
+        private final StudentTable table;
+        /**
+         * Código del nombre pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}.
+         */
+        private final int firstCode;
+        /**
+         * Código del apellido pedido, {@link #ANY_NAME} o {@link #MISSING_NAME}.
+         */
+        private final int lastCode;
+
+        /**
+         * Constructor.
+         * @param setTable Estudiantes por columnas
+         */
+        TableFilter(final StudentTable setTable) {
+            this.table = setTable;
+            this.firstCode = codeIn(setTable.firstNameDictionary(), firstName);
+            this.lastCode = codeIn(setTable.lastNameDictionary(), lastName);
+        }
+
+        /**
+         * Calcula qué filas de una palabra del bitset cumplen la consulta, sin saltos por fila.
+         * @param w Índice de la palabra
+         * @return Los bits de las filas w * 64 a w * 64 + 63 que cumplen la consulta
+         */
+        long rows(final int w) {
+            final double[] ages = table.ages();
+            final int[] grades = table.grades();
+            final int[] firstNameCodes = table.firstNameCodes();
+            final int[] lastNameCodes = table.lastNameCodes();
+            final int base = w << 6;
+            final int end = Math.min(64, ages.length - base);
+            long rows = 0;
+            for (int j = 0; j < end; j++) {
+                final int row = base + j;
+                rows |= (matchesRow(ages[row], grades[row], firstNameCodes[row], lastNameCodes[row], firstCode,
+                        lastCode) ? 1L : 0L) << j;
+            }
+            final long status = (acceptCurrent ? table.currentBits()[w] : 0L)
+                    | (acceptInactive ? table.inactiveBits(w) : 0L);
+            return rows & status;
+        }
+    }
+
+    /**
+     * Estado parcial de un hilo.
+     */
+    private static final class Partial {
+        /**
+         * Cantidad de estudiantes que cumplen la consulta.
+         */
+        private long count;
+        /**
+         * Suma del campo agregado.
+         */
+        private double sum;
+        /**
+         * Mínimo del campo agregado.
+         */
+        private double min = Double.POSITIVE_INFINITY;
+        /**
+         * Máximo del campo agregado.
+         */
+        private double max = Double.NEGATIVE_INFINITY;
+        /**
+         * Agrega un valor.
+         * @param v Valor del campo agregado
+         */
+        void add(final double v) {
+            count++;
+            sum += v;
+            if (v < min) {
+                min = v;
+            }
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        /**
+         * Suma a este estado el de otro hilo.
+         * @param other Estado de otro hilo
+         */
+        void merge(final Partial other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * Calcula el promedio.
+         * @return El promedio, o NaN si no hay valores
+         */
+        double average() {
+            return sum / (double) count;
+        }
+
+        /**
+         * Recupera el mínimo.
+         * @return El mínimo, o NaN si no hay valores
+         */
+        double min() {
+            return count == 0 ? Double.NaN : min;
+        }
+
+        /**
+         * Recupera el máximo.
+         * @return El máximo, o NaN si no hay valores
+         */
+        double max() {
+            return count == 0 ? Double.NaN : max;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package co.edu.unal.paralela;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla de estudiantes guardada por columnas (struct-of-arrays) en lugar de un objeto por estudiante.
+ *
+ * Cada campo vive en su propio arreglo primitivo: edades en un double[], notas en un int[] y si el estudiante
+ * está activo en un bitset de long[]. Los nombres y apellidos se codifican con un diccionario: cada fila guarda
+ * el código int del nombre y el diccionario guarda cada nombre distinto una sola vez. Así una consulta que sólo
+ * mira la edad recorre un arreglo contiguo de doubles, sin saltar a un objeto por fila, y el procesador trae a
+ * la caché sólo los bytes que usa. La tabla es inmutable una vez construida.
+ */
+public final class StudentTable {
+    /**
+     * Edad de cada estudiante.
+     */
+    private final double[] ages;
+    /**
+     * Nota de cada estudiante.
+     */
+    private final int[] grades;
+    /**
+     * Bitset de estudiantes activos: el bit i % 64 de la palabra i / 64 es el de la fila i.
+     */
+    private final long[] current;
+    /**
+     * Cantidad de estudiantes activos.
+     */
+    private final int currentCount;
+    /**
+     * Código del nombre de cada estudiante.
+     */
+    private final int[] firstNameCodes;
+    /**
+     * Código del apellido de cada estudiante.
+     */
+    private final int[] lastNameCodes;
+    /**
+     * Diccionario de nombres: el nombre con código c está en la posición c.
+     */
+    private final String[] firstNames;
+    /**
+     * Diccionario de apellidos: el apellido con código c está en la posición c.
+     */
+    private final String[] lastNames;
+
+    /**
+     * Constructor; también lo usa {@link StudentCsv}, que llena las columnas directamente.
+     * @param setAges Edad de cada estudiante
+     * @param setGrades Nota de cada estudiante
+     * @param setCurrent Bitset de estudiantes activos
+     * @param setCurrentCount Cantidad de estudiantes activos
+     * @param setFirstNameCodes Código del nombre de cada estudiante
+     * @param setLastNameCodes Código del apellido de cada estudiante
+     * @param setFirstNames Diccionario de nombres
+     * @param setLastNames Diccionario de apellidos
+     */
+    StudentTable(final double[] setAges, final int[] setGrades, final long[] setCurrent, final int setCurrentCount,
+            final int[] setFirstNameCodes, final int[] setLastNameCodes, final String[] setFirstNames,
+            final String[] setLastNames) {
+        this.ages = setAges;
+        this.grades = setGrades;
+        this.current = setCurrent;
+        this.currentCount = setCurrentCount;
+        this.firstNameCodes = setFirstNameCodes;
+        this.lastNameCodes = setLastNameCodes;
+        this.firstNames = setFirstNames;
+        this.lastNames = setLastNames;
+    }
+
+    /**
+     * Construye la tabla a partir de un arreglo de estudiantes, en un solo recorrido. Los códigos se asignan
+     * en el orden en que cada nombre aparece por primera vez.
+     *
+     * @param students Estudiantes; la fila i de la tabla es students[i]
+     * @return La tabla con los mismos datos
+     */
+    public static StudentTable fromStudents(final Student[] students) {
+        final int n = students.length;
+        final double[] ages = new double[n];
+        final int[] grades = new int[n];
+        final long[] current = new long[wordCount(n)];
+        final int[] firstNameCodes = new int[n];
+        final int[] lastNameCodes = new int[n];
+        final Map<String, Integer> firstNameIndex = new HashMap<String, Integer>();
+        final Map<String, Integer> lastNameIndex = new HashMap<String, Integer>();
+        final List<String> firstNames = new ArrayList<String>();
+        final List<String> lastNames = new ArrayList<String>();
+        int currentCount = 0;
+        for (int i = 0; i < n; i++) {
+            final Student s = students[i];
+            ages[i] = s.getAge();
+            grades[i] = s.getGrade();
+            if (s.checkIsCurrent()) {
+                current[i >>> 6] |= 1L << i;
+                currentCount++;
+            }
+            firstNameCodes[i] = encode(s.getFirstName(), firstNameIndex, firstNames);
+            lastNameCodes[i] = encode(s.getLastName(), lastNameIndex, lastNames);
+        }
+        return new StudentTable(ages, grades, current, currentCount, firstNameCodes, lastNameCodes,
+                firstNames.toArray(new String[0]), lastNames.toArray(new String[0]));
+    }
+
+    /**
+     * Busca el código de un nombre, agregándolo al diccionario si no estaba.
+     *
+     * @param name Nombre a codificar
+     * @param index Índice del diccionario, de nombre a código
+     * @param dictionary Diccionario, de código a nombre
+     * @return El código del nombre
+     */
+    private static int encode(final String name, final Map<String, Integer> index, final List<String> dictionary) {
+        final Integer code = index.get(name);
+        if (code != null) {
+            return code;
+        }
+        final int newCode = dictionary.size();
+        index.put(name, newCode);
+        dictionary.add(name);
+        return newCode;
+    }
+
+    /**
+     * Calcula la cantidad de palabras del bitset para n filas.
+     * @param n Cantidad de filas
+     * @return La cantidad de longs necesarios
+     */
+    static int wordCount(final int n) {
+        return (n + 63) >>> 6;
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes.
+     * @return La cantidad de filas de la tabla
+     */
+    public int size() {
+        return ages.length;
+    }
+
+    /**
+     * Recupera la cantidad de estudiantes activos.
+     * @return La cantidad de filas con el bit de activo encendido
+     */
+    public int getCurrentCount() {
+        return currentCount;
+    }
+
+    /**
+     * Recupera la edad de un estudiante.
+     * @param row Fila del estudiante
+     * @return Edad del estudiante
+     */
+    public double getAge(final int row) {
+        return ages[row];
+    }
+
+    /**
+     * Recupera la nota de un estudiante.
+     * @param row Fila del estudiante
+     * @return Nota del estudiante
+     */
+    public int getGrade(final int row) {
+        return grades[row];
+    }
+
+    /**
+     * Revisa si un estudiante está activo.
+     * @param row Fila del estudiante
+     * @return verdadero si el estudiante está registrado en la actualidad
+     */
+    public boolean checkIsCurrent(final int row) {
+        return (current[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Recupera el nombre de un estudiante.
+     * @param row Fila del estudiante
+     * @return Nombres del estudiante
+     */
+    public String getFirstName(final int row) {
+        return firstNames[firstNameCodes[row]];
+    }
+
+    /**
+     * Recupera el apellido de un estudiante.
+     * @param row Fila del estudiante
+     * @return Apellidos del estudiante
+     */
+    public String getLastName(final int row) {
+        return lastNames[lastNameCodes[row]];
+    }
+
+    /**
+     * Reconstruye el estudiante de una fila.
+     * @param row Fila del estudiante
+     * @return Un estudiante con los datos de la fila
+     */
+    public Student getStudent(final int row) {
+        return new Student(getFirstName(row), getLastName(row), ages[row], grades[row], checkIsCurrent(row));
+    }
+
+    /**
+     * Recupera una palabra del bitset de inactivos, es decir el complemento del bitset de activos sin los bits
+     * que sobran después de la última fila.
+     * @param word Índice de la palabra
+     * @return Los bits de las filas inactivas word * 64 a word * 64 + 63
+     */
+    long inactiveBits(final int word) {
+        final long bits = ~current[word];
+        final int rowsInWord = ages.length - (word << 6);
+        return rowsInWord >= 64 ? bits : bits & ((1L << rowsInWord) - 1);
+    }
+
+    /**
+     * Columna de edades, sin copiar; no se debe modificar.
+     * @return Las edades
+     */
+    double[] ages() {
+        return ages;
+    }
+
+    /**
+     * Columna de notas, sin copiar; no se debe modificar.
+     * @return Las notas
+     */
+    int[] grades() {
+        return grades;
+    }
+
+    /**
+     * Bitset de activos, sin copiar; no se debe modificar.
+     * @return Las palabras del bitset
+     */
+    long[] currentBits() {
+        return current;
+    }
+
+    /**
+     * Columna de códigos de nombre, sin copiar; no se debe modificar.
+     * @return Los códigos de nombre
+     */
+    int[] firstNameCodes() {
+        return firstNameCodes;
+    }
+
+    /**
+     * Columna de códigos de apellido, sin copiar; no se debe modificar.
+     * @return Los códigos de apellido
+     */
+    int[] lastNameCodes() {
+        return lastNameCodes;
+    }
+
+    /**
+     * Diccionario de nombres, sin copiar; no se debe modificar.
+     * @return Los nombres distintos, indexados por código
+     */
+    String[] firstNameDictionary() {
+        return firstNames;
+    }
+
+    /**
+     * Diccionario de apellidos, sin copiar; no se debe modificar.
+     * @return Los apellidos distintos, indexados por código
+     */
+    String[] lastNameDictionary() {
+        return lastNames;
+    }
+}
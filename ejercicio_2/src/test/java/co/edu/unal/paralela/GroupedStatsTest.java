@@ -0,0 +1,178 @@
+package co.edu.unal.paralela;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class GroupedStatsTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 1000000;
+    final static int N_CURRENT_STUDENTS = 300000;
+
+    /*
+     * Estudiantes al azar; algunos con edad NaN, que no entran en los rangos de edad.
+     */
+    private Student[] generateStudentData() {
+        final Random r = new Random(123);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int s = 0; s < N_STUDENTS; s++) {
+            final double age = s % 1000 == 7 ? Double.NaN : r.nextDouble() * 100.0;
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    age, 1 + r.nextInt(100), s < N_CURRENT_STUDENTS);
+        }
+        return students;
+    }
+
+    /*
+     * Etiqueta esperada de un estudiante para cada agrupación de la prueba, o null si no entra en ningún grupo.
+     */
+    private static String expectedKey(final Student s, final int grouping) {
+        switch (grouping) {
+            case 0:
+                return s.getFirstName();
+            case 1:
+                return s.getLastName();
+            case 2:
+                final int lo = s.getGrade() / 5 * 5;
+                return lo + "-" + (lo + 4);
+            default:
+                if (Double.isNaN(s.getAge())) {
+                    return null;
+                }
+                final long k = (long) Math.floor(s.getAge() / 2.5);
+                return "[" + k * 2.5 + ", " + (k + 1) * 2.5 + ")";
+        }
+    }
+
+    /*
+     * Compara un resultado con un agrupamiento secuencial en HashMap: cantidad, activos, notas perdidas y
+     * promedios de cada grupo.
+     */
+    private static void assertMatches(final Student[] students, final StudentQuery query, final int grouping,
+            final GroupedStats stats) {
+        final Map<String, long[]> counts = new HashMap<String, long[]>();
+        final Map<String, double[]> sums = new HashMap<String, double[]>();
+        for (Student s : students) {
+            final String key = expectedKey(s, grouping);
+            if (key == null || !query.matches(s)) {
+                continue;
+            }
+            final long[] c = counts.computeIfAbsent(key, k -> new long[3]);
+            final double[] d = sums.computeIfAbsent(key, k -> new double[2]);
+            c[0]++;
+            c[1] += s.checkIsCurrent() ? 1 : 0;
+            c[2] += s.getGrade() < 65 ? 1 : 0;
+            d[0] += s.getAge();
+            d[1] += s.getGrade();
+        }
+        assertEquals(counts.size(), stats.size());
+        for (int g = 0; g < stats.size(); g++) {
+            final String key = stats.getKey(g);
+            final long[] c = counts.get(key);
+            assertNotNull(key, c);
+            assertEquals(g, stats.indexOf(key));
+            assertEquals(key, c[0], stats.getCount(g));
+            assertEquals(key, c[1], stats.getCurrentCount(g));
+            assertEquals(key, c[2], stats.getFailedCount(g));
+            assertEquals(key, c[1] / (double) c[0], stats.getCurrentRatio(g), 1E-12);
+            assertEquals(key, sums.get(key)[0] / c[0], stats.getAverage(StudentField.AGE, g), 1E-9);
+            assertEquals(key, sums.get(key)[1] / c[0], stats.getAverage(StudentField.GRADE, g), 1E-9);
+        }
+    }
+
+    /*
+     * Prueba las cuatro agrupaciones sobre el arreglo y la tabla, sin filtro y con filtro, contra un
+     * agrupamiento secuencial.
+     */
+    public void testMatchesSequentialGrouping() {
+        final Student[] students = generateStudentData();
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final StudentGrouping[] groupings = {StudentGrouping.byFirstName(), StudentGrouping.byLastName(),
+            StudentGrouping.byGradeBand(5), StudentGrouping.byAgeBracket(2.5)};
+        final StudentQuery filter = StudentQuery.all().current(false).lastName("Smith").gradeAtLeast(40);
+        for (int g = 0; g < groupings.length; g++) {
+            assertMatches(students, StudentQuery.all(), g, analytics.groupBy(students, groupings[g]));
+            assertMatches(students, StudentQuery.all(), g, analytics.groupBy(table, groupings[g]));
+            assertMatches(students, filter, g, filter.groupBy(groupings[g], students));
+            assertMatches(students, filter, g, filter.groupBy(groupings[g], table));
+        }
+
+        // Las franjas quedan en orden numérico y no por etiqueta.
+        final GroupedStats bands = analytics.groupBy(table, StudentGrouping.byGradeBand(10));
+        assertEquals(11, bands.size());
+        assertEquals("0-9", bands.getKey(0));
+        assertEquals("100-109", bands.getKey(10));
+        final StudentQuery failed = StudentQuery.all().gradeLessThan(65);
+        assertEquals(1, failed.groupBy(StudentGrouping.byGradeBand(100), students).size());
+    }
+
+    /*
+     * Prueba casos pequeños: sin estudiantes, un nombre que no está en la tabla y edades negativas.
+     */
+    public void testSmallCases() {
+        final StudentAnalytics analytics = new StudentAnalytics();
+        assertEquals(0, analytics.groupBy(new Student[0], StudentGrouping.byFirstName()).size());
+        assertNull(StudentQuery.all().mode(StudentField.FIRST_NAME, new Student[0]));
+
+        final Student[] students = {
+            new Student("Max", "Smith", -1.0, 50, true),
+            new Student("Max", "Zhang", 0.5, 70, false),
+            new Student("Vivek", "Smith", Double.NaN, 90, false),
+        };
+        final StudentTable table = StudentTable.fromStudents(students);
+        final GroupedStats ages = analytics.groupBy(table, StudentGrouping.byAgeBracket(1));
+        assertEquals(2, ages.size());
+        assertEquals("[-1.0, 0.0)", ages.getKey(0));
+        assertEquals(1, ages.getFailedCount(0));
+        assertEquals(1.0, ages.getCurrentRatio(0));
+        assertEquals(-1, ages.indexOf("[1.0, 2.0)"));
+        assertEquals(0, StudentQuery.all().firstName("Nadie").groupBy(StudentGrouping.byLastName(), table).size());
+        final GroupedStats grades = StudentQuery.all().current(false).groupBy(StudentGrouping.byGradeBand(1), students);
+        assertEquals("70", grades.getKey(0));
+        assertEquals(60.0, analytics.groupBy(students, StudentGrouping.byFirstName())
+                .getAverage(StudentField.GRADE, 0), 1E-12);
+    }
+
+    /*
+     * Prueba los argumentos inválidos.
+     */
+    public void testInvalidArguments() {
+        try {
+            StudentGrouping.byGradeBand(0);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el ancho no es positivo.
+        }
+        try {
+            StudentGrouping.byAgeBracket(Double.NaN);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el ancho no es un número.
+        }
+        final Student[] students = {new Student("Max", "Smith", 0, 50, true),
+            new Student("Max", "Smith", 99, 50, true)};
+        try {
+            new StudentAnalytics().groupBy(students, StudentGrouping.byAgeBracket(1E-6));
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: demasiados grupos entre la menor y la mayor edad.
+        }
+        try {
+            StudentQuery.all().groupBy(null, students);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: falta la agrupación.
+        }
+        final GroupedStats stats = new StudentAnalytics().groupBy(students, StudentGrouping.byLastName());
+        try {
+            stats.getAverage(StudentField.FIRST_NAME, 0);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el nombre no es un campo numérico.
+        }
+    }
+}
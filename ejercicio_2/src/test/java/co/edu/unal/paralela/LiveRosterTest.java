@@ -0,0 +1,166 @@
+package co.edu.unal.paralela;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class LiveRosterTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 200000;
+    final static int WRITERS = 4;
+
+    private Student randomStudent(final Random r, final boolean current) {
+        return new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                r.nextDouble() * 100.0, 1 + r.nextInt(100), current);
+    }
+
+    private void assertMatches(final Student[] students, final LiveRoster roster) {
+        final StudentAnalytics analytics = new StudentAnalytics();
+        assertEquals(students.length, roster.size());
+        assertEquals(analytics.averageAgeOfEnrolledStudentsImperative(students), roster.getAverageAgeOfEnrolled(), 1E-6);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsHistogram(students), roster.getMostCommonFirstNameOfInactive());
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students), roster.getFailedOlderThan20());
+    }
+
+    /*
+     * Prueba que la carga inicial en paralelo da los mismos resultados que StudentAnalytics.
+     */
+    public void testInitialLoad() {
+        final Random r = new Random(123);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int i = 0; i < N_STUDENTS; i++) {
+            students[i] = randomStudent(r, i < N_STUDENTS * 3 / 10);
+        }
+        assertMatches(students, LiveRoster.of(students));
+    }
+
+    /*
+     * Prueba que el nombre más común de los inactivos cambia al bajar la cantidad del líder, que los empates se
+     * resuelven por orden lexicográfico y que un nombre que vuelve a 0 deja de contarse.
+     */
+    public void testMostCommonFollowsDecrements() {
+        final LiveRoster roster = LiveRoster.of(new Student[0]);
+        assertNull(roster.getMostCommonFirstNameOfInactive());
+        roster.insert(0, new Student("Vivek", "Sarkar", 30.0, 70, false));
+        roster.insert(1, new Student("Vivek", "Sarkar", 30.0, 70, false));
+        roster.insert(2, new Student("Max", "Grossman", 30.0, 70, false));
+        assertEquals("Vivek", roster.getMostCommonFirstNameOfInactive());
+        roster.remove(1);
+        assertEquals("Max", roster.getMostCommonFirstNameOfInactive());
+        roster.update(0, new Student("Vivek", "Sarkar", 31.0, 70, true));
+        assertEquals("Max", roster.getMostCommonFirstNameOfInactive());
+        assertEquals(0, roster.getInactiveCount("Vivek"));
+        roster.remove(2);
+        assertNull(roster.getMostCommonFirstNameOfInactive());
+        assertEquals(0, roster.getInactiveCount("Max"));
+    }
+
+    /*
+     * Prueba que con varios escritores concurrentes que cambian y quitan estudiantes distintos, los resultados
+     * finales coinciden con recalcular desde cero sobre los estudiantes que quedan.
+     */
+    public void testConcurrentUpdates() throws InterruptedException {
+        final Random r = new Random(7);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int i = 0; i < N_STUDENTS; i++) {
+            students[i] = randomStudent(r, r.nextBoolean());
+        }
+        final LiveRoster roster = LiveRoster.of(students);
+        final Student[] expected = students.clone();
+        final boolean[] removed = new boolean[N_STUDENTS];
+        final boolean[] wrongPrevious = new boolean[WRITERS];
+
+        final Thread[] writers = new Thread[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            writers[w] = new Thread(() -> {
+                final Random wr = new Random(writer);
+                // Cada escritor es dueño de los identificadores congruentes con su número, así que el
+                // resultado esperado no depende del orden entre escritores.
+                for (int id = writer; id < N_STUDENTS; id += WRITERS) {
+                    final int action = wr.nextInt(4);
+                    if (action == 0) {
+                        roster.remove(id);
+                        removed[id] = true;
+                    } else if (action == 1) {
+                        final Student s = randomStudent(wr, wr.nextBoolean());
+                        wrongPrevious[writer] |= roster.update(id, s) != students[id];
+                        expected[id] = s;
+                    }
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        final Student[] remaining = IntStream.range(0, N_STUDENTS)
+                .filter(id -> !removed[id])
+                .mapToObj(id -> expected[id])
+                .toArray(Student[]::new);
+        for (boolean wrong : wrongPrevious) {
+            assertFalse(wrong);
+        }
+        assertMatches(remaining, roster);
+        assertNull(roster.remove(-1));
+        try {
+            roster.update(-1, students[0]);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el estudiante no existe.
+        }
+    }
+
+    /*
+     * Prueba que con varios escritores que agregan y quitan inactivos de pocos nombres, con muchos empates y
+     * cambios de líder, y un lector que lo consulta mientras tanto, el nombre más común coincide con
+     * recalcularlo desde cero después de cada ronda.
+     */
+    public void testConcurrentLeaderChanges() throws InterruptedException {
+        final int slots = 64;
+        final int rounds = 50;
+        final LiveRoster roster = LiveRoster.of(new Student[0]);
+        final Student[] current = new Student[WRITERS * slots];
+        final StudentAnalytics analytics = new StudentAnalytics();
+        for (int round = 0; round < rounds; round++) {
+            final int seed = round;
+            final Thread[] writers = new Thread[WRITERS];
+            for (int w = 0; w < WRITERS; w++) {
+                final int writer = w;
+                writers[w] = new Thread(() -> {
+                    final Random wr = new Random(seed * WRITERS + writer);
+                    // Cada escritor es dueño de sus propias posiciones.
+                    for (int op = 0; op < 500; op++) {
+                        final int id = writer * slots + wr.nextInt(slots);
+                        if (current[id] == null) {
+                            current[id] = randomStudent(wr, false);
+                            roster.insert(id, current[id]);
+                        } else {
+                            roster.remove(id);
+                            current[id] = null;
+                        }
+                    }
+                });
+                writers[w].start();
+            }
+            // Un lector concurrente recalcula el líder vencido mientras los escritores lo cambian.
+            final Thread reader = new Thread(() -> {
+                while (Arrays.stream(writers).anyMatch(Thread::isAlive)) {
+                    roster.getMostCommonFirstNameOfInactive();
+                }
+            });
+            reader.start();
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            reader.join();
+            final Student[] remaining = Arrays.stream(current).filter(st -> st != null).toArray(Student[]::new);
+            assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsHistogram(remaining),
+                    roster.getMostCommonFirstNameOfInactive());
+        }
+    }
+}
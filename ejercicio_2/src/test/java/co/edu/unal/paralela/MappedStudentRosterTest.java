@@ -0,0 +1,107 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MappedStudentRosterTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max", "Iñaki"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 1000000;
+    final static int N_CURRENT_STUDENTS = 300000;
+
+    private Student[] generateStudentData(final int n) {
+        final Random r = new Random(123);
+        final Student[] students = new Student[n];
+        for (int s = 0; s < n; s++) {
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    r.nextDouble() * 100.0, 1 + r.nextInt(100), s < N_CURRENT_STUDENTS);
+        }
+        return students;
+    }
+
+    /*
+     * Prueba que el archivo mapeado devuelve los mismos estudiantes que se escribieron, con segmentos de 1024
+     * filas para que haya muchos, y que las consultas sobre el mapeo dan lo mismo que sobre el arreglo.
+     */
+    public void testRoundTrip() throws IOException {
+        final Student[] students = generateStudentData(N_STUDENTS - 7);
+        final Path file = Files.createTempFile("students", ".roster");
+        try {
+            MappedStudentRoster.write(StudentTable.fromStudents(students), file);
+            final MappedStudentRoster small = MappedStudentRoster.open(file, 10);
+            final MappedStudentRoster roster = MappedStudentRoster.open(file);
+            assertEquals(students.length, roster.size());
+            assertEquals(N_CURRENT_STUDENTS, roster.getCurrentCount());
+            for (int i = 0; i < students.length; i++) {
+                final Student s = small.getStudent(i);
+                assertEquals(students[i].getFirstName(), s.getFirstName());
+                assertEquals(students[i].getLastName(), s.getLastName());
+                assertEquals(students[i].getAge(), s.getAge());
+                assertEquals(students[i].getGrade(), s.getGrade());
+                assertEquals(students[i].checkIsCurrent(), s.checkIsCurrent());
+            }
+
+            final StudentAnalytics analytics = new StudentAnalytics();
+            for (MappedStudentRoster r : new MappedStudentRoster[] {small, roster}) {
+                assertEquals(analytics.averageAgeOfEnrolledStudentsImperative(students),
+                        analytics.averageAgeOfEnrolledStudentsMapped(r), 1e-9);
+                assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                        analytics.mostCommonFirstNameOfInactiveStudentsMapped(r));
+                assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                        analytics.countNumberOfFailedStudentsOlderThan20Mapped(r));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Prueba un grupo vacío y que se rechazan los archivos que no son de estudiantes, de otra versión o
+     * truncados.
+     */
+    public void testEmptyAndInvalidFiles() throws IOException {
+        final Path file = Files.createTempFile("students", ".roster");
+        try {
+            MappedStudentRoster.write(StudentTable.fromStudents(new Student[0]), file);
+            final MappedStudentRoster empty = MappedStudentRoster.open(file);
+            assertEquals(0, empty.size());
+            assertEquals(0, new StudentAnalytics().countNumberOfFailedStudentsOlderThan20Mapped(empty));
+
+            MappedStudentRoster.write(StudentTable.fromStudents(generateStudentData(1000)), file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                final ByteBuffer version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                version.putInt(0, MappedStudentRoster.VERSION + 1);
+                channel.write(version, MappedStudentRoster.MAGIC.length());
+            }
+            assertInvalid(file);
+
+            MappedStudentRoster.write(StudentTable.fromStudents(generateStudentData(1000)), file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+            assertInvalid(file);
+
+            Files.write(file, "firstName,lastName,age,grade,isCurrent\n".getBytes("UTF-8"));
+            assertInvalid(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void assertInvalid(final Path file) throws IOException {
+        try {
+            MappedStudentRoster.open(file);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el archivo no se puede leer con esta versión.
+        }
+    }
+}
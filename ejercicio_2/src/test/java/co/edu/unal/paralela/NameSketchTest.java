@@ -0,0 +1,126 @@
+package co.edu.unal.paralela;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class NameSketchTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 1000000;
+    final static int N_CURRENT_STUDENTS = 300000;
+
+    /*
+     * Nombres con una distribución de Zipf aproximada: pocos nombres muy frecuentes y muchísimos raros.
+     */
+    private String[] generateSkewedNames(final int n) {
+        final Random r = new Random(123);
+        final String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = "Nombre" + (int) Math.exp(r.nextDouble() * Math.log(200000));
+        }
+        return names;
+    }
+
+    /*
+     * Prueba que con menos nombres distintos que la capacidad el resumen es exacto y coincide con el histograma.
+     */
+    public void testExactWithFewNames() {
+        final Random r = new Random(123);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int s = 0; s < N_STUDENTS; s++) {
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    r.nextDouble() * 100.0, 1 + r.nextInt(100), s < N_CURRENT_STUDENTS);
+        }
+        final StudentAnalytics analytics = new StudentAnalytics();
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsHistogram(students),
+                analytics.mostCommonFirstNameOfInactiveStudentsApproximate(students, 16));
+
+        final NameHistogram histogram = NameHistogram.ofFirstNamesOfInactive(students);
+        final NameSketch sketch = NameSketch.ofFirstNamesOfInactive(students, 16);
+        assertEquals(N_STUDENTS - N_CURRENT_STUDENTS, sketch.getTotal());
+        assertEquals(0, sketch.getUnseenBound());
+        final List<NameSketch.HeavyHitter> top = sketch.top(10);
+        assertEquals(firstNames.length, top.size());
+        for (NameSketch.HeavyHitter hitter : top) {
+            assertEquals(0, hitter.getError());
+            assertEquals(histogram.getCount(hitter.getName()), hitter.getCount());
+        }
+        assertEquals(2, sketch.top(2).size());
+    }
+
+    /*
+     * Prueba las cotas con muchos nombres distintos, contando en paralelo con el collector: la cantidad real de
+     * cada nombre del resumen está entre sus cotas, todo nombre sin contador está por debajo de la cota de los
+     * no vistos, y el nombre más común reportado no se aleja del real más que su error.
+     */
+    public void testBoundsWithManyNames() {
+        final String[] names = generateSkewedNames(N_STUDENTS);
+        final Map<String, Integer> exact = new HashMap<String, Integer>();
+        for (String name : names) {
+            exact.merge(name, 1, Integer::sum);
+        }
+        final int capacity = 200;
+        final NameSketch sketch = IntStream.range(0, names.length)
+                .parallel()
+                .mapToObj(i -> names[i])
+                .collect(NameSketch.collector(capacity));
+        assertEquals(N_STUDENTS, sketch.getTotal());
+        assertTrue(sketch.getUnseenBound() > 0);
+        assertTrue(sketch.getUnseenBound() <= 4 * N_STUDENTS / capacity);
+
+        final List<NameSketch.HeavyHitter> top = sketch.top(capacity);
+        assertEquals(capacity, top.size());
+        final Map<String, NameSketch.HeavyHitter> tracked = new HashMap<String, NameSketch.HeavyHitter>();
+        for (NameSketch.HeavyHitter hitter : top) {
+            final int count = exact.get(hitter.getName());
+            assertTrue(hitter.toString(), hitter.getLowerBound() <= count && count <= hitter.getCount());
+            assertTrue(hitter.getError() <= sketch.getUnseenBound());
+            tracked.put(hitter.getName(), hitter);
+        }
+        String mostCommon = null;
+        for (Map.Entry<String, Integer> entry : exact.entrySet()) {
+            if (!tracked.containsKey(entry.getKey())) {
+                assertTrue(entry.getValue() <= sketch.getUnseenBound());
+            }
+            if (mostCommon == null || entry.getValue() > exact.get(mostCommon)) {
+                mostCommon = entry.getKey();
+            }
+        }
+        final NameSketch.HeavyHitter first = top.get(0);
+        assertEquals(first.getName(), sketch.mostCommon());
+        assertTrue(exact.get(mostCommon) - exact.get(first.getName()) <= first.getError());
+
+        // El mismo conteo secuencial, en un solo resumen, no pasa de total / capacity.
+        final NameSketch sequential = new NameSketch(capacity);
+        for (String name : names) {
+            sequential.add(name);
+        }
+        assertTrue(sequential.getUnseenBound() <= N_STUDENTS / capacity);
+        assertEquals(sketch.mostCommon(), sequential.mostCommon());
+    }
+
+    /*
+     * Prueba los argumentos inválidos.
+     */
+    public void testInvalidArguments() {
+        try {
+            new NameSketch(0);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: la capacidad no es positiva.
+        }
+        final NameSketch sketch = new NameSketch(4);
+        assertNull(sketch.mostCommon());
+        try {
+            sketch.add("Max", -1);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: la cantidad es negativa.
+        }
+    }
+}
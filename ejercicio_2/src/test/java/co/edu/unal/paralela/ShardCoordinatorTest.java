@@ -0,0 +1,195 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class ShardCoordinatorTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    private final static Set<RosterQuery> ALL_QUERIES = EnumSet.allOf(RosterQuery.class);
+    final static int N_STUDENTS = 300000;
+
+    private Student[] generateStudentData() {
+        final Random r = new Random(123);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int s = 0; s < N_STUDENTS; s++) {
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    r.nextDouble() * 100.0, 1 + r.nextInt(100), r.nextInt(10) < 3);
+        }
+        return students;
+    }
+
+    private static void deleteAll(final Path directory, final List<Path> shards) throws IOException {
+        for (Path shard : shards) {
+            Files.deleteIfExists(shard);
+        }
+        Files.delete(directory);
+    }
+
+    private static void assertSameReport(final RosterReport expected, final RosterReport actual) {
+        assertEquals(expected.getAverageAgeOfEnrolled(), actual.getAverageAgeOfEnrolled(), 1E-9);
+        assertEquals(expected.getMostCommonFirstNameOfInactive(), actual.getMostCommonFirstNameOfInactive());
+        assertEquals(expected.getFailedOlderThan20(), actual.getFailedOlderThan20());
+    }
+
+    /*
+     * Prueba que tres procesos de fragmentos dan los mismos resultados que el recorrido en una sola JVM, con
+     * todas las consultas y con una sola.
+     */
+    public void testMatchesSingleJvm() throws IOException {
+        final Student[] students = generateStudentData();
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final Path directory = Files.createTempDirectory("shards");
+        final List<Path> shards = ShardCoordinator.writeShards(students, 3, directory);
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(shards, 30000)) {
+            assertEquals(3, coordinator.getShardCount());
+            final ShardedReport sharded = coordinator.analyze(ALL_QUERIES);
+            assertTrue(sharded.isComplete());
+            assertEquals(3, sharded.getAnsweredCount());
+            assertSameReport(analytics.analyze(students, ALL_QUERIES), sharded.getReport());
+
+            final RosterReport failed = coordinator.analyze(EnumSet.of(RosterQuery.FAILED_OLDER_THAN_20)).getReport();
+            assertFalse(failed.contains(RosterQuery.AVERAGE_AGE_OF_ENROLLED));
+            assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                    failed.getFailedOlderThan20());
+        } finally {
+            deleteAll(directory, shards);
+        }
+    }
+
+    /*
+     * Prueba que un fragmento lento, que acepta la conexión y nunca responde, y uno que no acepta conexiones no
+     * bloquean la consulta: vence el plazo y el reporte cubre sólo a los fragmentos que respondieron.
+     */
+    public void testSlowShardGivesPartialResult() throws IOException {
+        final Student[] students = generateStudentData();
+        final Path directory = Files.createTempDirectory("shards");
+        final List<Path> shards = ShardCoordinator.writeShards(students, 2, directory);
+        final List<Socket> accepted = Collections.synchronizedList(new ArrayList<Socket>());
+        try (ShardWorker first = ShardWorker.start(shards.get(0), 0);
+                ShardWorker second = ShardWorker.start(shards.get(1), 0);
+                ServerSocket slow = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        accepted.add(slow.accept());
+                    }
+                } catch (IOException e) {
+                    // El servidor lento se cerró.
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            final int closedPort;
+            try (ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+                closedPort = closed.getLocalPort();
+            }
+            final InetAddress loopback = InetAddress.getLoopbackAddress();
+            final List<InetSocketAddress> workers = Arrays.asList(new InetSocketAddress(loopback, first.getPort()),
+                    new InetSocketAddress(loopback, slow.getLocalPort()),
+                    new InetSocketAddress(loopback, second.getPort()),
+                    new InetSocketAddress(loopback, closedPort));
+            try (ShardCoordinator coordinator = ShardCoordinator.connect(workers, 1000)) {
+                final long start = System.currentTimeMillis();
+                final ShardedReport sharded = coordinator.analyze(ALL_QUERIES);
+                final long elapsed = System.currentTimeMillis() - start;
+                assertTrue("Tardó " + elapsed + " ms", elapsed < 5000);
+                assertFalse(sharded.isComplete());
+                assertEquals(4, sharded.getShardCount());
+                assertEquals(2, sharded.getAnsweredCount());
+                assertEquals(Arrays.asList(1, 3), sharded.getMissingShards());
+                // Los fragmentos 0 y 2 son todos los estudiantes.
+                assertSameReport(new StudentAnalytics().analyze(students, ALL_QUERIES), sharded.getReport());
+            }
+        } finally {
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+            deleteAll(directory, shards);
+        }
+    }
+
+    /*
+     * Prueba los argumentos inválidos.
+     */
+    public void testInvalidArguments() throws IOException {
+        final List<InetSocketAddress> workers = Collections.singletonList(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 1));
+        try {
+            ShardCoordinator.connect(workers, 0);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el plazo no es positivo.
+        }
+        try {
+            ShardCoordinator.connect(Collections.<InetSocketAddress>emptyList(), 1000);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: no hay fragmentos.
+        }
+        try {
+            ShardCoordinator.writeShards(new Student[0], 0, Paths.get(System.getProperty("java.io.tmpdir")));
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: la cantidad de fragmentos no es positiva.
+        }
+        try (ShardCoordinator coordinator = ShardCoordinator.connect(workers, 1000)) {
+            coordinator.analyze(EnumSet.noneOf(RosterQuery.class));
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: no se pidió ninguna consulta.
+        }
+    }
+
+    /*
+     * Prueba que un proceso que nunca anuncia su puerto no bloquea el arranque: se vence el plazo, se lanza
+     * IOException y el proceso se mata.
+     */
+    public void testSilentWorkerTimesOut() throws IOException, InterruptedException {
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SilentWorker.class.getName()).start();
+        try {
+            final long start = System.nanoTime();
+            try {
+                ShardCoordinator.awaitPorts(Collections.singletonList(process),
+                        Collections.singletonList(Paths.get("silent.roster")), 500);
+                fail("Se esperaba IOException");
+            } catch (IOException e) {
+                // Esperado: el proceso no escribió su puerto.
+                assertTrue(e.getMessage(), e.getMessage().contains("no anunció su puerto"));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Proceso que se queda esperando su entrada estándar sin anunciar ningún puerto.
+     */
+    public static final class SilentWorker {
+        public static void main(final String[] args) throws IOException {
+            while (System.in.read() >= 0) {
+                // Se descarta la entrada.
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package co.edu.unal.paralela;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 import junit.framework.TestCase;
 
@@ -160,4 +164,158 @@ public class StudentAnalyticsTest extends TestCase {
         assertTrue(msg, speedup > 1.2);
     }
 
+    /*
+     * Prueba que la tabla por columnas conserva los datos de cada estudiante y que las consultas sobre ella
+     * coinciden con las versiones imperativas, también con una cantidad de filas que no es múltiplo de 64.
+     */
+    public void testParallelTableQueries() {
+        final Student[] all = generateStudentData();
+        final Student[] students = Arrays.copyOf(all, all.length - 13);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        assertEquals(students.length, table.size());
+        for (int i = 0; i < students.length; i += 997) {
+            final Student s = table.getStudent(i);
+            assertEquals(students[i].getFirstName(), s.getFirstName());
+            assertEquals(students[i].getLastName(), s.getLastName());
+            assertEquals(students[i].getAge(), s.getAge());
+            assertEquals(students[i].getGrade(), s.getGrade());
+            assertEquals(students[i].checkIsCurrent(), s.checkIsCurrent());
+        }
+
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        assertEquals(refAge, analytics.averageAgeOfEnrolledStudentsParallelTable(table), 1E-5);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                analytics.mostCommonFirstNameOfInactiveStudentsParallelTable(table));
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                analytics.countNumberOfFailedStudentsOlderThan20ParallelTable(table));
+    }
+
+    /*
+     * Prueba que el conteo con histogramas primitivos coincide con las versiones existentes y que resuelve
+     * los empates de forma determinista.
+     */
+    public void testMostCommonFirstNameHistogram() {
+        final Student[] students = generateStudentData();
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final String ref = analytics.mostCommonFirstNameOfInactiveStudentsImperative(students);
+        assertEquals(ref, analytics.mostCommonFirstNameOfInactiveStudentsHistogram(students));
+        assertEquals(ref, analytics.mostCommonFirstNameOfInactiveStudentsParallelStream(students));
+
+        final NameHistogram histogram = NameHistogram.ofFirstNamesOfInactive(students);
+        int inactiveWithRefName = 0;
+        for (Student s : students) {
+            if (!s.checkIsCurrent() && s.getFirstName().equals(ref)) {
+                inactiveWithRefName++;
+            }
+        }
+        assertEquals(inactiveWithRefName, histogram.getCount(ref));
+        assertEquals(students.length - 600000, histogram.getTotal());
+
+        // Nombres construidos con new String para que no compartan referencia.
+        final Student[] tied = {
+            new Student(new String("Vivek"), "Sarkar", 30, 50, false),
+            new Student(new String("Max"), "Grossman", 30, 50, false),
+            new Student(new String("Vivek"), "Sarkar", 30, 50, false),
+            new Student(new String("Max"), "Grossman", 30, 50, false),
+            new Student(new String("Shams"), "Imam", 30, 50, true),
+        };
+        assertEquals("Max", analytics.mostCommonFirstNameOfInactiveStudentsHistogram(tied));
+        assertNull(analytics.mostCommonFirstNameOfInactiveStudentsHistogram(new Student[0]));
+    }
+
+    /*
+     * Prueba que el recorrido combinado da los mismos resultados que cada consulta por separado, sobre el
+     * arreglo y sobre la tabla por columnas, y que sólo entrega las consultas pedidas.
+     */
+    public void testFusedAnalyze() {
+        final Student[] students = generateStudentData();
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final String refName = analytics.mostCommonFirstNameOfInactiveStudentsImperative(students);
+        final int refFailed = analytics.countNumberOfFailedStudentsOlderThan20Imperative(students);
+
+        final Set<RosterQuery> all = EnumSet.allOf(RosterQuery.class);
+        for (RosterReport report : new RosterReport[] {analytics.analyze(students, all), analytics.analyze(table, all)}) {
+            assertEquals(refAge, report.getAverageAgeOfEnrolled(), 1E-5);
+            assertEquals(refName, report.getMostCommonFirstNameOfInactive());
+            assertEquals(refFailed, report.getFailedOlderThan20());
+        }
+
+        final Set<RosterQuery> failedOnly = EnumSet.of(RosterQuery.FAILED_OLDER_THAN_20);
+        final RosterReport partial = analytics.analyze(table, failedOnly);
+        assertEquals(refFailed, partial.getFailedOlderThan20());
+        assertFalse(partial.contains(RosterQuery.AVERAGE_AGE_OF_ENROLLED));
+        try {
+            partial.getMostCommonFirstNameOfInactive();
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Esperado: la consulta no se pidió.
+        }
+    }
+
+    /*
+     * Prueba que las consultas armadas con StudentQuery coinciden con las versiones imperativas y con recorridos
+     * a mano, sobre el arreglo y sobre la tabla por columnas.
+     */
+    public void testStudentQuery() {
+        final Student[] students = generateStudentData();
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        final StudentQuery failed = StudentQuery.all().current(false).ageGreaterThan(20).gradeLessThan(65);
+        final StudentQuery enrolled = StudentQuery.all().current(true);
+        final StudentQuery inactive = StudentQuery.all().current(false);
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final String refName = analytics.mostCommonFirstNameOfInactiveStudentsImperative(students);
+        final int refFailed = analytics.countNumberOfFailedStudentsOlderThan20Imperative(students);
+        assertEquals(refFailed, failed.count(students));
+        assertEquals(refFailed, failed.count(table));
+        assertEquals(refAge, enrolled.average(StudentField.AGE, students), 1E-5);
+        assertEquals(refAge, enrolled.average(StudentField.AGE, table), 1E-5);
+        assertEquals(refName, inactive.mode(StudentField.FIRST_NAME, students));
+        assertEquals(refName, inactive.mode(StudentField.FIRST_NAME, table));
+        assertEquals(1.0, StudentQuery.all().min(StudentField.GRADE, table));
+        assertEquals(100.0, StudentQuery.all().max(StudentField.GRADE, students));
+
+        final StudentQuery smiths = StudentQuery.all().lastName("Smith").ageBetween(30, 40).gradeAtLeast(50);
+        long refCount = 0;
+        double refGradeSum = 0;
+        for (Student s : students) {
+            if (s.getLastName().equals("Smith") && s.getAge() >= 30 && s.getAge() <= 40 && s.getGrade() >= 50) {
+                refCount++;
+                refGradeSum += s.getGrade();
+            }
+        }
+        assertEquals(refCount, smiths.count(students));
+        assertEquals(refCount, smiths.count(table));
+        assertEquals(refGradeSum / refCount, smiths.average(StudentField.GRADE, table), 1E-9);
+
+        final Map<String, Long> byLastName = inactive.countBy(StudentField.LAST_NAME, students);
+        assertEquals(byLastName, inactive.countBy(StudentField.LAST_NAME, table));
+        long total = 0;
+        for (long count : byLastName.values()) {
+            total += count;
+        }
+        assertEquals(students.length - 600000, total);
+        final Map<String, Double> ageByName = inactive.averageBy(StudentField.FIRST_NAME, StudentField.AGE, students);
+        final Map<String, Double> ageByNameTable = inactive.averageBy(StudentField.FIRST_NAME, StudentField.AGE, table);
+        for (String name : firstNames) {
+            assertEquals(ageByName.get(name), ageByNameTable.get(name), 1E-9);
+        }
+
+        final StudentQuery none = StudentQuery.all().firstName("Max").firstName("John");
+        assertEquals(0, none.count(students));
+        assertEquals(0, StudentQuery.all().firstName("Nadie").count(table));
+        assertTrue(Double.isNaN(none.average(StudentField.AGE, table)));
+        assertNull(none.mode(StudentField.LAST_NAME, students));
+        try {
+            StudentQuery.all().average(StudentField.FIRST_NAME, students);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el nombre no es numérico.
+        }
+    }
 }
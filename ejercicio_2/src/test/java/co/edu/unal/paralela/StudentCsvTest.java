@@ -0,0 +1,101 @@
+package co.edu.unal.paralela;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StudentCsvTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max", "Iñaki"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 300000;
+
+    private Student[] generateStudentData() {
+        final Random r = new Random(123);
+        final Student[] students = new Student[N_STUDENTS];
+        for (int s = 0; s < N_STUDENTS; s++) {
+            // Mitad de las edades con un decimal, que va por el camino rápido, y mitad con todos los dígitos.
+            final double age = s % 2 == 0 ? Math.round(r.nextDouble() * 1000.0) / 10.0 : r.nextDouble() * 100.0;
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    age, 1 + r.nextInt(100), s % 3 == 0);
+        }
+        return students;
+    }
+
+    private void assertSameStudent(final Student expected, final Student actual) {
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getAge(), actual.getAge());
+        assertEquals(expected.getGrade(), actual.getGrade());
+        assertEquals(expected.checkIsCurrent(), actual.checkIsCurrent());
+    }
+
+    /*
+     * Prueba que leer lo escrito devuelve los mismos estudiantes, como tabla y como arreglo, con trozos pequeños
+     * para que haya muchos cortes y palabras del bitset compartidas entre trozos, y que los nombres quedan
+     * deduplicados.
+     */
+    public void testRoundTrip() throws IOException {
+        final Student[] students = generateStudentData();
+        final Path file = Files.createTempFile("students", ".csv");
+        try {
+            StudentCsv.write(students, file);
+            final StudentTable table = StudentCsv.readTable(file, 100000);
+            final Student[] read = StudentCsv.readStudents(file, 77777);
+            assertEquals(students.length, table.size());
+            assertEquals(students.length, read.length);
+            int current = 0;
+            for (int i = 0; i < students.length; i++) {
+                assertSameStudent(students[i], table.getStudent(i));
+                assertSameStudent(students[i], read[i]);
+                current += students[i].checkIsCurrent() ? 1 : 0;
+            }
+            assertEquals(current, table.getCurrentCount());
+            assertEquals(firstNames.length, table.firstNameDictionary().length);
+            for (int i = 1; i < read.length; i++) {
+                if (read[i].getLastName().equals(read[0].getLastName())) {
+                    assertSame(read[0].getLastName(), read[i].getLastName());
+                }
+            }
+
+            final StudentAnalytics analytics = new StudentAnalytics();
+            assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                    analytics.countNumberOfFailedStudentsOlderThan20ParallelTable(StudentCsv.readTable(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Prueba un archivo sin encabezado, con finales de línea \r\n, líneas vacías, exponentes, estados 1/0 y sin
+     * salto de línea al final, y que una línea mal formada produce IllegalArgumentException.
+     */
+    public void testFormatVariants() throws IOException {
+        final Path file = Files.createTempFile("students", ".csv");
+        try {
+            final String csv = "Max,Grossman,23.5,87,true\r\n\r\nVivek,Sarkar,1.5E1,-3,0\n\nShams,Imam,-0.0,100,1";
+            Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+            final Student[] read = StudentCsv.readStudents(file);
+            assertEquals(3, read.length);
+            assertSameStudent(new Student("Max", "Grossman", 23.5, 87, true), read[0]);
+            assertSameStudent(new Student("Vivek", "Sarkar", 15.0, -3, false), read[1]);
+            assertSameStudent(new Student("Shams", "Imam", -0.0, 100, true), read[2]);
+
+            Files.write(file, (StudentCsv.HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+            assertEquals(0, StudentCsv.readTable(file).size());
+
+            Files.write(file, "Max,Grossman,23.5,87,true\nVivek,Sarkar,veinte,50,false\n".getBytes(StandardCharsets.UTF_8));
+            try {
+                StudentCsv.readTable(file);
+                fail("Se esperaba IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // Esperado: la edad no es un número.
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package co.edu.unal.paralela;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StudentIndexTest extends TestCase {
+    private final static String[] firstNames = {"Sanjay", "Yunming", "John", "Vivek", "Shams", "Max"};
+    private final static String[] lastNames = {"Chatterjee", "Zhang", "Smith", "Sarkar", "Imam", "Grossman"};
+    final static int N_STUDENTS = 1000000;
+    final static int N_CURRENT_STUDENTS = 300000;
+
+    private Student[] generateStudentData(final int n) {
+        final Random r = new Random(123);
+        final Student[] students = new Student[n];
+        for (int s = 0; s < n; s++) {
+            students[s] = new Student(firstNames[r.nextInt(firstNames.length)], lastNames[r.nextInt(lastNames.length)],
+                    r.nextDouble() * 100.0, 1 + r.nextInt(100), s < N_CURRENT_STUDENTS);
+        }
+        return students;
+    }
+
+    /*
+     * Prueba que el conteo con índices coincide con el recorrido completo para consultas alineadas con los
+     * grupos, con bordes que hay que verificar, con filtros por nombre y tan poco selectivas que recorren la tabla.
+     */
+    public void testCountMatchesScan() {
+        final Student[] students = generateStudentData(N_STUDENTS - 7);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentIndex index = StudentIndex.build(table);
+        final StudentAnalytics analytics = new StudentAnalytics();
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                analytics.countNumberOfFailedStudentsOlderThan20Indexed(index));
+
+        final StudentQuery[] queries = {
+            StudentQuery.all(),
+            StudentQuery.all().current(true),
+            StudentQuery.all().current(false).gradeBetween(90, 92),
+            StudentQuery.all().ageBetween(33.3, 34.1).gradeAtLeast(97),
+            StudentQuery.all().current(true).ageLessThan(7.5).gradeLessThan(3),
+            StudentQuery.all().firstName("Max").gradeBetween(40, 44).ageGreaterThan(80),
+            StudentQuery.all().lastName("Nadie").ageBetween(10, 20),
+            StudentQuery.all().gradeLessThan(50),
+            StudentQuery.all().firstName("Max"),
+            StudentQuery.all().current(true).current(false),
+            StudentQuery.all().gradeBetween(200, 300),
+        };
+        for (StudentQuery query : queries) {
+            assertEquals(query.count(table), index.count(query));
+        }
+    }
+
+    /*
+     * Prueba que los bloques de filas todas activas o todas inactivas quedan comprimidos y que el índice
+     * funciona con otros anchos de grupo.
+     */
+    public void testCompressionAndWidths() {
+        final Student[] students = generateStudentData(N_STUDENTS);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentIndex index = StudentIndex.build(table, 10, 7.5);
+        assertEquals(11, index.getGradeBuckets());
+        assertEquals(14, index.getAgeBuckets());
+        // Sólo el bloque donde terminan los activos tiene activos e inactivos mezclados.
+        final int blocks = (N_STUDENTS + 65535) / 65536;
+        assertEquals(1 + blocks * (11 + 14), index.getDenseBlocks());
+
+        final StudentQuery query = StudentQuery.all().current(true).ageBetween(15, 30).gradeBetween(20, 39);
+        assertEquals(query.count(table), index.count(query));
+
+        try {
+            StudentIndex.build(table, 0, 5);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Esperado: el ancho no es positivo.
+        }
+        final StudentIndex empty = StudentIndex.build(StudentTable.fromStudents(new Student[0]));
+        assertEquals(0, empty.count(StudentQuery.all()));
+    }
+}